@@ -0,0 +1,61 @@
+package ch.heigvd.poo.bench;
+
+import ch.heigvd.poo.chess.PlayerColor;
+import ch.heigvd.poo.engine.board.GBoard;
+import ch.heigvd.poo.engine.moves.MoveGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the board on the checked-in positions: a move and check detection.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BoardBenchmark {
+    @Param({"start", "opening", "middlegame", "endgame"})
+    private String position;
+
+    private GBoard board;
+    private PlayerColor color;
+    private int[] move;
+
+    /**
+     * Sets the board to the position and chooses the move played by {@link #move}.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        board = new GBoard();
+        color = Positions.replay(board, position);
+        move = Positions.reversibleMove(board, color);
+    }
+
+    /**
+     * Plays a quiet move and takes it back, so the board is the same before each call.
+     *
+     * @param blackhole consumes the results of the two moves
+     */
+    @Benchmark
+    public void move(Blackhole blackhole) {
+        blackhole.consume(board.move(move[0], move[1], move[2], move[3], color));
+        blackhole.consume(board.move(move[2], move[3], move[0], move[1], color));
+    }
+
+    /**
+     * Checks if the king of the player to move is in check.
+     *
+     * @return true if the king is in check
+     */
+    @Benchmark
+    public boolean isCheck() {
+        return MoveGenerator.inCheck(board.snapshot());
+    }
+}
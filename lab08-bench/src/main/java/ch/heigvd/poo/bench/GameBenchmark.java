@@ -0,0 +1,60 @@
+package ch.heigvd.poo.bench;
+
+import ch.heigvd.poo.engine.CEngine;
+import ch.heigvd.poo.engine.board.GBoard;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of whole games: setting up the board and playing the scripted game through the controller.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class GameBenchmark {
+    private int[][] moves;
+
+    /**
+     * Converts the moves of the scripted game once, outside of the measures.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        moves = Positions.coordinates(Positions.game());
+    }
+
+    /**
+     * Creates a board with the pieces of the starting position.
+     *
+     * @return the board
+     */
+    @Benchmark
+    public GBoard initBoard() {
+        GBoard board = new GBoard();
+        board.initBoard();
+        return board;
+    }
+
+    /**
+     * Plays the scripted game through a new controller, with a view that displays nothing.
+     *
+     * @return the controller at the end of the game
+     * @throws IllegalStateException if the controller rejects a move
+     */
+    @Benchmark
+    public CEngine game() {
+        CEngine engine = new CEngine();
+        engine.start(Positions.NO_VIEW);
+        engine.newGame();
+        for (int[] move : moves)
+            if (!engine.move(move[0], move[1], move[2], move[3]))
+                throw new IllegalStateException("The controller rejects a move of the scripted game");
+        return engine;
+    }
+}
@@ -0,0 +1,105 @@
+package ch.heigvd.poo.bench;
+
+import ch.heigvd.poo.chess.PieceType;
+import ch.heigvd.poo.engine.board.GBoard;
+import ch.heigvd.poo.engine.board.GCell;
+import ch.heigvd.poo.engine.pieces.Piece;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the rules of each type of piece on the checked-in positions.
+ * Each call asks every piece of the type, from its cell, about every cell of the board.
+ * Pieces are shared flyweights without state, so the rules only depend on the two cells given.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PieceBenchmark {
+    private static final int BOARD_SIZE = 8;
+
+    @Param({"start", "middlegame", "endgame"})
+    private String position;
+
+    @Param({"PAWN", "KNIGHT", "BISHOP", "ROOK", "QUEEN", "KING"})
+    private PieceType type;
+
+    private Piece[] pieces;
+    private GCell[] cells;
+    private GCell[][] targets;
+    private GCell[][] reachable;
+
+    /**
+     * Sets the board to the position and lists the cells asked to each piece.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        GBoard board = new GBoard();
+        Positions.replay(board, position);
+
+        List<Piece> found = new ArrayList<>();
+        List<GCell> foundCells = new ArrayList<>();
+        for (int row = 0; row < BOARD_SIZE; row++) {
+            for (int col = 0; col < BOARD_SIZE; col++) {
+                GCell cell = new GCell(row, col);
+                Piece piece = board.getPiece(cell);
+                if (piece != null && piece.getType() == type) {
+                    found.add(piece);
+                    foundCells.add(cell);
+                }
+            }
+        }
+        pieces = found.toArray(new Piece[0]);
+        cells = foundCells.toArray(new GCell[0]);
+
+        targets = new GCell[pieces.length][];
+        reachable = new GCell[pieces.length][];
+        for (int i = 0; i < pieces.length; i++) {
+            List<GCell> all = new ArrayList<>();
+            List<GCell> canMove = new ArrayList<>();
+            for (int row = 0; row < BOARD_SIZE; row++) {
+                for (int col = 0; col < BOARD_SIZE; col++) {
+                    GCell cell = new GCell(row, col);
+                    all.add(cell);
+                    if (pieces[i].canMove(cells[i], cell)) canMove.add(cell);
+                }
+            }
+            targets[i] = all.toArray(new GCell[0]);
+            reachable[i] = canMove.toArray(new GCell[0]);
+        }
+    }
+
+    /**
+     * Asks each piece if it can move to each cell.
+     *
+     * @param blackhole consumes the answers
+     */
+    @Benchmark
+    public void canMove(Blackhole blackhole) {
+        for (int i = 0; i < pieces.length; i++)
+            for (GCell cell : targets[i])
+                blackhole.consume(pieces[i].canMove(cells[i], cell));
+    }
+
+    /**
+     * Computes the path of each piece to each cell it can move to.
+     *
+     * @param blackhole consumes the paths
+     */
+    @Benchmark
+    public void path(Blackhole blackhole) {
+        for (int i = 0; i < pieces.length; i++)
+            for (GCell cell : reachable[i])
+                blackhole.consume(pieces[i].path(cells[i], cell));
+    }
+}
@@ -0,0 +1,191 @@
+package ch.heigvd.poo.bench;
+
+import ch.heigvd.poo.chess.ChessView;
+import ch.heigvd.poo.chess.PieceType;
+import ch.heigvd.poo.chess.PlayerColor;
+import ch.heigvd.poo.engine.board.GBoard;
+import ch.heigvd.poo.engine.board.Position;
+import ch.heigvd.poo.engine.moves.Move;
+import ch.heigvd.poo.engine.moves.MoveGenerator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The Positions class gives the checked-in positions and game of the benchmarks, and the ways to reach them.
+ * Positions are described in positions.txt as the moves played from the starting position,
+ * the scripted game in game.txt, both in coordinate notation.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public final class Positions {
+    /**
+     * View of the games played by the benchmarks, it displays nothing and always takes the first choice.
+     */
+    public static final ChessView NO_VIEW = new ChessView() {
+        @Override
+        public void startView() {
+        }
+
+        @Override
+        public void removePiece(int x, int y) {
+        }
+
+        @Override
+        public void putPiece(PieceType type, PlayerColor color, int x, int y) {
+        }
+
+        @Override
+        public void displayMessage(String msg) {
+        }
+
+        @Override
+        @SafeVarargs
+        public final <T extends UserChoice> T askUser(String title, String question, T... possibilities) {
+            return possibilities.length > 0 ? possibilities[0] : null;
+        }
+    };
+
+    private static final Map<String, List<String>> POSITIONS = load("positions.txt");
+    private static final List<String> GAME = load("game.txt").get("");
+
+    private Positions() {
+    }
+
+    /**
+     * Returns the names of the checked-in positions.
+     *
+     * @return the names, in the order of positions.txt
+     */
+    public static Set<String> names() {
+        return Collections.unmodifiableSet(POSITIONS.keySet());
+    }
+
+    /**
+     * Returns the moves leading to a checked-in position.
+     *
+     * @param name the name of the position
+     * @return the moves, in coordinate notation
+     * @throws IllegalArgumentException if there is no position with this name
+     */
+    public static List<String> moves(String name) {
+        List<String> moves = POSITIONS.get(name);
+        if (moves == null) throw new IllegalArgumentException("Unknown position " + name);
+        return moves;
+    }
+
+    /**
+     * Returns the moves of the scripted game.
+     *
+     * @return the moves, in coordinate notation
+     */
+    public static List<String> game() {
+        return GAME;
+    }
+
+    /**
+     * Converts moves to the coordinates taken by the engine.
+     *
+     * @param moves the moves, in coordinate notation
+     * @return for each move, its starting row and column then its destination row and column
+     */
+    public static int[][] coordinates(List<String> moves) {
+        int[][] coordinates = new int[moves.size()][];
+        for (int i = 0; i < coordinates.length; i++) {
+            int move = Move.parse(moves.get(i));
+            coordinates[i] = new int[]{
+                    Position.row(Move.from(move)), Position.col(Move.from(move)),
+                    Position.row(Move.to(move)), Position.col(Move.to(move))
+            };
+        }
+        return coordinates;
+    }
+
+    /**
+     * Sets a board to a checked-in position.
+     *
+     * @param board the board to set
+     * @param name the name of the position
+     * @return the color of the player to move
+     * @throws IllegalStateException if the board rejects one of the moves
+     */
+    public static PlayerColor replay(GBoard board, String name) {
+        board.initBoard();
+        PlayerColor color = PlayerColor.WHITE;
+        for (int[] move : coordinates(moves(name))) {
+            if (!board.move(move[0], move[1], move[2], move[3], color))
+                throw new IllegalStateException("The board rejects a move of the position " + name);
+            color = MoveGenerator.opponent(color);
+        }
+        return color;
+    }
+
+    /**
+     * Finds a quiet move of a piece that can be played and then taken back, so a benchmark can repeat it.
+     *
+     * @param board the board to play on
+     * @param color the color of the player to move
+     * @return the coordinates of the move, as given by {@link #coordinates}
+     * @throws IllegalStateException if the position has no such move
+     */
+    public static int[] reversibleMove(GBoard board, PlayerColor color) {
+        Position position = board.position(color);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.legalMoves(position, moves);
+
+        // The moves are tried in generation order, so the same position always gives the same move
+        for (int i = 0; i < count; i++) {
+            int from = Move.from(moves[i]);
+            int to = Move.to(moves[i]);
+            PieceType type = Position.type(position.pieceAt(from));
+            if (type == PieceType.PAWN || type == PieceType.KING || position.pieceAt(to) != Position.EMPTY)
+                continue;
+
+            int[] move = coordinates(List.of(Move.toString(moves[i])))[0];
+            if (board.move(move[0], move[1], move[2], move[3], color)) {
+                if (board.move(move[2], move[3], move[0], move[1], color))
+                    return move;
+                throw new IllegalStateException("The board rejects the way back of " + Move.toString(moves[i]));
+            }
+        }
+        throw new IllegalStateException("No reversible move for " + color);
+    }
+
+    /**
+     * Reads a resource made of "name: moves" lines, a line without name belongs to the name "".
+     *
+     * @param resource the name of the resource
+     * @return the moves of each name, in the order of the resource
+     */
+    private static Map<String, List<String>> load(String resource) {
+        Map<String, List<String>> lines = new LinkedHashMap<>();
+        try (InputStream in = Positions.class.getResourceAsStream(resource)) {
+            if (in == null) throw new IOException("Missing resource " + resource);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+
+                int colon = line.indexOf(':');
+                String name = colon < 0 ? "" : line.substring(0, colon).strip();
+                String moves = line.substring(colon + 1).strip();
+                lines.put(name, moves.isEmpty() ? List.of() : List.copyOf(Arrays.asList(moves.split("\\s+"))));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,58 @@
+package ch.heigvd.poo.benchTest;
+
+import ch.heigvd.poo.bench.Positions;
+import ch.heigvd.poo.chess.PlayerColor;
+import ch.heigvd.poo.engine.CEngine;
+import ch.heigvd.poo.engine.board.GBoard;
+import ch.heigvd.poo.engine.board.Position;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionsTest {
+
+    @Test
+    @DisplayName("test every checked-in position replays and has a move the benchmarks can repeat")
+    public void testPositions() {
+        assertEquals(List.of("start", "opening", "middlegame", "endgame"), List.copyOf(Positions.names()),
+                "the positions should be the ones named by the benchmarks");
+        for (String name : Positions.names()) {
+            try (GBoard board = new GBoard()) {
+                PlayerColor color = assertDoesNotThrow(() -> Positions.replay(board, name), name + " should replay");
+                assertEquals(Positions.moves(name).size() % 2 == 0 ? PlayerColor.WHITE : PlayerColor.BLACK, color);
+                Position before = board.position(color);
+
+                int[] move = assertDoesNotThrow(() -> Positions.reversibleMove(board, color), name + " should have a reversible move");
+                assertEquals(4, move.length);
+                // A rook going back may have lost its castling right, the pieces are what the benchmarks repeat on
+                Position after = board.position(color);
+                for (int square = 0; square < Position.SIZE * Position.SIZE; square++)
+                    assertEquals(before.pieceAt(square), after.pieceAt(square), "the move should have been taken back in " + name);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("test the scripted game is accepted move after move by the engine")
+    public void testGame() {
+        int[][] moves = Positions.coordinates(Positions.game());
+        assertFalse(Positions.game().isEmpty());
+        try (CEngine engine = new CEngine()) {
+            engine.start(Positions.NO_VIEW);
+            engine.newGame();
+            for (int i = 0; i < moves.length; i++) {
+                int[] move = moves[i];
+                assertTrue(engine.move(move[0], move[1], move[2], move[3]), Positions.game().get(i) + " should be accepted");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("test an unknown position is refused")
+    public void testUnknownPosition() {
+        assertThrows(IllegalArgumentException.class, () -> Positions.moves("nowhere"));
+    }
+}
@@ -2,15 +2,71 @@ package ch.heigvd.poo;
 
 import ch.heigvd.poo.chess.ChessController;
 import ch.heigvd.poo.chess.ChessView;
+import ch.heigvd.poo.chess.PlayerColor;
 import ch.heigvd.poo.chess.views.console.ConsoleView;
 import ch.heigvd.poo.chess.views.gui.GUIView;
 import ch.heigvd.poo.engine.CEngine;
+import ch.heigvd.poo.engine.clock.GameClock;
+import ch.heigvd.poo.engine.clock.TimingWheel;
+import ch.heigvd.poo.engine.journal.MoveJournal;
+import ch.heigvd.poo.engine.metrics.MetricsReporter;
+import ch.heigvd.poo.engine.search.AiOpponent;
+import ch.heigvd.poo.engine.search.Evaluator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
 
 public class Main {
-    public static void main(String[] args) {
-        ChessController controller = new CEngine();
+    public static void main(String[] args) throws IOException {
+        // -Dchess.metrics.dump=<seconds> writes the engine metrics to the standard error
+        MetricsReporter.fromSystemProperty();
+        // -Dchess.journal=<file> records the moves, the last game left open is played again at start
+        String journalFile = System.getProperty("chess.journal");
+        MoveJournal journal = null;
+        int[] recovered = null;
+        int game = 0;
+        if (journalFile != null) {
+            journal = MoveJournal.open(Path.of(journalFile), Long.getLong("chess.journal.interval", 10));
+            for (Map.Entry<Integer, int[]> entry : journal.recovered().entrySet()) {
+                game = entry.getKey();
+                recovered = entry.getValue();
+            }
+            if (recovered == null) game = journal.reserve();
+            MoveJournal closing = journal;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    closing.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }));
+        }
+        // -Dchess.clock=<minutes>+<seconds> plays with a clock and an increment, -Dchess.clock.delay=<seconds> adds a delay
+        String time = System.getProperty("chess.clock");
+        GameClock clock = null;
+        if (time != null) {
+            String[] parts = time.split("\\+");
+            long increment = parts.length > 1 ? Long.parseLong(parts[1]) * 1000 : 0;
+            clock = new GameClock(new TimingWheel(1), (long) (Double.parseDouble(parts[0]) * 60_000),
+                    increment, Long.getLong("chess.clock.delay", 0) * 1000);
+        }
+        CEngine engine = new CEngine(journal, game, clock);
+        ChessController controller = engine;
+        // -Dchess.ai=<white|black> plays against the engine, which ponders unless -Dchess.ponder=false
+        String ai = System.getProperty("chess.ai");
+        if (ai != null) {
+            int depth = Integer.getInteger("chess.ai.depth", 4);
+            long ponderNodes = Boolean.parseBoolean(System.getProperty("chess.ponder", "true"))
+                    ? Long.getLong("chess.ponder.nodes", 5_000_000) : 0;
+            AiOpponent opponent = new AiOpponent(engine, PlayerColor.valueOf(ai.toUpperCase()),
+                    Evaluator.DEFAULT, depth, Long.MAX_VALUE, ponderNodes);
+            Runtime.getRuntime().addShutdownHook(new Thread(opponent::close));
+            controller = opponent;
+        }
         ChessView view = new GUIView(controller);
 //        ChessView view = new ConsoleView(controller);
         controller.start(view);
+        if (recovered != null) engine.replay(recovered);
     }
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+package ch.heigvd.poo.chess;
+
+import java.util.List;
+
+/**
+ * Regroupe toutes les modifications de l'échiquier produites par un coup.
+ * La vue les applique en une fois au lieu de recevoir un appel par case.
+ * @param squares les cases modifiées, avec leur nouveau contenu.
+ * @param captured les pièces sorties de l'échiquier.
+ * @param message le message à afficher, ou null s'il ne change pas.
+ */
+public record BoardDelta(List<Square> squares, List<Captured> captured, String message) {
+
+  /**
+   * Nouveau contenu d'une case. type et color sont null si la case est vide.
+   * @param x
+   * @param y
+   * @param type
+   * @param color
+   */
+  public record Square(int x, int y, PieceType type, PlayerColor color) {
+
+    /**
+     * @return true si la case est vide après le coup.
+     */
+    public boolean isEmpty() {
+      return type == null;
+    }
+  }
+
+  /**
+   * Pièce sortie de l'échiquier.
+   * @param type
+   * @param color
+   */
+  public record Captured(PieceType type, PlayerColor color) {
+  }
+
+  public BoardDelta {
+    squares = List.copyOf(squares);
+    captured = List.copyOf(captured);
+  }
+
+  /**
+   * @return true si le delta ne modifie ni l'échiquier ni le message.
+   */
+  public boolean isEmpty() {
+    return squares.isEmpty() && message == null;
+  }
+}
@@ -23,9 +23,81 @@ public interface ChessController {
    */
   boolean move(int fromX, int fromY, int toX, int toY);
 
+  /**
+   * Appelé lorsque l'utilisateur a demandé un déplacement, avec la pièce choisie si un pion atteint la dernière ligne.
+   * Le contrôleur ne demande la pièce à la vue que si elle n'est pas donnée.
+   * Par défaut, seul un déplacement sans pièce est accepté, un contrôleur ne pouvant pas recevoir la pièce
+   * refuse la promotion plutôt que de l'ignorer.
+   * @param fromX
+   * @param fromY
+   * @param toX
+   * @param toY
+   * @param promotion le type de la pièce remplaçant le pion, null s'il n'y a pas de promotion ou pour la demander
+   * @return true si le mouvement a pu avoir lieu, false dans le cas contraire.
+   * @throws UnsupportedOperationException si la pièce est donnée et que le contrôleur ne la prend pas en charge
+   */
+  default boolean move(int fromX, int fromY, int toX, int toY, PieceType promotion) {
+    if (promotion != null)
+      throw new UnsupportedOperationException("This controller does not take the promotion piece with the move");
+    return move(fromX, fromY, toX, toY);
+  }
+
+  /**
+   * Indique si le déplacement amène un pion sur la dernière ligne, pour que la vue puisse demander la pièce
+   * avant de demander le déplacement.
+   * Peut être appelé depuis n'importe quel thread.
+   * @param fromX
+   * @param fromY
+   * @param toX
+   * @param toY
+   * @return true si le déplacement est possible et promeut un pion, false dans le cas contraire.
+   */
+  default boolean isPromotion(int fromX, int fromY, int toX, int toY) {
+    return false;
+  }
+
   /**
    * Démarre une nouvelle partie. L'échiquier doit être remis dans sa position initiale.
    */
   void newGame();
 
+  /**
+   * Annule le dernier coup joué. La vue reçoit la nouvelle position en un seul delta.
+   * @return true si un coup a été annulé, false s'il n'y en a pas ou si le contrôleur ne le permet pas.
+   */
+  default boolean undo() {
+    return false;
+  }
+
+  /**
+   * Rejoue le dernier coup annulé. La vue reçoit la nouvelle position en un seul delta.
+   * @return true si un coup a été rejoué, false s'il n'y en a pas ou si le contrôleur ne le permet pas.
+   */
+  default boolean redo() {
+    return false;
+  }
+
+  /**
+   * Place la partie après le nombre de coups donné, parmi les coups joués ou annulés.
+   * Un nombre hors de l'historique place la partie à son début ou à sa fin.
+   * La vue reçoit la nouvelle position en un seul delta.
+   * @param ply le nombre de coups joués depuis le début de la partie
+   * @return true si la position a changé, false sinon ou si le contrôleur ne le permet pas.
+   */
+  default boolean seek(int ply) {
+    return false;
+  }
+
+  /**
+   * Donne les destinations possibles de la pièce se trouvant sur la case donnée.
+   * Peut être appelé depuis n'importe quel thread, pour ne pas bloquer la vue.
+   * @param x
+   * @param y
+   * @return un masque dont le bit x + 8 * y est à 1 pour chaque case de destination possible,
+   * 0 si la case est vide ou si la pièce n'est pas au joueur dont c'est le tour.
+   */
+  default long legalMoves(int x, int y) {
+    return 0;
+  }
+
 }
\ No newline at end of file
@@ -32,6 +32,22 @@ public interface ChessView {
    */
   void displayMessage(String msg);
 
+  /**
+   * Applique en une fois toutes les modifications d'un coup.
+   * Par défaut, appelle removePiece, putPiece et displayMessage pour chaque modification.
+   * @param delta les modifications à appliquer.
+   */
+  default void applyDelta(BoardDelta delta) {
+    for (BoardDelta.Square square : delta.squares()) {
+      if (square.isEmpty())
+        removePiece(square.x(), square.y());
+      else
+        putPiece(square.type(), square.color(), square.x(), square.y());
+    }
+    if (delta.message() != null)
+      displayMessage(delta.message());
+  }
+
   /**
    * A utiliser pour demander un choix à l'utilisateur. La vue utilisera le texte fourni par la méthode
    * pour représenter la valeur du choix proposé.
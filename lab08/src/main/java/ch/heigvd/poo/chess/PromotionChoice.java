@@ -0,0 +1,32 @@
+package ch.heigvd.poo.chess;
+
+/**
+ * Pièces proposées à l'utilisateur lorsqu'un pion atteint la dernière ligne.
+ * Les choix sont partagés par toutes les vues, aucune pièce n'est créée pour poser la question.
+ */
+public enum PromotionChoice implements ChessView.UserChoice {
+  QUEEN(PieceType.QUEEN, "Queen"),
+  ROOK(PieceType.ROOK, "Rook"),
+  BISHOP(PieceType.BISHOP, "Bishop"),
+  KNIGHT(PieceType.KNIGHT, "Knight");
+
+  private final PieceType type;
+  private final String text;
+
+  PromotionChoice(PieceType type, String text) {
+    this.type = type;
+    this.text = text;
+  }
+
+  /**
+   * @return le type de la pièce choisie
+   */
+  public PieceType type() {
+    return type;
+  }
+
+  @Override
+  public String textValue() {
+    return text;
+  }
+}
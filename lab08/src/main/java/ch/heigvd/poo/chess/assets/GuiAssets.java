@@ -2,43 +2,152 @@ package ch.heigvd.poo.chess.assets;
 
 import ch.heigvd.poo.chess.PieceType;
 import ch.heigvd.poo.chess.PlayerColor;
+import ch.heigvd.poo.chess.views.BaseView;
 import ch.heigvd.poo.chess.views.gui.GUIView;
 
 import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+/**
+ * Sprites of the pieces, packed in the classpath atlas images/pieces.png:
+ * one column per PieceType and one row per PlayerColor, in declaration order.
+ * The atlas is decoded once per JVM and the icons are scaled once per size,
+ * the sizes asked least recently being dropped beyond {@value #CACHED_SIZES} sizes.
+ * An atlas that cannot be loaded is reported by every method needing the sprites.
+ */
 public class GuiAssets {
+  public static final int SPRITE_SIZE = 41;
+  private static final String ATLAS = "images/pieces.png";
+  // Enough for the GUI and the image export, a window being resized asks a new size on every step
+  private static final int CACHED_SIZES = 8;
+
+  private static final Map<Integer, ImageIcon[]> icons = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<Integer, ImageIcon[]> eldest) {
+      return size() > CACHED_SIZES;
+    }
+  });
+
+  // Holder idiom: the atlas is decoded on first use, by a single thread
+  private static class Atlas {
+    private static final BufferedImage[] SPRITES;
+    private static final IOException FAILURE;
+
+    static {
+      BufferedImage[] sprites = null;
+      IOException failure = null;
+      try {
+        sprites = loadAtlas(ATLAS);
+      }
+      catch (IOException e) {
+        failure = e;
+      }
+      SPRITES = sprites;
+      FAILURE = failure;
+    }
+  }
+
+  /**
+   * Decodes an atlas of the classpath, laid out as images/pieces.png.
+   * @param name the name of the atlas, relative to this class
+   * @return the sprites, indexed by type then color
+   * @throws IOException if the atlas is missing or cannot be decoded
+   */
+  public static BufferedImage[] loadAtlas(String name) throws IOException {
+    try (InputStream in = GuiAssets.class.getResourceAsStream(name)) {
+      if (in == null)
+        throw new IOException("Missing resource " + name);
+      BufferedImage atlas = ImageIO.read(in);
+      if (atlas == null)
+        throw new IOException("Resource " + name + " is not an image");
+      BufferedImage[] sprites = new BufferedImage[PieceType.values().length * PlayerColor.values().length];
+      for (PieceType type : PieceType.values())
+        for (PlayerColor color : PlayerColor.values())
+          sprites[index(type, color)] = atlas.getSubimage(type.ordinal() * SPRITE_SIZE, color.ordinal() * SPRITE_SIZE, SPRITE_SIZE, SPRITE_SIZE);
+      return sprites;
+    }
+  }
+
+  /**
+   * @return the sprites of the atlas
+   * @throws UncheckedIOException if the atlas could not be loaded
+   */
+  private static BufferedImage[] sprites() {
+    if (Atlas.SPRITES == null)
+      throw new UncheckedIOException("The sprites of the pieces cannot be loaded", Atlas.FAILURE);
+    return Atlas.SPRITES;
+  }
+
+  /**
+   * Registers the icons of the pieces, scaled to the size of the squares.
+   * @throws UncheckedIOException if the atlas could not be loaded
+   */
   public static void loadAssets(GUIView view) {
-    try {
-      view.registerResource(PieceType.ROOK, PlayerColor.BLACK, GUIView.createResource(assetsImage("rook_black.png")));
-      view.registerResource(PieceType.ROOK, PlayerColor.WHITE, GUIView.createResource(assetsImage("rook_white.png")));
+    sprites();
+    for (PieceType type : PieceType.values())
+      for (PlayerColor color : PlayerColor.values())
+        view.registerResource(type, color, view.createResource(size -> icon(type, color, size)));
+  }
 
-      view.registerResource(PieceType.PAWN, PlayerColor.BLACK, GUIView.createResource(assetsImage("pawn_black.png")));
-      view.registerResource(PieceType.PAWN, PlayerColor.WHITE, GUIView.createResource(assetsImage("pawn_white.png")));
+  /**
+   * Registers the sprites scaled to size x size pixels, for views drawing images themselves.
+   * @throws UncheckedIOException if the atlas could not be loaded
+   */
+  public static void loadAssets(BaseView<BufferedImage> view, int size) {
+    for (PieceType type : PieceType.values())
+      for (PlayerColor color : PlayerColor.values()) {
+        BufferedImage sprite = sprite(type, color, size);
+        view.registerResource(type, color, () -> sprite);
+      }
+  }
 
-      view.registerResource(PieceType.KNIGHT, PlayerColor.BLACK, GUIView.createResource(assetsImage("knight_black.png")));
-      view.registerResource(PieceType.KNIGHT, PlayerColor.WHITE, GUIView.createResource(assetsImage("knight_white.png")));
+  /**
+   * @return the unscaled sprite of the piece
+   * @throws UncheckedIOException if the atlas could not be loaded
+   */
+  public static BufferedImage sprite(PieceType type, PlayerColor color) {
+    return sprites()[index(type, color)];
+  }
 
-      view.registerResource(PieceType.BISHOP, PlayerColor.BLACK, GUIView.createResource(assetsImage("bishop_black.png")));
-      view.registerResource(PieceType.BISHOP, PlayerColor.WHITE, GUIView.createResource(assetsImage("bishop_white.png")));
+  /**
+   * @return the icon of the piece scaled to size x size pixels, shared by every caller asking for that size
+   * @throws UncheckedIOException if the atlas could not be loaded
+   */
+  public static ImageIcon icon(PieceType type, PlayerColor color, int size) {
+    return icons.computeIfAbsent(size, GuiAssets::scaleAll)[index(type, color)];
+  }
 
-      view.registerResource(PieceType.QUEEN, PlayerColor.BLACK, GUIView.createResource(assetsImage("queen_black.png")));
-      view.registerResource(PieceType.QUEEN, PlayerColor.WHITE, GUIView.createResource(assetsImage("queen_white.png")));
+  /**
+   * @return the sprite of the piece scaled to size x size pixels, the image of {@link #icon}
+   */
+  public static BufferedImage sprite(PieceType type, PlayerColor color, int size) {
+    return (BufferedImage) icon(type, color, size).getImage();
+  }
 
-      view.registerResource(PieceType.KING, PlayerColor.BLACK, GUIView.createResource(assetsImage("king_black.png")));
-      view.registerResource(PieceType.KING, PlayerColor.WHITE, GUIView.createResource(assetsImage("king_white.png")));
-    }
-    catch (IOException e) {
-      e.printStackTrace();
+  private static ImageIcon[] scaleAll(int size) {
+    BufferedImage[] sprites = sprites();
+    ImageIcon[] scaled = new ImageIcon[sprites.length];
+    for (int i = 0; i < scaled.length; ++i) {
+      BufferedImage img = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+      Graphics2D g = img.createGraphics();
+      g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+      g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+      g.drawImage(sprites[i], 0, 0, size, size, null);
+      g.dispose();
+      scaled[i] = new ImageIcon(img);
     }
+    return scaled;
   }
 
-  private static BufferedImage assetsImage(String imageName) throws IOException {
-//    File temp = new File("/home/athena/Insync/POO/POO-Lab08/lab08/src/main/java/ch/heigvd/poo/chess/assets/images/" + imageName);
-//    System.out.println(temp);
-    return ImageIO.read(new File("/home/boletellus/heig-vd/poo/labo/POO-Lab08/lab08/src/main/java/ch/heigvd/poo/chess/assets/images/" + imageName));
-//    return ImageIO.read(GuiAssets.class.getResource("images/" + imageName));
+  private static int index(PieceType type, PlayerColor color) {
+    return type.ordinal() * PlayerColor.values().length + color.ordinal();
   }
 }
@@ -4,6 +4,7 @@ import ch.heigvd.poo.chess.ChessController;
 import ch.heigvd.poo.chess.ChessView;
 import ch.heigvd.poo.chess.PieceType;
 import ch.heigvd.poo.chess.PlayerColor;
+import ch.heigvd.poo.chess.PromotionChoice;
 
 import java.util.HashMap;
 
@@ -39,4 +40,19 @@ public abstract class BaseView<Resource> implements ChessView {
     return icon;
   }
 
+  /**
+   * Asks the controller for a move, the user is only asked for a piece when a pawn is promoted.
+   * @return true if the move was played
+   */
+  protected final boolean requestMove(int fromX, int fromY, int toX, int toY) {
+    PieceType promotion = null;
+    if (controller.isPromotion(fromX, fromY, toX, toY)) {
+      PromotionChoice choice = askUser("Promotion", "Choose a piece to promote", PromotionChoice.values());
+      if (choice == null)
+        return false;
+      promotion = choice.type();
+    }
+    return controller.move(fromX, fromY, toX, toY, promotion);
+  }
+
 }
@@ -0,0 +1,109 @@
+package ch.heigvd.poo.chess.views.console;
+
+import java.io.PrintStream;
+
+/**
+ * Draws the console board. Each frame is built in a reused buffer and written with a single call.
+ */
+public class ConsoleRenderer {
+
+  public enum Mode {
+    /** Prints the whole board, only when it changed since the last frame. */
+    FULL,
+    /** Keeps the board at the top of an ANSI terminal and redraws only the cells that changed. */
+    ANSI_DIFF,
+    /** Prints nothing. */
+    QUIET
+  }
+
+  private static final String ESC = "\u001B[";
+  private static final int SIZE = 8;
+  // Screen position of the board in ANSI_DIFF mode: one line per row, then the separator and the column names
+  private static final int FIRST_CELL_COLUMN = 4;
+  private static final int BOARD_LINES = SIZE + 2;
+
+  private final Mode mode;
+  private final PrintStream out;
+  private final StringBuilder frame = new StringBuilder(1024);
+  private final String[][] shown = new String[SIZE][SIZE];
+  private boolean drawn = false;
+
+  public ConsoleRenderer(Mode mode, PrintStream out) {
+    this.mode = mode;
+    this.out = out;
+  }
+
+  /**
+   * Chooses ANSI_DIFF for an interactive ANSI terminal, FULL otherwise (pipes, logs, dumb terminals).
+   */
+  public static Mode defaultMode() {
+    String term = System.getenv("TERM");
+    if (System.console() != null && term != null && !term.equals("dumb"))
+      return Mode.ANSI_DIFF;
+    return Mode.FULL;
+  }
+
+  public Mode getMode() {
+    return mode;
+  }
+
+  public void render(String[][] cells) {
+    if (mode == Mode.QUIET || (drawn && !changed(cells)))
+      return;
+
+    frame.setLength(0);
+    if (mode == Mode.ANSI_DIFF && drawn)
+      appendChangedCells(cells);
+    else if (mode == Mode.ANSI_DIFF)
+      appendFixedBoard(cells);
+    else
+      appendBoard(cells);
+
+    out.append(frame);
+    out.flush();
+
+    for (int x = 0; x < SIZE; ++x)
+      System.arraycopy(cells[x], 0, shown[x], 0, SIZE);
+    drawn = true;
+  }
+
+  private boolean changed(String[][] cells) {
+    for (int x = 0; x < SIZE; ++x)
+      for (int y = 0; y < SIZE; ++y)
+        if (!cells[x][y].equals(shown[x][y]))
+          return true;
+    return false;
+  }
+
+  private void appendBoard(String[][] cells) {
+    for (int y = SIZE - 1; y >= 0; --y) {
+      frame.append(y + 1).append(" |");
+      for (int x = 0; x < SIZE; ++x)
+        frame.append(cells[x][y]).append(' ');
+      frame.append('\n');
+    }
+    frame.append("-------------------\n");
+    frame.append("   A B C D E F G H \n");
+  }
+
+  private void appendFixedBoard(String[][] cells) {
+    // Clear the screen, draw the board at the top and let the rest of the output scroll below it
+    frame.append(ESC).append("2J").append(ESC).append('H');
+    appendBoard(cells);
+    frame.append(ESC).append(BOARD_LINES + 1).append('r');
+    frame.append(ESC).append(BOARD_LINES + 1).append(";1H");
+  }
+
+  private void appendChangedCells(String[][] cells) {
+    frame.append("\u001B7"); // save the cursor
+    for (int x = 0; x < SIZE; ++x) {
+      for (int y = 0; y < SIZE; ++y) {
+        if (!cells[x][y].equals(shown[x][y])) {
+          frame.append(ESC).append(SIZE - y).append(';').append(FIRST_CELL_COLUMN + 2 * x).append('H');
+          frame.append(cells[x][y]);
+        }
+      }
+    }
+    frame.append("\u001B8"); // restore the cursor
+  }
+}
@@ -30,15 +30,21 @@ public class ConsoleView extends BaseView<String> {
   }
 
   private final static Scanner scanner = new Scanner(System.in);
-  private final static Pattern movementPattern = Pattern.compile("[a-h][1-8][a-h][1-8]");
+  private final static Pattern movementPattern = Pattern.compile("[a-h][1-8][a-h][1-8][qrbn]?");
   private final static String EMPTY_CELL = " ";
   private final static String UNKNOWN_CELL = "?";
 
   private String checkMessage = "";
   private String[][] buffer;
+  private final ConsoleRenderer renderer;
 
   public ConsoleView(ChessController controller) {
+    this(controller, ConsoleRenderer.defaultMode());
+  }
+
+  public ConsoleView(ChessController controller, ConsoleRenderer.Mode mode) {
     super(controller);
+    renderer = new ConsoleRenderer(mode, System.out);
     ConsoleAssets.loadAssets(this);
     initialize();
     clearView();
@@ -115,19 +121,9 @@ public class ConsoleView extends BaseView<String> {
     }
   }
 
-
-
   private void printBoard() {
-    for (int y = 7; y >= 0; --y) {
-      System.out.print(y + 1 + " |");
-      for (int x = 0; x < 8; ++x) {
-        System.out.print(buffer[x][y]);
-        System.out.print(" ");
-      }
-      System.out.print("\n");
-    }
-    System.out.println("-------------------");
-    System.out.println("   A B C D E F G H ");
+    // Nothing is printed if the board did not change since the last frame
+    renderer.render(buffer);
   }
 
   private static int charCoordinateToIndex(char c) {
@@ -146,6 +142,15 @@ public class ConsoleView extends BaseView<String> {
 
   }
 
+  private static PieceType promotionOf(char c) {
+    return switch (c) {
+      case 'r' -> PieceType.ROOK;
+      case 'b' -> PieceType.BISHOP;
+      case 'n' -> PieceType.KNIGHT;
+      default -> PieceType.QUEEN;
+    };
+  }
+
   private static int intCoordinateToIndex(char c) {
     assert (c >= '1' && c <= '9');
     return c - '1';
@@ -154,10 +159,15 @@ public class ConsoleView extends BaseView<String> {
   private void askMovement() {
     boolean ok = false;
     while (!ok) {
-      String in = askPattern(movementPattern, "Next move?");
+      String in = askPattern(movementPattern, "Next move? (e7e8q to promote a pawn)");
       System.out.println(in);
-      ok = controller.move(charCoordinateToIndex(in.charAt(0)), intCoordinateToIndex(in.charAt(1)),
-          charCoordinateToIndex(in.charAt(2)), intCoordinateToIndex(in.charAt(3)));
+      int fromX = charCoordinateToIndex(in.charAt(0)), fromY = intCoordinateToIndex(in.charAt(1));
+      int toX = charCoordinateToIndex(in.charAt(2)), toY = intCoordinateToIndex(in.charAt(3));
+      // The piece typed with the move is used, otherwise it is asked only if a pawn is promoted
+      if (in.length() > 4)
+        ok = controller.move(fromX, fromY, toX, toY, promotionOf(in.charAt(4)));
+      else
+        ok = requestMove(fromX, fromY, toX, toY);
 
       if (!ok) {
         System.out.println("Invalid move");
@@ -1,13 +1,20 @@
 package ch.heigvd.poo.chess.views.gui;
 
+import ch.heigvd.poo.chess.PieceType;
+import ch.heigvd.poo.chess.PlayerColor;
+
 import javax.swing.*;
 import javax.swing.border.LineBorder;
 import java.awt.*;
 
 class ChessSquare extends JButton {
+  private static final int PREFERRED_SIZE = 80;
   //coordinates
   final int x;
   final int y;
+  //piece shown, null if empty
+  private PieceType type;
+  private PlayerColor color;
 
   ChessSquare(int x, int y) {
     assert (x < 8 && x >= 0);
@@ -19,12 +26,36 @@ class ChessSquare extends JButton {
     else
       this.setBackground(Color.WHITE);
     this.setOpaque(true);
+    this.setMargin(new Insets(2, 2, 2, 2));
+  }
+
+  void setPiece(PieceType type, PlayerColor color) {
+    this.type = type;
+    this.color = color;
+  }
+
+  PieceType type() {
+    return type;
+  }
+
+  PlayerColor color() {
+    return color;
+  }
+
+  // The preferred size does not follow the icon, otherwise bigger icons would keep growing the board
+  @Override
+  public Dimension getPreferredSize() {
+    return new Dimension(PREFERRED_SIZE, PREFERRED_SIZE);
   }
 
   void select() {
     this.setBorder(new LineBorder(Color.GREEN, 5));
   }
 
+  void highlight() {
+    this.setBorder(new LineBorder(Color.ORANGE, 3));
+  }
+
   void deselect() {
     this.setBorder(null);
   }
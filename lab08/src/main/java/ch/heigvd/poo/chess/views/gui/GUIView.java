@@ -1,5 +1,6 @@
 package ch.heigvd.poo.chess.views.gui;
 
+import ch.heigvd.poo.chess.BoardDelta;
 import ch.heigvd.poo.chess.ChessController;
 import ch.heigvd.poo.chess.PieceType;
 import ch.heigvd.poo.chess.PlayerColor;
@@ -13,26 +14,35 @@ import javax.swing.border.EmptyBorder;
 import javax.swing.border.LineBorder;
 import java.awt.*;
 import java.awt.event.ActionEvent;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.awt.image.BufferedImage;
-import java.io.IOException;
 import java.util.Arrays;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.IntFunction;
 
 public class GUIView extends BaseView<ImageIcon> {
 
-  private static class PieceResource implements DrawableResource<ImageIcon> {
+  // Icon of the current size, the icons themselves are cached by the assets
+  private class PieceResource implements DrawableResource<ImageIcon> {
 
-    private ImageIcon icon;
+    private final IntFunction<ImageIcon> icons;
 
-    PieceResource(BufferedImage bufferedImage) {
-      icon = new ImageIcon(bufferedImage);
+    PieceResource(IntFunction<ImageIcon> icons) {
+      this.icons = icons;
     }
 
     @Override
     public ImageIcon getResource() {
-      return icon;
+      return icons.apply(iconSize);
     }
   }
 
@@ -53,8 +63,8 @@ public class GUIView extends BaseView<ImageIcon> {
     }
   }
 
-  public static DrawableResource<ImageIcon> createResource(BufferedImage image) throws IOException {
-    return new PieceResource(image);
+  public DrawableResource<ImageIcon> createResource(IntFunction<ImageIcon> icons) {
+    return new PieceResource(icons);
   }
 
   //idea:https://stackoverflow.com/questions/21142686/making-a-robust-resizable-swing-chess-gui
@@ -65,6 +75,19 @@ public class GUIView extends BaseView<ImageIcon> {
   private final JLabel messageLabel = new JLabel("");
 
   private ChessSquare lastPressed = null;
+  // Legal moves are computed off the EDT, a result is only shown if its selection is still the current one
+  private final ExecutorService hints = Executors.newSingleThreadExecutor(r -> {
+    Thread t = new Thread(r, "chess-hints");
+    t.setDaemon(true);
+    return t;
+  });
+  private int selection = 0;
+  private long highlighted = 0;
+
+  // Icons are scaled by steps, so resizing the window only needs a handful of sizes
+  private static final int ICON_SIZE_STEP = 8;
+  private static final int MIN_ICON_SIZE = 16;
+  private int iconSize = 64;
 
   private final static ImageIcon EMPTY_ICON = new ImageIcon(new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB));
   private final static ImageIcon UNKNOWN_ICON;
@@ -118,6 +141,13 @@ public class GUIView extends BaseView<ImageIcon> {
       // Ensures JVM closes after frame(s) closed and
       // all non-daemon threads are finished
       f.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+      // The hints are not needed once the board is gone, a search still running is interrupted
+      f.addWindowListener(new WindowAdapter() {
+        @Override
+        public void windowClosed(WindowEvent e) {
+          hints.shutdownNow();
+        }
+      });
       f.setLocationByPlatform(true);
 
       // ensures the frame is the minimum size it needs to be
@@ -135,17 +165,42 @@ public class GUIView extends BaseView<ImageIcon> {
 
   @Override
   public void removePiece(int x, int y) {
+    chessBoardSquares[x][y].setPiece(null, null);
     chessBoardSquares[x][y].setIcon(EMPTY_ICON);
   }
 
   @Override
   public void putPiece(PieceType type, PlayerColor color, int x, int y) {
+    chessBoardSquares[x][y].setPiece(type, color);
     chessBoardSquares[x][y].setIcon(loadResourceFor(type, color, UNKNOWN_ICON));
   }
 
   @Override
   public void displayMessage(String msg) {
-    messageLabel.setText(msg);
+    // Also called by the thread of the clocks when a flag falls, Swing is only touched on the EDT
+    if (SwingUtilities.isEventDispatchThread())
+      messageLabel.setText(msg);
+    else
+      SwingUtilities.invokeLater(() -> messageLabel.setText(msg));
+  }
+
+  @Override
+  public void applyDelta(BoardDelta delta) {
+    // All the squares of the move are updated by a single EDT task, so Swing repaints them once
+    Runnable r = () -> {
+      for (BoardDelta.Square square : delta.squares()) {
+        if (square.isEmpty())
+          removePiece(square.x(), square.y());
+        else
+          putPiece(square.type(), square.color(), square.x(), square.y());
+      }
+      if (delta.message() != null)
+        messageLabel.setText(delta.message());
+    };
+    if (SwingUtilities.isEventDispatchThread())
+      r.run();
+    else
+      SwingUtilities.invokeLater(r);
   }
 
   @Override
@@ -175,7 +230,7 @@ public class GUIView extends BaseView<ImageIcon> {
 
   private void move(ChessSquare from, ChessSquare to) {
     messageLabel.setText("");
-    controller.move(from.x, from.y, to.x, to.y);
+    requestMove(from.x, from.y, to.x, to.y);
   }
 
 
@@ -184,15 +239,66 @@ public class GUIView extends BaseView<ImageIcon> {
     if (lastPressed == null) {
       lastPressed = b;
       b.select();
+      showLegalMoves(b);
     }
     //Smth was already selected
     else {
+      clearLegalMoves();
       move(lastPressed, b);
       lastPressed.deselect();
       lastPressed = null;
     }
   }
 
+  private void showLegalMoves(ChessSquare from) {
+    int current = ++selection;
+    hints.execute(() -> {
+      long destinations = controller.legalMoves(from.x, from.y);
+      SwingUtilities.invokeLater(() -> {
+        if (current != selection || lastPressed != from)
+          return;
+        highlighted = destinations;
+        forEachSquare(destinations, ChessSquare::highlight);
+      });
+    });
+  }
+
+  private void clearLegalMoves() {
+    ++selection;
+    forEachSquare(highlighted, ChessSquare::deselect);
+    highlighted = 0;
+  }
+
+  private void forEachSquare(long mask, Consumer<ChessSquare> action) {
+    for (long m = mask; m != 0; m &= m - 1) {
+      int square = Long.numberOfTrailingZeros(m);
+      action.accept(chessBoardSquares[square % 8][square / 8]);
+    }
+  }
+
+  private void resizeIcons(ChessSquare square) {
+    Rectangle inner = SwingUtilities.calculateInnerArea(square, null);
+    int size = Math.max(MIN_ICON_SIZE, Math.min(inner.width, inner.height) / ICON_SIZE_STEP * ICON_SIZE_STEP);
+    if (size == iconSize)
+      return;
+
+    iconSize = size;
+    for (ChessSquare[] column : chessBoardSquares)
+      for (ChessSquare b : column)
+        if (b.type() != null)
+          b.setIcon(loadResourceFor(b.type(), b.color(), UNKNOWN_ICON));
+  }
+
+  private Action historyAction(String name, BooleanSupplier navigation) {
+    return new AbstractAction(name) {
+      @Override
+      public void actionPerformed(ActionEvent e) {
+        clearLegalMoves();
+        navigation.getAsBoolean();
+      }
+    };
+  }
+
   private void initializeGui() {
     // set up the main GUI
     gui.setBorder(new EmptyBorder(5, 5, 5, 5));
@@ -202,11 +308,17 @@ public class GUIView extends BaseView<ImageIcon> {
     Action newGameAction = new AbstractAction("New game") {
       @Override
       public void actionPerformed(ActionEvent e) {
+        clearLegalMoves();
         clearView();
         controller.newGame();
       }
     };
     tools.add(newGameAction);
+    // History navigation, the controller sends the position reached as a single delta
+    tools.add(historyAction("|<", () -> controller.seek(0)));
+    tools.add(historyAction("<", controller::undo));
+    tools.add(historyAction(">", controller::redo));
+    tools.add(historyAction(">|", () -> controller.seek(Integer.MAX_VALUE)));
     tools.addSeparator();
     tools.add(headerLabel);
     tools.addSeparator();
@@ -257,6 +369,13 @@ public class GUIView extends BaseView<ImageIcon> {
         chessBoardSquares[i][j] = b;
       }
     }
+    // All the squares have the same size, the first one tells when the icons have to be rescaled
+    chessBoardSquares[0][0].addComponentListener(new ComponentAdapter() {
+      @Override
+      public void componentResized(ComponentEvent e) {
+        resizeIcons(chessBoardSquares[0][0]);
+      }
+    });
 
     /*
      * fill the chess board
@@ -0,0 +1,83 @@
+package ch.heigvd.poo.chess.views.image;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Draws the frames of an {@link ImageView} into PNG files, without any Swing component.
+ * Each thread draws into its own reused image, so frames can be encoded in parallel.
+ */
+public class BoardImageRenderer {
+  private static final Color DARK = Color.GRAY;
+  private static final Color LIGHT = Color.WHITE;
+
+  private final int squareSize;
+  private final int boardSize;
+  private final ThreadLocal<BufferedImage> canvas;
+
+  public BoardImageRenderer(int squareSize) {
+    this.squareSize = squareSize;
+    this.boardSize = 8 * squareSize;
+    this.canvas = ThreadLocal.withInitial(() -> new BufferedImage(boardSize, boardSize, BufferedImage.TYPE_INT_RGB));
+  }
+
+  public int boardSize() {
+    return boardSize;
+  }
+
+  /**
+   * Draws a frame into the image of the calling thread.
+   * @return the image, only valid until the next call from the same thread
+   */
+  public BufferedImage render(BufferedImage[] frame) {
+    BufferedImage img = canvas.get();
+    Graphics2D g = img.createGraphics();
+    try {
+      draw(g, frame, 0, 0);
+    }
+    finally {
+      g.dispose();
+    }
+    return img;
+  }
+
+  public void writePng(BufferedImage[] frame, Path file) throws IOException {
+    ImageIO.write(render(frame), "png", file.toFile());
+  }
+
+  /**
+   * Writes all the frames in a single image, one thumbnail per frame, columns thumbnails per line.
+   */
+  public void writeContactSheet(List<BufferedImage[]> frames, int columns, Path file) throws IOException {
+    int lines = (frames.size() + columns - 1) / columns;
+    BufferedImage sheet = new BufferedImage(Math.max(1, columns * boardSize), Math.max(1, lines * boardSize), BufferedImage.TYPE_INT_RGB);
+    Graphics2D g = sheet.createGraphics();
+    try {
+      for (int i = 0; i < frames.size(); ++i)
+        draw(g, frames.get(i), (i % columns) * boardSize, (i / columns) * boardSize);
+    }
+    finally {
+      g.dispose();
+    }
+    ImageIO.write(sheet, "png", file.toFile());
+  }
+
+  private void draw(Graphics2D g, BufferedImage[] frame, int left, int top) {
+    for (int y = 0; y < 8; ++y) {
+      for (int x = 0; x < 8; ++x) {
+        // The 8th line is at the top of the image, as in the views
+        int px = left + x * squareSize;
+        int py = top + (7 - y) * squareSize;
+        g.setColor((x % 2 ^ y % 2) == 0 ? DARK : LIGHT);
+        g.fillRect(px, py, squareSize, squareSize);
+        BufferedImage sprite = frame[x + 8 * y];
+        if (sprite != null)
+          g.drawImage(sprite, px, py, null);
+      }
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package ch.heigvd.poo.chess.views.image;
+
+import ch.heigvd.poo.chess.BoardDelta;
+import ch.heigvd.poo.chess.ChessController;
+import ch.heigvd.poo.chess.PieceType;
+import ch.heigvd.poo.chess.PlayerColor;
+import ch.heigvd.poo.chess.assets.GuiAssets;
+import ch.heigvd.poo.chess.views.BaseView;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * View without any window: it keeps one frame per applied delta, i.e. per ply,
+ * to be drawn later by a {@link BoardImageRenderer}.
+ * A frame is the sprite of each square, indexed by x + 8 * y, null for an empty square.
+ */
+public final class ImageView extends BaseView<BufferedImage> {
+
+  private final BufferedImage[] squares = new BufferedImage[64];
+  private final List<BufferedImage[]> frames = new ArrayList<>();
+  private String message = "";
+
+  public ImageView(ChessController controller, int squareSize) {
+    super(controller);
+    GuiAssets.loadAssets(this, squareSize);
+  }
+
+  @Override
+  public void startView() {
+  }
+
+  @Override
+  public void removePiece(int x, int y) {
+    squares[x + 8 * y] = null;
+  }
+
+  @Override
+  public void putPiece(PieceType type, PlayerColor color, int x, int y) {
+    squares[x + 8 * y] = loadResourceFor(type, color, null);
+  }
+
+  @Override
+  public void displayMessage(String msg) {
+    message = msg;
+  }
+
+  @Override
+  public void applyDelta(BoardDelta delta) {
+    super.applyDelta(delta);
+    frames.add(squares.clone());
+  }
+
+  @SafeVarargs
+  @Override
+  public final <T extends UserChoice> T askUser(String title, String question, T... possibilities) {
+    // Nobody to ask, the first choice is taken
+    return possibilities.length > 0 ? possibilities[0] : null;
+  }
+
+  public List<BufferedImage[]> frames() {
+    return Collections.unmodifiableList(frames);
+  }
+
+  public String lastMessage() {
+    return message;
+  }
+}
@@ -1,30 +1,165 @@
 package ch.heigvd.poo.engine;
 
 /**
- * The CEngine class implements the ChessController and EObserver interfaces.
- * It manages the game logic and communicates with the view.
+ * The CEngine class implements the ChessController interface.
+ * It manages the game logic and communicates with the view, which is a synchronous subscriber
+ * of the board events receiving one {@link BoardDelta} per move.
+ * Other subscribers, such as spectators, can be added with {@link #subscribe}.
+ * A game can also be played without any view, e.g. between two {@link ch.heigvd.poo.engine.search.AiPlayer}s,
+ * as long as the promotions are given with the moves.
+ * The moves, their latency and the games alive are measured in {@link MetricsRegistry#global()}.
+ * With a {@link MoveJournal}, the new games and the accepted moves are recorded, as are the moves taken back
+ * and played again, and a game recovered from the journal after a crash is rebuilt with {@link #replay}
+ * at the ply it was left at.
+ * With a {@link GameClock}, the time of white starts with a new game, the clock is pressed before each move
+ * counts, and the moves of a player whose flag has fallen are refused. Browsing the history gives no time back:
+ * the time spent is charged to the player whose time was running before the time of the player to move starts.
+ * The moves of the game are kept, so the game can be browsed with {@link #undo}, {@link #redo} and {@link #seek}:
+ * a position is rebuilt from the nearest keyframe, the position kept every {@value #KEYFRAME_INTERVAL} plies,
+ * and the view receives it as a single delta. A move played back in the history drops the moves after it.
+ * A game no longer played is {@linkplain #close() closed}, which stops its clock and the delivery of its events.
  *
  * @author : Surbeck Léon
  * @author : Nicolet Victor
  */
+import ch.heigvd.poo.chess.BoardDelta;
 import ch.heigvd.poo.chess.ChessController;
 import ch.heigvd.poo.chess.ChessView;
+import ch.heigvd.poo.chess.PieceType;
 import ch.heigvd.poo.chess.PlayerColor;
+import ch.heigvd.poo.chess.PromotionChoice;
 import ch.heigvd.poo.engine.board.GBoard;
-import ch.heigvd.poo.engine.board.GCell;
-import ch.heigvd.poo.engine.listeners.EObserver;
-import ch.heigvd.poo.engine.pieces.*;
+import ch.heigvd.poo.engine.clock.GameClock;
+import ch.heigvd.poo.engine.board.MoveResult;
+import ch.heigvd.poo.engine.board.Position;
+import ch.heigvd.poo.engine.journal.MoveJournal;
+import ch.heigvd.poo.engine.listeners.BoardEvent;
+import ch.heigvd.poo.engine.listeners.BoardSubscriber;
+import ch.heigvd.poo.engine.listeners.DeltaBuilder;
+import ch.heigvd.poo.engine.listeners.EventBus;
+import ch.heigvd.poo.engine.metrics.LatencyHistogram;
+import ch.heigvd.poo.engine.metrics.MetricsRegistry;
+import ch.heigvd.poo.engine.moves.LegalMoveCache;
+import ch.heigvd.poo.engine.moves.Move;
+import ch.heigvd.poo.engine.moves.MoveGenerator;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class CEngine implements ChessController, AutoCloseable {
+    private static final int KEYFRAME_INTERVAL = 16;
+
+    private static final MetricsRegistry METRICS = MetricsRegistry.global();
+    private static final LongAdder MOVES_SUBMITTED = METRICS.counter("moves.submitted");
+    private static final LongAdder MOVES_ACCEPTED = METRICS.counter("moves.accepted");
+    private static final LongAdder[] MOVES_REJECTED = new LongAdder[MoveResult.values().length];
+    private static final LatencyHistogram MOVE_LATENCY = METRICS.histogram("engine.move");
+    private static final LatencyHistogram VIEW_LATENCY = METRICS.histogram("view.delta");
+    private static final LatencyHistogram PROMOTION_LATENCY = METRICS.histogram("view.promotion");
+    private static final LatencyHistogram SEEK_LATENCY = METRICS.histogram("engine.seek");
+    // Games not yet garbage collected, the gauges read their last published position
+    private static final Set<CEngine> LIVE_GAMES = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    static {
+        for (MoveResult result : MoveResult.values())
+            if (!result.isAccepted())
+                MOVES_REJECTED[result.ordinal()] = METRICS.counter("moves.rejected." + result.name().toLowerCase(Locale.ROOT));
+
+        METRICS.gauge("games.live", LIVE_GAMES::size);
+        METRICS.gauge("board.pieces", () -> {
+            long pieces = 0;
+            synchronized (LIVE_GAMES) {
+                for (CEngine game : LIVE_GAMES)
+                    pieces += game.position.pieceCount();
+            }
+            return pieces;
+        });
+    }
 
-public class CEngine implements ChessController, EObserver  {
     private ChessView view;
     private GBoard board;
     private int turn;
+    private final MoveJournal journal;
+    private final int game;
+    private final GameClock clock;
+    // Published after each move, so other threads can read the position without touching the board
+    private volatile Position position;
+    // Moves of the game, as packed by Move, the ones after the current turn being the ones undone
+    private int[] history = new int[2 * KEYFRAME_INTERVAL];
+    private int plies;
+    // Position every KEYFRAME_INTERVAL plies of the history
+    private Position[] keyframes = new Position[2];
 
     /**
      * Constructs a CEngine object and initializes the board.
      */
     public CEngine() {
-        board = new GBoard(this);
+        this(null, 0, null);
+    }
+
+    /**
+     * Constructs a CEngine object recording its moves in a journal.
+     *
+     * @param journal the journal, or null to record nothing
+     * @param game the number of the game in the journal, reserved or recovered from it
+     */
+    public CEngine(MoveJournal journal, int game) {
+        this(journal, game, null);
+    }
+
+    /**
+     * Constructs a CEngine object recording its moves in a journal and played with a clock.
+     *
+     * @param journal the journal, or null to record nothing
+     * @param game the number of the game in the journal, reserved or recovered from it
+     * @param clock the clock of the game, or null to play without time limit
+     */
+    public CEngine(MoveJournal journal, int game, GameClock clock) {
+        this.journal = journal;
+        this.game = game;
+        this.clock = clock;
+        if (clock != null) clock.onFlag(this::timeForfeit);
+        board = new GBoard();
+        board.getEventBus().subscribe(new ViewUpdater(), EventBus.Delivery.SYNC);
+        position = board.position(playerTurn());
+        LIVE_GAMES.add(this);
+    }
+
+    /**
+     * Subscribes to the board events of this game.
+     *
+     * @param subscriber the subscriber to add
+     * @param delivery the way the events are delivered to the subscriber
+     */
+    public void subscribe(BoardSubscriber subscriber, EventBus.Delivery delivery) {
+        board.getEventBus().subscribe(subscriber, delivery);
+    }
+
+    /**
+     * Unsubscribes from the board events of this game.
+     *
+     * @param subscriber the subscriber to remove
+     */
+    public void unsubscribe(BoardSubscriber subscriber) {
+        board.getEventBus().unsubscribe(subscriber);
+    }
+
+    /**
+     * Closes this game: its clock is stopped and its board stops delivering events to the subscribers.
+     */
+    @Override
+    public void close() {
+        if (clock != null) {
+            clock.onFlag(null);
+            clock.stop();
+        }
+        board.close();
+        LIVE_GAMES.remove(this);
     }
 
     /**
@@ -40,22 +175,28 @@ public class CEngine implements ChessController, EObserver  {
      * Displays a message indicating the current turn and player.
      */
     private void displayMessage(){
-        view.displayMessage("Turn " + turn + " : " + playerTurn() + " player's turn");
+        if (view != null)
+            view.displayMessage(DeltaBuilder.turnMessage(turn, playerTurn()));
     }
 
     /**
-     * Advances to the next turn and updates the display message.
+     * Displays a message indicating the player who has run out of time, called when their flag falls.
+     * It runs on the thread finding the flag fallen, often the thread of the wheel: the view is in charge of
+     * bringing the message onto its own thread, as GUIView does with the event dispatch thread.
+     *
+     * @param color the color of the player
      */
-    private void nextTurn(){
-        turn++;
-        displayMessage();
+    private void timeForfeit(PlayerColor color) {
+        if (view != null)
+            view.displayMessage(DeltaBuilder.timeMessage(color));
     }
 
     /**
-     * Updates the game state to the next turn.
+     * Advances to the next turn, the display message is updated with the delta of the move.
      */
-    public void updateNextTurn() {
-        nextTurn();
+    private void nextTurn(){
+        turn++;
+        board.getEventBus().publish(new BoardEvent.TurnChanged(turn, playerTurn()));
     }
 
     /**
@@ -70,83 +211,325 @@ public class CEngine implements ChessController, EObserver  {
     }
 
     /**
-     * Prompts the user to choose a piece for promotion.
-     *
-     * @param p the piece to be promoted
-     * @return the chosen piece for promotion
+     * Starts a new game by clearing the board and resetting the turn count.
      */
     @Override
-    public Piece updatePopUp(Piece p) {
-        Piece[] promotion = {
-                new Queen(p.getColor(), p.getCell()),
-                new Rook(p.getColor(), p.getCell()),
-                new Bishop(p.getColor(), p.getCell()),
-                new Knight(p.getColor(), p.getCell())
-        };
-
-        return view.askUser("Promotion", "Choose a piece to promote", promotion);
+    public void newGame() {
+        board.getEventBus().beginBatch();
+        try {
+            board.clearBoard();
+            turn = 0;
+            board.getEventBus().publish(new BoardEvent.TurnChanged(turn, playerTurn()));
+            board.initBoard();
+            if (journal != null) journal.newGame(game);
+            if (clock != null) {
+                clock.reset();
+                clock.start(PlayerColor.WHITE);
+            }
+        } finally {
+            position = board.position(playerTurn());
+            plies = 0;
+            keyframes[0] = position;
+            board.getEventBus().commitBatch();
+        }
     }
 
     /**
-     * Starts a new game by clearing the board and resetting the turn count.
+     * Moves a piece from one cell to another.
+     * If a pawn reaches the last line, the view is asked which piece it is promoted to before the move is played.
+     *
+     * @param fromRow the starting row
+     * @param fromCol the starting column
+     * @param toRow the destination row
+     * @param toCol the destination column
+     * @return true if the move is successful, false otherwise
      */
     @Override
-    public void newGame() {
-        for (Piece piece : board.getBoard().values())
-            view.removePiece(piece.getCell().getRow(), piece.getCell().getCol());
-        board.clearBoard();
-        turn = 0;
-        displayMessage();
-        board.initBoard();
+    public boolean move(int fromRow, int fromCol, int toRow, int toCol){
+        return move(fromRow, fromCol, toRow, toCol, null);
     }
 
     /**
-     * Moves a piece from one cell to another.
+     * Moves a piece from one cell to another, promoting a pawn reaching the last line to the given type.
+     * The view is only asked when the type is missing, the rules never wait for the user.
      *
      * @param fromRow the starting row
      * @param fromCol the starting column
      * @param toRow the destination row
      * @param toCol the destination column
+     * @param promotion the type of piece the pawn is promoted to, null to ask the view if needed
      * @return true if the move is successful, false otherwise
+     * @throws IllegalArgumentException if a pawn cannot be promoted to this type of piece
      */
     @Override
-    public boolean move(int fromRow, int fromCol, int toRow, int toCol){
-        displayMessage();
-        if(board.move(fromRow, fromCol, toRow, toCol, playerTurn())){
-            nextTurn();
-            return true;
+    public boolean move(int fromRow, int fromCol, int toRow, int toCol, PieceType promotion){
+        long start = System.nanoTime();
+        MOVES_SUBMITTED.increment();
+
+        // A player out of time is not asked for the piece of a promotion
+        PlayerColor fallen = clock == null ? null : clock.flagged();
+        if (fallen != null) {
+            MOVES_REJECTED[MoveResult.TIME_FORFEIT.ordinal()].increment();
+            timeForfeit(fallen);
+            MOVE_LATENCY.recordSince(start);
+            return false;
+        }
+
+        if (promotion == null && isPromotion(fromRow, fromCol, toRow, toCol)) {
+            promotion = askPromotion();
+            if (promotion == null) {
+                MOVES_REJECTED[MoveResult.PROMOTION_CANCELLED.ordinal()].increment();
+                MOVE_LATENCY.recordSince(start);
+                return false;
+            }
         }
-        return false;
+
+        // The move as kept in the history, with the piece a pawn is promoted to only if it is a promotion
+        Position before = position;
+        byte piece = before.pieceAt(Position.square(fromRow, fromCol));
+        boolean promotes = piece != Position.EMPTY && Position.type(piece) == PieceType.PAWN
+                && toCol == (before.sideToMove() == PlayerColor.WHITE ? Position.SIZE - 1 : 0);
+        int played = Move.of(Position.square(fromRow, fromCol), Position.square(toRow, toCol),
+                promotes ? (promotion == null ? PieceType.QUEEN : promotion) : null);
+
+        MoveResult result;
+        board.getEventBus().beginBatch();
+        try {
+            result = board.tryMove(fromRow, fromCol, toRow, toCol, playerTurn(), promotion);
+            // The clock is pressed before the move counts, a flag fallen meanwhile takes the move back
+            if (result.isAccepted() && !press()) {
+                board.load(before);
+                result = MoveResult.TIME_FORFEIT;
+            }
+            if (result.isAccepted()) {
+                record(played);
+                nextTurn();
+                if (turn % KEYFRAME_INTERVAL == 0) keyframes[turn / KEYFRAME_INTERVAL] = board.position(playerTurn());
+            }
+        } finally {
+            position = board.position(playerTurn());
+            board.getEventBus().commitBatch();
+        }
+
+        if (result.isAccepted()) {
+            MOVES_ACCEPTED.increment();
+        } else {
+            MOVES_REJECTED[result.ordinal()].increment();
+            // A rejected move has no delta telling whose turn it still is, a time forfeit has been told by the clock
+            if (result != MoveResult.TIME_FORFEIT) displayMessage();
+        }
+        MOVE_LATENCY.recordSince(start);
+        return result.isAccepted();
     }
 
     /**
-     * Updates the view to add a piece to the board.
+     * Presses the clock for the player who has just moved, if the game is played with a clock.
      *
-     * @param p the piece to add
+     * @return true if the player had time left, false if their flag has fallen, the clock telling it
+     */
+    private boolean press() {
+        if (clock == null) return true;
+        try {
+            return clock.press(playerTurn());
+        } catch (IllegalStateException e) {
+            // The wheel has found the flag fallen since it was checked, and has already told it
+            return false;
+        }
+    }
+
+    /**
+     * Adds an accepted move to the history, dropping the moves undone before it.
+     *
+     * @param move the move, as packed by Move
+     */
+    private void record(int move) {
+        // Only copied to the journal's buffer, the disk is synced for all the games at once.
+        // The journal already follows the history to the current ply, the moves undone were taken out when browsing
+        if (journal != null) journal.move(game, move);
+
+        if (turn == history.length) history = Arrays.copyOf(history, 2 * history.length);
+        history[turn] = move;
+        plies = turn + 1;
+        if (plies / KEYFRAME_INTERVAL >= keyframes.length) keyframes = Arrays.copyOf(keyframes, 2 * keyframes.length);
+    }
+
+    /**
+     * Takes the last move back.
+     *
+     * @return true if a move was taken back, false if the game is at its start
+     */
+    @Override
+    public boolean undo() {
+        return turn > 0 && seek(turn - 1);
+    }
+
+    /**
+     * Plays again the last move taken back.
+     *
+     * @return true if a move was played again, false if no move was taken back
+     */
+    @Override
+    public boolean redo() {
+        return turn < plies && seek(turn + 1);
+    }
+
+    /**
+     * Goes to a ply of the history: the position is rebuilt from the nearest keyframe before it, and the board
+     * is changed to it in a single batch, so the view receives one delta whatever the distance.
+     * The moves after the ply are kept until another move is played.
+     *
+     * @param ply the number of moves played from the start of the game, brought back to the history if out of it
+     * @return true if the position has changed, false if the game was already at the ply
      */
     @Override
-    public void updateAddPiece(Piece p) {
-        view.putPiece(p.getType(), p.getColor(), p.getCell().getRow(), p.getCell().getCol());
+    public boolean seek(int ply) {
+        ply = Math.max(0, Math.min(ply, plies));
+        if (ply == turn) return false;
+
+        long start = System.nanoTime();
+        Position target = keyframes[ply / KEYFRAME_INTERVAL];
+        for (int i = ply / KEYFRAME_INTERVAL * KEYFRAME_INTERVAL; i < ply; i++)
+            target = target.play(history[i]);
+
+        board.getEventBus().beginBatch();
+        try {
+            board.load(target);
+            if (journal != null) {
+                // Recorded now, so a game left back in its history is recovered where it was left
+                if (ply < turn) journal.truncate(game, ply);
+                for (int i = turn; i < ply; i++) journal.move(game, history[i]);
+            }
+            turn = ply;
+            board.getEventBus().publish(new BoardEvent.TurnChanged(turn, playerTurn()));
+            if (MoveGenerator.inCheck(target))
+                board.getEventBus().publish(new BoardEvent.Check(target.sideToMove()));
+            if (clock != null && clock.flagged() == null) {
+                // Stopped first, so the time spent is charged and not given back
+                clock.stop();
+                clock.start(playerTurn());
+            }
+        } finally {
+            position = board.position(playerTurn());
+            board.getEventBus().commitBatch();
+        }
+        SEEK_LATENCY.recordSince(start);
+        return true;
+    }
+
+    /**
+     * Returns the number of moves played from the start of the game to the current position.
+     *
+     * @return the current ply
+     */
+    public int ply() {
+        return turn;
+    }
+
+    /**
+     * Returns the number of moves of the history, the ones taken back included.
+     *
+     * @return the last ply that can be reached with {@link #seek}
+     */
+    public int plies() {
+        return plies;
+    }
+
+    /**
+     * Starts a new game and plays moves, such as the moves of a game recovered from a journal.
+     * The view, if started, shows the moves as they are played.
+     *
+     * @param moves the moves, as packed by Move
+     * @throws IllegalArgumentException if a move is refused
+     */
+    public void replay(int[] moves) {
+        newGame();
+        for (int move : moves) {
+            int from = Move.from(move);
+            int to = Move.to(move);
+            if (!move(Position.row(from), Position.col(from), Position.row(to), Position.col(to), Move.promotion(move)))
+                throw new IllegalArgumentException("Move " + Move.toString(move) + " refused");
+        }
     }
 
     /**
-     * Updates the view to remove a piece from the board.
+     * Returns the position after the last move.
+     * This method can be called by any thread.
      *
-     * @param cell the cell of the piece to remove
+     * @return the position of the board, with the player to move
+     */
+    public Position position() {
+        return position;
+    }
+
+    /**
+     * Checks if a move brings a pawn of the player to move to the last line, from the last published position.
+     *
+     * @param fromRow the starting row
+     * @param fromCol the starting column
+     * @param toRow the destination row
+     * @param toCol the destination column
+     * @return true if the move is legal and promotes a pawn, false otherwise
      */
     @Override
-    public void updateRemovePiece(GCell cell) {
-        view.removePiece(cell.getRow(), cell.getCol());
+    public boolean isPromotion(int fromRow, int fromCol, int toRow, int toCol) {
+        Position current = position;
+        byte piece = current.pieceAt(Position.square(fromRow, fromCol));
+        if (piece == Position.EMPTY || Position.type(piece) != PieceType.PAWN) return false;
+
+        int lastLine = current.sideToMove() == PlayerColor.WHITE ? Position.SIZE - 1 : 0;
+        return toCol == lastLine && (legalMoves(fromRow, fromCol) & 1L << Position.square(toRow, toCol)) != 0;
+    }
+
+    /**
+     * Asks the view which piece a pawn is promoted to.
+     *
+     * @return the type of the chosen piece, or null if the user did not choose
+     */
+    private PieceType askPromotion() {
+        if (view == null) return null;
+
+        long start = System.nanoTime();
+        try {
+            PromotionChoice choice = view.askUser("Promotion", "Choose a piece to promote", PromotionChoice.values());
+            return choice == null ? null : choice.type();
+        } finally {
+            PROMOTION_LATENCY.recordSince(start);
+        }
     }
 
     /**
-     * Updates the view to indicate that a player is in check.
+     * Returns the destinations of the legal moves of a piece, computed from the last published position.
+     * The moves of a position are shared with the other games through {@link LegalMoveCache#shared()}.
+     * This method can be called by any thread.
      *
-     * @param color the color of the player in check
+     * @param x the row of the piece
+     * @param y the column of the piece
+     * @return a mask with bit {@code x + 8 * y} set for each destination
      */
     @Override
-    public void updateInCheck(PlayerColor color) {
-        String colorMsg = color == PlayerColor.WHITE ? "white" : "black";
-        view.displayMessage(colorMsg + " is in check");
+    public long legalMoves(int x, int y) {
+        return LegalMoveCache.shared().destinations(position, Position.square(x, y));
+    }
+
+    /**
+     * The ViewUpdater class forwards the board events to the view, one delta per batch.
+     */
+    private class ViewUpdater implements BoardSubscriber {
+
+        /**
+         * Applies the delta of the batch to the view.
+         *
+         * @param events the events of the batch
+         */
+        @Override
+        public void onEvents(List<BoardEvent> events) {
+            long start = System.nanoTime();
+            if (view == null) return;
+
+            BoardDelta delta = DeltaBuilder.build(events);
+            if (!delta.isEmpty())
+                view.applyDelta(delta);
+            VIEW_LATENCY.recordSince(start);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,141 @@
+package ch.heigvd.poo.engine.board;
+
+import ch.heigvd.poo.chess.PlayerColor;
+import ch.heigvd.poo.engine.moves.Move;
+
+import java.util.Arrays;
+
+/**
+ * The CompactGame class keeps an idle game in as little memory as possible, so a server can host
+ * a very large number of correspondence games.
+ * <p>
+ * The position is packed on four bits per square, sixteen squares per long, and an int holds the side to move,
+ * the castling rights and the en passant square: 80 bytes of heap, against about 600 for a {@link GBoard}
+ * with its event bus and snapshots. The moves are kept as packed by {@link Move}, two bytes each.
+ * A game is turned back into a full board only when a move arrives, see {@link #play(int)}.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public final class CompactGame {
+    private static final short[] NO_MOVES = {};
+
+    // Piece code of each square on four bits, sixteen squares per long
+    private final long[] squares = new long[Position.SIZE * Position.SIZE / 16];
+    // Side to move on bit 0, castling rights on bits 1 to 4, en passant square plus one on bits 5 to 11
+    private int state;
+    private short[] moves = NO_MOVES;
+    private int moveCount;
+
+    /**
+     * Constructs a CompactGame from the starting position.
+     */
+    public CompactGame() {
+        store(Position.START);
+    }
+
+    /**
+     * Constructs a CompactGame from a position reached by some moves, e.g. read back from a journal.
+     *
+     * @param position the position after the moves
+     * @param moves the moves played so far, as packed by Move, copied
+     * @throws NullPointerException if the position or the moves are null
+     */
+    public CompactGame(Position position, int[] moves) {
+        if (position == null || moves == null) throw new NullPointerException("The position or the moves are null");
+
+        store(position);
+        this.moves = new short[moves.length];
+        for (int move : moves) this.moves[moveCount++] = (short) move;
+    }
+
+    /**
+     * Returns the position of the game.
+     *
+     * @return the position, built again from the packed squares
+     */
+    public Position position() {
+        byte[] codes = new byte[Position.SIZE * Position.SIZE];
+        for (int square = 0; square < codes.length; square++)
+            codes[square] = (byte) (squares[square >>> 4] >>> ((square & 15) * 4) & 0xF);
+
+        PlayerColor side = (state & 1) == 0 ? PlayerColor.WHITE : PlayerColor.BLACK;
+        return Position.of(codes, side, state >>> 1 & Position.ALL_CASTLING, (state >>> 5) - 1);
+    }
+
+    /**
+     * Builds a full board in the position of the game.
+     *
+     * @return the board, whose changes are not kept by this game
+     */
+    public GBoard toBoard() {
+        GBoard board = new GBoard();
+        board.load(position());
+        return board;
+    }
+
+    /**
+     * Plays a move on a board built for it, and keeps the position it leads to if the move is accepted.
+     *
+     * @param move the move, as packed by Move, a pawn reaching the last line being promoted to a queen if no piece is given
+     * @return ACCEPTED if the move is played, the reason of the rejection otherwise
+     */
+    public MoveResult play(int move) {
+        try (GBoard board = toBoard()) {
+            int from = Move.from(move);
+            int to = Move.to(move);
+            MoveResult result = board.tryMove(Position.row(from), Position.col(from), Position.row(to), Position.col(to),
+                    board.snapshot().sideToMove(), Move.promotion(move));
+            if (result.isAccepted()) {
+                store(board.snapshot());
+                if (moveCount == moves.length) moves = Arrays.copyOf(moves, Math.max(8, moveCount + (moveCount >> 1)));
+                moves[moveCount++] = (short) move;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Returns the moves played so far.
+     *
+     * @return the moves, as packed by Move
+     */
+    public int[] moves() {
+        int[] result = new int[moveCount];
+        for (int i = 0; i < moveCount; i++) result[i] = moves[i] & 0xFFFF;
+        return result;
+    }
+
+    /**
+     * Returns the number of moves played so far.
+     *
+     * @return the number of moves
+     */
+    public int moveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Frees the room kept for the next moves, for a game that is going to stay idle.
+     */
+    public void trim() {
+        if (moves.length != moveCount) moves = moveCount == 0 ? NO_MOVES : Arrays.copyOf(moves, moveCount);
+    }
+
+    /**
+     * Packs a position.
+     *
+     * @param position the position
+     */
+    private void store(Position position) {
+        Arrays.fill(squares, 0);
+        for (int square = 0; square < Position.SIZE * Position.SIZE; square++)
+            squares[square >>> 4] |= (long) position.pieceAt(square) << ((square & 15) * 4);
+
+        state = (position.sideToMove() == PlayerColor.WHITE ? 0 : 1)
+                | position.castling() << 1
+                | position.enPassant() + 1 << 5;
+    }
+}
@@ -0,0 +1,160 @@
+package ch.heigvd.poo.engine.board;
+
+import ch.heigvd.poo.chess.PieceType;
+import ch.heigvd.poo.chess.PlayerColor;
+
+/**
+ * The Fen class reads and writes positions in the Forsyth-Edwards Notation,
+ * e.g. "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1".
+ * The move counters are optional when reading and written as "0 1", a {@link Position} does not keep them.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public final class Fen {
+    private static final String LETTERS = "PRNBQK";
+
+    private Fen() {
+    }
+
+    /**
+     * Reads a position. Only the first four fields are needed, so the position of an EPD line can be read too.
+     *
+     * @param fen the position in Forsyth-Edwards Notation
+     * @return the position
+     * @throws IllegalArgumentException if the text is not a valid position
+     */
+    public static Position parse(String fen) {
+        String[] fields = fen.strip().split("\\s+");
+        if (fields.length < 4) throw new IllegalArgumentException("Invalid FEN, 4 fields expected: " + fen);
+
+        return Position.of(parseSquares(fields[0], fen), parseSide(fields[1], fen),
+                parseCastling(fields[2], fen), parseEnPassant(fields[3], fen));
+    }
+
+    /**
+     * Writes a position.
+     *
+     * @param position the position
+     * @return the position in Forsyth-Edwards Notation
+     */
+    public static String format(Position position) {
+        StringBuilder sb = new StringBuilder();
+        for (int col = Position.SIZE - 1; col >= 0; col--) {
+            int empty = 0;
+            for (int row = 0; row < Position.SIZE; row++) {
+                byte piece = position.pieceAt(Position.square(row, col));
+                if (piece == Position.EMPTY) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) sb.append(empty);
+                empty = 0;
+                sb.append(Position.letter(piece));
+            }
+            if (empty > 0) sb.append(empty);
+            if (col > 0) sb.append('/');
+        }
+
+        sb.append(position.sideToMove() == PlayerColor.WHITE ? " w " : " b ");
+        int castling = position.castling();
+        if (castling == 0) sb.append('-');
+        if ((castling & Position.WHITE_KING_SIDE) != 0) sb.append('K');
+        if ((castling & Position.WHITE_QUEEN_SIDE) != 0) sb.append('Q');
+        if ((castling & Position.BLACK_KING_SIDE) != 0) sb.append('k');
+        if ((castling & Position.BLACK_QUEEN_SIDE) != 0) sb.append('q');
+
+        sb.append(' ');
+        int enPassant = position.enPassant();
+        if (enPassant == Position.NO_SQUARE)
+            sb.append('-');
+        else
+            sb.append((char) ('a' + Position.row(enPassant))).append((char) ('1' + Position.col(enPassant)));
+        return sb.append(" 0 1").toString();
+    }
+
+    /**
+     * Reads the pieces, from the 8th line to the 1st.
+     *
+     * @param field the field of the pieces
+     * @param fen the whole text, for the error messages
+     * @return the piece code of each square
+     */
+    private static byte[] parseSquares(String field, String fen) {
+        String[] lines = field.split("/");
+        if (lines.length != Position.SIZE) throw new IllegalArgumentException("Invalid FEN, 8 lines expected: " + fen);
+
+        byte[] squares = new byte[Position.SIZE * Position.SIZE];
+        for (int i = 0; i < Position.SIZE; i++) {
+            int col = Position.SIZE - 1 - i;
+            int row = 0;
+            for (char c : lines[i].toCharArray()) {
+                if (c >= '1' && c <= '8') {
+                    row += c - '0';
+                    continue;
+                }
+                int index = LETTERS.indexOf(Character.toUpperCase(c));
+                if (index < 0 || row >= Position.SIZE)
+                    throw new IllegalArgumentException("Invalid FEN, unexpected '" + c + "': " + fen);
+                PlayerColor color = Character.isUpperCase(c) ? PlayerColor.WHITE : PlayerColor.BLACK;
+                squares[Position.square(row++, col)] = Position.code(PieceType.values()[index], color);
+            }
+            if (row != Position.SIZE) throw new IllegalArgumentException("Invalid FEN, line of 8 squares expected: " + fen);
+        }
+        return squares;
+    }
+
+    /**
+     * Reads the side to move.
+     *
+     * @param field "w" or "b"
+     * @param fen the whole text, for the error messages
+     * @return the side to move
+     */
+    private static PlayerColor parseSide(String field, String fen) {
+        return switch (field) {
+            case "w" -> PlayerColor.WHITE;
+            case "b" -> PlayerColor.BLACK;
+            default -> throw new IllegalArgumentException("Invalid FEN, side to move expected: " + fen);
+        };
+    }
+
+    /**
+     * Reads the castling rights.
+     *
+     * @param field "-" or a combination of "KQkq"
+     * @param fen the whole text, for the error messages
+     * @return the castling rights, as a combination of the castling constants of {@link Position}
+     */
+    private static int parseCastling(String field, String fen) {
+        if (field.equals("-")) return 0;
+
+        int castling = 0;
+        for (char c : field.toCharArray()) {
+            castling |= switch (c) {
+                case 'K' -> Position.WHITE_KING_SIDE;
+                case 'Q' -> Position.WHITE_QUEEN_SIDE;
+                case 'k' -> Position.BLACK_KING_SIDE;
+                case 'q' -> Position.BLACK_QUEEN_SIDE;
+                default -> throw new IllegalArgumentException("Invalid FEN, castling rights expected: " + fen);
+            };
+        }
+        return castling;
+    }
+
+    /**
+     * Reads the en passant square.
+     *
+     * @param field "-" or the name of a square, e.g. "e3"
+     * @param fen the whole text, for the error messages
+     * @return the square, or NO_SQUARE
+     */
+    private static int parseEnPassant(String field, String fen) {
+        if (field.equals("-")) return Position.NO_SQUARE;
+
+        if (field.length() != 2 || field.charAt(0) < 'a' || field.charAt(0) > 'h'
+                || field.charAt(1) < '1' || field.charAt(1) > '8')
+            throw new IllegalArgumentException("Invalid FEN, en passant square expected: " + fen);
+        return Position.square(field.charAt(0) - 'a', field.charAt(1) - '1');
+    }
+}
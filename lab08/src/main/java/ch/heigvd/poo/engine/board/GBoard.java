@@ -1,111 +1,267 @@
 package ch.heigvd.poo.engine.board;
 
+import ch.heigvd.poo.chess.PieceType;
 import ch.heigvd.poo.chess.PlayerColor;
-import ch.heigvd.poo.engine.listeners.EObserver;
+import ch.heigvd.poo.engine.listeners.BoardEvent;
 import ch.heigvd.poo.engine.listeners.EEventSrc;
-import ch.heigvd.poo.engine.listeners.BObserver;
+import ch.heigvd.poo.engine.listeners.EventBus;
+import ch.heigvd.poo.engine.metrics.LatencyHistogram;
+import ch.heigvd.poo.engine.metrics.MetricsRegistry;
+import ch.heigvd.poo.engine.moves.MoveGenerator;
 import ch.heigvd.poo.engine.pieces.*;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * The GBoard class represents the chessboard and manages the pieces on it.
- * It implements the BObserver interface to handle board events.
+ * <p>
+ * The pieces are shared flyweights, so the board holds the whole state of the game: the piece code of each square,
+ * as in {@link Position}, the castling rights and the en passant square. A castling right is lost once the king or
+ * the rook has left its initial cell, or the rook has been taken; it is only used while both stand on their
+ * initial cells, so a board set up piece by piece can castle.
+ * <p>
+ * The board is meant to be changed by a single game thread. Other threads read it through {@link #snapshot()}:
+ * the board publishes an immutable {@link Position} after each move, so a reader never sees a move half played.
+ * A board no longer used is {@linkplain #close() closed}, which ends the delivery of its events.
  *
  * @author : Surbeck Léon
  * @author : Nicolet Victor
  */
-public class GBoard implements BObserver {
+public class GBoard implements AutoCloseable {
     private static final int BOARD_SIZE = 8;
-    private HashMap<GCell, Piece> board;
-    private static final EEventSrc events = new EEventSrc() {
+    private static final LatencyHistogram MOVE_LATENCY = MetricsRegistry.global().histogram("board.move");
+    private static final LatencyHistogram CHECK_LATENCY = MetricsRegistry.global().histogram("board.check");
+    private final EEventSrc events = new EEventSrc() {
     };
-    private Kings kings;
+
+    private final byte[] squares = new byte[BOARD_SIZE * BOARD_SIZE];
+    private PlayerColor sideToMove = PlayerColor.WHITE;
+    private int castling = Position.ALL_CASTLING;
+    private int enPassant = Position.NO_SQUARE;
+    // True while a move or a setup is played, the snapshot being published at its end
+    private boolean updating;
+    private volatile Position snapshot;
+
+    /**
+     * Constructs an empty GBoard.
+     */
+    public GBoard() {
+        publish();
+    }
 
     /**
-     * Constructs a GBoard with the specified observer.
+     * Returns the bus on which the events of this board are published.
      *
-     * @param obs the observer to attach for event notifications
+     * @return the event bus of this board
+     */
+    public EventBus getEventBus() {
+        return events.getBus();
+    }
+
+    /**
+     * Closes this board: its subscribers are removed, the events already queued being still delivered.
      */
-    public GBoard(EObserver obs) {
-        board = new HashMap<>();
-        kings = new Kings(board, this);
-        events.attach(obs);
+    @Override
+    public void close() {
+        events.getBus().close();
     }
 
     /**
-     * Adds a piece to the board.
+     * Adds a piece to the board, replacing the piece on the cell if any.
      *
      * @param p the piece to add
+     * @param cell the cell to put the piece on
+     * @throws NullPointerException if the piece or the cell is null
      */
-    public void addPiece(Piece p) {
-        board.put(p.getCell(), p);
-        events.updateAddPiece(p);
+    public void addPiece(Piece p, GCell cell) {
+        if (p == null || cell == null) throw new NullPointerException("The piece to add or its cell is null");
+
+        squares[square(cell)] = Position.code(p.getType(), p.getColor());
+        events.updateAddPiece(p, cell);
+        if (!updating) publish();
     }
 
     /**
      * Removes a piece from the board.
      *
-     * @param cell the cell of the piece to remove
-     * @return the removed piece
+     * @param cell the cell from which to remove the piece
+     * @return the removed piece, or null if the cell was empty
      */
     public Piece removePiece(GCell cell) {
-        Piece p = board.remove(cell);
-        events.updateRemovePiece(cell);
+        Piece p = getPiece(cell);
+        squares[square(cell)] = Position.EMPTY;
+        events.updateRemovePiece(cell, p);
+        if (!updating) publish();
         return p;
     }
 
     /**
      * Moves a piece to a new cell.
      *
+     * @param from the cell of the piece to move
      * @param to the destination cell
-     * @param p the piece to move
      * @return the piece that was at the destination cell, if any
-     * @throws NullPointerException if the piece or destination cell is null
+     * @throws NullPointerException if a cell is null or there is no piece to move
      */
-    public Piece movePiece(GCell to, Piece p) {
-        if (p == null || to == null) {
+    public Piece movePiece(GCell from, GCell to) {
+        if (from == null || to == null) {
             throw new NullPointerException("The from/to position for the movement is null");
         }
+        Piece p = getPiece(from);
+        if (p == null) throw new NullPointerException("There is no piece to move");
 
-        Piece pieceTo = board.get(to);
+        Piece pieceTo = getPiece(to);
         if (pieceTo != null) {
             removePiece(to);
         }
 
-        removePiece(p.getCell());
-
-        p.setCell(to);
-        addPiece(p);
+        removePiece(from);
+        addPiece(p, to);
 
         return pieceTo;
     }
 
     /**
-     * Clears the board of all pieces.
+     * Returns the piece on a cell.
+     *
+     * @param cell the cell
+     * @return the piece, or null if the cell is empty
+     */
+    public Piece getPiece(GCell cell) {
+        byte code = squares[square(cell)];
+        return code == Position.EMPTY ? null : Piece.of(Position.type(code), Position.color(code));
+    }
+
+    /**
+     * Clears the board of all pieces, the castling rights being given back.
+     * The removals are delivered as a single batch.
      */
     public void clearBoard() {
-        board.clear();
+        events.getBus().beginBatch();
+        try {
+            for (int square = 0; square < squares.length; square++) {
+                if (squares[square] != Position.EMPTY) {
+                    GCell cell = new GCell(Position.row(square), Position.col(square));
+                    events.updateRemovePiece(cell, getPiece(cell));
+                }
+            }
+            Arrays.fill(squares, Position.EMPTY);
+            castling = Position.ALL_CASTLING;
+            enPassant = Position.NO_SQUARE;
+        } finally {
+            publish();
+            events.getBus().commitBatch();
+        }
+    }
+
+    /**
+     * Puts the board in a position, e.g. to play a move in a game that was kept compact while idle.
+     * Only the squares that differ are changed, the changes being delivered as a single batch.
+     *
+     * @param position the position to put the board in
+     * @throws NullPointerException if the position is null
+     */
+    public void load(Position position) {
+        if (position == null) throw new NullPointerException("The position is null");
+
+        byte[] target = new byte[squares.length];
+        for (int square = 0; square < target.length; square++)
+            target[square] = position.pieceAt(square);
+
+        events.getBus().beginBatch();
+        updating = true;
+        try {
+            restore(target);
+            sideToMove = position.sideToMove();
+            castling = position.castling();
+            enPassant = position.enPassant();
+        } finally {
+            updating = false;
+            publish();
+            events.getBus().commitBatch();
+        }
+    }
+
+    /**
+     * Returns the state of the board after the last move, with the player who has to play next.
+     * The snapshot is immutable and published once the move is complete: any thread can read it without locking,
+     * and taking it costs nothing, the board having built it at the end of the move.
+     *
+     * @return the position of the board
+     */
+    public Position snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Returns an immutable copy of the board state.
+     * With the player who has to play next, this is the {@link #snapshot()}; with the other one,
+     * the position is built again, without en passant square, which only the game thread may do.
+     *
+     * @param sideToMove the color of the player who has to play
+     * @return the position of the board
+     */
+    public Position position(PlayerColor sideToMove) {
+        Position current = snapshot;
+        if (current.sideToMove() == sideToMove) return current;
+        return Position.of(squares, sideToMove, castlingRights(), Position.NO_SQUARE);
+    }
+
+    /**
+     * Publishes the snapshot of the board.
+     */
+    private void publish() {
+        snapshot = Position.of(squares, sideToMove, castlingRights(), enPassant);
+    }
+
+    /**
+     * Returns the castling rights that can be used, the king and the rook standing on their initial cells.
+     *
+     * @return the castling rights
+     */
+    private int castlingRights() {
+        int rights = 0;
+        for (PlayerColor color : PlayerColor.values()) {
+            int line = color == PlayerColor.WHITE ? 0 : BOARD_SIZE - 1;
+            if (squares[Position.square(4, line)] != Position.code(PieceType.KING, color)) continue;
+
+            byte rook = Position.code(PieceType.ROOK, color);
+            if (squares[Position.square(BOARD_SIZE - 1, line)] == rook)
+                rights |= color == PlayerColor.WHITE ? Position.WHITE_KING_SIDE : Position.BLACK_KING_SIDE;
+            if (squares[Position.square(0, line)] == rook)
+                rights |= color == PlayerColor.WHITE ? Position.WHITE_QUEEN_SIDE : Position.BLACK_QUEEN_SIDE;
+        }
+        return rights & castling;
     }
 
     /**
-     * Returns the current state of the board.
+     * Returns the castling rights lost when a piece leaves or reaches a cell.
      *
-     * @return a HashMap representing the board
+     * @param cell the cell
+     * @return the rights bound to the cell, 0 if none
      */
-    public HashMap<GCell, Piece> getBoard() {
-        return board;
+    private static int rightsOf(GCell cell) {
+        int square = square(cell);
+        return switch (square) {
+            case 4 -> Position.WHITE_KING_SIDE | Position.WHITE_QUEEN_SIDE;
+            case 0 -> Position.WHITE_QUEEN_SIDE;
+            case 7 -> Position.WHITE_KING_SIDE;
+            case 60 -> Position.BLACK_KING_SIDE | Position.BLACK_QUEEN_SIDE;
+            case 56 -> Position.BLACK_QUEEN_SIDE;
+            case 63 -> Position.BLACK_KING_SIDE;
+            default -> 0;
+        };
     }
 
     /**
-     * Resets the en passant target for pawns of the specified color.
+     * Returns the square of a cell, as numbered in Position.
      *
-     * @param color the color of the pawns to reset
+     * @param cell the cell
+     * @return the square
      */
-    public void resetTargetPassant(PlayerColor color) {
-        for (Piece piece : board.values())
-            if (piece instanceof Pawn && piece.getColor() != color) ((Pawn) piece).updateCanEnPassant(0);
+    private static int square(GCell cell) {
+        return Position.square(cell.getRow(), cell.getCol());
     }
 
     /**
@@ -116,13 +272,40 @@ public class GBoard implements BObserver {
      */
     private boolean isEmptyBetween(List<GCell> path) {
         for (GCell cell : path)
-            if (board.get(cell) != null) return false;
+            if (squares[square(cell)] != Position.EMPTY) return false;
 
         return true;
     }
 
+    /**
+     * Checks if the king of a color is attacked.
+     *
+     * @param color the color of the king
+     * @return true if the king is on the board and attacked, false otherwise
+     */
+    private boolean isCheck(PlayerColor color) {
+        byte king = Position.code(PieceType.KING, color);
+        for (int square = 0; square < squares.length; square++) {
+            if (squares[square] == king)
+                return isAttacked(square, MoveGenerator.opponent(color));
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a square is attacked by the pieces of a color.
+     *
+     * @param square the square
+     * @param by the color of the attacking pieces
+     * @return true if the square is attacked
+     */
+    private boolean isAttacked(int square, PlayerColor by) {
+        return MoveGenerator.isAttacked(Position.of(squares, by, 0, Position.NO_SQUARE), square, by);
+    }
+
     /**
      * Moves a piece from one cell to another if the move is valid.
+     * The events published while the move is played are delivered as a single batch.
      *
      * @param fromRow the starting row
      * @param fromCol the starting column
@@ -132,185 +315,183 @@ public class GBoard implements BObserver {
      * @return true if the move is successful, false otherwise
      */
     public boolean move(int fromRow, int fromCol, int toRow, int toCol, PlayerColor color) {
-        GCell from = new GCell(fromRow, fromCol);
-        GCell to = new GCell(toRow, toCol);
-
-        Piece p = board.get(from);
-        Piece toP = board.get(to);
-
-        if (p == null || (toP != null && toP.getColor() == color)) return false;
-
-        if (p.getColor() == color && p.canMove(to) && isEmptyBetween(p.path(to))) {
-
-            Piece eaten = movePiece(to, board.get(p.getCell()));
-
-            King inCheck = kings.IsCheck();
-            if (inCheck != null) {
-
-                if (inCheck.getIsCheck() || inCheck.getColor() == color) {
-                    movePiece(from, board.get(to));
-
-                    if (eaten != null) addPiece(eaten);
-
-                    return false;
-                }
-                inCheck.setIsCheck(true);
-            }
-            resetTargetPassant(color);
-            return true;
-        }
-        return false;
+        return tryMove(fromRow, fromCol, toRow, toCol, color).isAccepted();
     }
 
     /**
-     * Initializes the board with the starting positions of all pieces.
+     * Moves a piece from one cell to another if the move is valid, see {@link #move(int, int, int, int, PlayerColor)}.
+     * A pawn reaching the last line is promoted to a queen.
+     *
+     * @param fromRow the starting row
+     * @param fromCol the starting column
+     * @param toRow the destination row
+     * @param toCol the destination column
+     * @param color the color of the player making the move
+     * @return ACCEPTED if the move is successful, the reason of the rejection otherwise
      */
-    public void initBoard() {
-        // Re-initialize the kings
-        kings = new Kings(board, this);
-
-        for (PlayerColor color : PlayerColor.values()) {
-            int line = color == PlayerColor.WHITE ? 0 : BOARD_SIZE - 1;
-
-            addPiece(new Rook(color, new GCell(0, line)));
-            addPiece(new Knight(color, new GCell(1, line)));
-            addPiece(new Bishop(color, new GCell(2, line)));
-            addPiece(new Queen(color, new GCell(3, line)));
-            addPiece(new Bishop(color, new GCell(5, line)));
-            addPiece(new Knight(color, new GCell(6, line)));
-            addPiece(new Rook(color, new GCell(7, line)));
-
-            // Get the corresponding colored king to put it in the board
-            King king = kings.getKing(color);
-            king.setCell(new GCell(4, line));
-            addPiece(king);
-
-            int pawnLine = (color == PlayerColor.WHITE ? 1 : 6);
-            for (int j = 0; j < BOARD_SIZE; j++) {
-                Pawn p = new Pawn(color, new GCell(j, pawnLine), this);
-                addPiece(p);
-            }
-        }
+    public MoveResult tryMove(int fromRow, int fromCol, int toRow, int toCol, PlayerColor color) {
+        return tryMove(fromRow, fromCol, toRow, toCol, color, null);
     }
 
     /**
-     * Updates the board when a pawn is promoted.
+     * Moves a piece from one cell to another if the move is valid, see {@link #move(int, int, int, int, PlayerColor)}.
      *
-     * @param p the pawn to promote
-     * @throws NullPointerException if the pawn to promote is null
+     * @param fromRow the starting row
+     * @param fromCol the starting column
+     * @param toRow the destination row
+     * @param toCol the destination column
+     * @param color the color of the player making the move
+     * @param promotion the type of piece a pawn reaching the last line is promoted to, null for a queen
+     * @return ACCEPTED if the move is successful, the reason of the rejection otherwise
+     * @throws IllegalArgumentException if a pawn cannot be promoted to this type of piece
      */
-    @Override
-    public void updatePromotion(Pawn p) {
-        if (p == null) throw new NullPointerException("The pawn to promote is null");
-
-        Piece prom = events.updatePopUp(p);
-
-        if (board.remove(prom.getCell()) == null) throw new NullPointerException("The piece to remove is null");
-
-        board.remove(p.getCell());
-        board.put(prom.getCell(), prom);
+    public MoveResult tryMove(int fromRow, int fromCol, int toRow, int toCol, PlayerColor color, PieceType promotion) {
+        if (promotion == PieceType.PAWN || promotion == PieceType.KING)
+            throw new IllegalArgumentException("A pawn cannot be promoted to a " + promotion);
+
+        events.getBus().beginBatch();
+        long start = System.nanoTime();
+        updating = true;
+        try {
+            MoveResult result = play(new GCell(fromRow, fromCol), new GCell(toRow, toCol), color,
+                    promotion == null ? PieceType.QUEEN : promotion);
+            if (result.isAccepted())
+                sideToMove = MoveGenerator.opponent(color);
+            return result;
+        } finally {
+            updating = false;
+            publish();
+            MOVE_LATENCY.recordSince(start);
+            events.getBus().commitBatch();
+        }
     }
 
     /**
-     * Updates the board to get the piece at a specific cell for en passant.
+     * Plays a move, see {@link #move(int, int, int, int, PlayerColor)}.
      *
-     * @param pawn the pawn performing en passant
-     * @param cell the cell to move to
-     * @return the piece at the specified cell
-     * @throws NullPointerException if the pawn or cell is null
+     * @param from the starting cell
+     * @param to the destination cell
+     * @param color the color of the player making the move
+     * @param promotion the type of piece a pawn reaching the last line is promoted to
+     * @return ACCEPTED if the move is successful, the reason of the rejection otherwise
      */
-    @Override
-    public Piece updatePieceTo(Pawn pawn, GCell cell) {
-        if (pawn == null) throw new NullPointerException("The pawn to move is null");
+    private MoveResult play(GCell from, GCell to, PlayerColor color, PieceType promotion) {
+        Piece p = getPiece(from);
+        Piece toP = getPiece(to);
+
+        if (p == null) return MoveResult.EMPTY_SQUARE;
+        if (toP != null && toP.getColor() == color) return MoveResult.OWN_PIECE;
+        if (p.getColor() != color) return MoveResult.NOT_PLAYER_PIECE;
+
+        boolean castles = p instanceof King king && king.isCastling(from, to);
+        if (!castles && !p.canMove(from, to)) return MoveResult.ILLEGAL_MOVE;
+
+        boolean enPassantCapture = false;
+        if (p instanceof Pawn pawn) {
+            // A pawn only takes on a diagonal, where the cell it jumped over counts for the pawn that just moved two cells
+            enPassantCapture = pawn.isCapture(from, to) && toP == null && square(to) == enPassant;
+            if (pawn.isCapture(from, to) ? toP == null && !enPassantCapture : toP != null)
+                return MoveResult.ILLEGAL_MOVE;
+        }
+        if (!isEmptyBetween(p.path(from, to))) return MoveResult.PATH_BLOCKED;
+
+        GCell rookFrom = null;
+        GCell rookTo = null;
+        if (castles) {
+            int direction = from.directionRow(to);
+            rookFrom = new GCell(direction > 0 ? BOARD_SIZE - 1 : 0, from.getCol());
+            rookTo = new GCell(from.getRow() + direction, from.getCol());
+            int right = rightsOf(rookFrom);
+            if ((castlingRights() & right) == 0) return MoveResult.ILLEGAL_MOVE;
+            if (!isEmptyBetween(Piece.of(PieceType.ROOK, color).path(rookFrom, from))) return MoveResult.PATH_BLOCKED;
+            // The king may not castle out of, through or into check
+            PlayerColor opponent = MoveGenerator.opponent(color);
+            if (isAttacked(square(from), opponent) || isAttacked(square(rookTo), opponent))
+                return MoveResult.KING_IN_CHECK;
+        }
+
+        byte[] before = squares.clone();
+        movePiece(from, to);
+        if (enPassantCapture) {
+            GCell captured = new GCell(to.getRow(), from.getCol());
+            removePiece(captured);
+            events.getBus().publish(new BoardEvent.EnPassant(captured));
+        }
+        if (castles) movePiece(rookFrom, rookTo);
+        boolean promotes = p instanceof Pawn pawn && pawn.isPromotion(to);
+        if (promotes) {
+            removePiece(to);
+            addPiece(Piece.of(promotion, color), to);
+        }
 
-        if (cell == null) throw new NullPointerException("The cell to move to is null");
+        long start = System.nanoTime();
+        boolean selfCheck = isCheck(color);
+        boolean check = !selfCheck && isCheck(MoveGenerator.opponent(color));
+        CHECK_LATENCY.recordSince(start);
+        if (selfCheck) {
+            restore(before);
+            return MoveResult.KING_IN_CHECK;
+        }
 
-        return board.get(cell);
+        castling &= ~(rightsOf(from) | rightsOf(to));
+        enPassant = p instanceof Pawn && from.distanceRow(to) == 2
+                ? Position.square(from.getRow(), (from.getCol() + to.getCol()) / 2) : Position.NO_SQUARE;
+        if (castles)
+            events.getBus().publish(new BoardEvent.Castling(color, from.directionRow(to)));
+        if (promotes)
+            events.getBus().publish(new BoardEvent.Promotion(color, promotion, to));
+        if (check)
+            events.updateInCheck(MoveGenerator.opponent(color));
+        return MoveResult.ACCEPTED;
     }
 
     /**
-     * Updates the board to remove a piece for en passant.
+     * Puts the pieces of the board as given, publishing the changes.
      *
-     * @param cell the cell to remove the piece from
-     * @throws NullPointerException if the cell is null
+     * @param target the piece code of each square to go to
      */
-    @Override
-    public void updateEnPassant(GCell cell) {
-        if (cell == null) throw new NullPointerException("The cell to move to is null");
-
-        board.remove(cell);
+    private void restore(byte[] target) {
+        for (int square = 0; square < squares.length; square++) {
+            if (squares[square] == target[square]) continue;
+
+            GCell cell = new GCell(Position.row(square), Position.col(square));
+            if (squares[square] != Position.EMPTY) removePiece(cell);
+            if (target[square] != Position.EMPTY)
+                addPiece(Piece.of(Position.type(target[square]), Position.color(target[square])), cell);
+        }
     }
 
     /**
-     * Updates the board for castling.
-     *
-     * @param king the king performing castling
-     * @param rook the rook involved in castling
-     * @param direction the direction of castling
+     * Initializes the board with the starting positions of all pieces.
      */
-    @Override
-    public void updateCastling(King king, Rook rook, int direction) {
-        int distance = direction + king.getCell().getRow();
-
-        removePiece(king.getCell());
-        king.setCell(new GCell(king.getCell().getRow() + direction * 2, king.getCell().getCol()));
-        addPiece(king);
-
-        removePiece(rook.getCell());
-        rook.setCell(new GCell(distance, rook.getCell().getCol()));
-        addPiece(rook);
-
-        events.updateNextTurn();
+    public void initBoard() {
+        updating = true;
+        try {
+            setUp();
+        } finally {
+            updating = false;
+            sideToMove = PlayerColor.WHITE;
+            castling = Position.ALL_CASTLING;
+            enPassant = Position.NO_SQUARE;
+            publish();
+        }
     }
 
     /**
-     * The Kings class manages the kings on the board and checks if they are in check.
+     * Puts all the pieces on their starting cells.
      */
-    private static class Kings {
-        private final King whiteKing;
-        private final King blackKing;
-
-        /**
-         * Constructs a Kings object with the specified board and observer.
-         *
-         * @param board the board containing all pieces
-         * @param obs the observer to attach for event notifications
-         */
-        Kings(HashMap<GCell, Piece> board, GBoard obs) {
-            whiteKing = new King(PlayerColor.WHITE, null, board, obs);
-            blackKing = new King(PlayerColor.BLACK, null, board, obs);
-        }
-
-        /**
-         * Returns the king of the specified color.
-         *
-         * @param color the color of the king
-         * @return the king of the specified color
-         */
-        King getKing(PlayerColor color) {
-            return color == PlayerColor.WHITE ? whiteKing : blackKing;
-        }
+    private void setUp() {
+        PieceType[] firstLine = {PieceType.ROOK, PieceType.KNIGHT, PieceType.BISHOP, PieceType.QUEEN,
+                PieceType.KING, PieceType.BISHOP, PieceType.KNIGHT, PieceType.ROOK};
 
-        /**
-         * Checks if either king is in check.
-         *
-         * @return the king that is in check, or null if neither king is in check
-         */
-        King IsCheck() {
-            if (whiteKing.isCheck()) {
-                blackKing.setIsCheck(false);
-                events.updateInCheck(whiteKing.getColor());
-                return whiteKing;
-            }
+        for (PlayerColor color : PlayerColor.values()) {
+            int line = color == PlayerColor.WHITE ? 0 : BOARD_SIZE - 1;
+            int pawnLine = color == PlayerColor.WHITE ? 1 : BOARD_SIZE - 2;
 
-            if (blackKing.isCheck()) {
-                whiteKing.setIsCheck(false);
-                events.updateInCheck(blackKing.getColor());
-                return blackKing;
+            for (int j = 0; j < BOARD_SIZE; j++) {
+                addPiece(Piece.of(firstLine[j], color), new GCell(j, line));
+                addPiece(Piece.of(PieceType.PAWN, color), new GCell(j, pawnLine));
             }
-            whiteKing.setIsCheck(false);
-            blackKing.setIsCheck(false);
-            return null;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package ch.heigvd.poo.engine.board;
+
+/**
+ * The MoveResult enum gives the outcome of a move asked to the board, and the reason of a rejection.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public enum MoveResult {
+    /** The move was played. */
+    ACCEPTED,
+    /** There is no piece on the starting cell. */
+    EMPTY_SQUARE,
+    /** The piece on the starting cell belongs to the opponent. */
+    NOT_PLAYER_PIECE,
+    /** The destination cell holds a piece of the player. */
+    OWN_PIECE,
+    /** The piece cannot move that way. */
+    ILLEGAL_MOVE,
+    /** A piece stands between the starting cell and the destination. */
+    PATH_BLOCKED,
+    /** The move leaves a king in check. */
+    KING_IN_CHECK,
+    /** The user did not choose the piece a pawn is promoted to. */
+    PROMOTION_CANCELLED,
+    /** The player has run out of time. */
+    TIME_FORFEIT;
+
+    /**
+     * Checks if the move was played.
+     *
+     * @return true if the move was played, false otherwise
+     */
+    public boolean isAccepted() {
+        return this == ACCEPTED;
+    }
+}
@@ -0,0 +1,364 @@
+package ch.heigvd.poo.engine.board;
+
+import ch.heigvd.poo.chess.PieceType;
+import ch.heigvd.poo.chess.PlayerColor;
+import ch.heigvd.poo.engine.moves.Move;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * The Position class is an immutable, compact copy of a board state that any thread can read.
+ * Squares are numbered from 0 to 63 as {@code row + 8 * col}, using the row and column of {@link GCell},
+ * and each square holds a piece code: 0 for an empty square, {@code 1 + PieceType.ordinal()} for a white piece
+ * and the same value plus {@link #BLACK} for a black one.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public final class Position {
+    public static final int SIZE = 8;
+    public static final byte EMPTY = 0;
+    public static final int BLACK = 8;
+    public static final int NO_SQUARE = -1;
+
+    public static final int WHITE_KING_SIDE = 1;
+    public static final int WHITE_QUEEN_SIDE = 2;
+    public static final int BLACK_KING_SIDE = 4;
+    public static final int BLACK_QUEEN_SIDE = 8;
+    public static final int ALL_CASTLING = 15;
+
+    private static final PieceType[] TYPES = PieceType.values();
+
+    // Random keys of the Zobrist hashing: one per piece code and square, then the side, castling and en passant keys
+    private static final int SIDE_KEY = 16 * SIZE * SIZE;
+    private static final int CASTLING_KEYS = SIDE_KEY + 1;
+    private static final int EN_PASSANT_KEYS = CASTLING_KEYS + ALL_CASTLING + 1;
+    private static final long[] ZOBRIST = new SplittableRandom(0x5EED).longs(EN_PASSANT_KEYS + SIZE * SIZE).toArray();
+
+    /**
+     * The starting position.
+     */
+    public static final Position START = start();
+
+    private final byte[] squares;
+    private final PlayerColor sideToMove;
+    private final int castling;
+    private final int enPassant;
+    private final long key;
+    private final int hash;
+
+    /**
+     * Constructs a Position, the array of squares is owned by the position and must not be modified afterwards.
+     *
+     * @param squares the piece code of each square
+     * @param sideToMove the color of the player who has to play
+     * @param castling the castling rights still available
+     * @param enPassant the square a pawn can move to by taking en passant, or NO_SQUARE
+     */
+    private Position(byte[] squares, PlayerColor sideToMove, int castling, int enPassant) {
+        this.squares = squares;
+        this.sideToMove = sideToMove;
+        this.castling = castling;
+        this.enPassant = enPassant;
+        this.key = zobrist(squares, sideToMove, castling, enPassant);
+        this.hash = (int) (key ^ key >>> 32);
+    }
+
+    /**
+     * Computes the Zobrist key of a position.
+     *
+     * @param squares the piece code of each square
+     * @param sideToMove the color of the player who has to play
+     * @param castling the castling rights still available
+     * @param enPassant the en passant square, or NO_SQUARE
+     * @return the key
+     */
+    private static long zobrist(byte[] squares, PlayerColor sideToMove, int castling, int enPassant) {
+        long key = 0;
+        for (int sq = 0; sq < squares.length; sq++)
+            if (squares[sq] != EMPTY) key ^= ZOBRIST[squares[sq] * SIZE * SIZE + sq];
+        if (sideToMove == PlayerColor.BLACK) key ^= ZOBRIST[SIDE_KEY];
+        key ^= ZOBRIST[CASTLING_KEYS + castling];
+        if (enPassant != NO_SQUARE) key ^= ZOBRIST[EN_PASSANT_KEYS + enPassant];
+        return key;
+    }
+
+    /**
+     * Creates a position from the piece code of each square.
+     *
+     * @param squares the piece code of each square, copied
+     * @param sideToMove the color of the player who has to play
+     * @param castling the castling rights still available
+     * @param enPassant the square a pawn can move to by taking en passant, or NO_SQUARE
+     * @return the position
+     * @throws IllegalArgumentException if there are not 64 squares
+     * @throws NullPointerException if the side to move is null
+     */
+    public static Position of(byte[] squares, PlayerColor sideToMove, int castling, int enPassant) {
+        if (squares.length != SIZE * SIZE) throw new IllegalArgumentException("A position has 64 squares");
+        if (sideToMove == null) throw new NullPointerException("The side to move is null");
+
+        return new Position(squares.clone(), sideToMove, castling & ALL_CASTLING, enPassant);
+    }
+
+    /**
+     * Creates the starting position.
+     *
+     * @return the starting position
+     */
+    private static Position start() {
+        byte[] squares = new byte[SIZE * SIZE];
+        PieceType[] back = {PieceType.ROOK, PieceType.KNIGHT, PieceType.BISHOP, PieceType.QUEEN,
+                PieceType.KING, PieceType.BISHOP, PieceType.KNIGHT, PieceType.ROOK};
+
+        for (int row = 0; row < SIZE; row++) {
+            squares[square(row, 0)] = code(back[row], PlayerColor.WHITE);
+            squares[square(row, 1)] = code(PieceType.PAWN, PlayerColor.WHITE);
+            squares[square(row, 6)] = code(PieceType.PAWN, PlayerColor.BLACK);
+            squares[square(row, 7)] = code(back[row], PlayerColor.BLACK);
+        }
+        return new Position(squares, PlayerColor.WHITE, ALL_CASTLING, NO_SQUARE);
+    }
+
+    /**
+     * Returns the square of a row and a column.
+     *
+     * @param row the row, as in {@link GCell#getRow()}
+     * @param col the column, as in {@link GCell#getCol()}
+     * @return the square
+     */
+    public static int square(int row, int col) {
+        return row + SIZE * col;
+    }
+
+    /**
+     * Returns the row of a square.
+     *
+     * @param square the square
+     * @return the row of the square
+     */
+    public static int row(int square) {
+        return square & 7;
+    }
+
+    /**
+     * Returns the column of a square.
+     *
+     * @param square the square
+     * @return the column of the square
+     */
+    public static int col(int square) {
+        return square >>> 3;
+    }
+
+    /**
+     * Returns the code of a piece.
+     *
+     * @param type the type of the piece
+     * @param color the color of the piece
+     * @return the code of the piece
+     */
+    public static byte code(PieceType type, PlayerColor color) {
+        return (byte) (1 + type.ordinal() + (color == PlayerColor.BLACK ? BLACK : 0));
+    }
+
+    /**
+     * Returns the type of a piece code.
+     *
+     * @param code the code of a piece, not EMPTY
+     * @return the type of the piece
+     */
+    public static PieceType type(int code) {
+        return TYPES[(code & 7) - 1];
+    }
+
+    /**
+     * Returns the color of a piece code.
+     *
+     * @param code the code of a piece, not EMPTY
+     * @return the color of the piece
+     */
+    public static PlayerColor color(int code) {
+        return (code & BLACK) != 0 ? PlayerColor.BLACK : PlayerColor.WHITE;
+    }
+
+    /**
+     * Returns the piece code on a square.
+     *
+     * @param square the square
+     * @return the piece code, EMPTY if there is no piece
+     */
+    public byte pieceAt(int square) {
+        return squares[square];
+    }
+
+    /**
+     * Returns the color of the player who has to play.
+     *
+     * @return the side to move
+     */
+    public PlayerColor sideToMove() {
+        return sideToMove;
+    }
+
+    /**
+     * Returns the castling rights still available, as a combination of the castling constants.
+     *
+     * @return the castling rights
+     */
+    public int castling() {
+        return castling;
+    }
+
+    /**
+     * Returns the square a pawn can move to by taking en passant.
+     *
+     * @return the en passant square, or NO_SQUARE
+     */
+    public int enPassant() {
+        return enPassant;
+    }
+
+    /**
+     * Returns the 64-bit Zobrist key of this position, which tells positions apart far better than its hash code.
+     * Equal positions have the same key.
+     *
+     * @return the key
+     */
+    public long key() {
+        return key;
+    }
+
+    /**
+     * Returns the number of pieces on the board.
+     *
+     * @return the number of occupied squares
+     */
+    public int pieceCount() {
+        int count = 0;
+        for (byte code : squares)
+            if (code != EMPTY) count++;
+        return count;
+    }
+
+    /**
+     * Returns the square of the king of a color.
+     *
+     * @param color the color of the king
+     * @return the square of the king, or NO_SQUARE if there is none
+     */
+    public int king(PlayerColor color) {
+        byte king = code(PieceType.KING, color);
+        for (int sq = 0; sq < squares.length; sq++)
+            if (squares[sq] == king) return sq;
+        return NO_SQUARE;
+    }
+
+    /**
+     * Returns the position after a move. The move is not checked.
+     *
+     * @param move the move, encoded as in {@link Move}
+     * @return the new position
+     */
+    public Position play(int move) {
+        byte[] next = squares.clone();
+        int from = Move.from(move);
+        int to = Move.to(move);
+        byte piece = next[from];
+        PieceType type = type(piece);
+        int nextEnPassant = NO_SQUARE;
+
+        next[from] = EMPTY;
+        next[to] = piece;
+
+        if (type == PieceType.PAWN) {
+            if (to == enPassant)
+                next[square(row(to), col(from))] = EMPTY;
+            else if (Math.abs(col(to) - col(from)) == 2)
+                nextEnPassant = square(row(from), (col(from) + col(to)) / 2);
+            if (Move.promotion(move) != null)
+                next[to] = code(Move.promotion(move), sideToMove);
+        } else if (type == PieceType.KING && Math.abs(row(to) - row(from)) == 2) {
+            boolean kingSide = row(to) > row(from);
+            int rookFrom = square(kingSide ? SIZE - 1 : 0, col(from));
+            int rookTo = square(kingSide ? row(to) - 1 : row(to) + 1, col(from));
+            next[rookTo] = next[rookFrom];
+            next[rookFrom] = EMPTY;
+        }
+
+        PlayerColor opponent = sideToMove == PlayerColor.WHITE ? PlayerColor.BLACK : PlayerColor.WHITE;
+        return new Position(next, opponent, castling & ~lostCastling(from) & ~lostCastling(to), nextEnPassant);
+    }
+
+    /**
+     * Returns the castling rights lost when a piece leaves or arrives on a square.
+     *
+     * @param square the square
+     * @return the castling rights lost
+     */
+    private static int lostCastling(int square) {
+        return switch (square) {
+            case 4 -> WHITE_KING_SIDE | WHITE_QUEEN_SIDE;
+            case 7 -> WHITE_KING_SIDE;
+            case 0 -> WHITE_QUEEN_SIDE;
+            case 60 -> BLACK_KING_SIDE | BLACK_QUEEN_SIDE;
+            case 63 -> BLACK_KING_SIDE;
+            case 56 -> BLACK_QUEEN_SIDE;
+            default -> 0;
+        };
+    }
+
+    /**
+     * Checks if this position is equal to another object.
+     *
+     * @param o the object to compare with
+     * @return true if the object is a Position with the same pieces, side to move, castling rights and en passant square
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Position p)) return false;
+        return key == p.key && sideToMove == p.sideToMove && castling == p.castling && enPassant == p.enPassant
+                && Arrays.equals(squares, p.squares);
+    }
+
+    /**
+     * Returns the hash code of this position.
+     *
+     * @return the hash code of this position
+     */
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Returns a string representation of this position, one line per column from the 8th to the 1st.
+     *
+     * @return a string representation of this position
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int col = SIZE - 1; col >= 0; col--) {
+            for (int row = 0; row < SIZE; row++) {
+                byte piece = squares[square(row, col)];
+                sb.append(piece == EMPTY ? '.' : letter(piece));
+            }
+            sb.append('\n');
+        }
+        return sb.append(sideToMove).toString();
+    }
+
+    /**
+     * Returns the letter of a piece code, upper case for white and lower case for black.
+     *
+     * @param code the code of a piece, not EMPTY
+     * @return the letter of the piece
+     */
+    public static char letter(int code) {
+        char c = "PRNBQK".charAt((code & 7) - 1);
+        return color(code) == PlayerColor.WHITE ? c : Character.toLowerCase(c);
+    }
+}
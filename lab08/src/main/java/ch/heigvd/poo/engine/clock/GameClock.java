@@ -0,0 +1,222 @@
+package ch.heigvd.poo.engine.clock;
+
+import ch.heigvd.poo.chess.PlayerColor;
+import ch.heigvd.poo.engine.metrics.MetricsRegistry;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * The GameClock class is the chess clock of a game: each player has a time, which runs during their turns.
+ * <p>
+ * A Fischer increment is added to the time of the player once they have moved, and a delay can be given
+ * (the "simple" or US delay): the time of a player only starts to run once the delay of their turn has passed.
+ * Times are read with {@link System#nanoTime()} and kept in nanoseconds; pressing the clock allocates nothing.
+ * <p>
+ * The fall of a flag is found by a {@link TimingWheel} shared by all the clocks, instead of a scheduled task
+ * per game, and the listener given to {@link #onFlag} is told on the thread of the wheel. A clock pressed or read
+ * after the deadline finds the flag fallen by itself, whether the wheel has already ticked or not.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public final class GameClock {
+    private static final LongAdder FLAGS = MetricsRegistry.global().counter("clocks.flags");
+
+    private final TimingWheel wheel;
+    private final long initial;
+    private final long increment;
+    private final long delay;
+    private final TimingWheel.Timer timer = new TimingWheel.Timer() {
+        @Override
+        protected void expire() {
+            checkFlag();
+        }
+    };
+    private volatile Consumer<PlayerColor> listener;
+
+    // Time left to each player when their turn started, by ordinal of their color, guarded by this
+    private final long[] remaining = new long[PlayerColor.values().length];
+    private PlayerColor running;
+    private long turnStart;
+    private PlayerColor flagged;
+
+    /**
+     * Constructs a GameClock, stopped, with the initial time of both players.
+     *
+     * @param wheel the wheel watching the flags
+     * @param initialMillis the time of each player at the start of the game, in milliseconds
+     * @param incrementMillis the time added to a player once they have moved, in milliseconds
+     * @param delayMillis the time a player can think at each turn before their time runs, in milliseconds
+     * @throws NullPointerException if the wheel is null
+     * @throws IllegalArgumentException if the initial time is not positive, or the increment or the delay is negative
+     */
+    public GameClock(TimingWheel wheel, long initialMillis, long incrementMillis, long delayMillis) {
+        if (wheel == null) throw new NullPointerException("The wheel is null");
+        if (initialMillis < 1) throw new IllegalArgumentException("The initial time must be positive");
+        if (incrementMillis < 0 || delayMillis < 0)
+            throw new IllegalArgumentException("The increment and the delay must not be negative");
+
+        this.wheel = wheel;
+        this.initial = initialMillis * 1_000_000;
+        this.increment = incrementMillis * 1_000_000;
+        this.delay = delayMillis * 1_000_000;
+        reset();
+    }
+
+    /**
+     * Sets the listener told when a flag falls, called by the thread that finds it fallen:
+     * the thread of the wheel, or a thread pressing or reading the clock.
+     *
+     * @param listener the listener, given the color of the player who has run out of time, or null for none
+     */
+    public void onFlag(Consumer<PlayerColor> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Stops the clock and gives both players their initial time back.
+     */
+    public synchronized void reset() {
+        wheel.cancel(timer);
+        remaining[0] = initial;
+        remaining[1] = initial;
+        running = null;
+        flagged = null;
+    }
+
+    /**
+     * Starts the time of a player, e.g. white at the start of the game.
+     *
+     * @param color the color of the player
+     * @throws NullPointerException if the color is null
+     */
+    public synchronized void start(PlayerColor color) {
+        if (color == null) throw new NullPointerException("The color is null");
+        if (flagged != null) return;
+
+        running = color;
+        turnStart = System.nanoTime();
+        wheel.schedule(timer, deadline());
+    }
+
+    /**
+     * Stops the time of the player who has moved, adds the increment, and starts the time of the opponent.
+     *
+     * @param color the color of the player who has moved
+     * @return true if the player had time left, false if their flag had fallen, the clock being stopped then
+     * @throws IllegalStateException if the time of the player is not running
+     */
+    public boolean press(PlayerColor color) {
+        synchronized (this) {
+            if (color != running) throw new IllegalStateException("The time of " + color + " is not running");
+
+            long now = System.nanoTime();
+            long left = left(now);
+            if (left > 0) {
+                remaining[color.ordinal()] = left + increment;
+                running = color == PlayerColor.WHITE ? PlayerColor.BLACK : PlayerColor.WHITE;
+                turnStart = now;
+                wheel.schedule(timer, deadline());
+                return true;
+            }
+            fall();
+        }
+        tell(color);
+        return false;
+    }
+
+    /**
+     * Stops the clock, e.g. at the end of the game.
+     */
+    public synchronized void stop() {
+        if (running != null) remaining[running.ordinal()] = Math.max(0, left(System.nanoTime()));
+        running = null;
+        wheel.cancel(timer);
+    }
+
+    /**
+     * Returns the time left to a player.
+     *
+     * @param color the color of the player
+     * @return the time left, in nanoseconds, 0 once their flag has fallen
+     */
+    public synchronized long remainingNanos(PlayerColor color) {
+        if (color != running) return remaining[color.ordinal()];
+        return Math.max(0, left(System.nanoTime()));
+    }
+
+    /**
+     * Returns the player who has run out of time.
+     *
+     * @return the color of the player whose flag has fallen, or null if none has
+     */
+    public PlayerColor flagged() {
+        PlayerColor fallen;
+        synchronized (this) {
+            if (flagged != null || running == null || left(System.nanoTime()) > 0) return flagged;
+
+            fallen = running;
+            fall();
+        }
+        tell(fallen);
+        return fallen;
+    }
+
+    /**
+     * Returns the time left to the player whose time is running.
+     *
+     * @param now the current time
+     * @return the time left, negative once their flag has fallen
+     */
+    private long left(long now) {
+        return remaining[running.ordinal()] - Math.max(0, now - turnStart - delay);
+    }
+
+    /**
+     * Returns the time the flag of the player whose time is running falls at.
+     *
+     * @return the deadline, as given by System.nanoTime()
+     */
+    private long deadline() {
+        return turnStart + delay + remaining[running.ordinal()];
+    }
+
+    /**
+     * Records the fall of the flag of the player whose time is running, and stops the clock.
+     */
+    private void fall() {
+        flagged = running;
+        remaining[running.ordinal()] = 0;
+        running = null;
+        wheel.cancel(timer);
+        FLAGS.increment();
+    }
+
+    /**
+     * Tells the listener that a flag has fallen.
+     *
+     * @param fallen the color of the player who has run out of time
+     */
+    private void tell(PlayerColor fallen) {
+        Consumer<PlayerColor> current = listener;
+        if (current != null) current.accept(fallen);
+    }
+
+    /**
+     * Checks the flag once the wheel has found its deadline passed, run by the thread of the wheel.
+     */
+    private void checkFlag() {
+        PlayerColor fallen;
+        synchronized (this) {
+            // Pressed meanwhile, the new deadline being already scheduled, or stopped
+            if (running == null || left(System.nanoTime()) > 0) return;
+
+            fallen = running;
+            fall();
+        }
+        tell(fallen);
+    }
+}
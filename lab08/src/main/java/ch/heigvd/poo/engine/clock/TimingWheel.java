@@ -0,0 +1,250 @@
+package ch.heigvd.poo.engine.clock;
+
+import ch.heigvd.poo.engine.metrics.MetricsRegistry;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The TimingWheel class runs the timeouts of any number of timers, such as the flags of the clocks
+ * of every hosted game, on a single thread.
+ * <p>
+ * Time is cut in ticks. A timer is linked in one slot of one of five wheels of 64 slots: the first wheel holds
+ * the timers of the next 64 ticks, one slot per tick, the second one the timers of the next 4096 ticks,
+ * 64 ticks per slot, and so on. When the first wheel has turned once, the timers of the next slot of the
+ * second wheel are spread over the first one, and likewise for the higher wheels. Scheduling, rescheduling
+ * and cancelling a timer is O(1) and allocates nothing, the timers being linked through their own fields,
+ * and each tick only looks at the timers that are due.
+ * <p>
+ * A timer expires at most one tick after its deadline. Its {@link Timer#expire()} is called by the thread
+ * of the wheel, which must not be blocked by it. A timer that throws is counted in {@code clocks.failures}.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public final class TimingWheel implements AutoCloseable {
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int LEVELS = 5;
+    private static final LongAdder EXPIRED = MetricsRegistry.global().counter("clocks.expired");
+    private static final LongAdder FAILURES = MetricsRegistry.global().counter("clocks.failures");
+
+    private final long tickNanos;
+    private final long origin = System.nanoTime();
+    private final Timer[][] slots = new Timer[LEVELS][SLOTS];
+    private final Thread thread;
+    // Last tick processed and number of timers scheduled, guarded by this
+    private long currentTick;
+    private int size;
+    private volatile boolean closed;
+
+    /**
+     * The Timer class is a timeout that can be scheduled on a wheel again and again without allocating.
+     * A timer is scheduled on one wheel at most at a time.
+     */
+    public abstract static class Timer {
+        // Links of the slot holding the timer, guarded by the wheel
+        private Timer previous;
+        private Timer next;
+        private int level = -1;
+        private int slot;
+        private long tick;
+        // Next timer expiring in the same tick, only used by the thread of the wheel
+        private Timer nextExpired;
+
+        /**
+         * Called by the thread of the wheel once the deadline of the timer has passed.
+         */
+        protected abstract void expire();
+    }
+
+    /**
+     * Constructs a TimingWheel and starts its thread.
+     *
+     * @param tickMillis the length of a tick, in milliseconds
+     * @throws IllegalArgumentException if the length of a tick is not positive
+     */
+    public TimingWheel(long tickMillis) {
+        if (tickMillis < 1) throw new IllegalArgumentException("The length of a tick must be positive");
+
+        this.tickNanos = tickMillis * 1_000_000;
+        thread = new Thread(this::run, "clocks");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Schedules a timer, cancelling its previous deadline if it was scheduled.
+     *
+     * @param timer the timer
+     * @param deadline the time it expires at, as given by {@link System#nanoTime()}
+     * @throws NullPointerException if the timer is null
+     */
+    public void schedule(Timer timer, long deadline) {
+        if (timer == null) throw new NullPointerException("The timer is null");
+
+        boolean wasEmpty;
+        synchronized (this) {
+            if (timer.level >= 0) {
+                unlink(timer);
+                size--;
+            }
+            wasEmpty = size == 0;
+            // The ticks of an empty wheel are not processed, they are skipped at once
+            if (wasEmpty) currentTick = Math.max(currentTick, (System.nanoTime() - origin) / tickNanos);
+            // Rounded up, so a timer never expires before its deadline
+            long elapsed = deadline - origin;
+            timer.tick = Math.max(currentTick + 1, elapsed <= 0 ? 0 : (elapsed + tickNanos - 1) / tickNanos);
+            link(timer);
+            size++;
+        }
+        // The thread does not tick while the wheel is empty
+        if (wasEmpty) LockSupport.unpark(thread);
+    }
+
+    /**
+     * Cancels a timer. Nothing is done if it is not scheduled.
+     *
+     * @param timer the timer
+     */
+    public synchronized void cancel(Timer timer) {
+        if (timer.level >= 0) {
+            unlink(timer);
+            size--;
+        }
+    }
+
+    /**
+     * Returns the number of timers scheduled.
+     *
+     * @return the number of timers
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Stops the thread of the wheel, the timers scheduled never expire.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Ticks until the wheel is closed, run by the thread of the wheel.
+     */
+    private void run() {
+        while (!closed) {
+            Timer expired = advance(System.nanoTime());
+            while (expired != null) {
+                Timer next = expired.nextExpired;
+                expired.nextExpired = null;
+                EXPIRED.increment();
+                try {
+                    expired.expire();
+                } catch (RuntimeException e) {
+                    // A failing timer must not stop the clocks of the other games
+                    FAILURES.increment();
+                }
+                expired = next;
+            }
+
+            boolean idle;
+            long wait;
+            synchronized (this) {
+                idle = size == 0;
+                wait = origin + (currentTick + 1) * tickNanos - System.nanoTime();
+            }
+            if (idle) {
+                LockSupport.park(this);
+            } else if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+            }
+        }
+    }
+
+    /**
+     * Processes the ticks up to a time.
+     *
+     * @param now the time, as given by System.nanoTime()
+     * @return the timers that expired, chained by their nextExpired field
+     */
+    private synchronized Timer advance(long now) {
+        long target = (now - origin) / tickNanos;
+        if (size == 0) {
+            currentTick = Math.max(currentTick, target);
+            return null;
+        }
+
+        Timer expired = null;
+        while (currentTick < target) {
+            currentTick++;
+            // Spread the next slot of each wheel that has turned once over the lower wheels
+            for (int level = 1; level < LEVELS; level++) {
+                if ((currentTick & (1L << BITS * level) - 1) != 0) break;
+
+                int slot = (int) (currentTick >>> BITS * level) & SLOTS - 1;
+                Timer timer = slots[level][slot];
+                slots[level][slot] = null;
+                while (timer != null) {
+                    Timer next = timer.next;
+                    link(timer);
+                    timer = next;
+                }
+            }
+
+            int slot = (int) currentTick & SLOTS - 1;
+            Timer timer = slots[0][slot];
+            slots[0][slot] = null;
+            while (timer != null) {
+                Timer next = timer.next;
+                timer.previous = null;
+                timer.next = null;
+                timer.level = -1;
+                timer.nextExpired = expired;
+                expired = timer;
+                size--;
+                timer = next;
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Links a timer in the slot of its tick, in the lowest wheel that reaches it.
+     *
+     * @param timer the timer
+     */
+    private void link(Timer timer) {
+        long delta = timer.tick - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << BITS * (level + 1)) level++;
+
+        int slot = (int) (timer.tick >>> BITS * level) & SLOTS - 1;
+        timer.level = level;
+        timer.slot = slot;
+        timer.previous = null;
+        timer.next = slots[level][slot];
+        if (timer.next != null) timer.next.previous = timer;
+        slots[level][slot] = timer;
+    }
+
+    /**
+     * Unlinks a timer from its slot.
+     *
+     * @param timer the timer
+     */
+    private void unlink(Timer timer) {
+        if (timer.previous != null) {
+            timer.previous.next = timer.next;
+        } else {
+            slots[timer.level][timer.slot] = timer.next;
+        }
+        if (timer.next != null) timer.next.previous = timer.previous;
+        timer.previous = null;
+        timer.next = null;
+        timer.level = -1;
+    }
+}
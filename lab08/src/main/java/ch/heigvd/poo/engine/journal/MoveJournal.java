@@ -0,0 +1,436 @@
+package ch.heigvd.poo.engine.journal;
+
+import ch.heigvd.poo.engine.metrics.LatencyHistogram;
+import ch.heigvd.poo.engine.metrics.MetricsRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32C;
+
+/**
+ * The MoveJournal class is an append-only file recording the moves of every game hosted by a process,
+ * so the games can be rebuilt after a crash.
+ * <p>
+ * A record is a type byte, the number of the game as a variable-length integer and, for a move,
+ * the move packed by {@link ch.heigvd.poo.engine.moves.Move} on two bytes: a move takes four bytes.
+ * A game taken back in its history is recorded as the number of moves it keeps, also a variable-length integer.
+ * Appending only copies the record to a buffer. A single thread writes the buffer as one block
+ * and forces it to the disk at a fixed interval, so every game shares the same fsync (group commit):
+ * the disk is synced a few hundred times per second whatever the number of moves, and a crash loses
+ * at most the moves of the last interval. Each block starts with its length and its CRC-32C, so the
+ * block torn by a crash is recognized and cut off when the journal is opened again.
+ * The file is read back one block at a time, so its size is not limited by the memory.
+ * <p>
+ * A block that cannot be written is cut off the file in the same way, and the journal fails: the records
+ * appended since are refused, their futures completing with the error, since a game missing a move cannot be rebuilt.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public class MoveJournal implements AutoCloseable {
+    private static final byte NEW_GAME = 1;
+    private static final byte MOVE = 2;
+    private static final byte END = 3;
+    private static final byte TRUNCATE = 4;
+    private static final int HEADER = 2 * Integer.BYTES;
+    // Longest record: type, game on five bytes, number of moves on five bytes
+    private static final int MAX_RECORD = 1 + 5 + 5;
+
+    private static final MetricsRegistry METRICS = MetricsRegistry.global();
+    private static final LongAdder RECORDS = METRICS.counter("journal.records");
+    private static final LongAdder SYNCS = METRICS.counter("journal.syncs");
+    private static final LatencyHistogram SYNC_LATENCY = METRICS.histogram("journal.sync");
+
+    private final FileChannel channel;
+    private final Map<Integer, int[]> recovered;
+    private final AtomicInteger nextGame;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "journal");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Records appended since the last flush, and the future completed once they are on the disk
+    private ByteBuffer pending = ByteBuffer.allocate(4096);
+    private CompletableFuture<Void> durable = new CompletableFuture<>();
+    private boolean closed;
+    private IOException failure;
+
+    /**
+     * Constructs a MoveJournal on an opened file.
+     *
+     * @param channel the file, positioned at its end
+     * @param recovered the games left open in the file
+     * @param nextGame the first unused number of game
+     * @param intervalMillis the time between two flushes
+     */
+    private MoveJournal(FileChannel channel, Map<Integer, int[]> recovered, int nextGame, long intervalMillis) {
+        this.channel = channel;
+        this.recovered = Collections.unmodifiableMap(recovered);
+        this.nextGame = new AtomicInteger(nextGame);
+        flusher.scheduleWithFixedDelay(this::flush, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens a journal, creating the file if needed, and reads the games it holds.
+     * A block torn by a crash is removed from the end of the file.
+     *
+     * @param file the file of the journal
+     * @param intervalMillis the time between two flushes, in milliseconds
+     * @return the journal, ready to append
+     * @throws NullPointerException if the file is null
+     * @throws IllegalArgumentException if the interval is not positive
+     * @throws IOException if the file cannot be read or written
+     */
+    public static MoveJournal open(Path file, long intervalMillis) throws IOException {
+        if (file == null) throw new NullPointerException("The file is null");
+        if (intervalMillis < 1) throw new IllegalArgumentException("The interval must be positive");
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            Map<Integer, IntList> games = new LinkedHashMap<>();
+            int lastGame = -1;
+            long size = channel.size();
+            long end = 0;
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            ByteBuffer block = ByteBuffer.allocate(4096);
+            CRC32C crc = new CRC32C();
+            while (read(channel, header.clear(), end)) {
+                int length = header.flip().getInt();
+                int checksum = header.getInt();
+                if (length < 0 || length > size - end - HEADER) break;
+
+                if (block.capacity() < length) block = ByteBuffer.allocate(Math.max(length, 2 * block.capacity()));
+                if (!read(channel, block.clear().limit(length), end + HEADER)) break;
+                crc.reset();
+                crc.update(block.flip().duplicate());
+                if ((int) crc.getValue() != checksum) break;
+
+                lastGame = Math.max(lastGame, replay(block, games));
+                end += HEADER + length;
+            }
+            if (end < size) channel.truncate(end);
+            channel.position(end);
+
+            Map<Integer, int[]> recovered = new LinkedHashMap<>();
+            games.forEach((game, moves) -> recovered.put(game, moves.toArray()));
+            return new MoveJournal(channel, recovered, lastGame + 1, intervalMillis);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads bytes of a file until a buffer is full.
+     *
+     * @param channel the file
+     * @param buffer the buffer, filled up to its limit
+     * @param position the position in the file of the first byte
+     * @return true if the buffer was filled, false if the file ends before
+     * @throws IOException if the file cannot be read
+     */
+    private static boolean read(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) return false;
+            position += read;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the games that were not ended when the journal was opened.
+     *
+     * @return the moves of each game, by number of game, in the order the games were started
+     */
+    public Map<Integer, int[]> recovered() {
+        return recovered;
+    }
+
+    /**
+     * Reserves a number for a new game, never used by the games already in the journal.
+     *
+     * @return the number of the game
+     */
+    public int reserve() {
+        return nextGame.getAndIncrement();
+    }
+
+    /**
+     * Records the start of a game. The moves recorded before for the same game are forgotten.
+     *
+     * @param game the number of the game
+     * @return a future completed once the record is on the disk
+     */
+    public CompletableFuture<Void> newGame(int game) {
+        return append(NEW_GAME, game, 0);
+    }
+
+    /**
+     * Records a move of a game.
+     *
+     * @param game the number of the game
+     * @param move the move, as packed by Move
+     * @return a future completed once the record is on the disk
+     */
+    public CompletableFuture<Void> move(int game, int move) {
+        return append(MOVE, game, move);
+    }
+
+    /**
+     * Records that a game was taken back in its history: only its first moves are kept.
+     *
+     * @param game the number of the game
+     * @param ply the number of moves kept
+     * @return a future completed once the record is on the disk
+     * @throws IllegalArgumentException if the number of moves is negative
+     */
+    public CompletableFuture<Void> truncate(int game, int ply) {
+        if (ply < 0) throw new IllegalArgumentException("The number of moves must not be negative");
+        return append(TRUNCATE, game, ply);
+    }
+
+    /**
+     * Records the end of a game, which will not be recovered.
+     *
+     * @param game the number of the game
+     * @return a future completed once the record is on the disk
+     */
+    public CompletableFuture<Void> end(int game) {
+        return append(END, game, 0);
+    }
+
+    /**
+     * Writes the records appended so far and waits until they are on the disk.
+     *
+     * @throws IOException if they cannot be written
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void sync() throws IOException, InterruptedException {
+        CompletableFuture<Void> future;
+        synchronized (this) {
+            future = pending.position() == 0 ? null : durable;
+        }
+        // The flushes run one after the other, so this one also waits for the flush in progress
+        Future<?> flushed = flusher.submit(this::flush);
+        try {
+            flushed.get();
+            if (future != null) future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Writes the records appended so far, then closes the file.
+     *
+     * @throws IOException if the records cannot be written, or could not be since the journal failed,
+     *                     or if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        channel.close();
+        synchronized (this) {
+            if (failure != null) throw new IOException("The journal has failed", failure);
+        }
+    }
+
+    /**
+     * Appends a record to the buffer.
+     *
+     * @param type the type of the record
+     * @param game the number of the game
+     * @param move the move for a move record, the number of moves kept for a truncation
+     * @return a future completed once the record is on the disk, or failed if the journal has failed
+     * @throws IllegalArgumentException if the number of the game is negative
+     * @throws IllegalStateException if the journal is closed
+     */
+    private synchronized CompletableFuture<Void> append(byte type, int game, int move) {
+        if (game < 0) throw new IllegalArgumentException("The number of the game must not be negative");
+        if (closed) throw new IllegalStateException("The journal is closed");
+        if (failure != null) return CompletableFuture.failedFuture(new UncheckedIOException(failure));
+
+        if (pending.remaining() < MAX_RECORD) {
+            ByteBuffer larger = ByteBuffer.allocate(pending.capacity() * 2);
+            larger.put(pending.flip());
+            pending = larger;
+        }
+        pending.put(type);
+        putVarint(game);
+        if (type == MOVE) pending.putShort((short) move);
+        if (type == TRUNCATE) putVarint(move);
+        RECORDS.increment();
+        return durable;
+    }
+
+    /**
+     * Appends a non-negative integer to the buffer, seven bits per byte.
+     *
+     * @param value the integer
+     */
+    private void putVarint(int value) {
+        for (; ; value >>>= 7) {
+            if ((value & ~0x7F) == 0) {
+                pending.put((byte) value);
+                return;
+            }
+            pending.put((byte) (value & 0x7F | 0x80));
+        }
+    }
+
+    /**
+     * Writes the buffer as one block and forces it to the disk, run by the flushing thread.
+     * If the block cannot be written, it is cut off the file and the journal fails.
+     */
+    private void flush() {
+        ByteBuffer records;
+        CompletableFuture<Void> future;
+        IOException failed;
+        synchronized (this) {
+            if (pending.position() == 0) return;
+            records = pending.flip();
+            future = durable;
+            failed = failure;
+            pending = ByteBuffer.allocate(records.capacity());
+            durable = new CompletableFuture<>();
+        }
+        // Records appended before the journal failed, which would follow the lost ones
+        if (failed != null) {
+            future.completeExceptionally(new UncheckedIOException(failed));
+            return;
+        }
+
+        long start = System.nanoTime();
+        long end = -1;
+        try {
+            end = channel.position();
+            CRC32C crc = new CRC32C();
+            crc.update(records.duplicate());
+            ByteBuffer header = ByteBuffer.allocate(HEADER).putInt(records.remaining()).putInt((int) crc.getValue()).flip();
+            ByteBuffer[] block = {header, records};
+            while (header.hasRemaining() || records.hasRemaining()) channel.write(block);
+            channel.force(false);
+            SYNCS.increment();
+            SYNC_LATENCY.recordSince(start);
+            future.complete(null);
+        } catch (IOException e) {
+            // The next block must not follow part of this one, nor the next moves follow the lost ones
+            if (end >= 0) {
+                try {
+                    channel.truncate(end);
+                    channel.position(end);
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            synchronized (this) {
+                failure = e;
+            }
+            future.completeExceptionally(new UncheckedIOException(e));
+        }
+    }
+
+    /**
+     * Applies the records of a block to the games.
+     *
+     * @param block the records
+     * @param games the moves of the open games, updated
+     * @return the largest number of game of the block, -1 if there is none
+     */
+    private static int replay(ByteBuffer block, Map<Integer, IntList> games) {
+        int lastGame = -1;
+        while (block.hasRemaining()) {
+            byte type = block.get();
+            int game = getVarint(block);
+            lastGame = Math.max(lastGame, game);
+
+            switch (type) {
+                case NEW_GAME -> games.put(game, new IntList());
+                case MOVE -> games.computeIfAbsent(game, g -> new IntList()).add(block.getShort() & 0xFFFF);
+                case TRUNCATE -> games.computeIfAbsent(game, g -> new IntList()).truncate(getVarint(block));
+                case END -> games.remove(game);
+                default -> throw new IllegalStateException("Unknown record type " + type);
+            }
+        }
+        return lastGame;
+    }
+
+    /**
+     * Reads a non-negative integer written seven bits per byte.
+     *
+     * @param block the records, positioned at the integer
+     * @return the integer
+     */
+    private static int getVarint(ByteBuffer block) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = block.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+    }
+
+    /**
+     * The IntList class is a growable list of ints, the moves of a game being read.
+     */
+    private static class IntList {
+        private int[] values = new int[64];
+        private int size;
+
+        /**
+         * Adds a value.
+         *
+         * @param value the value
+         */
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        /**
+         * Keeps the first values only.
+         *
+         * @param count the number of values kept, all of them if there are fewer
+         */
+        void truncate(int count) {
+            size = Math.min(size, count);
+        }
+
+        /**
+         * Returns the values.
+         *
+         * @return a copy of the values
+         */
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
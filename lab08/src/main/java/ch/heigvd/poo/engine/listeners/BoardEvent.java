@@ -0,0 +1,80 @@
+package ch.heigvd.poo.engine.listeners;
+
+import ch.heigvd.poo.chess.PieceType;
+import ch.heigvd.poo.chess.PlayerColor;
+import ch.heigvd.poo.engine.board.GCell;
+
+/**
+ * The BoardEvent interface represents a change of the board state published on an {@link EventBus}.
+ * Events are immutable values: they copy what they describe instead of referencing the mutable pieces,
+ * so they can be handed to subscribers running on other threads.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public sealed interface BoardEvent {
+
+    /**
+     * A piece has been put on a cell.
+     *
+     * @param type  the type of the piece
+     * @param color the color of the piece
+     * @param cell  the cell the piece has been put on
+     */
+    record PieceAdded(PieceType type, PlayerColor color, GCell cell) implements BoardEvent {
+    }
+
+    /**
+     * A piece has been removed from a cell.
+     *
+     * @param type  the type of the removed piece, or null if the cell was already empty
+     * @param color the color of the removed piece, or null if the cell was already empty
+     * @param cell  the cell the piece has been removed from
+     */
+    record PieceRemoved(PieceType type, PlayerColor color, GCell cell) implements BoardEvent {
+    }
+
+    /**
+     * A king has been put in check.
+     *
+     * @param color the color of the king in check
+     */
+    record Check(PlayerColor color) implements BoardEvent {
+    }
+
+    /**
+     * A king has castled.
+     *
+     * @param color     the color of the king that castled
+     * @param direction the direction of the castling, -1 for the queen side and 1 for the king side
+     */
+    record Castling(PlayerColor color, int direction) implements BoardEvent {
+    }
+
+    /**
+     * A pawn has been promoted.
+     *
+     * @param color the color of the promoted pawn
+     * @param type  the type of the piece the pawn has been promoted to
+     * @param cell  the cell of the promoted pawn
+     */
+    record Promotion(PlayerColor color, PieceType type, GCell cell) implements BoardEvent {
+    }
+
+    /**
+     * A pawn has been taken en passant.
+     *
+     * @param captured the cell of the pawn taken en passant
+     */
+    record EnPassant(GCell captured) implements BoardEvent {
+    }
+
+    /**
+     * The turn has changed.
+     *
+     * @param turn  the number of the new turn
+     * @param color the color of the player who has to play
+     */
+    record TurnChanged(int turn, PlayerColor color) implements BoardEvent {
+    }
+}
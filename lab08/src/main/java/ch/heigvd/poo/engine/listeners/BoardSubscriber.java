@@ -0,0 +1,20 @@
+package ch.heigvd.poo.engine.listeners;
+
+import java.util.List;
+
+/**
+ * The BoardSubscriber interface defines the method called by an {@link EventBus} to deliver board events.
+ * Events are delivered in batches: all the events published while a move is played are delivered together.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public interface BoardSubscriber {
+
+    /**
+     * Called when a batch of events has been committed.
+     *
+     * @param events the events of the batch, in the order they have been published
+     */
+    void onEvents(List<BoardEvent> events);
+}
@@ -0,0 +1,133 @@
+package ch.heigvd.poo.engine.listeners;
+
+import ch.heigvd.poo.chess.BoardDelta;
+import ch.heigvd.poo.chess.PieceType;
+import ch.heigvd.poo.chess.PlayerColor;
+import ch.heigvd.poo.engine.board.GCell;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The DeltaBuilder class folds a batch of board events into a single {@link BoardDelta}.
+ * Each cell the batch changes appears once with its final content, a cell given back its content, as by a move
+ * rolled back, being left out. A piece is listed as captured when an enemy piece takes its cell or it is taken
+ * en passant, and the status message is derived from the turn and check events.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public final class DeltaBuilder {
+
+    private DeltaBuilder() {
+    }
+
+    /**
+     * Returns the status message for the specified turn.
+     *
+     * @param turn the number of the turn
+     * @param color the color of the player who has to play
+     * @return the status message
+     */
+    public static String turnMessage(int turn, PlayerColor color) {
+        return "Turn " + turn + " : " + color + " player's turn";
+    }
+
+    /**
+     * Returns the message telling that a player is in check.
+     *
+     * @param color the color of the player in check
+     * @return the check message
+     */
+    public static String checkMessage(PlayerColor color) {
+        return (color == PlayerColor.WHITE ? "white" : "black") + " is in check";
+    }
+
+    /**
+     * Returns the message telling that a player has run out of time.
+     *
+     * @param color the color of the player whose flag has fallen
+     * @return the time forfeit message
+     */
+    public static String timeMessage(PlayerColor color) {
+        return (color == PlayerColor.WHITE ? "white" : "black") + " has run out of time";
+    }
+
+    /**
+     * Builds the delta of a batch of events.
+     *
+     * @param events the events of the batch, in the order they have been published
+     * @return the delta of the batch
+     */
+    public static BoardDelta build(List<BoardEvent> events) {
+        // Content of each touched cell before and after the batch, null for an empty cell
+        Map<GCell, BoardDelta.Captured> before = new LinkedHashMap<>();
+        Map<GCell, BoardDelta.Captured> after = new LinkedHashMap<>();
+        List<GCell> takenEnPassant = new ArrayList<>();
+        String turnMessage = null;
+        String checkMessage = null;
+
+        for (BoardEvent event : events) {
+            if (event instanceof BoardEvent.PieceAdded added) {
+                before.putIfAbsent(added.cell(), null);
+                after.put(added.cell(), new BoardDelta.Captured(added.type(), added.color()));
+            } else if (event instanceof BoardEvent.PieceRemoved removed) {
+                if (!before.containsKey(removed.cell()))
+                    before.put(removed.cell(), removed.type() == null ? null : new BoardDelta.Captured(removed.type(), removed.color()));
+                after.put(removed.cell(), null);
+            } else if (event instanceof BoardEvent.TurnChanged turnChanged) {
+                turnMessage = turnMessage(turnChanged.turn(), turnChanged.color());
+                checkMessage = null;
+            } else if (event instanceof BoardEvent.Check check) {
+                checkMessage = checkMessage(check.color());
+            } else if (event instanceof BoardEvent.EnPassant enPassant) {
+                takenEnPassant.add(enPassant.captured());
+            }
+        }
+
+        // Number of pieces of each kind that have left the touched cells, so a piece brought back by an undo is not taken
+        int[] count = new int[PieceType.values().length * PlayerColor.values().length];
+        for (BoardDelta.Captured piece : before.values())
+            if (piece != null) count[index(piece)]++;
+        for (BoardDelta.Captured piece : after.values())
+            if (piece != null) count[index(piece)]--;
+
+        List<BoardDelta.Square> squares = new ArrayList<>(after.size());
+        List<BoardDelta.Captured> captured = new ArrayList<>();
+        for (Map.Entry<GCell, BoardDelta.Captured> entry : after.entrySet()) {
+            GCell cell = entry.getKey();
+            BoardDelta.Captured old = before.get(cell);
+            BoardDelta.Captured piece = entry.getValue();
+            if (Objects.equals(old, piece)) continue;
+
+            squares.add(piece == null ? new BoardDelta.Square(cell.getRow(), cell.getCol(), null, null)
+                    : new BoardDelta.Square(cell.getRow(), cell.getCol(), piece.type(), piece.color()));
+            // A pawn promoted or a piece moved keeps its color, an enemy piece on the cell has been taken
+            boolean taken = old != null
+                    && (piece != null && piece.color() != old.color() || takenEnPassant.contains(cell));
+            if (taken && count[index(old)] > 0) {
+                count[index(old)]--;
+                captured.add(old);
+            }
+        }
+
+        String message = turnMessage;
+        if (checkMessage != null)
+            message = message == null ? checkMessage : message + " (" + checkMessage + ")";
+
+        return new BoardDelta(squares, captured, message);
+    }
+
+    /**
+     * Returns the index of a kind of piece in a counting array.
+     *
+     * @param piece the kind of piece
+     * @return the index of the kind of piece
+     */
+    private static int index(BoardDelta.Captured piece) {
+        return piece.type().ordinal() * PlayerColor.values().length + piece.color().ordinal();
+    }
+}
@@ -6,65 +6,51 @@ import ch.heigvd.poo.engine.pieces.*;
 
 /**
  * The EEventSrc class is an abstract class that serves as a source of various game events.
- * It allows attaching an observer and notifying it of different events such as removing a piece,
- * adding a piece, next turn, pop-up updates, and checking if a player is in check.
+ * The board events, such as removing a piece, adding a piece or a player being in check, are published
+ * on an {@link EventBus} any number of subscribers can listen to.
  *
  * @author : Surbeck Léon
  * @author : Nicolet Victor
  */
 public abstract class EEventSrc {
-    private EObserver obs;
+    private final EventBus bus = new EventBus();
 
     /**
-     * Attaches an observer to this event source.
+     * Returns the bus on which the board events are published.
      *
-     * @param observer the observer to attach
+     * @return the bus of this event source
      */
-    public void attach(EObserver observer) {
-        obs = observer;
+    public EventBus getBus() {
+        return bus;
     }
 
     /**
-     * Notifies the observer of a piece removal event.
+     * Publishes a piece removal event.
      *
-     * @param cell the cell from which the piece is removed
+     * @param cell  the cell from which the piece is removed
+     * @param piece the removed piece, or null if the cell was empty
      */
-    public void updateRemovePiece(GCell cell) {
-        obs.updateRemovePiece(cell);
+    public void updateRemovePiece(GCell cell, Piece piece) {
+        bus.publish(piece == null ? new BoardEvent.PieceRemoved(null, null, cell)
+                : new BoardEvent.PieceRemoved(piece.getType(), piece.getColor(), cell));
     }
 
     /**
-     * Notifies the observer of a piece addition event.
+     * Publishes a piece addition event.
      *
      * @param piece the piece that is added to the board
+     * @param cell  the cell the piece is added on
      */
-    public void updateAddPiece(Piece piece) {
-        obs.updateAddPiece(piece);
+    public void updateAddPiece(Piece piece, GCell cell) {
+        bus.publish(new BoardEvent.PieceAdded(piece.getType(), piece.getColor(), cell));
     }
 
     /**
-     * Notifies the observer to update the game to the next turn.
-     */
-    public void updateNextTurn() {
-        obs.updateNextTurn();
-    }
-
-    /**
-     * Notifies the observer to update the pop-up with the given piece.
-     *
-     * @param p the piece to update the pop-up with
-     * @return the updated piece
-     */
-    public Piece updatePopUp(Piece p) {
-        return obs.updatePopUp(p);
-    }
-
-    /**
-     * Notifies the observer of a player being in check.
+     * Publishes a player being in check event.
      *
      * @param color the color of the player who is in check
      */
     public void updateInCheck(PlayerColor color) {
-        obs.updateInCheck(color);
+        bus.publish(new BoardEvent.Check(color));
     }
 }
\ No newline at end of file
@@ -0,0 +1,336 @@
+package ch.heigvd.poo.engine.listeners;
+
+import ch.heigvd.poo.engine.board.GCell;
+import ch.heigvd.poo.engine.metrics.MetricsRegistry;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * The EventBus class delivers the board events of a game to any number of subscribers.
+ * Events published between {@link #beginBatch()} and {@link #commitBatch()} are delivered together,
+ * so a subscriber receives one batch per move.
+ * A subscriber chooses its delivery: synchronous subscribers are called by the thread committing the batch,
+ * asynchronous subscribers each have their own queue and thread, so a slow one never delays the game.
+ * <p>
+ * The queue of an asynchronous subscriber is bounded by {@code -Dchess.events.queue} batches (64 by default).
+ * When a subscriber falls that far behind, its queued batches are merged into a single batch taking each cell
+ * from its first to its last content, so the subscriber ends on the right board without the heap growing.
+ * The thread of a subscriber only runs while batches are queued.
+ * <p>
+ * A failing subscriber, synchronous or not, is counted in {@code events.failed} and reported to the failure
+ * handler of the bus, if any. The other subscribers still receive the batch.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public class EventBus {
+
+    /**
+     * The way a batch of events is delivered to a subscriber.
+     */
+    public enum Delivery {
+        /**
+         * The subscriber is called by the thread committing the batch.
+         */
+        SYNC,
+        /**
+         * The subscriber is called by its own thread, the batch is only queued by the committing thread.
+         */
+        ASYNC
+    }
+
+    private static final int DEFAULT_CAPACITY = Integer.getInteger("chess.events.queue", 64);
+    private static final LongAdder FAILED = MetricsRegistry.global().counter("events.failed");
+    private static final LongAdder COALESCED = MetricsRegistry.global().counter("events.coalesced");
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final List<BoardEvent> pending = new ArrayList<>();
+    private final int capacity;
+    private volatile BiConsumer<BoardSubscriber, RuntimeException> failureHandler;
+    private int depth;
+
+    /**
+     * Constructs an EventBus whose asynchronous subscribers queue at most {@code -Dchess.events.queue} batches.
+     */
+    public EventBus() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an EventBus whose asynchronous subscribers queue at most the specified number of batches.
+     *
+     * @param capacity the number of batches an asynchronous subscriber can fall behind before they are merged
+     * @throws IllegalArgumentException if the capacity is lower than 1
+     */
+    public EventBus(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("The capacity must be at least 1");
+
+        this.capacity = capacity;
+    }
+
+    /**
+     * Subscribes to the events of this bus.
+     *
+     * @param subscriber the subscriber to add
+     * @param delivery   the way the batches are delivered to the subscriber
+     * @throws NullPointerException if the subscriber or the delivery is null
+     */
+    public void subscribe(BoardSubscriber subscriber, Delivery delivery) {
+        if (subscriber == null) throw new NullPointerException("The subscriber is null");
+        if (delivery == null) throw new NullPointerException("The delivery is null");
+
+        subscriptions.add(delivery == Delivery.SYNC ? new Subscription(subscriber)
+                : new AsyncSubscription(subscriber, capacity));
+    }
+
+    /**
+     * Sets the handler told when a subscriber throws an exception.
+     * The handler of a synchronous subscriber is called by the thread committing the batch.
+     * The failure is counted in the metrics either way, and the subscriber keeps receiving the next batches.
+     *
+     * @param handler the handler to tell, or null to only count the failures
+     */
+    public void onFailure(BiConsumer<BoardSubscriber, RuntimeException> handler) {
+        failureHandler = handler;
+    }
+
+    /**
+     * Unsubscribes from the events of this bus.
+     * The batches already queued for an asynchronous subscriber are still delivered.
+     *
+     * @param subscriber the subscriber to remove
+     */
+    public void unsubscribe(BoardSubscriber subscriber) {
+        for (Subscription s : subscriptions) {
+            if (s.subscriber == subscriber) {
+                subscriptions.remove(s);
+                s.close();
+            }
+        }
+    }
+
+    /**
+     * Publishes an event. Outside of a batch, the event is delivered immediately.
+     *
+     * @param event the event to publish
+     */
+    public void publish(BoardEvent event) {
+        pending.add(event);
+        if (depth == 0) flush();
+    }
+
+    /**
+     * Starts a batch. Batches can be nested, the events are delivered when the outermost batch is committed.
+     */
+    public void beginBatch() {
+        depth++;
+    }
+
+    /**
+     * Commits the current batch and delivers its events if it is the outermost one.
+     *
+     * @throws IllegalStateException if no batch has been started
+     */
+    public void commitBatch() {
+        if (depth == 0) throw new IllegalStateException("No batch to commit");
+
+        if (--depth == 0) flush();
+    }
+
+    /**
+     * Removes every subscriber. The batches already queued for an asynchronous subscriber are still delivered,
+     * then its thread ends.
+     */
+    public void close() {
+        for (Subscription s : subscriptions) s.close();
+        subscriptions.clear();
+    }
+
+    /**
+     * Delivers the pending events to every subscriber.
+     * A subscriber that throws is reported as failed, so the subscribers after it still receive the batch.
+     */
+    private void flush() {
+        if (pending.isEmpty()) return;
+
+        List<BoardEvent> batch = List.copyOf(pending);
+        pending.clear();
+
+        for (Subscription s : subscriptions) {
+            try {
+                s.deliver(batch);
+            } catch (RuntimeException e) {
+                fail(s.subscriber, e);
+            }
+        }
+    }
+
+    /**
+     * Merges batches into one taking each cell from its content before the first batch to its content after the
+     * last one. A cell ending with the content it started with is left out. The other events of the last batch are
+     * kept, and the latest turn change if the last batch has none.
+     *
+     * @param batches the batches to merge, in the order they have been committed
+     * @return the merged batch
+     */
+    static List<BoardEvent> coalesce(Iterable<List<BoardEvent>> batches) {
+        Map<GCell, BoardEvent> first = new LinkedHashMap<>();
+        Map<GCell, BoardEvent> last = new LinkedHashMap<>();
+        List<BoardEvent> others = new ArrayList<>();
+        BoardEvent.TurnChanged turn = null;
+
+        for (List<BoardEvent> batch : batches) {
+            others.clear();
+            for (BoardEvent event : batch) {
+                GCell cell = switch (event) {
+                    case BoardEvent.PieceAdded added -> added.cell();
+                    case BoardEvent.PieceRemoved removed -> removed.cell();
+                    default -> null;
+                };
+                if (cell != null) {
+                    first.putIfAbsent(cell, event);
+                    last.put(cell, event);
+                } else {
+                    if (event instanceof BoardEvent.TurnChanged changed) turn = changed;
+                    others.add(event);
+                }
+            }
+        }
+
+        List<BoardEvent> merged = new ArrayList<>();
+        for (Map.Entry<GCell, BoardEvent> entry : first.entrySet()) {
+            // The board empties a cell before putting a piece on it, so a cell first given a piece was empty
+            BoardEvent.PieceRemoved before = entry.getValue() instanceof BoardEvent.PieceRemoved removed
+                    && removed.type() != null ? removed : null;
+            BoardEvent.PieceAdded after = last.get(entry.getKey()) instanceof BoardEvent.PieceAdded added ? added : null;
+            if (before != null && after != null && before.type() == after.type() && before.color() == after.color())
+                continue;
+            if (before != null) merged.add(before);
+            if (after != null) merged.add(after);
+        }
+        merged.addAll(others);
+        if (turn != null && !others.contains(turn)) merged.add(turn);
+        return merged;
+    }
+
+    /**
+     * Tells the failure handler, if any, that a subscriber has thrown an exception.
+     *
+     * @param subscriber the subscriber that failed
+     * @param e          the exception it has thrown
+     */
+    private void fail(BoardSubscriber subscriber, RuntimeException e) {
+        FAILED.increment();
+        BiConsumer<BoardSubscriber, RuntimeException> handler = failureHandler;
+        if (handler != null) handler.accept(subscriber, e);
+    }
+
+    /**
+     * The Subscription class binds a subscriber to the way its batches are delivered.
+     * A plain subscription calls the subscriber with the committing thread.
+     */
+    private static class Subscription {
+        final BoardSubscriber subscriber;
+
+        /**
+         * Constructs a Subscription for the specified subscriber.
+         *
+         * @param subscriber the subscriber
+         */
+        Subscription(BoardSubscriber subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        /**
+         * Delivers a batch to the subscriber.
+         *
+         * @param batch the batch to deliver
+         */
+        void deliver(List<BoardEvent> batch) {
+            subscriber.onEvents(batch);
+        }
+
+        /**
+         * Stops the delivery to the subscriber.
+         */
+        void close() {
+        }
+    }
+
+    /**
+     * The AsyncSubscription class queues the batches of a subscriber for a thread of its own.
+     * The thread is started when a batch is queued and ends once the queue is empty,
+     * so an idle subscriber holds no thread.
+     */
+    private class AsyncSubscription extends Subscription {
+        private final ArrayDeque<List<BoardEvent>> queue = new ArrayDeque<>();
+        private final int capacity;
+        private final String name;
+        private boolean draining;
+        private boolean closed;
+
+        /**
+         * Constructs an AsyncSubscription for the specified subscriber.
+         *
+         * @param subscriber the subscriber
+         * @param capacity   the number of batches queued before they are merged
+         */
+        AsyncSubscription(BoardSubscriber subscriber, int capacity) {
+            super(subscriber);
+            this.capacity = capacity;
+            this.name = "board-events-" + subscriber.getClass().getSimpleName();
+        }
+
+        @Override
+        synchronized void deliver(List<BoardEvent> batch) {
+            if (closed) return;
+
+            if (queue.size() == capacity) {
+                queue.addLast(batch);
+                List<BoardEvent> merged = coalesce(queue);
+                queue.clear();
+                queue.addLast(merged);
+                COALESCED.increment();
+            } else {
+                queue.addLast(batch);
+            }
+            if (!draining) {
+                draining = true;
+                Thread.ofVirtual().name(name).start(this::drain);
+            }
+        }
+
+        /**
+         * Delivers the queued batches until the queue is empty.
+         */
+        private void drain() {
+            while (true) {
+                List<BoardEvent> batch;
+                synchronized (this) {
+                    batch = queue.pollFirst();
+                    if (batch == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    subscriber.onEvents(batch);
+                } catch (RuntimeException e) {
+                    fail(subscriber, e);
+                }
+            }
+        }
+
+        @Override
+        synchronized void close() {
+            closed = true;
+        }
+    }
+}
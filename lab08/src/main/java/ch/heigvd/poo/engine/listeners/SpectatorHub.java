@@ -0,0 +1,277 @@
+package ch.heigvd.poo.engine.listeners;
+
+import ch.heigvd.poo.chess.BoardDelta;
+import ch.heigvd.poo.engine.board.Position;
+import ch.heigvd.poo.engine.metrics.MetricsRegistry;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * The SpectatorHub class broadcasts the moves of a game to any number of spectators.
+ * <p>
+ * It is subscribed synchronously to the {@link EventBus} of the game, and the game thread only writes each batch
+ * of events to a ring and wakes the hub's own thread up: the cost of a move does not depend on the number of spectators.
+ * The hub's thread turns each batch into a frame, the {@link BoardDelta} of the move with the position after it,
+ * and puts it in the queue of every spectator.
+ * <p>
+ * The queue of a spectator is bounded. When it is full, the frames it holds are dropped and replaced by a keyframe,
+ * which only carries the latest position: a slow spectator skips the moves it has no time to show, instead of
+ * holding frames that grow older. The hub's thread coalesces the same way when the game laps its ring.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public final class SpectatorHub implements BoardSubscriber, AutoCloseable {
+    private static final LongAdder FRAMES = MetricsRegistry.global().counter("spectators.frames");
+    private static final LongAdder COALESCED = MetricsRegistry.global().counter("spectators.coalesced");
+
+    private final Supplier<Position> positions;
+    private final AtomicReferenceArray<Batch> ring;
+    private final int mask;
+    private final List<Spectator> spectators = new CopyOnWriteArrayList<>();
+    private final Queue<Spectator> joining = new ConcurrentLinkedQueue<>();
+    private final Thread dispatcher;
+    // Sequence of the last batch written to the ring, only written by the game thread
+    private volatile long published;
+    private volatile boolean closed;
+
+    /**
+     * The Frame record holds what a spectator receives for a move.
+     *
+     * @param sequence the number of the move since the hub was created, 0 for the position the hub started from
+     * @param delta the changes of the move, or null for a keyframe
+     * @param position the position after the move
+     */
+    public record Frame(long sequence, BoardDelta delta, Position position) {
+
+        /**
+         * Checks if the frame is a keyframe: the moves before it may have been skipped,
+         * so the spectator has to show the position instead of applying a delta.
+         *
+         * @return true if the frame is a keyframe
+         */
+        public boolean isKeyframe() {
+            return delta == null;
+        }
+    }
+
+    /**
+     * The Batch record holds the events of a move, as written to the ring by the game thread.
+     *
+     * @param sequence the number of the move
+     * @param events the events of the move
+     * @param position the position after the move
+     */
+    private record Batch(long sequence, List<BoardEvent> events, Position position) {
+    }
+
+    /**
+     * Constructs a SpectatorHub and starts its thread.
+     *
+     * @param positions gives the position of the game, read by the game thread when a batch is committed
+     * @param ringSize the number of moves the hub keeps before coalescing them, rounded up to a power of two
+     * @throws NullPointerException if the supplier of positions is null
+     * @throws IllegalArgumentException if the size of the ring is not between 1 and 2^20
+     */
+    public SpectatorHub(Supplier<Position> positions, int ringSize) {
+        if (positions == null) throw new NullPointerException("The supplier of positions is null");
+        if (ringSize < 1 || ringSize > 1 << 20) throw new IllegalArgumentException("The size of the ring must be between 1 and 2^20");
+
+        int size = Integer.highestOneBit(ringSize) == ringSize ? ringSize : Integer.highestOneBit(ringSize) << 1;
+        this.positions = positions;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        ring.set(0, new Batch(0, List.of(), positions.get()));
+
+        dispatcher = new Thread(this::dispatch, "spectators");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    /**
+     * Adds a spectator. Its first frame is a keyframe with the current position.
+     *
+     * @param capacity the number of frames the spectator can fall behind before they are coalesced
+     * @return the spectator
+     * @throws IllegalArgumentException if the capacity is not positive
+     * @throws IllegalStateException if the hub is closed
+     */
+    public Spectator join(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("The capacity must be positive");
+        if (closed) throw new IllegalStateException("The hub is closed");
+
+        Spectator spectator = new Spectator(capacity);
+        joining.add(spectator);
+        LockSupport.unpark(dispatcher);
+        return spectator;
+    }
+
+    /**
+     * Returns the number of spectators.
+     *
+     * @return the number of spectators, the ones still joining included
+     */
+    public int size() {
+        return spectators.size() + joining.size();
+    }
+
+    /**
+     * Writes a batch to the ring and wakes the hub's thread up, called by the game thread.
+     *
+     * @param events the events of the batch, in the order they have been published
+     */
+    @Override
+    public void onEvents(List<BoardEvent> events) {
+        long sequence = published + 1;
+        ring.set((int) sequence & mask, new Batch(sequence, events, positions.get()));
+        published = sequence;
+        LockSupport.unpark(dispatcher);
+    }
+
+    /**
+     * Stops the hub's thread. The frames already queued can still be taken.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(dispatcher);
+    }
+
+    /**
+     * Delivers the batches of the ring to the spectators until the hub is closed, run by the hub's thread.
+     */
+    private void dispatch() {
+        Batch current = ring.get(0);
+        while (!closed) {
+            Spectator spectator;
+            while ((spectator = joining.poll()) != null) {
+                spectator.offer(new Frame(current.sequence(), null, current.position()));
+                spectators.add(spectator);
+                // A spectator that left while joining is removed again once added
+                if (spectator.left) spectators.remove(spectator);
+            }
+
+            long last = published;
+            if (current.sequence() == last) {
+                LockSupport.park(this);
+                continue;
+            }
+
+            for (long sequence = current.sequence() + 1; sequence <= last; sequence++) {
+                Batch batch = ring.get((int) sequence & mask);
+                if (batch.sequence() != sequence) {
+                    // The game has lapped the ring, the spectators start again from the latest position
+                    current = ring.get((int) published & mask);
+                    COALESCED.add(current.sequence() - sequence + 1);
+                    deliver(new Frame(current.sequence(), null, current.position()));
+                    break;
+                }
+                current = batch;
+                deliver(new Frame(sequence, DeltaBuilder.build(batch.events()), batch.position()));
+            }
+        }
+    }
+
+    /**
+     * Puts a frame in the queue of every spectator.
+     *
+     * @param frame the frame
+     */
+    private void deliver(Frame frame) {
+        for (Spectator spectator : spectators) spectator.offer(frame);
+        FRAMES.add(spectators.size());
+    }
+
+    /**
+     * The Spectator class is the queue of frames of one spectator. Frames are taken by the spectator's thread.
+     */
+    public final class Spectator implements AutoCloseable {
+        private final ArrayBlockingQueue<Frame> queue;
+        private final LongAdder coalesced = new LongAdder();
+        private volatile long lastSequence = -1;
+        private volatile boolean left;
+
+        /**
+         * Constructs a Spectator.
+         *
+         * @param capacity the capacity of its queue
+         */
+        private Spectator(int capacity) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        /**
+         * Queues a frame, replacing the queued ones by a keyframe if the queue is full, called by the hub's thread only.
+         *
+         * @param frame the frame
+         */
+        private void offer(Frame frame) {
+            if (!queue.offer(frame)) {
+                int dropped = queue.size();
+                queue.clear();
+                coalesced.add(dropped);
+                COALESCED.add(dropped);
+                queue.offer(frame.isKeyframe() ? frame : new Frame(frame.sequence(), null, frame.position()));
+            }
+            lastSequence = frame.sequence();
+        }
+
+        /**
+         * Takes the next frame, waiting for it if needed.
+         *
+         * @return the frame
+         * @throws InterruptedException if interrupted while waiting
+         */
+        public Frame take() throws InterruptedException {
+            return queue.take();
+        }
+
+        /**
+         * Takes the next frame, waiting at most the given time.
+         *
+         * @param timeout the time to wait
+         * @param unit the unit of the time
+         * @return the frame, or null if there was none in time
+         * @throws InterruptedException if interrupted while waiting
+         */
+        public Frame poll(long timeout, TimeUnit unit) throws InterruptedException {
+            return queue.poll(timeout, unit);
+        }
+
+        /**
+         * Returns the number of frames dropped because the spectator was too slow.
+         *
+         * @return the number of dropped frames
+         */
+        public long coalesced() {
+            return coalesced.sum();
+        }
+
+        /**
+         * Returns the sequence of the last frame queued for the spectator.
+         *
+         * @return the sequence, -1 until the first keyframe is queued
+         */
+        public long lastSequence() {
+            return lastSequence;
+        }
+
+        /**
+         * Removes the spectator from the hub. The frames already queued can still be taken.
+         */
+        @Override
+        public void close() {
+            left = true;
+            if (!spectators.remove(this)) joining.remove(this);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package ch.heigvd.poo.engine.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The LatencyHistogram class records durations in nanoseconds into log-linear buckets, as HdrHistogram does:
+ * values below 128 have their own bucket, larger values share a bucket with the values having
+ * the same 7 highest bits, so a percentile is never off by more than 1/64 of its value.
+ * Recording is lock-free and never allocates, it can be called by any thread.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;
+    private static final int BUCKETS = SUB_BUCKETS + (Long.SIZE - SUB_BUCKET_BITS) * HALF;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * The Snapshot record holds the statistics of a histogram at a given time, in nanoseconds.
+     *
+     * @param count the number of recorded values
+     * @param mean the mean of the values
+     * @param p50 the median
+     * @param p90 the 90th percentile
+     * @param p99 the 99th percentile
+     * @param p999 the 99.9th percentile
+     * @param max the largest value
+     */
+    public record Snapshot(long count, long mean, long p50, long p90, long p99, long p999, long max) {
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos the duration, in nanoseconds, negative durations are recorded as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Records the time elapsed since a start time.
+     *
+     * @param start the start time, as given by {@link System#nanoTime()}
+     */
+    public void recordSince(long start) {
+        record(System.nanoTime() - start);
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return the number of recorded values
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * Returns the value below which a percentage of the recorded values fall.
+     *
+     * @param percentile the percentage, between 0 and 100
+     * @return the highest value of the bucket reaching the percentage, or 0 if nothing was recorded
+     * @throws IllegalArgumentException if the percentage is not between 0 and 100
+     */
+    public long percentile(double percentile) {
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("The percentile must be between 0 and 100");
+
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++)
+            total += copy[i] = counts.get(i);
+        return percentile(copy, total, percentile);
+    }
+
+    /**
+     * Returns the statistics of the recorded values.
+     * The values recorded while the snapshot is taken may be counted in some statistics and not in others.
+     *
+     * @return the statistics
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++)
+            total += copy[i] = counts.get(i);
+
+        return new Snapshot(total, total == 0 ? 0 : sum.sum() / total,
+                percentile(copy, total, 50), percentile(copy, total, 90),
+                percentile(copy, total, 99), percentile(copy, total, 99.9), max.get());
+    }
+
+    /**
+     * Forgets every recorded value.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++)
+            counts.set(i, 0);
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    /**
+     * Finds the bucket reaching a percentage of the values.
+     *
+     * @param counts the number of values of each bucket
+     * @param total the number of values
+     * @param percentile the percentage
+     * @return the highest value of the bucket, or 0 if there is no value
+     */
+    private static long percentile(long[] counts, long total, double percentile) {
+        if (total == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return highestValue(i);
+        }
+        return highestValue(counts.length - 1);
+    }
+
+    /**
+     * Returns the bucket of a value.
+     *
+     * @param value the value, positive
+     * @return the index of the bucket
+     */
+    static int index(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+
+        // The shift keeps the 7 highest bits of the value, the highest one being always set
+        int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return SUB_BUCKETS + (shift - 1) * HALF + (int) (value >>> shift) - HALF;
+    }
+
+    /**
+     * Returns the highest value of a bucket.
+     *
+     * @param index the index of the bucket
+     * @return the highest value falling in the bucket
+     */
+    static long highestValue(int index) {
+        if (index < SUB_BUCKETS) return index;
+
+        int shift = (index - SUB_BUCKETS) / HALF + 1;
+        long mantissa = (index - SUB_BUCKETS) % HALF + HALF;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,60 @@
+package ch.heigvd.poo.engine.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The Metrics class publishes a {@link MetricsRegistry} through JMX.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public class Metrics implements MetricsMXBean {
+    private final MetricsRegistry registry;
+
+    /**
+     * Constructs the JMX view of a registry.
+     *
+     * @param registry the registry to publish
+     * @throws NullPointerException if the registry is null
+     */
+    public Metrics(MetricsRegistry registry) {
+        if (registry == null) throw new NullPointerException("The registry is null");
+        this.registry = registry;
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        return registry.counters();
+    }
+
+    @Override
+    public Map<String, Long> getGauges() {
+        return registry.gauges();
+    }
+
+    @Override
+    public Map<String, Long> getLatencies() {
+        Map<String, Long> latencies = new TreeMap<>();
+        registry.histograms().forEach((name, s) -> {
+            latencies.put(name + ".count", s.count());
+            latencies.put(name + ".mean", s.mean());
+            latencies.put(name + ".p50", s.p50());
+            latencies.put(name + ".p90", s.p90());
+            latencies.put(name + ".p99", s.p99());
+            latencies.put(name + ".p999", s.p999());
+            latencies.put(name + ".max", s.max());
+        });
+        return latencies;
+    }
+
+    @Override
+    public String dump() {
+        return registry.dump();
+    }
+
+    @Override
+    public void reset() {
+        registry.reset();
+    }
+}
@@ -0,0 +1,45 @@
+package ch.heigvd.poo.engine.metrics;
+
+import java.util.Map;
+
+/**
+ * The MetricsMXBean interface is the JMX view of a {@link MetricsRegistry}, readable from JConsole or VisualVM.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public interface MetricsMXBean {
+
+    /**
+     * Returns the value of each counter.
+     *
+     * @return the values, by name
+     */
+    Map<String, Long> getCounters();
+
+    /**
+     * Returns the value of each gauge.
+     *
+     * @return the values, by name
+     */
+    Map<String, Long> getGauges();
+
+    /**
+     * Returns the statistics of each histogram, in nanoseconds.
+     *
+     * @return the statistics, by name of histogram followed by the name of the statistic, such as "engine.move.p99"
+     */
+    Map<String, Long> getLatencies();
+
+    /**
+     * Writes every metric as text.
+     *
+     * @return the text, one metric per line
+     */
+    String dump();
+
+    /**
+     * Resets every counter and histogram.
+     */
+    void reset();
+}
@@ -0,0 +1,159 @@
+package ch.heigvd.poo.engine.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * The MetricsRegistry class holds the named counters, gauges and latency histograms of the engine.
+ * Metrics are created on first use and then shared by everyone asking for the same name,
+ * so the engine keeps them in static fields and updates them without any lookup.
+ * The registry of the engine, {@link #global()}, is also published through JMX; a registration that fails
+ * is counted in {@code metrics.jmx.failures}.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public class MetricsRegistry {
+    /**
+     * Name of the MBean of the global registry.
+     */
+    public static final String OBJECT_NAME = "ch.heigvd.poo.engine:type=Metrics";
+
+    private final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    // Holder idiom: the global registry and its MBean are created on first use
+    private static class Global {
+        private static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+        static {
+            try {
+                ManagementFactory.getPlatformMBeanServer()
+                        .registerMBean(new Metrics(REGISTRY), new ObjectName(OBJECT_NAME));
+            } catch (InstanceAlreadyExistsException e) {
+                // Another class loader of the engine already published its registry
+            } catch (JMException e) {
+                // The registry still works without JMX, the failure shows in its own metrics
+                REGISTRY.counter("metrics.jmx.failures").increment();
+            }
+        }
+    }
+
+    /**
+     * Returns the registry of the engine.
+     *
+     * @return the registry shared by every game
+     */
+    public static MetricsRegistry global() {
+        return Global.REGISTRY;
+    }
+
+    /**
+     * Returns a counter, created if needed.
+     *
+     * @param name the name of the counter
+     * @return the counter
+     */
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    /**
+     * Returns a latency histogram, created if needed.
+     *
+     * @param name the name of the histogram
+     * @return the histogram
+     */
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new LatencyHistogram());
+    }
+
+    /**
+     * Registers a gauge, a value computed each time it is read.
+     *
+     * @param name the name of the gauge
+     * @param value computes the value, it can be called by any thread
+     * @throws IllegalStateException if a gauge with the same name is already registered
+     */
+    public void gauge(String name, LongSupplier value) {
+        if (gauges.putIfAbsent(name, value) != null)
+            throw new IllegalStateException("The gauge " + name + " is already registered");
+    }
+
+    /**
+     * Returns the value of each counter.
+     *
+     * @return the values, sorted by name
+     */
+    public Map<String, Long> counters() {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, counter) -> values.put(name, counter.sum()));
+        return values;
+    }
+
+    /**
+     * Returns the value of each gauge.
+     *
+     * @return the values, sorted by name
+     */
+    public Map<String, Long> gauges() {
+        Map<String, Long> values = new TreeMap<>();
+        gauges.forEach((name, gauge) -> values.put(name, gauge.getAsLong()));
+        return values;
+    }
+
+    /**
+     * Returns the statistics of each histogram.
+     *
+     * @return the statistics, sorted by name
+     */
+    public Map<String, LatencyHistogram.Snapshot> histograms() {
+        Map<String, LatencyHistogram.Snapshot> values = new TreeMap<>();
+        histograms.forEach((name, histogram) -> values.put(name, histogram.snapshot()));
+        return values;
+    }
+
+    /**
+     * Resets every counter and histogram, gauges are left as they are.
+     */
+    public void reset() {
+        counters.values().forEach(LongAdder::reset);
+        histograms.values().forEach(LatencyHistogram::reset);
+    }
+
+    /**
+     * Writes every metric as text, one per line, the durations in microseconds.
+     *
+     * @return the text
+     */
+    public String dump() {
+        StringBuilder text = new StringBuilder();
+        counters().forEach((name, value) -> text.append(name).append(' ').append(value).append('\n'));
+        gauges().forEach((name, value) -> text.append(name).append(' ').append(value).append('\n'));
+        histograms().forEach((name, s) -> text.append(String.format(
+                "%s count=%d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus%n",
+                name, s.count(), micros(s.mean()), micros(s.p50()), micros(s.p90()),
+                micros(s.p99()), micros(s.p999()), micros(s.max()))));
+        return text.toString();
+    }
+
+    /**
+     * Converts nanoseconds to microseconds.
+     *
+     * @param nanos the duration in nanoseconds
+     * @return the duration in microseconds
+     */
+    private static double micros(long nanos) {
+        return nanos / (double) TimeUnit.MICROSECONDS.toNanos(1);
+    }
+}
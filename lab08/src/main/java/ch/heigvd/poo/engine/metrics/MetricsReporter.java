@@ -0,0 +1,64 @@
+package ch.heigvd.poo.engine.metrics;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The MetricsReporter class periodically writes the metrics of a registry as text, from a daemon thread.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public class MetricsReporter implements AutoCloseable {
+    /**
+     * System property giving the period of the dump of the global registry, in seconds.
+     */
+    public static final String PERIOD_PROPERTY = "chess.metrics.dump";
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "metrics-reporter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Starts writing the metrics of a registry.
+     *
+     * @param registry the registry to write
+     * @param out the stream to write to
+     * @param period the time between two dumps
+     * @throws NullPointerException if the registry, the stream or the period is null
+     */
+    public MetricsReporter(MetricsRegistry registry, PrintStream out, Duration period) {
+        if (registry == null) throw new NullPointerException("The registry is null");
+        if (out == null) throw new NullPointerException("The stream is null");
+        if (period == null) throw new NullPointerException("The period is null");
+
+        long millis = period.toMillis();
+        timer.scheduleAtFixedRate(() -> out.print("--- metrics " + LocalTime.now() + "\n" + registry.dump()),
+                millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts writing the global registry to the standard error, if the period is given by {@link #PERIOD_PROPERTY}.
+     *
+     * @return the reporter, or null if the property is not set
+     */
+    public static MetricsReporter fromSystemProperty() {
+        String seconds = System.getProperty(PERIOD_PROPERTY);
+        if (seconds == null) return null;
+        return new MetricsReporter(MetricsRegistry.global(), System.err, Duration.ofSeconds(Long.parseLong(seconds)));
+    }
+
+    /**
+     * Stops writing the metrics.
+     */
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+}
@@ -0,0 +1,325 @@
+package ch.heigvd.poo.engine.moves;
+
+import ch.heigvd.poo.engine.board.Position;
+import ch.heigvd.poo.engine.metrics.MetricsRegistry;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The LegalMoveCache class keeps the legal moves of the positions asked most often, shared by every game
+ * of the process: the positions of popular openings are reached by thousands of games, whose views ask for
+ * their moves again and again. Positions are immutable, so an entry is never invalidated, only evicted.
+ * <p>
+ * Entries are found by the Zobrist key of the position, then compared with the position itself, so a collision
+ * of keys is a miss and never gives the moves of another position. The moves are kept packed on two bytes each.
+ * <p>
+ * Eviction follows W-TinyLFU: a new entry first goes to a small LRU window; when it leaves the window,
+ * it only enters the main space, a segmented LRU, if it has been asked more often than the entry it would evict.
+ * How often keys are asked is estimated by a count-min sketch of 4-bit counters, halved periodically so that
+ * old popularity fades. A burst of positions asked once, such as an analysis walking through a game,
+ * thus cannot flush the openings. The cache is split into segments, each with its own lock, so threads
+ * asking for different positions rarely wait for each other.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public class LegalMoveCache {
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_SEGMENT_CAPACITY = 64;
+
+    private static final LongAdder HITS = MetricsRegistry.global().counter("moves.cache.hits");
+    private static final LongAdder MISSES = MetricsRegistry.global().counter("moves.cache.misses");
+
+    // -Dchess.moves.cache=<positions> sets the capacity of the cache shared by the games
+    private static final LegalMoveCache SHARED = new LegalMoveCache(Integer.getInteger("chess.moves.cache", 1 << 16));
+
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructs a LegalMoveCache.
+     *
+     * @param capacity the number of positions kept
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public LegalMoveCache(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("The capacity must be positive");
+
+        int count = Math.max(1, Math.min(MAX_SEGMENTS, Integer.highestOneBit(capacity / MIN_SEGMENT_CAPACITY)));
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++)
+            segments[i] = new Segment(capacity / count + (i < capacity % count ? 1 : 0));
+    }
+
+    /**
+     * Returns the cache shared by the games of the process.
+     *
+     * @return the shared cache
+     */
+    public static LegalMoveCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Lists the legal moves of the side to move, as {@link MoveGenerator#legalMoves} does.
+     *
+     * @param position the position
+     * @param moves the array receiving the moves, at least MoveGenerator.MAX_MOVES long
+     * @return the number of moves written
+     */
+    public int legalMoves(Position position, int[] moves) {
+        short[] packed = get(position);
+        for (int i = 0; i < packed.length; i++) moves[i] = packed[i] & 0xFFFF;
+        return packed.length;
+    }
+
+    /**
+     * Returns the destination squares of the legal moves starting from a square, as {@link MoveGenerator#destinations} does.
+     *
+     * @param position the position
+     * @param from the starting square
+     * @return a mask with bit {@code s} set if square {@code s} is a legal destination
+     */
+    public long destinations(Position position, int from) {
+        long mask = 0;
+        for (short move : get(position))
+            if (Move.from(move & 0xFFFF) == from) mask |= 1L << Move.to(move & 0xFFFF);
+        return mask;
+    }
+
+    /**
+     * Returns the number of positions whose moves were found in the cache.
+     *
+     * @return the number of hits
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of positions whose moves had to be generated.
+     *
+     * @return the number of misses
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the packed legal moves of a position, generating and caching them if needed.
+     *
+     * @param position the position
+     * @return the moves, which must not be modified
+     */
+    private short[] get(Position position) {
+        long key = position.key();
+        // The high bits of the key pick the segment
+        Segment segment = segments[(int) (key >>> 58) & segments.length - 1];
+        short[] moves = segment.get(key, position);
+        if (moves != null) {
+            hits.increment();
+            HITS.increment();
+            return moves;
+        }
+
+        misses.increment();
+        MISSES.increment();
+        int[] list = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.legalMoves(position, list);
+        moves = new short[count];
+        for (int i = 0; i < count; i++) moves[i] = (short) list[i];
+        segment.put(key, new Entry(position, moves));
+        return moves;
+    }
+
+    /**
+     * The Entry record holds the moves of a position.
+     *
+     * @param position the position, compared on a hit in case of a collision of keys
+     * @param moves the packed legal moves
+     */
+    private record Entry(Position position, short[] moves) {
+    }
+
+    /**
+     * The Segment class is a W-TinyLFU cache over a part of the keys, guarded by its own lock.
+     */
+    private static final class Segment {
+        private final int windowCapacity;
+        private final int protectedCapacity;
+        private final int mainCapacity;
+        private final FrequencySketch sketch;
+        // Maps in access order: the first entry is the least recently used
+        private final LinkedHashMap<Long, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<Long, Entry> probation = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<Long, Entry> protectedEntries = new LinkedHashMap<>(16, 0.75f, true);
+
+        /**
+         * Constructs a Segment.
+         *
+         * @param capacity the number of entries kept
+         */
+        Segment(int capacity) {
+            // 1% for the window, and 80% of the main space for the entries asked again
+            windowCapacity = Math.max(1, capacity / 100);
+            mainCapacity = Math.max(1, capacity - windowCapacity);
+            protectedCapacity = mainCapacity * 4 / 5;
+            sketch = new FrequencySketch(capacity);
+        }
+
+        /**
+         * Returns the moves of a position, moving its entry up.
+         *
+         * @param key the key of the position
+         * @param position the position
+         * @return the moves, or null if the position is not cached
+         */
+        synchronized short[] get(long key, Position position) {
+            sketch.increment(key);
+
+            Entry entry = window.get(key);
+            if (entry == null) {
+                entry = protectedEntries.get(key);
+                if (entry == null) {
+                    entry = probation.remove(key);
+                    if (entry != null) {
+                        // Asked again while on probation, the entry is protected, which may push another one out
+                        protectedEntries.put(key, entry);
+                        if (protectedEntries.size() > protectedCapacity) {
+                            Map.Entry<Long, Entry> demoted = eldest(protectedEntries);
+                            protectedEntries.remove(demoted.getKey());
+                            probation.put(demoted.getKey(), demoted.getValue());
+                        }
+                    }
+                }
+            }
+            return entry != null && entry.position().equals(position) ? entry.moves() : null;
+        }
+
+        /**
+         * Adds the moves of a position, evicting an entry if the segment is full.
+         *
+         * @param key the key of the position
+         * @param entry the entry
+         */
+        synchronized void put(long key, Entry entry) {
+            // Another thread may have added it, or a position of the same key is replaced
+            if (protectedEntries.replace(key, entry) != null || probation.replace(key, entry) != null) return;
+
+            window.put(key, entry);
+            if (window.size() <= windowCapacity) return;
+
+            Map.Entry<Long, Entry> candidate = eldest(window);
+            window.remove(candidate.getKey());
+            if (probation.size() + protectedEntries.size() < mainCapacity) {
+                probation.put(candidate.getKey(), candidate.getValue());
+                return;
+            }
+
+            // The entry leaving the window only stays if it is asked more often than the one it evicts
+            Map.Entry<Long, Entry> victim = eldest(probation.isEmpty() ? protectedEntries : probation);
+            if (sketch.frequency(candidate.getKey()) > sketch.frequency(victim.getKey())) {
+                probation.remove(victim.getKey());
+                protectedEntries.remove(victim.getKey());
+                probation.put(candidate.getKey(), candidate.getValue());
+            }
+        }
+
+        /**
+         * Returns the least recently used entry of a map.
+         *
+         * @param map the map, in access order
+         * @return the first entry
+         */
+        private static Map.Entry<Long, Entry> eldest(LinkedHashMap<Long, Entry> map) {
+            Iterator<Map.Entry<Long, Entry>> iterator = map.entrySet().iterator();
+            return iterator.next();
+        }
+    }
+
+    /**
+     * The FrequencySketch class estimates how often keys are asked, with four 4-bit counters per key.
+     * Once ten times as many keys as the capacity have been counted, every counter is halved.
+     */
+    private static final class FrequencySketch {
+        private static final long RESET_MASK = 0x7777777777777777L;
+        private static final long[] SEEDS = {0x97CB3127C8A1F05BL, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0x9E3779B97F4A7C15L};
+
+        private final long[] table;
+        private final int sampleSize;
+        private int additions;
+
+        /**
+         * Constructs a FrequencySketch.
+         *
+         * @param capacity the number of entries of the cache
+         */
+        FrequencySketch(int capacity) {
+            // Sixteen counters per long, about four counters per entry
+            int length = Integer.highestOneBit(Math.max(1, capacity / 4 - 1)) << 1;
+            table = new long[length];
+            sampleSize = 10 * Math.max(1, capacity);
+        }
+
+        /**
+         * Returns the estimated number of times a key was counted.
+         *
+         * @param key the key
+         * @return the smallest of its counters, at most 15
+         */
+        int frequency(long key) {
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < SEEDS.length; i++) {
+                long hash = hash(key, i);
+                int index = (int) (hash >>> 32) & table.length - 1;
+                int shift = ((int) hash & 15) << 2;
+                frequency = Math.min(frequency, (int) (table[index] >>> shift & 15));
+            }
+            return frequency;
+        }
+
+        /**
+         * Counts a key, unless all its counters are saturated.
+         *
+         * @param key the key
+         */
+        void increment(long key) {
+            boolean added = false;
+            for (int i = 0; i < SEEDS.length; i++) {
+                long hash = hash(key, i);
+                int index = (int) (hash >>> 32) & table.length - 1;
+                int shift = ((int) hash & 15) << 2;
+                if ((table[index] >>> shift & 15) != 15) {
+                    table[index] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++additions == sampleSize) reset();
+        }
+
+        /**
+         * Halves every counter.
+         */
+        private void reset() {
+            for (int i = 0; i < table.length; i++)
+                table[i] = table[i] >>> 1 & RESET_MASK;
+            additions /= 2;
+        }
+
+        /**
+         * Mixes a key with the seed of a row of counters.
+         *
+         * @param key the key
+         * @param row the row
+         * @return the hash
+         */
+        private static long hash(long key, int row) {
+            long hash = (key ^ SEEDS[row]) * 0xBF58476D1CE4E5B9L;
+            return hash ^ hash >>> 31;
+        }
+    }
+}
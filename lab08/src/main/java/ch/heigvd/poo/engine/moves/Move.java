@@ -0,0 +1,144 @@
+package ch.heigvd.poo.engine.moves;
+
+import ch.heigvd.poo.chess.PieceType;
+import ch.heigvd.poo.engine.board.Position;
+
+/**
+ * The Move class packs a move in an int, so move lists can be stored in primitive arrays.
+ * Bits 0 to 5 hold the starting square, bits 6 to 11 the destination square and bits 12 to 14
+ * the promotion piece ({@code 1 + PieceType.ordinal()}, 0 if the move is not a promotion).
+ * Squares are numbered as in {@link Position}.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public final class Move {
+    private static final PieceType[] TYPES = PieceType.values();
+
+    /**
+     * A value that is never a valid move.
+     */
+    public static final int NONE = 0;
+
+    private Move() {
+    }
+
+    /**
+     * Encodes a move.
+     *
+     * @param from the starting square
+     * @param to the destination square
+     * @param promotion the promotion piece, or null
+     * @return the encoded move
+     */
+    public static int of(int from, int to, PieceType promotion) {
+        return from | to << 6 | (promotion == null ? 0 : promotion.ordinal() + 1) << 12;
+    }
+
+    /**
+     * Encodes a move that is not a promotion.
+     *
+     * @param from the starting square
+     * @param to the destination square
+     * @return the encoded move
+     */
+    public static int of(int from, int to) {
+        return from | to << 6;
+    }
+
+    /**
+     * Returns the starting square of a move.
+     *
+     * @param move the encoded move
+     * @return the starting square
+     */
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    /**
+     * Returns the destination square of a move.
+     *
+     * @param move the encoded move
+     * @return the destination square
+     */
+    public static int to(int move) {
+        return move >>> 6 & 63;
+    }
+
+    /**
+     * Returns the promotion piece of a move.
+     *
+     * @param move the encoded move
+     * @return the promotion piece, or null if the move is not a promotion
+     */
+    public static PieceType promotion(int move) {
+        int promotion = move >>> 12 & 7;
+        return promotion == 0 ? null : TYPES[promotion - 1];
+    }
+
+    /**
+     * Returns the coordinate notation of a move, as typed in the console view, e.g. "e2e4" or "e7e8q".
+     *
+     * @param move the encoded move
+     * @return the coordinate notation of the move
+     */
+    public static String toString(int move) {
+        StringBuilder sb = new StringBuilder(5);
+        appendSquare(sb, from(move));
+        appendSquare(sb, to(move));
+        if (promotion(move) != null)
+            sb.append(Character.toLowerCase(Position.letter(promotion(move).ordinal() + 1)));
+        return sb.toString();
+    }
+
+    /**
+     * Parses the coordinate notation of a move, e.g. "e2e4" or "e7e8q".
+     *
+     * @param text the coordinate notation
+     * @return the encoded move
+     * @throws IllegalArgumentException if the text is not a move in coordinate notation
+     */
+    public static int parse(String text) {
+        if (text.length() < 4 || text.length() > 5)
+            throw new IllegalArgumentException("Not a move: " + text);
+
+        int from = parseSquare(text, 0);
+        int to = parseSquare(text, 2);
+        PieceType promotion = null;
+        if (text.length() == 5) {
+            int index = "prnbqk".indexOf(Character.toLowerCase(text.charAt(4)));
+            if (index < 0) throw new IllegalArgumentException("Not a promotion piece: " + text);
+            promotion = TYPES[index];
+            if (promotion == PieceType.PAWN || promotion == PieceType.KING)
+                throw new IllegalArgumentException("A pawn cannot be promoted to a " + promotion + ": " + text);
+        }
+        return of(from, to, promotion);
+    }
+
+    /**
+     * Appends the name of a square, e.g. "e4".
+     *
+     * @param sb the builder to append to
+     * @param square the square
+     */
+    private static void appendSquare(StringBuilder sb, int square) {
+        sb.append((char) ('a' + Position.row(square))).append((char) ('1' + Position.col(square)));
+    }
+
+    /**
+     * Parses the name of a square, e.g. "e4".
+     *
+     * @param text the text containing the square
+     * @param index the index of the square in the text
+     * @return the square
+     * @throws IllegalArgumentException if the text does not contain a square at this index
+     */
+    private static int parseSquare(String text, int index) {
+        int row = Character.toLowerCase(text.charAt(index)) - 'a';
+        int col = text.charAt(index + 1) - '1';
+        if (row < 0 || row >= Position.SIZE || col < 0 || col >= Position.SIZE)
+            throw new IllegalArgumentException("Not a square: " + text);
+        return Position.square(row, col);
+    }
+}
@@ -0,0 +1,343 @@
+package ch.heigvd.poo.engine.moves;
+
+import ch.heigvd.poo.chess.PieceType;
+import ch.heigvd.poo.chess.PlayerColor;
+import ch.heigvd.poo.engine.board.Position;
+
+import java.util.Arrays;
+
+/**
+ * The MoveGenerator class lists the legal moves of a {@link Position}.
+ * Unlike {@link ch.heigvd.poo.engine.board.GBoard#move}, it has no side effect:
+ * it never moves a piece nor asks the player anything, so it can run on any thread.
+ * Moves are written, encoded as in {@link Move}, in an array provided by the caller.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public final class MoveGenerator {
+    /**
+     * An upper bound of the number of moves of a position.
+     */
+    public static final int MAX_MOVES = 256;
+
+    private static final int SIZE = Position.SIZE;
+    private static final int[][] KNIGHT_STEPS = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+    private static final int[][] KING_STEPS = {{1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1}};
+    private static final int[][] DIAGONALS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    private static final int[][] LINES = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final PieceType[] PROMOTIONS = {PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT};
+
+    // Destination squares of a knight and a king from each square
+    private static final int[][] KNIGHT_TARGETS = targets(KNIGHT_STEPS);
+    private static final int[][] KING_TARGETS = targets(KING_STEPS);
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Computes the squares reachable with one step from each square.
+     *
+     * @param steps the steps, as row and column offsets
+     * @return the reachable squares of each square
+     */
+    private static int[][] targets(int[][] steps) {
+        int[][] targets = new int[SIZE * SIZE][];
+        for (int sq = 0; sq < targets.length; sq++) {
+            int[] buffer = new int[steps.length];
+            int n = 0;
+            for (int[] step : steps) {
+                int row = Position.row(sq) + step[0];
+                int col = Position.col(sq) + step[1];
+                if (inside(row, col)) buffer[n++] = Position.square(row, col);
+            }
+            targets[sq] = Arrays.copyOf(buffer, n);
+        }
+        return targets;
+    }
+
+    /**
+     * Checks if a row and a column are on the board.
+     *
+     * @param row the row
+     * @param col the column
+     * @return true if the cell is on the board, false otherwise
+     */
+    private static boolean inside(int row, int col) {
+        return row >= 0 && row < SIZE && col >= 0 && col < SIZE;
+    }
+
+    /**
+     * Returns the opponent of a color.
+     *
+     * @param color the color
+     * @return the other color
+     */
+    public static PlayerColor opponent(PlayerColor color) {
+        return color == PlayerColor.WHITE ? PlayerColor.BLACK : PlayerColor.WHITE;
+    }
+
+    /**
+     * Lists the legal moves of the side to move.
+     *
+     * @param position the position
+     * @param moves the array receiving the moves, at least MAX_MOVES long
+     * @return the number of moves written
+     */
+    public static int legalMoves(Position position, int[] moves) {
+        int count = pseudoLegalMoves(position, moves);
+        int legal = 0;
+        for (int i = 0; i < count; i++)
+            if (leavesKingSafe(position, moves[i])) moves[legal++] = moves[i];
+        return legal;
+    }
+
+    /**
+     * Returns the destination squares of the legal moves starting from a square.
+     *
+     * @param position the position
+     * @param from the starting square
+     * @return a mask with bit {@code s} set if square {@code s} is a legal destination
+     */
+    public static long destinations(Position position, int from) {
+        int[] moves = new int[MAX_MOVES];
+        int count = legalMoves(position, moves);
+        long mask = 0;
+        for (int i = 0; i < count; i++)
+            if (Move.from(moves[i]) == from) mask |= 1L << Move.to(moves[i]);
+        return mask;
+    }
+
+    /**
+     * Checks if a move is legal in a position.
+     *
+     * @param position the position
+     * @param move the move, encoded as in {@link Move}
+     * @return true if the move is legal, false otherwise
+     */
+    public static boolean isLegal(Position position, int move) {
+        int[] moves = new int[MAX_MOVES];
+        int count = legalMoves(position, moves);
+        for (int i = 0; i < count; i++)
+            if (moves[i] == move) return true;
+        return false;
+    }
+
+    /**
+     * Checks if the side to move is in check.
+     *
+     * @param position the position
+     * @return true if the king of the side to move is attacked, false otherwise
+     */
+    public static boolean inCheck(Position position) {
+        int king = position.king(position.sideToMove());
+        return king != Position.NO_SQUARE && isAttacked(position, king, opponent(position.sideToMove()));
+    }
+
+    /**
+     * Checks if the king of the player making a move is safe after it.
+     *
+     * @param position the position before the move
+     * @param move the move
+     * @return true if the king is not attacked after the move, or if there is no king
+     */
+    private static boolean leavesKingSafe(Position position, int move) {
+        Position next = position.play(move);
+        int king = next.king(position.sideToMove());
+        return king == Position.NO_SQUARE || !isAttacked(next, king, next.sideToMove());
+    }
+
+    /**
+     * Lists the moves of the side to move without checking whether they leave the king in check.
+     *
+     * @param position the position
+     * @param moves the array receiving the moves, at least MAX_MOVES long
+     * @return the number of moves written
+     */
+    public static int pseudoLegalMoves(Position position, int[] moves) {
+        PlayerColor side = position.sideToMove();
+        int count = 0;
+
+        for (int from = 0; from < SIZE * SIZE; from++) {
+            byte piece = position.pieceAt(from);
+            if (piece == Position.EMPTY || Position.color(piece) != side) continue;
+
+            switch (Position.type(piece)) {
+                case PAWN -> count = pawnMoves(position, from, moves, count);
+                case KNIGHT -> count = stepMoves(position, from, KNIGHT_TARGETS[from], moves, count);
+                case BISHOP -> count = slideMoves(position, from, DIAGONALS, moves, count);
+                case ROOK -> count = slideMoves(position, from, LINES, moves, count);
+                case QUEEN -> {
+                    count = slideMoves(position, from, DIAGONALS, moves, count);
+                    count = slideMoves(position, from, LINES, moves, count);
+                }
+                case KING -> {
+                    count = stepMoves(position, from, KING_TARGETS[from], moves, count);
+                    count = castlingMoves(position, from, moves, count);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds the moves of a pawn.
+     */
+    private static int pawnMoves(Position position, int from, int[] moves, int count) {
+        PlayerColor side = position.sideToMove();
+        int direction = side == PlayerColor.WHITE ? 1 : -1;
+        int startCol = side == PlayerColor.WHITE ? 1 : SIZE - 2;
+        int row = Position.row(from);
+        int col = Position.col(from) + direction;
+
+        if (!inside(row, col)) return count;
+
+        int one = Position.square(row, col);
+        if (position.pieceAt(one) == Position.EMPTY) {
+            count = pawnMove(from, one, moves, count);
+            if (Position.col(from) == startCol) {
+                int two = Position.square(row, col + direction);
+                if (position.pieceAt(two) == Position.EMPTY) moves[count++] = Move.of(from, two);
+            }
+        }
+
+        for (int dx = -1; dx <= 1; dx += 2) {
+            if (!inside(row + dx, col)) continue;
+            int to = Position.square(row + dx, col);
+            byte target = position.pieceAt(to);
+            if ((target != Position.EMPTY && Position.color(target) != side) || to == position.enPassant())
+                count = pawnMove(from, to, moves, count);
+        }
+        return count;
+    }
+
+    /**
+     * Adds a pawn move, as the four possible promotions if it reaches the last column.
+     */
+    private static int pawnMove(int from, int to, int[] moves, int count) {
+        int col = Position.col(to);
+        if (col == 0 || col == SIZE - 1) {
+            for (PieceType promotion : PROMOTIONS)
+                moves[count++] = Move.of(from, to, promotion);
+        } else {
+            moves[count++] = Move.of(from, to);
+        }
+        return count;
+    }
+
+    /**
+     * Adds the moves of a piece moving by a single step, a knight or a king.
+     */
+    private static int stepMoves(Position position, int from, int[] targets, int[] moves, int count) {
+        PlayerColor side = position.sideToMove();
+        for (int to : targets) {
+            byte target = position.pieceAt(to);
+            if (target == Position.EMPTY || Position.color(target) != side) moves[count++] = Move.of(from, to);
+        }
+        return count;
+    }
+
+    /**
+     * Adds the moves of a piece sliding along directions, a bishop, a rook or a queen.
+     */
+    private static int slideMoves(Position position, int from, int[][] directions, int[] moves, int count) {
+        PlayerColor side = position.sideToMove();
+        for (int[] d : directions) {
+            int row = Position.row(from) + d[0];
+            int col = Position.col(from) + d[1];
+            while (inside(row, col)) {
+                int to = Position.square(row, col);
+                byte target = position.pieceAt(to);
+                if (target == Position.EMPTY) {
+                    moves[count++] = Move.of(from, to);
+                } else {
+                    if (Position.color(target) != side) moves[count++] = Move.of(from, to);
+                    break;
+                }
+                row += d[0];
+                col += d[1];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds the castling moves of a king. The king must not be in check nor cross an attacked square,
+     * the destination square is checked with the other moves.
+     */
+    private static int castlingMoves(Position position, int from, int[] moves, int count) {
+        PlayerColor side = position.sideToMove();
+        int kingSide = side == PlayerColor.WHITE ? Position.WHITE_KING_SIDE : Position.BLACK_KING_SIDE;
+        int queenSide = side == PlayerColor.WHITE ? Position.WHITE_QUEEN_SIDE : Position.BLACK_QUEEN_SIDE;
+        int home = side == PlayerColor.WHITE ? 4 : 60;
+        PlayerColor opponent = opponent(side);
+        byte rook = Position.code(PieceType.ROOK, side);
+
+        if (from != home || (position.castling() & (kingSide | queenSide)) == 0 || isAttacked(position, from, opponent))
+            return count;
+
+        if ((position.castling() & kingSide) != 0 && position.pieceAt(from + 3) == rook
+                && position.pieceAt(from + 1) == Position.EMPTY && position.pieceAt(from + 2) == Position.EMPTY
+                && !isAttacked(position, from + 1, opponent))
+            moves[count++] = Move.of(from, from + 2);
+
+        if ((position.castling() & queenSide) != 0 && position.pieceAt(from - 4) == rook
+                && position.pieceAt(from - 1) == Position.EMPTY && position.pieceAt(from - 2) == Position.EMPTY
+                && position.pieceAt(from - 3) == Position.EMPTY && !isAttacked(position, from - 1, opponent))
+            moves[count++] = Move.of(from, from - 2);
+
+        return count;
+    }
+
+    /**
+     * Checks if a square is attacked by a color.
+     *
+     * @param position the position
+     * @param square the square
+     * @param by the color of the attacking pieces
+     * @return true if a piece of the color attacks the square, false otherwise
+     */
+    public static boolean isAttacked(Position position, int square, PlayerColor by) {
+        int row = Position.row(square);
+        int col = Position.col(square);
+
+        // A pawn attacks the square from the column behind it, seen from the pawn's side
+        int pawnCol = col - (by == PlayerColor.WHITE ? 1 : -1);
+        byte pawn = Position.code(PieceType.PAWN, by);
+        for (int dx = -1; dx <= 1; dx += 2)
+            if (inside(row + dx, pawnCol) && position.pieceAt(Position.square(row + dx, pawnCol)) == pawn)
+                return true;
+
+        byte knight = Position.code(PieceType.KNIGHT, by);
+        for (int from : KNIGHT_TARGETS[square])
+            if (position.pieceAt(from) == knight) return true;
+
+        byte king = Position.code(PieceType.KING, by);
+        for (int from : KING_TARGETS[square])
+            if (position.pieceAt(from) == king) return true;
+
+        byte queen = Position.code(PieceType.QUEEN, by);
+        return slidingAttack(position, square, DIAGONALS, Position.code(PieceType.BISHOP, by), queen)
+                || slidingAttack(position, square, LINES, Position.code(PieceType.ROOK, by), queen);
+    }
+
+    /**
+     * Checks if a square is attacked along directions by one of two kinds of sliding pieces.
+     */
+    private static boolean slidingAttack(Position position, int square, int[][] directions, byte slider, byte queen) {
+        for (int[] d : directions) {
+            int row = Position.row(square) + d[0];
+            int col = Position.col(square) + d[1];
+            while (inside(row, col)) {
+                byte piece = position.pieceAt(Position.square(row, col));
+                if (piece != Position.EMPTY) {
+                    if (piece == slider || piece == queen) return true;
+                    break;
+                }
+                row += d[0];
+                col += d[1];
+            }
+        }
+        return false;
+    }
+}
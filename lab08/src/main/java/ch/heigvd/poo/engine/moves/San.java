@@ -0,0 +1,155 @@
+package ch.heigvd.poo.engine.moves;
+
+import ch.heigvd.poo.chess.PieceType;
+import ch.heigvd.poo.engine.board.Position;
+
+/**
+ * The San class writes and reads moves in Standard Algebraic Notation, as used in PGN files,
+ * e.g. "e4", "Nbd7", "exd6", "O-O", "e8=Q+" or "Qh5#".
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public final class San {
+
+    private San() {
+    }
+
+    /**
+     * Writes a legal move.
+     *
+     * @param position the position before the move
+     * @param move the move, legal in this position
+     * @return the move in Standard Algebraic Notation, with "+" or "#" if it gives check or mate
+     */
+    public static String format(Position position, int move) {
+        return format(position, move, new int[MoveGenerator.MAX_MOVES]);
+    }
+
+    /**
+     * Reads a move. The check and annotation marks ("+", "#", "!", "?") are ignored.
+     *
+     * @param position the position before the move
+     * @param san the move in Standard Algebraic Notation
+     * @return the move
+     * @throws IllegalArgumentException if the text is not a legal move of the position
+     */
+    public static int parse(Position position, String san) {
+        String text = san.replaceAll("[+#!?]+$", "").replace('0', 'O');
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int[] buffer = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.legalMoves(position, moves);
+        for (int i = 0; i < count; i++) {
+            if (text.equals(withoutCheck(position, moves[i], buffer))) return moves[i];
+        }
+        throw new IllegalArgumentException("Not a legal move: " + san);
+    }
+
+    /**
+     * Writes a legal move, using a buffer for the moves of the position.
+     *
+     * @param position the position before the move
+     * @param move the move
+     * @param buffer an array of MoveGenerator.MAX_MOVES moves
+     * @return the move in Standard Algebraic Notation
+     */
+    private static String format(Position position, int move, int[] buffer) {
+        StringBuilder sb = new StringBuilder(withoutCheck(position, move, buffer));
+        Position next = position.play(move);
+        if (MoveGenerator.inCheck(next))
+            sb.append(MoveGenerator.legalMoves(next, buffer) == 0 ? '#' : '+');
+        return sb.toString();
+    }
+
+    /**
+     * Writes a legal move without its check mark.
+     *
+     * @param position the position before the move
+     * @param move the move
+     * @param buffer an array of MoveGenerator.MAX_MOVES moves
+     * @return the move in Standard Algebraic Notation, without "+" or "#"
+     */
+    private static String withoutCheck(Position position, int move, int[] buffer) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        PieceType type = Position.type(position.pieceAt(from));
+        boolean capture = position.pieceAt(to) != Position.EMPTY;
+        StringBuilder sb = new StringBuilder(7);
+
+        if (type == PieceType.KING && Math.abs(Position.row(to) - Position.row(from)) == 2)
+            return Position.row(to) > Position.row(from) ? "O-O" : "O-O-O";
+
+        if (type == PieceType.PAWN) {
+            // A pawn changing of file always captures, en passant included
+            if (Position.row(from) != Position.row(to)) {
+                sb.append(file(from)).append('x');
+            }
+        } else {
+            sb.append(Character.toUpperCase(Position.letter(position.pieceAt(from))));
+            appendDisambiguation(sb, position, move, type, buffer);
+            if (capture) sb.append('x');
+        }
+
+        sb.append(file(to)).append(line(to));
+        PieceType promotion = Move.promotion(move);
+        if (promotion != null)
+            sb.append('=').append(Character.toUpperCase(Position.letter(Position.code(promotion, position.sideToMove()))));
+        return sb.toString();
+    }
+
+    /**
+     * Appends the file, the line or both of the starting square when another piece of the same type
+     * can reach the same destination.
+     *
+     * @param sb the builder to append to
+     * @param position the position before the move
+     * @param move the move
+     * @param type the type of the moving piece
+     * @param buffer an array of MoveGenerator.MAX_MOVES moves
+     */
+    private static void appendDisambiguation(StringBuilder sb, Position position, int move, PieceType type, int[] buffer) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameLine = false;
+
+        int count = MoveGenerator.legalMoves(position, buffer);
+        for (int i = 0; i < count; i++) {
+            int other = Move.from(buffer[i]);
+            if (other == from || Move.to(buffer[i]) != to || Position.type(position.pieceAt(other)) != type) continue;
+            ambiguous = true;
+            sameFile |= Position.row(other) == Position.row(from);
+            sameLine |= Position.col(other) == Position.col(from);
+        }
+
+        if (!ambiguous) return;
+        if (!sameFile) {
+            sb.append(file(from));
+        } else if (!sameLine) {
+            sb.append(line(from));
+        } else {
+            sb.append(file(from)).append(line(from));
+        }
+    }
+
+    /**
+     * Returns the letter of the file of a square.
+     *
+     * @param square the square
+     * @return 'a' to 'h'
+     */
+    private static char file(int square) {
+        return (char) ('a' + Position.row(square));
+    }
+
+    /**
+     * Returns the digit of the line of a square.
+     *
+     * @param square the square
+     * @return '1' to '8'
+     */
+    private static char line(int square) {
+        return (char) ('1' + Position.col(square));
+    }
+}
@@ -17,26 +17,26 @@ import java.util.List;
 public class Bishop extends Piece {
 
     /**
-     * Constructs a Bishop with the specified color and initial position.
+     * Constructs a Bishop with the specified color.
      *
      * @param color the color of the bishop
-     * @param cell  the initial position of the bishop
      */
-    public Bishop(PlayerColor color, GCell cell) {
-        super(PieceType.BISHOP, color, cell);
+    Bishop(PlayerColor color) {
+        super(PieceType.BISHOP, color);
     }
 
     /**
-     * Checks if the bishop can move to the specified cell.
+     * Checks if the bishop can move from a cell to another.
      * The bishop can move diagonally, so the distance in rows must equal the distance in columns.
      *
-     * @param to the target cell
+     * @param from the starting cell
+     * @param to   the target cell
      * @return true if the bishop can move to the target cell, false otherwise
      */
     @Override
-    public boolean canMove(GCell to) {
-        if (super.canMove(to))
-            return cell.distanceRow(to) == cell.distanceCol(to);
+    public boolean canMove(GCell from, GCell to) {
+        if (super.canMove(from, to))
+            return from.distanceRow(to) == from.distanceCol(to);
         return false;
     }
 
@@ -44,20 +44,21 @@ public class Bishop extends Piece {
      * Returns the path to the target cell.
      * The path is a list of cells representing the diagonal movement of the bishop.
      *
-     * @param to the target cell
+     * @param from the starting cell
+     * @param to   the target cell
      * @return a list of cells representing the path to the target cell
      */
     @Override
-    public List<GCell> path(GCell to) {
+    public List<GCell> path(GCell from, GCell to) {
         List<GCell> path = new LinkedList<>();
 
-        int rowDirection = cell.directionRow(to);
-        int colDirection = cell.directionCol(to);
+        int rowDirection = from.directionRow(to);
+        int colDirection = from.directionCol(to);
 
-        int colDistance = cell.distanceCol(to);
+        int colDistance = from.distanceCol(to);
 
         for (int i = 1; i < colDistance; i++)
-            path.add(new GCell(cell.getRow() + i * rowDirection, cell.getCol() + i * colDirection));
+            path.add(new GCell(from.getRow() + i * rowDirection, from.getCol() + i * colDirection));
 
         return path;
     }
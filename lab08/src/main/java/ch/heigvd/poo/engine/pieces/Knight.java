@@ -17,37 +17,36 @@ import java.util.List;
 public class Knight extends Piece {
 
     /**
-     * Constructs a Knight with the specified color and initial cell.
+     * Constructs a Knight with the specified color.
      *
      * @param color the color of the knight
-     * @param cell the initial cell of the knight
      */
-    public Knight(PlayerColor color, GCell cell) {
-        super(PieceType.KNIGHT, color, cell);
+    Knight(PlayerColor color) {
+        super(PieceType.KNIGHT, color);
     }
 
     /**
-     * Checks if the knight can move to the specified cell.
+     * Checks if the knight can move from a cell to another.
      *
+     * @param from the starting cell
      * @param to the cell to move to
      * @return true if the knight can move to the specified cell, false otherwise
      */
     @Override
-    public boolean canMove(GCell to) {
-        super.canMove(to);
-
-        return cell.distanceRow(to) * cell.distanceCol(to) == 2;
+    public boolean canMove(GCell from, GCell to) {
+        return super.canMove(from, to) && from.distanceRow(to) * from.distanceCol(to) == 2;
     }
 
     /**
      * Returns the path of cells the knight will move through to reach the specified cell.
      * Since the knight jumps directly to the destination cell, the path is empty.
      *
+     * @param from the starting cell
      * @param to the destination cell
      * @return a list of cells representing the path to the destination cell
      */
     @Override
-    public List<GCell> path(GCell to) {
+    public List<GCell> path(GCell from, GCell to) {
         return new LinkedList<>();
     }
 }
\ No newline at end of file
@@ -3,168 +3,94 @@ package ch.heigvd.poo.engine.pieces;
 import ch.heigvd.poo.chess.PieceType;
 import ch.heigvd.poo.chess.PlayerColor;
 import ch.heigvd.poo.engine.board.GCell;
-import ch.heigvd.poo.engine.listeners.BObserver;
-import ch.heigvd.poo.engine.listeners.BEventSrc;
 
 import java.util.LinkedList;
 import java.util.List;
 
 /**
  * The Pawn class represents a pawn chess piece.
- * It extends the Piece class and provides specific implementations for pawn movements,
- * including en passant and promotion.
+ * It extends the Piece class and provides the shape of the pawn movements: one cell forward, two from its
+ * starting line, or one cell forward on a diagonal to capture. The board checks the cells the pawn moves to,
+ * since a pawn only captures on a diagonal and en passant depends on the last move.
  *
  * @author : Surbeck Léon
  * @author : Nicolet Victor
  */
 public class Pawn extends Piece {
-    private boolean hasMoved = false;
-    private final BEventSrc events = new BEventSrc() {
-    };
-    private boolean canEnPassant = false;
 
     /**
-     * Constructs a Pawn with the specified color, initial cell, and observer.
+     * Constructs a Pawn with the specified color.
      *
-     * @param color    the color of the pawn
-     * @param cell     the initial cell of the pawn
-     * @param observer the observer to attach for event notifications
+     * @param color the color of the pawn
      */
-    public Pawn(PlayerColor color, GCell cell, BObserver observer) {
-        super(PieceType.PAWN, color, cell);
-        events.attach(observer);
+    Pawn(PlayerColor color) {
+        super(PieceType.PAWN, color);
     }
 
     /**
-     * Returns whether the pawn has moved.
+     * Returns the direction in which the pawn moves forward.
      *
-     * @return true if the pawn has moved, false otherwise
+     * @return 1 for a white pawn, -1 for a black one
      */
-    public boolean getHasMoved() {
-        return hasMoved;
+    private int forward() {
+        return color == PlayerColor.WHITE ? 1 : -1;
     }
 
     /**
-     * Checks if the pawn can perform an en passant move to the specified cell.
+     * Checks if a move of the pawn is a capture, which it can only play on a diagonal.
      *
+     * @param from the starting cell
      * @param to the cell to move to
-     * @return true if the pawn can perform an en passant move, false otherwise
+     * @return true if the pawn changes row
      */
-    public boolean checkEnPassant(GCell to) {
-        int distanceRow = cell.distanceRow(to);
-        int distanceCol = cell.distanceCol(to);
-
-        if (distanceCol * distanceRow == 1) {
-            Piece pieceTo = null;
-            if ((color == PlayerColor.WHITE)) {
-                pieceTo = events.notifyPieceTo(this, new GCell(to.getRow(), to.getCol() - 1));
-            } else if (color == PlayerColor.BLACK) {
-                pieceTo = events.notifyPieceTo(this, new GCell(to.getRow(), to.getCol() + 1));
-            }
-            if (pieceTo != null && pieceTo.getType() == PieceType.PAWN && ((Pawn) (pieceTo)).getCanEnPassant()) {
-                events.notifyEnPassant(pieceTo.getCell());
-                return true;
-            }
-        }
-        return false;
-    }
-
-    /**
-     * Returns whether the pawn can perform an en passant move.
-     *
-     * @return true if the pawn can perform an en passant move, false otherwise
-     */
-    public boolean getCanEnPassant() {
-        return canEnPassant;
-    }
-
-    /**
-     * Updates the en passant state of the pawn based on the distance moved.
-     *
-     * @param dis the distance moved
-     */
-    public void updateCanEnPassant(int dis) {
-        canEnPassant = !hasMoved && dis == 2;
+    public boolean isCapture(GCell from, GCell to) {
+        return from.getRow() != to.getRow();
     }
 
     /**
-     * Checks if the pawn can be promoted when moving to the specified cell.
+     * Checks if the pawn is promoted when it reaches a cell.
      *
      * @param to the cell to move to
+     * @return true if the cell is on the last line of the pawn
      */
-    public void checkPromoted(GCell to) {
-        if (to.getCol() == 0 || to.getCol() == 7) {
-            Piece pieceTo = events.notifyPieceTo(this, to);
-
-            if (pieceTo == null || pieceTo.getType() != PieceType.KING)
-                events.notifyPromotion(this);
-        }
+    public boolean isPromotion(GCell to) {
+        return to.getCol() == (color == PlayerColor.WHITE ? 7 : 0);
     }
 
     /**
      * Returns the path of cells the pawn will move through to reach the specified cell.
      *
+     * @param from the starting cell
      * @param to the destination cell
      * @return a list of cells representing the path to the destination cell
      */
     @Override
-    public List<GCell> path(GCell to) {
+    public List<GCell> path(GCell from, GCell to) {
         List<GCell> path = new LinkedList<>();
 
-        if (cell.distanceCol(to) == 2)
-            path.add(new GCell(cell.getRow(), cell.getCol() + cell.directionCol(to)));
+        if (from.distanceRow(to) == 2)
+            path.add(new GCell(from.getRow(), from.getCol() + from.directionCol(to)));
 
         return path;
     }
 
     /**
-     * Checks if the pawn can move to the specified cell.
+     * Checks if the pawn can move from a cell to another.
      *
+     * @param from the starting cell
      * @param to the cell to move to
-     * @return true if the pawn can move to the specified cell, false otherwise
+     * @return true if the move has the shape of a pawn move, false otherwise
      */
     @Override
-    public boolean canMove(GCell to) {
-        super.canMove(to);
-
-        int distanceRow = cell.distanceRow(to);
-        int distanceCol = to.getCol() - cell.getCol();
-        Piece pieceTo = events.notifyPieceTo(this, to);
-
-        if (color == PlayerColor.BLACK) {
-            distanceCol = -distanceCol;
-        }
-
-        if (cell.getRow() == to.getRow() && distanceCol <= 2 && distanceCol > 0) {
-
-            //checks if it is not the pawn's first move
-            if (distanceCol == 2 && hasMoved)
-                return false;
-
-            //checks if there is a piece on the destination cell when moving upwards, which is not allowed
-            if (pieceTo != null)
-                return false;
-
-            updateCanEnPassant(distanceCol);
-
-            //check if promotion is possible
-            checkPromoted(to);
-            return hasMoved = true;
-        }
-
-        //diagonal move when there is an opponent piece
-        if (distanceRow == 1 && distanceCol == 1) {
+    public boolean canMove(GCell from, GCell to) {
+        if (!super.canMove(from, to)) return false;
 
-            //Notify the board that we need to know if there is an opponent on the destination cell
-            events.notifyPieceTo(this, to);
+        int advance = (to.getCol() - from.getCol()) * forward();
+        int side = Math.abs(to.getRow() - from.getRow());
+        if (side == 0)
+            return advance == 1 || advance == 2 && from.getCol() == (color == PlayerColor.WHITE ? 1 : 6);
 
-            //If an opponent is on the diagonal cell, the pawn can move
-            if (pieceTo != null && pieceTo.getColor() != color) {
-                updateCanEnPassant(distanceCol);
-                checkPromoted(to);
-                return hasMoved = true;
-            }
-        }
-        return checkEnPassant(to);
+        //diagonal move, the board checks there is a piece to take
+        return side == 1 && advance == 1;
     }
 }
\ No newline at end of file
@@ -4,99 +4,115 @@ import ch.heigvd.poo.chess.*;
 import ch.heigvd.poo.engine.board.GCell;
 
 import java.util.List;
-import java.util.Objects;
 
 /**
- * The Piece class represents a chess piece with a specific type, color, and position on the board.
- * It provides methods to get the type, color, and position, check if the piece can move to a specific cell,
- * and abstract methods to get the path to a target cell.
+ * The Piece class represents a kind of chess piece, with a specific type and color.
+ * It provides methods to get the type and color, check if the piece can move from a cell to another,
+ * and abstract methods to get the path between two cells.
+ * <p>
+ * Pieces are immutable flyweights: there is one instance per type and color, shared by every board and obtained
+ * with {@link #of}. A piece knows neither its cell nor whether it has moved, the board holds the position,
+ * the castling rights and the en passant square, so a board is copied by copying its squares.
  *
  * @author : Surbeck Léon
  * @author : Nicolet Victor
  */
 abstract public class Piece implements ChessView.UserChoice {
+    private static final Piece[] PIECES = new Piece[PieceType.values().length * PlayerColor.values().length];
+
+    static {
+        for (PlayerColor color : PlayerColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                PIECES[index(type, color)] = switch (type) {
+                    case PAWN -> new Pawn(color);
+                    case KNIGHT -> new Knight(color);
+                    case BISHOP -> new Bishop(color);
+                    case ROOK -> new Rook(color);
+                    case QUEEN -> new Queen(color);
+                    case KING -> new King(color);
+                };
+            }
+        }
+    }
 
     protected final PieceType type;
     protected final PlayerColor color;
-    protected GCell cell;
 
     /**
-     * Constructs a Piece with the specified type, color, and initial position.
+     * Constructs a Piece with the specified type and color.
      *
      * @param type  the type of the piece
      * @param color the color of the piece
-     * @param cell  the initial position of the piece
      */
-    public Piece(PieceType type, PlayerColor color, GCell cell) {
+    Piece(PieceType type, PlayerColor color) {
         this.type = type;
         this.color = color;
-        this.cell = cell;
     }
 
     /**
-     * Checks if the piece can move to the specified cell.
+     * Returns the piece of the specified type and color.
      *
-     * @param to the target cell
-     * @return true if the piece can move to the target cell, false otherwise
+     * @param type  the type of the piece
+     * @param color the color of the piece
+     * @return the shared instance of the piece
+     * @throws NullPointerException if the type or the color is null
      */
-    public boolean canMove(GCell to) {
-        if (to.equals(this.cell)) return false;
+    public static Piece of(PieceType type, PlayerColor color) {
+        if (type == null || color == null) throw new NullPointerException("The type or the color of the piece is null");
 
-        return to.getRow() < 8 && to.getCol() < 8;
+        return PIECES[index(type, color)];
     }
 
     /**
-     * Returns the type of the piece.
+     * Returns the index of a piece in the shared instances.
      *
-     * @return the type of the piece
+     * @param type  the type of the piece
+     * @param color the color of the piece
+     * @return the index of the piece
      */
-    public PieceType getType() {
-        return type;
+    private static int index(PieceType type, PlayerColor color) {
+        return type.ordinal() * PlayerColor.values().length + color.ordinal();
     }
 
     /**
-     * Returns the color of the piece.
+     * Checks if the piece can move from a cell to another, the other pieces being ignored.
      *
-     * @return the color of the piece
+     * @param from the starting cell
+     * @param to   the target cell
+     * @return true if the piece can move to the target cell, false otherwise
      */
-    public PlayerColor getColor() {
-        return color;
+    public boolean canMove(GCell from, GCell to) {
+        if (to.equals(from)) return false;
+
+        return to.getRow() < 8 && to.getCol() < 8;
     }
 
     /**
-     * Returns the current position of the piece.
+     * Returns the type of the piece.
      *
-     * @return the current position of the piece
+     * @return the type of the piece
      */
-    public GCell getCell() {
-        return cell;
+    public PieceType getType() {
+        return type;
     }
 
     /**
-     * Sets the position of the piece.
+     * Returns the color of the piece.
      *
-     * @param cell the new position of the piece
+     * @return the color of the piece
      */
-    public void setCell(GCell cell) {
-        this.cell = new GCell(cell.getRow(), cell.getCol());
+    public PlayerColor getColor() {
+        return color;
     }
 
     /**
-     * Returns the path to the target cell.
+     * Returns the path from a cell to a target cell.
      *
-     * @param to the target cell
+     * @param from the starting cell
+     * @param to   the target cell
      * @return a list of cells representing the path to the target cell
      */
-    public abstract List<GCell> path(GCell to);
-
-    /**
-     * Checks if the piece has moved.
-     *
-     * @return true if the piece has moved, false otherwise
-     */
-    public boolean getHasMoved() {
-        return true;
-    }
+    public abstract List<GCell> path(GCell from, GCell to);
 
     /**
      * Returns the text value of the piece.
@@ -114,27 +130,6 @@ abstract public class Piece implements ChessView.UserChoice {
      */
     @Override
     public String toString() {
-        return "Piece{" + "type=" + type + ", color=" + color + ", cell=" + cell + '}';
-    }
-
-    /**
-     * Checks if this piece is equal to another object.
-     *
-     * @param o the object to compare with
-     * @return true if the object is a Piece with the same type, color, and position, false otherwise
-     */
-    @Override
-    public boolean equals(Object o) {
-        return o == this || o != null && o.getClass() == getClass() && ((Piece) o).cell == cell && ((Piece) o).type == type && ((Piece) o).color == color;
-    }
-
-    /**
-     * Returns the hash code of this piece.
-     *
-     * @return the hash code of this piece
-     */
-    @Override
-    public int hashCode() {
-        return Objects.hash(type, color, cell);
+        return "Piece{" + "type=" + type + ", color=" + color + '}';
     }
 }
\ No newline at end of file
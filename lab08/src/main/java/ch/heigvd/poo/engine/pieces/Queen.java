@@ -17,57 +17,58 @@ import java.util.List;
 public class Queen extends Piece {
 
     /**
-     * Constructs a Queen with the specified color and initial cell.
+     * Constructs a Queen with the specified color.
      *
      * @param color the color of the queen
-     * @param cell  the initial cell of the queen
      */
-    public Queen(PlayerColor color, GCell cell) {
-        super(PieceType.QUEEN, color, cell);
+    Queen(PlayerColor color) {
+        super(PieceType.QUEEN, color);
     }
 
     /**
-     * Checks if the queen can move to the specified cell.
+     * Checks if the queen can move from a cell to another.
      *
+     * @param from the starting cell
      * @param to the cell to move to
      * @return true if the queen can move to the specified cell, false otherwise
      */
     @Override
-    public boolean canMove(GCell to) {
-        super.canMove(to);
-        if (cell.distanceRow(to) == cell.distanceCol(to)) {
+    public boolean canMove(GCell from, GCell to) {
+        if (!super.canMove(from, to)) return false;
+        if (from.distanceRow(to) == from.distanceCol(to)) {
             return true;
         }
-        return to.getRow() == cell.getRow() || to.getCol() == cell.getCol();
+        return to.getRow() == from.getRow() || to.getCol() == from.getCol();
     }
 
     /**
      * Returns the path of cells the queen will move through to reach the specified cell.
      *
+     * @param from the starting cell
      * @param to the destination cell
      * @return a list of cells representing the path to the destination cell
      */
     @Override
-    public List<GCell> path(GCell to) {
+    public List<GCell> path(GCell from, GCell to) {
         List<GCell> path = new LinkedList<>();
-        int distanceRow = cell.distanceRow(to);
-        int distanceCol = cell.distanceCol(to);
+        int distanceRow = from.distanceRow(to);
+        int distanceCol = from.distanceCol(to);
 
         if (distanceRow == distanceCol) {
             for (int i = 1; i < distanceRow; ++i) {
-                int row = cell.getRow() + i * cell.directionRow(to);
-                int col = cell.getCol() + i * cell.directionCol(to);
+                int row = from.getRow() + i * from.directionRow(to);
+                int col = from.getCol() + i * from.directionCol(to);
                 path.add(new GCell(row, col));
             }
-        } else if (to.getRow() == cell.getRow()) {
-            for (int i = 1; i < distanceCol; ++i) {
-                int col = cell.getCol() + i * cell.directionCol(to);
-                path.add(new GCell(cell.getRow(), col));
-            }
-        } else if (to.getCol() == cell.getCol()) {
+        } else if (to.getRow() == from.getRow()) {
             for (int i = 1; i < distanceRow; ++i) {
-                int row = cell.getRow() + i * cell.directionRow(to);
-                path.add(new GCell(row, cell.getCol()));
+                int col = from.getCol() + i * from.directionCol(to);
+                path.add(new GCell(from.getRow(), col));
+            }
+        } else if (to.getCol() == from.getCol()) {
+            for (int i = 1; i < distanceCol; ++i) {
+                int row = from.getRow() + i * from.directionRow(to);
+                path.add(new GCell(row, from.getCol()));
             }
         }
 
@@ -15,46 +15,27 @@ import java.util.List;
  * @author : Nicolet Victor
  */
 public class Rook extends Piece {
-    private boolean hasMoved = false;
 
     /**
-     * Constructs a Rook with the specified color and initial cell.
+     * Constructs a Rook with the specified color.
      *
      * @param color the color of the rook
-     * @param cell the initial cell of the rook
      */
-    public Rook(PlayerColor color, GCell cell) {
-        super(PieceType.ROOK, color, cell);
+    Rook(PlayerColor color) {
+        super(PieceType.ROOK, color);
     }
 
     /**
-     * Checks if the rook has moved.
-     *
-     * @return true if the rook has moved, false otherwise
-     */
-    public boolean hasMoved() {
-        return hasMoved;
-    }
-
-    /**
-     * Returns the text representation of the rook.
-     *
-     * @return the text representation of the rook
-     */
-    public String textValue() {
-        return super.textValue();
-    }
-
-    /**
-     * Checks if the rook can move to the specified cell.
+     * Checks if the rook can move from a cell to another.
      *
+     * @param from the starting cell
      * @param to the cell to move to
      * @return true if the rook can move to the specified cell, false otherwise
      */
     @Override
-    public boolean canMove(GCell to) {
-        if (super.canMove(to)) {
-            return to.getRow() == cell.getRow() || to.getCol() == cell.getCol();
+    public boolean canMove(GCell from, GCell to) {
+        if (super.canMove(from, to)) {
+            return to.getRow() == from.getRow() || to.getCol() == from.getCol();
         }
         return false;
     }
@@ -62,28 +43,27 @@ public class Rook extends Piece {
     /**
      * Returns the path of cells the rook will move through to reach the specified cell.
      *
+     * @param from the starting cell
      * @param to the destination cell
      * @return a list of cells representing the path to the destination cell
      */
     @Override
-    public List<GCell> path(GCell to) {
+    public List<GCell> path(GCell from, GCell to) {
         List<GCell> path = new LinkedList<>();
 
-        int distanceRow = cell.distanceRow(to);
-        int distanceCol = cell.distanceCol(to);
+        int distanceRow = from.distanceRow(to);
+        int distanceCol = from.distanceCol(to);
 
         if (distanceCol == 0) {
             for (int i = 1; i < distanceRow; i++) {
-                path.add(new GCell(cell.getRow(), cell.getCol() + i * cell.directionCol(to)));
+                path.add(new GCell(from.getRow(), from.getCol() + i * from.directionCol(to)));
             }
         } else if (distanceRow == 0) {
             for (int i = 1; i < distanceCol; i++) {
-                path.add(new GCell(cell.getRow() + i * cell.directionRow(to), cell.getCol()));
+                path.add(new GCell(from.getRow() + i * from.directionRow(to), from.getCol()));
             }
         }
 
-        if (!path.isEmpty())
-            hasMoved = true;
         return path;
     }
 }
\ No newline at end of file
@@ -0,0 +1,360 @@
+package ch.heigvd.poo.engine.search;
+
+import ch.heigvd.poo.chess.ChessController;
+import ch.heigvd.poo.chess.ChessView;
+import ch.heigvd.poo.chess.PieceType;
+import ch.heigvd.poo.chess.PlayerColor;
+import ch.heigvd.poo.engine.CEngine;
+import ch.heigvd.poo.engine.board.Position;
+import ch.heigvd.poo.engine.metrics.LatencyHistogram;
+import ch.heigvd.poo.engine.metrics.MetricsRegistry;
+import ch.heigvd.poo.engine.moves.Move;
+import ch.heigvd.poo.engine.moves.MoveGenerator;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The AiOpponent class lets a user play against the engine: it is the controller given to the view,
+ * passing the moves of the user to a {@link CEngine} and answering each of them before returning.
+ * <p>
+ * While the user thinks, the opponent ponders: a background thread guesses the move of the user
+ * and searches the answer to it. If the user plays the expected move, that answer is played at once,
+ * otherwise the background search is interrupted and the answer is searched as usual.
+ * The pondering of a game never visits more than a given number of nodes, so it costs a bounded amount of CPU.
+ * <p>
+ * Taking moves back or playing them again always gives the move back to the user, the answers of the engine
+ * being taken back and played again with the moves of the user.
+ * An opponent no longer used is {@linkplain #close() closed}, which stops the thread of the pondering.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public class AiOpponent implements ChessController, AutoCloseable {
+    private static final MetricsRegistry METRICS = MetricsRegistry.global();
+    private static final LongAdder PONDER_HITS = METRICS.counter("ponder.hits");
+    private static final LongAdder PONDER_MISSES = METRICS.counter("ponder.misses");
+    private static final LatencyHistogram REPLY_LATENCY = METRICS.histogram("ai.reply");
+
+    private final CEngine engine;
+    private final PlayerColor color;
+    private final AiPlayer player;
+    private final int depth;
+    private final long nodes;
+    private final long ponderBudget;
+
+    private final Searcher ponderSearcher;
+    private final ExecutorService ponderThread = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "ponder");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong ponderNodesLeft = new AtomicLong();
+    private Ponder ponder;
+
+    /**
+     * The Ponder record holds a background search.
+     *
+     * @param expected the move of the user, known once the background search has guessed it
+     * @param result the answer to the expected move
+     */
+    private record Ponder(AtomicLong expected, Future<Searcher.Result> result) {
+    }
+
+    /**
+     * Constructs an AiOpponent.
+     *
+     * @param engine the game
+     * @param color the color played by the engine
+     * @param evaluator the evaluator of the searches
+     * @param depth the depth of the searches
+     * @param nodes the node budget of each answer
+     * @param ponderBudget the number of nodes the pondering can visit during a game, 0 to never ponder
+     * @throws NullPointerException if the engine, the color or the evaluator is null
+     * @throws IllegalArgumentException if the depth is not between 1 and Searcher.MAX_PLY
+     */
+    public AiOpponent(CEngine engine, PlayerColor color, Evaluator evaluator, int depth, long nodes, long ponderBudget) {
+        if (engine == null) throw new NullPointerException("The engine is null");
+        if (color == null) throw new NullPointerException("The color is null");
+        this.engine = engine;
+        this.color = color;
+        this.player = new AiPlayer("Engine", evaluator, depth, nodes);
+        this.ponderSearcher = new Searcher(evaluator);
+        this.depth = depth;
+        this.nodes = nodes;
+        this.ponderBudget = ponderBudget;
+        ponderNodesLeft.set(ponderBudget);
+    }
+
+    /**
+     * Starts the game with the specified view.
+     *
+     * @param view the view to start the game with
+     */
+    @Override
+    public void start(ChessView view) {
+        engine.start(view);
+    }
+
+    /**
+     * Starts a new game, the engine playing its first move if it has white.
+     */
+    @Override
+    public synchronized void newGame() {
+        stopPondering();
+        ponderNodesLeft.set(ponderBudget);
+        engine.newGame();
+        if (engine.position().sideToMove() == color) answer(Move.NONE);
+    }
+
+    /**
+     * Plays a move of the user and the answer of the engine.
+     *
+     * @param fromX the starting row
+     * @param fromY the starting column
+     * @param toX the destination row
+     * @param toY the destination column
+     * @return true if the move of the user is successful, false otherwise
+     */
+    @Override
+    public boolean move(int fromX, int fromY, int toX, int toY) {
+        return move(fromX, fromY, toX, toY, null);
+    }
+
+    /**
+     * Plays a move of the user and the answer of the engine.
+     *
+     * @param fromX the starting row
+     * @param fromY the starting column
+     * @param toX the destination row
+     * @param toY the destination column
+     * @param promotion the type of piece the pawn is promoted to, null to ask the view if needed
+     * @return true if the move of the user is successful, false otherwise
+     */
+    @Override
+    public synchronized boolean move(int fromX, int fromY, int toX, int toY, PieceType promotion) {
+        Position before = engine.position();
+        if (before.sideToMove() == color) return false;
+        if (!engine.move(fromX, fromY, toX, toY, promotion)) return false;
+
+        // The promotion is read on the board, the view may have chosen it
+        int to = Position.square(toX, toY);
+        PieceType promoted = null;
+        if (Position.type(before.pieceAt(Position.square(fromX, fromY))) == PieceType.PAWN
+                && (toY == 0 || toY == Position.SIZE - 1))
+            promoted = Position.type(engine.position().pieceAt(to));
+        answer(Move.of(Position.square(fromX, fromY), to, promoted));
+        return true;
+    }
+
+    /**
+     * Takes back the last move of the user, and the answer of the engine if it has been played.
+     *
+     * @return true if a move was taken back, false if the user has not played yet
+     */
+    @Override
+    public synchronized boolean undo() {
+        return browse(engine.ply() - 1, -1);
+    }
+
+    /**
+     * Plays again the last move of the user taken back, and the answer of the engine.
+     *
+     * @return true if a move was played again, false if no move was taken back
+     */
+    @Override
+    public synchronized boolean redo() {
+        return browse(engine.ply() + 1, 1);
+    }
+
+    /**
+     * Goes to a ply of the history, the one before if the engine would have to move.
+     *
+     * @param ply the number of moves played from the start of the game
+     * @return true if the position has changed
+     */
+    @Override
+    public synchronized boolean seek(int ply) {
+        return browse(ply, -1);
+    }
+
+    /**
+     * Stops the pondering and its thread. The game itself is left open, it is closed by its owner.
+     */
+    @Override
+    public synchronized void close() {
+        stopPondering();
+        ponderThread.shutdownNow();
+    }
+
+    /**
+     * Checks if a move of the user promotes a pawn.
+     */
+    @Override
+    public boolean isPromotion(int fromX, int fromY, int toX, int toY) {
+        return engine.isPromotion(fromX, fromY, toX, toY);
+    }
+
+    /**
+     * Returns the destinations of the legal moves of a piece.
+     */
+    @Override
+    public long legalMoves(int x, int y) {
+        return engine.legalMoves(x, y);
+    }
+
+    /**
+     * Returns the move the engine expects from the user.
+     *
+     * @return the expected move, or Move.NONE if the engine does not ponder or has not guessed it yet
+     */
+    public synchronized int expectedMove() {
+        return ponder == null ? Move.NONE : (int) ponder.expected().get();
+    }
+
+    /**
+     * Returns the number of nodes the pondering can still visit during this game.
+     *
+     * @return the number of nodes left
+     */
+    public long ponderNodesLeft() {
+        return Math.max(0, ponderNodesLeft.get());
+    }
+
+    /**
+     * Moves the game in its history to a ply where the user is to move, then ponders from there.
+     *
+     * @param ply the ply to go to, brought back to the history if out of it
+     * @param step the ply tried next if the engine is to move at the first one, -1 or 1
+     * @return true if the position has changed
+     */
+    private boolean browse(int ply, int step) {
+        // The pondering was searching from the position being left
+        stopPondering();
+        int start = engine.ply();
+        ply = Math.max(0, Math.min(ply, engine.plies()));
+        engine.seek(ply);
+        if (engine.position().sideToMove() == color) {
+            int next = ply + step;
+            engine.seek(next >= 0 && next <= engine.plies() ? next : ply - step);
+        }
+        if (engine.position().sideToMove() != color) startPondering(engine.position());
+        return engine.ply() != start;
+    }
+
+    /**
+     * Plays the answer of the engine, then starts pondering on the next move of the user.
+     *
+     * @param played the move the user has just played, Move.NONE at the start of the game
+     */
+    private void answer(int played) {
+        long start = System.nanoTime();
+        Position position = engine.position();
+        if (MoveGenerator.legalMoves(position, new int[MoveGenerator.MAX_MOVES]) == 0) {
+            stopPondering();
+            return;
+        }
+
+        int move = pondered(played);
+        if (move == Move.NONE || !play(move))
+            player.play(engine, position);
+        REPLY_LATENCY.recordSince(start);
+
+        startPondering(engine.position());
+    }
+
+    /**
+     * Returns the answer found by the pondering, if the user played the expected move.
+     *
+     * @param played the move of the user
+     * @return the answer, or Move.NONE if the user played another move or the answer is not reliable
+     */
+    private int pondered(int played) {
+        Ponder current = ponder;
+        ponder = null;
+        if (current == null) return Move.NONE;
+
+        if (current.expected().get() != played) {
+            // The background search is useless, the interruption stops it at its next check
+            current.result().cancel(true);
+            PONDER_MISSES.increment();
+            return Move.NONE;
+        }
+
+        try {
+            Searcher.Result result = current.result().get();
+            if (result == null) return Move.NONE;
+            PONDER_HITS.increment();
+            return result.move();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Move.NONE;
+        } catch (ExecutionException | CancellationException e) {
+            return Move.NONE;
+        }
+    }
+
+    /**
+     * Starts searching the answer to the move the user is expected to play.
+     *
+     * @param position the position the user has to play from
+     */
+    private void startPondering(Position position) {
+        if (ponderThread.isShutdown() || ponderNodesLeft.get() <= 0 || MoveGenerator.legalMoves(position, new int[MoveGenerator.MAX_MOVES]) == 0)
+            return;
+
+        AtomicLong expected = new AtomicLong(Move.NONE);
+        Future<Searcher.Result> result = ponderThread.submit(() -> {
+            // A shallow search guesses the move of the user
+            Searcher.Result guess = ponderSearcher.search(position, Math.max(1, depth - 2), ponderLimit());
+            ponderNodesLeft.addAndGet(-guess.nodes());
+            if (guess.move() == Move.NONE || Thread.currentThread().isInterrupted()) return null;
+            expected.set(guess.move());
+
+            Position next = position.play(guess.move());
+            if (MoveGenerator.legalMoves(next, new int[MoveGenerator.MAX_MOVES]) == 0) return null;
+            long limit = ponderLimit();
+            Searcher.Result answer = ponderSearcher.search(next, depth, limit);
+            ponderNodesLeft.addAndGet(-answer.nodes());
+
+            // An answer cut short by the budget is not the one a normal search would give
+            boolean complete = answer.depth() == depth || answer.isMate() || limit == nodes;
+            return complete && answer.move() != Move.NONE ? answer : null;
+        });
+        ponder = new Ponder(expected, result);
+    }
+
+    /**
+     * Returns the node budget of a background search.
+     *
+     * @return the smallest of the budget of an answer and the nodes left to the pondering
+     */
+    private long ponderLimit() {
+        return Math.max(1, Math.min(nodes, ponderNodesLeft.get()));
+    }
+
+    /**
+     * Stops the pondering, if any.
+     */
+    private void stopPondering() {
+        if (ponder != null) ponder.result().cancel(true);
+        ponder = null;
+    }
+
+    /**
+     * Plays a move of the engine.
+     *
+     * @param move the move
+     * @return true if the board accepted the move
+     */
+    private boolean play(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        return engine.move(Position.row(from), Position.col(from), Position.row(to), Position.col(to), Move.promotion(move));
+    }
+}
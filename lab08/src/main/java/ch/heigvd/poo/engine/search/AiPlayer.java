@@ -0,0 +1,93 @@
+package ch.heigvd.poo.engine.search;
+
+import ch.heigvd.poo.chess.ChessController;
+import ch.heigvd.poo.engine.board.Position;
+import ch.heigvd.poo.engine.moves.Move;
+import ch.heigvd.poo.engine.moves.MoveGenerator;
+
+/**
+ * The AiPlayer class plays the moves chosen by a {@link Searcher} through a {@link ChessController},
+ * like a user would. The controller has the last word: a move it refuses is left out and the search
+ * is run again on the other moves.
+ * A player keeps its searcher, so it is meant to be used by a single thread.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public class AiPlayer {
+    private final String name;
+    private final Searcher searcher;
+    private final int depth;
+    private final long nodes;
+    private final int[] candidates = new int[MoveGenerator.MAX_MOVES];
+
+    /**
+     * Constructs an AiPlayer.
+     *
+     * @param name the name of the player, e.g. for the PGN of its games
+     * @param evaluator the evaluator of its searches
+     * @param depth the depth of its searches
+     * @param nodes the node budget of its searches
+     * @throws NullPointerException if the name or the evaluator is null
+     * @throws IllegalArgumentException if the depth is not between 1 and Searcher.MAX_PLY
+     */
+    public AiPlayer(String name, Evaluator evaluator, int depth, long nodes) {
+        if (name == null) throw new NullPointerException("The name is null");
+        if (depth < 1 || depth > Searcher.MAX_PLY)
+            throw new IllegalArgumentException("The depth must be between 1 and " + Searcher.MAX_PLY);
+        this.name = name;
+        this.searcher = new Searcher(evaluator);
+        this.depth = depth;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Returns the name of the player.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Chooses and plays a move.
+     *
+     * @param controller the game
+     * @param position the position of the game, with this player to move
+     * @return the move played, or Move.NONE if the position has no move, the controller refused them all
+     * or the thread has been interrupted before a move was found
+     */
+    public int play(ChessController controller, Position position) {
+        int count = MoveGenerator.legalMoves(position, candidates);
+        while (count > 0) {
+            int move = searcher.search(position, candidates, count, depth, nodes).move();
+            // Interrupted during the first iteration, no move has been searched
+            if (move == Move.NONE) return Move.NONE;
+            int from = Move.from(move);
+            int to = Move.to(move);
+            if (controller.move(Position.row(from), Position.col(from), Position.row(to), Position.col(to),
+                    Move.promotion(move)))
+                return move;
+
+            // Refused by the rules of the board, the move is left out of the next search
+            for (int i = 0; i < count; i++) {
+                if (candidates[i] == move) {
+                    candidates[i] = candidates[--count];
+                    break;
+                }
+            }
+        }
+        return Move.NONE;
+    }
+
+    /**
+     * Returns the name of the player.
+     *
+     * @return the name
+     */
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,123 @@
+package ch.heigvd.poo.engine.search;
+
+import ch.heigvd.poo.engine.board.Position;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The AnalysisCache class shares the results of searches between threads, so a position reached by many games,
+ * such as a common opening, is searched only once. A thread asking for a position already being searched
+ * by another thread waits for that search instead of starting its own.
+ * Every search of a cache uses the same depth and node budget, so cached results are interchangeable.
+ * A search cut short by the interruption of its thread is not kept, the threads waiting for it search again.
+ * The least recently used results are dropped once the capacity is reached.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public class AnalysisCache {
+    private final int depth;
+    private final long nodes;
+    private final Map<Position, CompletableFuture<Searcher.Result>> results;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructs an AnalysisCache.
+     *
+     * @param capacity the number of results kept
+     * @param depth the depth of the searches
+     * @param nodes the node budget of the searches
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public AnalysisCache(int capacity, int depth, long nodes) {
+        if (capacity <= 0) throw new IllegalArgumentException("The capacity must be positive");
+        this.depth = depth;
+        this.nodes = nodes;
+        this.results = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Position, CompletableFuture<Searcher.Result>> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+
+    /**
+     * Returns the result of the search of a position, searching it with the given searcher if it is not known yet.
+     *
+     * @param position the position
+     * @param searcher the searcher of the calling thread
+     * @return the result of the search, only partial if the calling thread is interrupted
+     */
+    public Searcher.Result analyse(Position position, Searcher searcher) {
+        while (true) {
+            CompletableFuture<Searcher.Result> created = new CompletableFuture<>();
+            CompletableFuture<Searcher.Result> known = results.putIfAbsent(position, created);
+            if (known != null) {
+                // A null result is a search that has been interrupted, it is searched again
+                Searcher.Result result = known.join();
+                if (result == null) continue;
+                hits.increment();
+                return result;
+            }
+
+            misses.increment();
+            Searcher.Result result;
+            try {
+                result = searcher.search(position, depth, nodes);
+            } catch (RuntimeException e) {
+                // The threads already waiting get the error, the next ones search again
+                results.remove(position, created);
+                created.completeExceptionally(e);
+                throw e;
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                results.remove(position, created);
+                created.complete(null);
+                return result;
+            }
+            created.complete(result);
+            return result;
+        }
+    }
+
+    /**
+     * Returns the depth of the searches.
+     *
+     * @return the depth, in plies
+     */
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * Returns the node budget of the searches.
+     *
+     * @return the number of nodes after which a search stops
+     */
+    public long nodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the number of results found in the cache, searched or being searched by another thread.
+     *
+     * @return the number of hits
+     */
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of searches done by the cache.
+     *
+     * @return the number of misses
+     */
+    public long misses() {
+        return misses.sum();
+    }
+}
@@ -0,0 +1,192 @@
+package ch.heigvd.poo.engine.search;
+
+import ch.heigvd.poo.chess.PieceType;
+import ch.heigvd.poo.chess.PlayerColor;
+import ch.heigvd.poo.engine.board.Position;
+
+/**
+ * The Evaluator class gives a static score to a position, in centipawns: the material of each side
+ * plus a bonus for each piece depending on its square. Tables are written as seen by white,
+ * the 8th line first, and mirrored for black.
+ * <p>
+ * The score is linear in its weights: the material of each type of piece, then the table of each type,
+ * laid out as in {@link #defaultWeights()}. Other weights, e.g. fitted to the results of games, can be given
+ * to the constructor; {@link #tableWeight} tells which weights a piece counts.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public final class Evaluator {
+    /**
+     * The number of material weights, one per type of piece, at the start of the weights.
+     */
+    public static final int MATERIAL_WEIGHTS = PieceType.values().length;
+
+    /**
+     * The number of weights: the material, then a table of 64 squares per type of piece.
+     */
+    public static final int WEIGHTS = MATERIAL_WEIGHTS * (1 + Position.SIZE * Position.SIZE);
+
+    private static final int[] MATERIAL = {100, 500, 320, 330, 900, 0};
+
+    private static final int[][] TABLES = {
+            // PAWN
+            {0, 0, 0, 0, 0, 0, 0, 0,
+                    50, 50, 50, 50, 50, 50, 50, 50,
+                    10, 10, 20, 30, 30, 20, 10, 10,
+                    5, 5, 10, 25, 25, 10, 5, 5,
+                    0, 0, 0, 20, 20, 0, 0, 0,
+                    5, -5, -10, 0, 0, -10, -5, 5,
+                    5, 10, 10, -20, -20, 10, 10, 5,
+                    0, 0, 0, 0, 0, 0, 0, 0},
+            // ROOK
+            {0, 0, 0, 0, 0, 0, 0, 0,
+                    5, 10, 10, 10, 10, 10, 10, 5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    0, 0, 0, 5, 5, 0, 0, 0},
+            // KNIGHT
+            {-50, -40, -30, -30, -30, -30, -40, -50,
+                    -40, -20, 0, 0, 0, 0, -20, -40,
+                    -30, 0, 10, 15, 15, 10, 0, -30,
+                    -30, 5, 15, 20, 20, 15, 5, -30,
+                    -30, 0, 15, 20, 20, 15, 0, -30,
+                    -30, 5, 10, 15, 15, 10, 5, -30,
+                    -40, -20, 0, 5, 5, 0, -20, -40,
+                    -50, -40, -30, -30, -30, -30, -40, -50},
+            // BISHOP
+            {-20, -10, -10, -10, -10, -10, -10, -20,
+                    -10, 0, 0, 0, 0, 0, 0, -10,
+                    -10, 0, 5, 10, 10, 5, 0, -10,
+                    -10, 5, 5, 10, 10, 5, 5, -10,
+                    -10, 0, 10, 10, 10, 10, 0, -10,
+                    -10, 10, 10, 10, 10, 10, 10, -10,
+                    -10, 5, 0, 0, 0, 0, 5, -10,
+                    -20, -10, -10, -10, -10, -10, -10, -20},
+            // QUEEN
+            {-20, -10, -10, -5, -5, -10, -10, -20,
+                    -10, 0, 0, 0, 0, 0, 0, -10,
+                    -10, 0, 5, 5, 5, 5, 0, -10,
+                    -5, 0, 5, 5, 5, 5, 0, -5,
+                    0, 0, 5, 5, 5, 5, 0, -5,
+                    -10, 5, 5, 5, 5, 5, 0, -10,
+                    -10, 0, 5, 0, 0, 0, 0, -10,
+                    -20, -10, -10, -5, -5, -10, -10, -20},
+            // KING
+            {-30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -20, -30, -30, -40, -40, -30, -30, -20,
+                    -10, -20, -20, -20, -20, -20, -20, -10,
+                    20, 20, 0, 0, 0, 0, 20, 20,
+                    20, 30, 10, 0, 0, 10, 30, 20}
+    };
+
+    /**
+     * The evaluator used by default.
+     */
+    public static final Evaluator DEFAULT = new Evaluator();
+
+    // Score of each piece code on each square, from white's point of view
+    private final int[][] scores = new int[Position.BLACK * 2][Position.SIZE * Position.SIZE];
+    // Material values, then tables, as given
+    private final int[] weights;
+
+    /**
+     * Constructs an Evaluator with the default material values and tables.
+     */
+    private Evaluator() {
+        this(defaultWeights());
+    }
+
+    /**
+     * Constructs an Evaluator with its own weights.
+     *
+     * @param weights the material of each type of piece, then its table, laid out as in {@link #defaultWeights()}
+     * @throws NullPointerException if the weights are null
+     * @throws IllegalArgumentException if there are not {@link #WEIGHTS} weights
+     */
+    public Evaluator(int[] weights) {
+        if (weights == null) throw new NullPointerException("The weights are null");
+        if (weights.length != WEIGHTS) throw new IllegalArgumentException("There must be " + WEIGHTS + " weights");
+
+        this.weights = weights.clone();
+        for (PieceType type : PieceType.values()) {
+            for (PlayerColor color : PlayerColor.values()) {
+                byte code = Position.code(type, color);
+                int sign = color == PlayerColor.WHITE ? 1 : -1;
+                for (int square = 0; square < Position.SIZE * Position.SIZE; square++)
+                    scores[code][square] = sign * (weights[type.ordinal()] + weights[tableWeight(code, square)]);
+            }
+        }
+    }
+
+    /**
+     * Returns the default weights: the material of each type of piece, in the order of {@link PieceType},
+     * then the table of each type, square by square as seen by white, the 8th line first.
+     *
+     * @return a new array of {@link #WEIGHTS} weights
+     */
+    public static int[] defaultWeights() {
+        int[] weights = new int[WEIGHTS];
+        System.arraycopy(MATERIAL, 0, weights, 0, MATERIAL_WEIGHTS);
+        for (int type = 0; type < TABLES.length; type++)
+            System.arraycopy(TABLES[type], 0, weights, MATERIAL_WEIGHTS + type * Position.SIZE * Position.SIZE,
+                    Position.SIZE * Position.SIZE);
+        return weights;
+    }
+
+    /**
+     * Returns the index of the weight of the table counted for a piece on a square.
+     * The material of the piece is the weight at the ordinal of its type; both count for white and against black.
+     *
+     * @param code the code of the piece, not EMPTY
+     * @param square the square of the piece
+     * @return the index of the weight, between MATERIAL_WEIGHTS and WEIGHTS - 1
+     */
+    public static int tableWeight(int code, int square) {
+        int file = Position.row(square);
+        int line = Position.col(square);
+        // Tables are seen by white, so they are mirrored for black
+        if (Position.color(code) == PlayerColor.WHITE) line = Position.SIZE - 1 - line;
+        return MATERIAL_WEIGHTS + Position.type(code).ordinal() * Position.SIZE * Position.SIZE + line * Position.SIZE + file;
+    }
+
+    /**
+     * Returns the weights of the evaluator.
+     *
+     * @return a copy of the weights, laid out as in {@link #defaultWeights()}
+     */
+    public int[] weights() {
+        return weights.clone();
+    }
+
+    /**
+     * Returns the material value of a type of piece.
+     *
+     * @param type the type of piece
+     * @return the value, in centipawns
+     */
+    public int value(PieceType type) {
+        return weights[type.ordinal()];
+    }
+
+    /**
+     * Evaluates a position.
+     *
+     * @param position the position
+     * @return the score, in centipawns, from the point of view of the side to move
+     */
+    public int evaluate(Position position) {
+        int score = 0;
+        for (int square = 0; square < Position.SIZE * Position.SIZE; square++) {
+            byte piece = position.pieceAt(square);
+            if (piece != Position.EMPTY) score += scores[piece][square];
+        }
+        return position.sideToMove() == PlayerColor.WHITE ? score : -score;
+    }
+}
@@ -0,0 +1,348 @@
+package ch.heigvd.poo.engine.search;
+
+import ch.heigvd.poo.chess.PlayerColor;
+import ch.heigvd.poo.engine.board.Position;
+import ch.heigvd.poo.engine.moves.Move;
+import ch.heigvd.poo.engine.moves.MoveGenerator;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * The MateSolver class proves or disproves that the side to move can force a mate in at most a given number of moves.
+ * <p>
+ * It runs a depth-first proof-number search (df-pn) instead of an alpha-beta search: no position is evaluated,
+ * every node counts the positions still to be solved to prove the mate (proof number) or to refute it
+ * (disproof number), and the search always expands the branch that is the cheapest to settle.
+ * A node is a position and the number of moves the attacker has left, and its numbers are kept in
+ * a transposition table, so a position reached by several orders of moves is solved once.
+ * <p>
+ * Only the moves that matter are expanded: the last move of the attacker must give check, and when the defender
+ * is in check the move generator only gives the replies to the check. In checks-only mode, every move of the
+ * attacker must give check, which is much faster but only finds the mates made of checks.
+ * <p>
+ * A solver keeps its move lists and its table, so it is meant to be used by a single thread.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public final class MateSolver {
+    /**
+     * The longest mate a solver looks for, in moves of the attacker.
+     */
+    public static final int MAX_MOVES = 16;
+
+    private static final int INFINITY = 1 << 28;
+    private static final long UNKNOWN_NODE = 1L << 32 | 1;
+    // Keys mixed with the key of a position, so the same position with another number of moves left is another node
+    private static final long[] DEPTH_KEYS = new SplittableRandom(0xD1F).longs(MAX_MOVES + 1).toArray();
+
+    private final boolean checksOnly;
+    private final long[] keys;
+    private final long[] numbers;
+    private final int mask;
+    private final int[][] moves = new int[2 * MAX_MOVES + 1][MoveGenerator.MAX_MOVES];
+    private final Position[][] children = new Position[2 * MAX_MOVES + 1][MoveGenerator.MAX_MOVES];
+    private PlayerColor attacker;
+    private long nodes;
+    private long nodeLimit;
+
+    /**
+     * The Status enum lists the possible outcomes of a solve.
+     */
+    public enum Status {
+        /**
+         * The attacker forces a mate.
+         */
+        MATE,
+        /**
+         * The defender avoids a mate in the number of moves.
+         */
+        NO_MATE,
+        /**
+         * The node budget was spent before the question was settled.
+         */
+        UNKNOWN
+    }
+
+    /**
+     * The Result record holds the outcome of a solve.
+     *
+     * @param status the outcome
+     * @param moves the number of moves of the shortest mate, 0 if there is none
+     * @param line the mating line, starting with the move of the attacker, empty if there is no mate
+     * @param nodes the number of positions expanded
+     */
+    public record Result(Status status, int moves, int[] line, long nodes) {
+
+        /**
+         * Returns the first move of the mate.
+         *
+         * @return the move, or Move.NONE if there is no mate
+         */
+        public int move() {
+            return line.length == 0 ? Move.NONE : line[0];
+        }
+    }
+
+    /**
+     * Constructs a MateSolver.
+     *
+     * @param tableEntries the number of nodes the table keeps, rounded down to a power of two
+     * @param checksOnly true to expand only the checks of the attacker, false to expand every move but the last
+     * @throws IllegalArgumentException if the number of entries is not positive
+     */
+    public MateSolver(int tableEntries, boolean checksOnly) {
+        if (tableEntries < 1) throw new IllegalArgumentException("The table must have at least one entry");
+        int size = Integer.highestOneBit(tableEntries);
+        this.checksOnly = checksOnly;
+        this.keys = new long[size];
+        this.numbers = new long[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Looks for the shortest forced mate of the side to move, in at most a number of moves.
+     *
+     * @param root the position
+     * @param maxMoves the number of moves of the longest mate wanted
+     * @param maxNodes the number of nodes after which the solver gives up
+     * @return the result
+     * @throws IllegalArgumentException if the number of moves is not between 1 and MAX_MOVES
+     */
+    public Result solve(Position root, int maxMoves, long maxNodes) {
+        if (maxMoves < 1 || maxMoves > MAX_MOVES)
+            throw new IllegalArgumentException("The number of moves must be between 1 and " + MAX_MOVES);
+
+        attacker = root.sideToMove();
+        nodes = 0;
+        nodeLimit = maxNodes;
+        for (int n = 1; n <= maxMoves; n++) {
+            mid(root, n, 0, INFINITY, INFINITY);
+            long solved = lookup(root, n);
+            if (proof(solved) == 0) return new Result(Status.MATE, n, line(root, n), nodes);
+            if (disproof(solved) != 0) return new Result(Status.UNKNOWN, 0, new int[0], nodes);
+        }
+        return new Result(Status.NO_MATE, 0, new int[0], nodes);
+    }
+
+    /**
+     * Looks for the shortest forced mate of the side to move starting with one of some moves, in at most a number
+     * of moves. The root is not kept in the table, its numbers only hold for the moves given.
+     *
+     * @param root the position
+     * @param rootMoves the legal moves of the position that may start the mate
+     * @param count the number of moves
+     * @param maxMoves the number of moves of the longest mate wanted
+     * @param maxNodes the number of nodes after which the solver gives up
+     * @return the result
+     * @throws IllegalArgumentException if the number of moves is not between 1 and MAX_MOVES
+     */
+    public Result solve(Position root, int[] rootMoves, int count, int maxMoves, long maxNodes) {
+        if (maxMoves < 1 || maxMoves > MAX_MOVES)
+            throw new IllegalArgumentException("The number of moves must be between 1 and " + MAX_MOVES);
+
+        attacker = root.sideToMove();
+        nodes = 0;
+        nodeLimit = maxNodes;
+        for (int n = 1; n <= maxMoves; n++) {
+            boolean unknown = false;
+            for (int i = 0; i < count; i++) {
+                Position child = root.play(rootMoves[i]);
+                // As in the tree, the last move of the mate, or every move in checks-only mode, gives check
+                if ((n == 1 || checksOnly) && !MoveGenerator.inCheck(child)) continue;
+                mid(child, n - 1, 1, INFINITY, INFINITY);
+                long solved = lookup(child, n - 1);
+                if (proof(solved) == 0) {
+                    int[] line = line(child, n - 1);
+                    int[] mate = new int[line.length + 1];
+                    mate[0] = rootMoves[i];
+                    System.arraycopy(line, 0, mate, 1, line.length);
+                    return new Result(Status.MATE, n, mate, nodes);
+                }
+                unknown |= disproof(solved) != 0;
+            }
+            if (unknown) return new Result(Status.UNKNOWN, 0, new int[0], nodes);
+        }
+        return new Result(Status.NO_MATE, 0, new int[0], nodes);
+    }
+
+    /**
+     * Empties the table of the solver.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(numbers, 0);
+    }
+
+    /**
+     * Expands a node until its proof number reaches a threshold or its disproof number reaches another.
+     *
+     * @param position the position of the node
+     * @param left the number of moves the attacker has left, this move included if the attacker is to move
+     * @param ply the distance to the root
+     * @param proofThreshold the proof number at which the search goes back to the parent
+     * @param disproofThreshold the disproof number at which the search goes back to the parent
+     */
+    private void mid(Position position, int left, int ply, int proofThreshold, int disproofThreshold) {
+        if (++nodes > nodeLimit) return;
+
+        boolean attacking = position.sideToMove() == attacker;
+        int count = expand(position, left, ply, attacking);
+        if (count == 0) {
+            // Out of moves: a mate if the defender is in check, a failure for the attacker otherwise
+            boolean mated = !attacking && MoveGenerator.inCheck(position);
+            store(position, left, mated ? 0 : INFINITY, mated ? INFINITY : 0);
+            return;
+        }
+        if (!attacking && left == 0) {
+            // The defender escapes the mate, the attacker has no move left
+            store(position, left, INFINITY, 0);
+            return;
+        }
+
+        Position[] next = children[ply];
+        int childLeft = attacking ? left - 1 : left;
+        while (nodes <= nodeLimit) {
+            // The numbers of the node, and the best child with the numbers of the second best
+            long proof = attacking ? INFINITY : 0;
+            long disproof = attacking ? 0 : INFINITY;
+            int best = 0;
+            int bestNumber = INFINITY;
+            int secondNumber = INFINITY;
+            for (int i = 0; i < count; i++) {
+                long child = lookup(next[i], childLeft);
+                int number = attacking ? proof(child) : disproof(child);
+                if (attacking) {
+                    proof = Math.min(proof, proof(child));
+                    disproof += disproof(child);
+                } else {
+                    proof += proof(child);
+                    disproof = Math.min(disproof, disproof(child));
+                }
+                if (number < bestNumber) {
+                    secondNumber = bestNumber;
+                    bestNumber = number;
+                    best = i;
+                } else if (number < secondNumber) {
+                    secondNumber = number;
+                }
+            }
+            int p = (int) Math.min(proof, INFINITY);
+            int d = (int) Math.min(disproof, INFINITY);
+            store(position, left, p, d);
+            if (p >= proofThreshold || d >= disproofThreshold) return;
+
+            long child = lookup(next[best], childLeft);
+            if (attacking) {
+                mid(next[best], childLeft, ply + 1, Math.min(proofThreshold, secondNumber + 1),
+                        disproofThreshold - d + disproof(child));
+            } else {
+                mid(next[best], childLeft, ply + 1, proofThreshold - p + proof(child),
+                        Math.min(disproofThreshold, secondNumber + 1));
+            }
+        }
+    }
+
+    /**
+     * Lists the children of a node that have to be expanded.
+     *
+     * @param position the position of the node
+     * @param left the number of moves the attacker has left
+     * @param ply the distance to the root, selecting the lists to fill
+     * @param attacking true if the attacker is to move
+     * @return the number of children
+     */
+    private int expand(Position position, int left, int ply, boolean attacking) {
+        if (attacking && left == 0) return 0;
+
+        int[] list = moves[ply];
+        Position[] next = children[ply];
+        int count = MoveGenerator.legalMoves(position, list);
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            Position child = position.play(list[i]);
+            if (attacking && (left == 1 || checksOnly) && !MoveGenerator.inCheck(child)) continue;
+            list[kept] = list[i];
+            next[kept++] = child;
+        }
+        return kept;
+    }
+
+    /**
+     * Reads the mating line from the table, the defender playing the first of its moves.
+     *
+     * @param root the position
+     * @param left the number of moves of the mate
+     * @return the moves of the line
+     */
+    private int[] line(Position root, int left) {
+        int[] line = new int[2 * left];
+        int size = 0;
+        int[] list = new int[MoveGenerator.MAX_MOVES];
+        Position position = root;
+        while (size < line.length) {
+            boolean attacking = position.sideToMove() == attacker;
+            int childLeft = attacking ? left - 1 : left;
+            int count = MoveGenerator.legalMoves(position, list);
+            int chosen = Move.NONE;
+            for (int i = 0; i < count && chosen == Move.NONE; i++) {
+                if (proof(lookup(position.play(list[i]), childLeft)) == 0) chosen = list[i];
+            }
+            if (chosen == Move.NONE) break;
+
+            line[size++] = chosen;
+            position = position.play(chosen);
+            left = childLeft;
+        }
+        return Arrays.copyOf(line, size);
+    }
+
+    /**
+     * Reads the numbers of a node.
+     *
+     * @param position the position of the node
+     * @param left the number of moves the attacker has left
+     * @return the proof and disproof numbers, packed, 1 and 1 if the node is unknown
+     */
+    private long lookup(Position position, int left) {
+        long key = position.key() ^ DEPTH_KEYS[left];
+        int index = (int) (key ^ key >>> 32) & mask;
+        return keys[index] == key ? numbers[index] : UNKNOWN_NODE;
+    }
+
+    /**
+     * Stores the numbers of a node, replacing whatever was in its slot.
+     *
+     * @param position the position of the node
+     * @param left the number of moves the attacker has left
+     * @param proof the proof number
+     * @param disproof the disproof number
+     */
+    private void store(Position position, int left, int proof, int disproof) {
+        long key = position.key() ^ DEPTH_KEYS[left];
+        int index = (int) (key ^ key >>> 32) & mask;
+        keys[index] = key;
+        numbers[index] = (long) proof << 32 | disproof;
+    }
+
+    /**
+     * Returns the proof number of packed numbers.
+     *
+     * @param numbers the packed numbers
+     * @return the proof number
+     */
+    private static int proof(long numbers) {
+        return (int) (numbers >>> 32);
+    }
+
+    /**
+     * Returns the disproof number of packed numbers.
+     *
+     * @param numbers the packed numbers
+     * @return the disproof number
+     */
+    private static int disproof(long numbers) {
+        return (int) numbers;
+    }
+}
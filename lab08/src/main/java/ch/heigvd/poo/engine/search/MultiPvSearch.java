@@ -0,0 +1,259 @@
+package ch.heigvd.poo.engine.search;
+
+import ch.heigvd.poo.engine.board.Position;
+import ch.heigvd.poo.engine.moves.Move;
+import ch.heigvd.poo.engine.moves.MoveGenerator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * The MultiPvSearch class finds the best few moves of a position with their principal variations,
+ * deepening one move at a time and reporting the lines after each depth.
+ * <p>
+ * The moves of the root are shared out between worker threads, which take the next move to search
+ * as soon as they are done with one. They all use the same {@link TranspositionTable}, so a position
+ * reached under several root moves is searched once, and the principal variations are read back from it.
+ * A move only has to beat the last of the lines found so far: the others are searched with that score
+ * as alpha and quickly proved worse, which is what makes this cheaper than one search per line.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public class MultiPvSearch {
+    private static final int INFINITY = Searcher.MATE + 1;
+
+    private final Evaluator evaluator;
+    private final TranspositionTable table;
+    private final int threads;
+    private final LongAdder nodes = new LongAdder();
+
+    /**
+     * The Line record holds one of the best moves of a position.
+     *
+     * @param move the move
+     * @param score the score of the move, in centipawns from the point of view of the side to move
+     * @param depth the depth of the search
+     * @param pv the principal variation, starting with the move
+     */
+    public record Line(int move, int score, int depth, int[] pv) {
+
+        /**
+         * Checks if the score is a mate, for either side.
+         *
+         * @return true if the score is a mate
+         */
+        public boolean isMate() {
+            return Math.abs(score) > Searcher.MATE - Searcher.MAX_PLY;
+        }
+    }
+
+    /**
+     * Constructs a MultiPvSearch.
+     *
+     * @param evaluator the evaluator of the positions
+     * @param table the table shared by the workers, kept from one analysis to the next
+     * @param threads the number of workers
+     * @throws NullPointerException if the evaluator or the table is null
+     * @throws IllegalArgumentException if the number of workers is not positive
+     */
+    public MultiPvSearch(Evaluator evaluator, TranspositionTable table, int threads) {
+        if (evaluator == null) throw new NullPointerException("The evaluator is null");
+        if (table == null) throw new NullPointerException("The table is null");
+        if (threads < 1) throw new IllegalArgumentException("The number of threads must be positive");
+        this.evaluator = evaluator;
+        this.table = table;
+        this.threads = threads;
+    }
+
+    /**
+     * Searches the best moves of a position.
+     *
+     * @param root the position
+     * @param lines the number of moves wanted
+     * @param maxDepth the depth of the last iteration, in plies
+     * @param onDepth receives the lines after each depth, best first, may be null
+     * @return the lines of the last depth, best first, fewer than asked if the position has fewer legal moves
+     * @throws IllegalArgumentException if the number of lines is not positive, or the depth is not between 1 and Searcher.MAX_PLY
+     * @throws InterruptedException if interrupted, the workers being stopped
+     */
+    public List<Line> analyse(Position root, int lines, int maxDepth, Consumer<List<Line>> onDepth)
+            throws InterruptedException {
+        if (lines < 1) throw new IllegalArgumentException("The number of lines must be positive");
+        if (maxDepth < 1 || maxDepth > Searcher.MAX_PLY)
+            throw new IllegalArgumentException("The depth must be between 1 and " + Searcher.MAX_PLY);
+
+        nodes.reset();
+        int[] rootMoves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.legalMoves(root, rootMoves);
+        if (count == 0) return List.of();
+        rootMoves = Arrays.copyOf(rootMoves, count);
+
+        Searcher[] searchers = new Searcher[threads];
+        for (int i = 0; i < threads; i++) searchers[i] = new Searcher(evaluator, table);
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try {
+            List<Line> best = List.of();
+            for (int depth = 1; depth <= maxDepth; depth++) {
+                Iteration iteration = new Iteration(root, rootMoves, depth, Math.min(lines, count));
+                List<Callable<Void>> tasks = new ArrayList<>();
+                for (Searcher searcher : searchers) tasks.add(() -> iteration.work(searcher));
+                for (Future<Void> task : workers.invokeAll(tasks)) {
+                    try {
+                        task.get();
+                    } catch (ExecutionException e) {
+                        throw new IllegalStateException("A worker failed", e.getCause());
+                    }
+                }
+
+                // The next depth searches the moves in the order of this one
+                rootMoves = iteration.ordered();
+                best = iteration.lines();
+                if (onDepth != null) onDepth.accept(best);
+                if (best.stream().allMatch(Line::isMate)) break;
+            }
+            return best;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the number of positions visited by the last analysis.
+     *
+     * @return the number of nodes
+     */
+    public long nodes() {
+        return nodes.sum();
+    }
+
+    /**
+     * The Iteration class holds the state shared by the workers during one depth.
+     */
+    private class Iteration {
+        private final Position root;
+        private final int[] rootMoves;
+        private final int depth;
+        private final int wanted;
+        private final AtomicInteger next = new AtomicInteger();
+        private final int[] scores;
+        private final boolean[] exact;
+        // Scores of the moves known to be exact, best first, only the first "wanted" ones are kept
+        private final List<Integer> top = new ArrayList<>();
+
+        /**
+         * Constructs an Iteration.
+         *
+         * @param root the position
+         * @param rootMoves the moves of the position, the most promising first
+         * @param depth the depth of the iteration
+         * @param wanted the number of lines wanted
+         */
+        Iteration(Position root, int[] rootMoves, int depth, int wanted) {
+            this.root = root;
+            this.rootMoves = rootMoves;
+            this.depth = depth;
+            this.wanted = wanted;
+            this.scores = new int[rootMoves.length];
+            this.exact = new boolean[rootMoves.length];
+        }
+
+        /**
+         * Searches root moves until there is none left.
+         *
+         * @param searcher the searcher of the worker
+         * @return null
+         */
+        Void work(Searcher searcher) {
+            int i;
+            while ((i = next.getAndIncrement()) < rootMoves.length) {
+                int alpha = threshold();
+                int score = searcher.searchMove(root, rootMoves[i], depth, alpha, INFINITY);
+                nodes.add(searcher.nodes());
+                if (Thread.currentThread().isInterrupted()) return null;
+                record(i, score, score > alpha);
+            }
+            return null;
+        }
+
+        /**
+         * Returns the score a move has to beat to be one of the lines.
+         *
+         * @return the score of the last line, or -INFINITY while there are not enough lines
+         */
+        private synchronized int threshold() {
+            return top.size() < wanted ? -INFINITY : top.get(wanted - 1);
+        }
+
+        /**
+         * Records the score of a move.
+         *
+         * @param index the index of the move
+         * @param score its score, exact or an upper bound
+         * @param isExact true if the score is exact
+         */
+        private synchronized void record(int index, int score, boolean isExact) {
+            scores[index] = score;
+            exact[index] = isExact;
+            if (!isExact) return;
+
+            int position = 0;
+            while (position < top.size() && top.get(position) >= score) position++;
+            top.add(position, score);
+            if (top.size() > wanted) top.remove(wanted);
+        }
+
+        /**
+         * Returns the moves sorted by decreasing score, the exact scores first.
+         *
+         * @return the moves
+         */
+        synchronized int[] ordered() {
+            Integer[] indexes = new Integer[rootMoves.length];
+            for (int i = 0; i < indexes.length; i++) indexes[i] = i;
+            Arrays.sort(indexes, Comparator.<Integer, Boolean>comparing(i -> !exact[i]).thenComparing(i -> -scores[i]));
+
+            int[] sorted = new int[rootMoves.length];
+            for (int i = 0; i < sorted.length; i++) sorted[i] = rootMoves[indexes[i]];
+            return sorted;
+        }
+
+        /**
+         * Returns the best lines of the iteration.
+         *
+         * @return the lines, best first
+         */
+        synchronized List<Line> lines() {
+            List<Line> lines = new ArrayList<>();
+            for (int move : ordered()) {
+                int index = indexOf(move);
+                if (!exact[index] || lines.size() == wanted) break;
+                lines.add(new Line(move, scores[index], depth, table.principalVariation(root, move, depth)));
+            }
+            return List.copyOf(lines);
+        }
+
+        /**
+         * Returns the index of a root move.
+         *
+         * @param move the move
+         * @return its index in the moves of the iteration
+         */
+        private int indexOf(int move) {
+            for (int i = 0; i < rootMoves.length; i++)
+                if (rootMoves[i] == move) return i;
+            throw new IllegalArgumentException("Not a root move: " + Move.toString(move));
+        }
+    }
+}
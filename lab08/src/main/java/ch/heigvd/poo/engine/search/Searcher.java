@@ -0,0 +1,393 @@
+package ch.heigvd.poo.engine.search;
+
+import ch.heigvd.poo.chess.PieceType;
+import ch.heigvd.poo.engine.board.Position;
+import ch.heigvd.poo.engine.moves.Move;
+import ch.heigvd.poo.engine.moves.MoveGenerator;
+
+/**
+ * The Searcher class looks for the best move of a position with an alpha-beta search, deepened one move at a time
+ * until a depth or a number of nodes is reached, followed by a search of the captures.
+ * A searcher keeps its move lists from one search to the next, so it is meant to be reused by a single thread.
+ * A search is abandoned when its thread is interrupted, e.g. by cancelling its future.
+ * Searchers given the same {@link TranspositionTable} share what they have found, even from different threads.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public final class Searcher {
+    /**
+     * Score of a mate on the board, a mate in n plies scores {@code MATE - n}.
+     */
+    public static final int MATE = 30_000;
+    public static final int MAX_PLY = 64;
+
+    private static final int INFINITY = MATE + 1;
+    // Number of nodes between two checks of the interruption of the thread, minus one
+    private static final int INTERRUPT_MASK = 1023;
+
+    private final Evaluator evaluator;
+    private final TranspositionTable table;
+    private final int[][] moves = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+    private final int[][] order = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+    private long nodes;
+    private long nodeLimit;
+    private boolean aborted;
+
+    /**
+     * The Result record holds the outcome of a search.
+     *
+     * @param move the best move, Move.NONE if the position has no legal move
+     * @param score the score of the best move, in centipawns from the point of view of the side to move
+     * @param depth the depth of the last complete iteration
+     * @param nodes the number of positions visited
+     */
+    public record Result(int move, int score, int depth, long nodes) {
+
+        /**
+         * Checks if the score is a mate, for either side.
+         *
+         * @return true if the score is a mate
+         */
+        public boolean isMate() {
+            return Math.abs(score) > MATE - MAX_PLY;
+        }
+    }
+
+    /**
+     * Constructs a Searcher using the default evaluator.
+     */
+    public Searcher() {
+        this(Evaluator.DEFAULT);
+    }
+
+    /**
+     * Constructs a Searcher.
+     *
+     * @param evaluator the evaluator of the positions
+     * @throws NullPointerException if the evaluator is null
+     */
+    public Searcher(Evaluator evaluator) {
+        this(evaluator, null);
+    }
+
+    /**
+     * Constructs a Searcher using a transposition table.
+     *
+     * @param evaluator the evaluator of the positions
+     * @param table the table of the positions already searched, possibly shared with other searchers, or null
+     * @throws NullPointerException if the evaluator is null
+     */
+    public Searcher(Evaluator evaluator, TranspositionTable table) {
+        if (evaluator == null) throw new NullPointerException("The evaluator is null");
+        this.evaluator = evaluator;
+        this.table = table;
+    }
+
+    /**
+     * Searches the best move of a position.
+     * The first iteration is always completed, the next ones are abandoned as soon as the node budget is spent.
+     * If the thread is interrupted, the search stops at once, the interrupted status being kept.
+     *
+     * @param root the position to search
+     * @param maxDepth the depth of the last iteration, in plies
+     * @param maxNodes the number of nodes after which the search stops
+     * @return the result of the last complete iteration, with Move.NONE if interrupted during the first one
+     * @throws IllegalArgumentException if the depth is not between 1 and MAX_PLY
+     */
+    public Result search(Position root, int maxDepth, long maxNodes) {
+        if (maxDepth < 1 || maxDepth > MAX_PLY)
+            throw new IllegalArgumentException("The depth must be between 1 and " + MAX_PLY);
+
+        int count = MoveGenerator.legalMoves(root, moves[0]);
+        if (count == 0)
+            return new Result(Move.NONE, MoveGenerator.inCheck(root) ? -MATE : 0, 0, 0);
+        return search(root, moves[0], count, maxDepth, maxNodes);
+    }
+
+    /**
+     * Searches the best of some moves of a position, the other legal moves being ignored at the root.
+     * The first iteration is always completed, the next ones are abandoned as soon as the node budget is spent.
+     *
+     * @param root the position to search
+     * @param candidates the moves to choose from, legal in the position
+     * @param count the number of moves, at the start of the array
+     * @param maxDepth the depth of the last iteration, in plies
+     * @param maxNodes the number of nodes after which the search stops
+     * @return the result of the last complete iteration, with Move.NONE if interrupted during the first one
+     * @throws IllegalArgumentException if the depth is not between 1 and MAX_PLY, or if there is no move
+     */
+    public Result search(Position root, int[] candidates, int count, int maxDepth, long maxNodes) {
+        if (maxDepth < 1 || maxDepth > MAX_PLY)
+            throw new IllegalArgumentException("The depth must be between 1 and " + MAX_PLY);
+        if (count < 1) throw new IllegalArgumentException("There is no move to search");
+
+        nodes = 0;
+        aborted = false;
+        nodeLimit = Long.MAX_VALUE;
+
+        int[] rootMoves = moves[0];
+        if (candidates != rootMoves) System.arraycopy(candidates, 0, rootMoves, 0, count);
+        sort(root, rootMoves, order[0], count, false);
+
+        Result best = null;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            Result result = searchRoot(root, rootMoves, count, depth);
+            if (aborted) break;
+
+            best = result;
+            if (table != null) table.store(root, best.move(), best.score(), depth, TranspositionTable.EXACT);
+            nodeLimit = maxNodes;
+            if (best.isMate()) break;
+        }
+        if (best == null) return new Result(Move.NONE, 0, 0, nodes);
+        return new Result(best.move(), best.score(), best.depth(), nodes);
+    }
+
+    /**
+     * Searches a single move of a position with a window, so the moves of a root can be shared out
+     * between threads. The search stops when the thread is interrupted, its score being meaningless then.
+     *
+     * @param root the position
+     * @param move the move, legal in the position
+     * @param depth the depth of the search, in plies, the move included
+     * @param alpha the score the side to move is already sure to get
+     * @param beta the score above which the opponent avoids this move
+     * @return the score of the move, from the point of view of the side to move of the root
+     * @throws IllegalArgumentException if the depth is not between 1 and MAX_PLY
+     */
+    public int searchMove(Position root, int move, int depth, int alpha, int beta) {
+        if (depth < 1 || depth > MAX_PLY)
+            throw new IllegalArgumentException("The depth must be between 1 and " + MAX_PLY);
+
+        nodes = 0;
+        aborted = false;
+        nodeLimit = Long.MAX_VALUE;
+        return -search(root.play(move), depth - 1, 1, -beta, -alpha);
+    }
+
+    /**
+     * Returns the number of positions visited by the last search.
+     *
+     * @return the number of nodes
+     */
+    public long nodes() {
+        return nodes;
+    }
+
+    /**
+     * Searches every move of the root, the best move of the previous iteration first.
+     *
+     * @param root the position to search
+     * @param rootMoves the legal moves of the root, best first, reordered by this iteration
+     * @param count the number of moves
+     * @param depth the depth of the iteration
+     * @return the best move of the iteration
+     */
+    private Result searchRoot(Position root, int[] rootMoves, int count, int depth) {
+        int alpha = -INFINITY;
+        int bestIndex = 0;
+        for (int i = 0; i < count; i++) {
+            int score = -search(root.play(rootMoves[i]), depth - 1, 1, -INFINITY, -alpha);
+            if (aborted) break;
+            if (score > alpha) {
+                alpha = score;
+                bestIndex = i;
+            }
+        }
+
+        // The best move is searched first by the next iteration
+        int best = rootMoves[bestIndex];
+        System.arraycopy(rootMoves, 0, rootMoves, 1, bestIndex);
+        rootMoves[0] = best;
+        return new Result(best, alpha, depth, nodes);
+    }
+
+    /**
+     * Searches a position to a depth.
+     *
+     * @param position the position
+     * @param depth the remaining depth
+     * @param ply the distance to the root
+     * @param alpha the score the side to move is already sure to get
+     * @param beta the score above which the opponent avoids this position
+     * @return the score of the position, from the point of view of the side to move
+     */
+    private int search(Position position, int depth, int ply, int alpha, int beta) {
+        if (depth <= 0 || ply >= MAX_PLY) return quiesce(position, ply, alpha, beta);
+        if (countNode()) return 0;
+
+        int hashMove = Move.NONE;
+        if (table != null) {
+            TranspositionTable.Entry entry = table.probe(position);
+            if (entry != null) {
+                hashMove = entry.move();
+                int score = fromTable(entry.score(), ply);
+                if (entry.depth() >= depth && (entry.bound() == TranspositionTable.EXACT
+                        || entry.bound() == TranspositionTable.LOWER && score >= beta
+                        || entry.bound() == TranspositionTable.UPPER && score <= alpha))
+                    return score;
+            }
+        }
+
+        int[] list = moves[ply];
+        int count = MoveGenerator.legalMoves(position, list);
+        if (count == 0) return MoveGenerator.inCheck(position) ? -MATE + ply : 0;
+
+        sort(position, list, order[ply], count, false);
+        if (hashMove != Move.NONE) toFront(list, count, hashMove);
+
+        int originalAlpha = alpha;
+        int bestMove = Move.NONE;
+        for (int i = 0; i < count; i++) {
+            int score = -search(position.play(list[i]), depth - 1, ply + 1, -beta, -alpha);
+            if (aborted) return 0;
+            if (score >= beta) {
+                if (table != null) table.store(position, list[i], toTable(score, ply), depth, TranspositionTable.LOWER);
+                return score;
+            }
+            if (score > alpha) {
+                alpha = score;
+                bestMove = list[i];
+            }
+        }
+        if (table != null) {
+            table.store(position, bestMove, toTable(alpha, ply), depth,
+                    alpha > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER);
+        }
+        return alpha;
+    }
+
+    /**
+     * Moves a move to the front of a list, keeping the order of the others.
+     *
+     * @param list the moves
+     * @param count the number of moves
+     * @param move the move to search first, ignored if it is not in the list
+     */
+    private static void toFront(int[] list, int count, int move) {
+        for (int i = 0; i < count; i++) {
+            if (list[i] == move) {
+                System.arraycopy(list, 0, list, 1, i);
+                list[0] = move;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Converts a score to store it: mate scores are counted from the position rather than from the root.
+     *
+     * @param score the score of the search
+     * @param ply the distance to the root
+     * @return the score to store
+     */
+    private static int toTable(int score, int ply) {
+        if (score > MATE - MAX_PLY) return score + ply;
+        if (score < -MATE + MAX_PLY) return score - ply;
+        return score;
+    }
+
+    /**
+     * Converts a stored score back, the mate scores being counted from the root again.
+     *
+     * @param score the stored score
+     * @param ply the distance to the root
+     * @return the score for the search
+     */
+    private static int fromTable(int score, int ply) {
+        if (score > MATE - MAX_PLY) return score - ply;
+        if (score < -MATE + MAX_PLY) return score + ply;
+        return score;
+    }
+
+    /**
+     * Searches the captures and promotions of a position, until it is quiet.
+     *
+     * @param position the position
+     * @param ply the distance to the root
+     * @param alpha the score the side to move is already sure to get
+     * @param beta the score above which the opponent avoids this position
+     * @return the score of the position, from the point of view of the side to move
+     */
+    private int quiesce(Position position, int ply, int alpha, int beta) {
+        if (countNode()) return 0;
+
+        int standPat = evaluator.evaluate(position);
+        if (standPat >= beta || ply >= MAX_PLY) return standPat;
+        if (standPat > alpha) alpha = standPat;
+
+        int[] list = moves[ply];
+        int count = sort(position, list, order[ply], MoveGenerator.legalMoves(position, list), true);
+        for (int i = 0; i < count; i++) {
+            int score = -quiesce(position.play(list[i]), ply + 1, -beta, -alpha);
+            if (aborted) return 0;
+            if (score >= beta) return score;
+            if (score > alpha) alpha = score;
+        }
+        return alpha;
+    }
+
+    /**
+     * Counts a node and checks if the search has to stop.
+     *
+     * @return true if the node budget is spent or the thread is interrupted
+     */
+    private boolean countNode() {
+        if (++nodes > nodeLimit || (nodes & INTERRUPT_MASK) == 0 && Thread.currentThread().isInterrupted())
+            aborted = true;
+        return aborted;
+    }
+
+    /**
+     * Sorts moves by decreasing interest: promotions, then captures of the most valuable piece by the least
+     * valuable one, then the other moves.
+     *
+     * @param position the position of the moves
+     * @param list the moves, sorted in place
+     * @param keys the array receiving the sort keys
+     * @param count the number of moves
+     * @param tacticalOnly true to keep only the captures and promotions
+     * @return the number of moves kept, at the start of the list
+     */
+    private int sort(Position position, int[] list, int[] keys, int count, boolean tacticalOnly) {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int move = list[i];
+            int key = key(position, move);
+            if (tacticalOnly && key == 0) continue;
+
+            // Insertion sort, the lists are short and often almost sorted
+            int j = kept++;
+            while (j > 0 && keys[j - 1] < key) {
+                keys[j] = keys[j - 1];
+                list[j] = list[j - 1];
+                j--;
+            }
+            keys[j] = key;
+            list[j] = move;
+        }
+        return kept;
+    }
+
+    /**
+     * Returns the sort key of a move.
+     *
+     * @param position the position of the move
+     * @param move the move
+     * @return 0 for a quiet move, a positive key for a capture or a promotion
+     */
+    private int key(Position position, int move) {
+        int key = 0;
+        PieceType promotion = Move.promotion(move);
+        if (promotion != null) key += evaluator.value(promotion) * 16;
+
+        byte victim = position.pieceAt(Move.to(move));
+        byte attacker = position.pieceAt(Move.from(move));
+        if (victim != Position.EMPTY)
+            key += evaluator.value(Position.type(victim)) * 16 - evaluator.value(Position.type(attacker)) / 100 + 1;
+        else if (Move.to(move) == position.enPassant() && Position.type(attacker) == PieceType.PAWN)
+            key += evaluator.value(PieceType.PAWN) * 16;
+        return key;
+    }
+}
@@ -0,0 +1,176 @@
+package ch.heigvd.poo.engine.search;
+
+import ch.heigvd.poo.chess.PieceType;
+import ch.heigvd.poo.chess.PlayerColor;
+import ch.heigvd.poo.engine.board.Position;
+import ch.heigvd.poo.engine.moves.Move;
+import ch.heigvd.poo.engine.moves.MoveGenerator;
+
+/**
+ * The See class computes the static exchange evaluation of a move: the material won or lost once every piece
+ * attacking the destination square has captured on it, each side capturing with its least valuable piece
+ * and stopping as soon as capturing would lose material. Pieces behind a slider (x-rays) join the exchange
+ * when the slider has captured. Pins and checks are ignored, so the result is an estimate, but it costs
+ * far less than a search.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public final class See {
+    private static final int KING_VALUE = 10_000;
+    private static final int[][] KNIGHT_STEPS = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+    private static final int[][] KING_STEPS = {{1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1}};
+    private static final int[][] DIAGONALS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    private static final int[][] LINES = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+
+    private See() {
+    }
+
+    /**
+     * Computes the static exchange evaluation of a move.
+     *
+     * @param position the position of the move
+     * @param move the move, legal in the position
+     * @param evaluator gives the value of the pieces
+     * @return the material won by the side to move, in centipawns, negative if the move loses material
+     */
+    public static int evaluate(Position position, int move, Evaluator evaluator) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        byte[] board = new byte[Position.SIZE * Position.SIZE];
+        for (int sq = 0; sq < board.length; sq++) board[sq] = position.pieceAt(sq);
+
+        PieceType mover = Position.type(board[from]);
+        int[] gain = new int[32];
+        if (board[to] != Position.EMPTY) {
+            gain[0] = value(Position.type(board[to]), evaluator);
+        } else if (mover == PieceType.PAWN && to == position.enPassant()) {
+            gain[0] = value(PieceType.PAWN, evaluator);
+            board[Position.square(Position.row(to), Position.col(from))] = Position.EMPTY;
+        }
+
+        // The piece standing on the square, which the next capture wins
+        PieceType onSquare = Move.promotion(move) != null ? Move.promotion(move) : mover;
+        if (Move.promotion(move) != null)
+            gain[0] += value(Move.promotion(move), evaluator) - value(PieceType.PAWN, evaluator);
+        board[to] = board[from];
+        board[from] = Position.EMPTY;
+
+        PlayerColor side = MoveGenerator.opponent(position.sideToMove());
+        int depth = 0;
+        while (depth + 1 < gain.length) {
+            int attacker = leastValuableAttacker(board, to, side);
+            if (attacker == Position.NO_SQUARE) break;
+
+            depth++;
+            gain[depth] = value(onSquare, evaluator) - gain[depth - 1];
+            onSquare = Position.type(board[attacker]);
+            board[to] = board[attacker];
+            board[attacker] = Position.EMPTY;
+            side = MoveGenerator.opponent(side);
+        }
+
+        // Each side may stop capturing, the best choice is propagated back to the first move
+        while (depth > 0) {
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+            depth--;
+        }
+        return gain[0];
+    }
+
+    /**
+     * Finds the least valuable piece of a color attacking a square.
+     *
+     * @param board the piece code of each square
+     * @param square the square
+     * @param by the color of the attacking pieces
+     * @return the square of the attacker, or NO_SQUARE if there is none
+     */
+    private static int leastValuableAttacker(byte[] board, int square, PlayerColor by) {
+        int row = Position.row(square);
+        int col = Position.col(square);
+
+        int pawnCol = col - (by == PlayerColor.WHITE ? 1 : -1);
+        byte pawn = Position.code(PieceType.PAWN, by);
+        for (int dx = -1; dx <= 1; dx += 2)
+            if (inside(row + dx, pawnCol) && board[Position.square(row + dx, pawnCol)] == pawn)
+                return Position.square(row + dx, pawnCol);
+
+        int knight = step(board, square, KNIGHT_STEPS, Position.code(PieceType.KNIGHT, by));
+        if (knight != Position.NO_SQUARE) return knight;
+
+        int bishop = slide(board, square, DIAGONALS, Position.code(PieceType.BISHOP, by));
+        if (bishop != Position.NO_SQUARE) return bishop;
+        int rook = slide(board, square, LINES, Position.code(PieceType.ROOK, by));
+        if (rook != Position.NO_SQUARE) return rook;
+
+        byte queen = Position.code(PieceType.QUEEN, by);
+        int queenSquare = slide(board, square, DIAGONALS, queen);
+        if (queenSquare == Position.NO_SQUARE) queenSquare = slide(board, square, LINES, queen);
+        if (queenSquare != Position.NO_SQUARE) return queenSquare;
+
+        return step(board, square, KING_STEPS, Position.code(PieceType.KING, by));
+    }
+
+    /**
+     * Finds a piece one step away from a square.
+     *
+     * @param board the piece code of each square
+     * @param square the square
+     * @param steps the steps, as row and column offsets
+     * @param piece the piece code looked for
+     * @return the square of the piece, or NO_SQUARE if there is none
+     */
+    private static int step(byte[] board, int square, int[][] steps, byte piece) {
+        for (int[] s : steps) {
+            int row = Position.row(square) + s[0];
+            int col = Position.col(square) + s[1];
+            if (inside(row, col) && board[Position.square(row, col)] == piece) return Position.square(row, col);
+        }
+        return Position.NO_SQUARE;
+    }
+
+    /**
+     * Finds a sliding piece seeing a square along directions.
+     *
+     * @param board the piece code of each square
+     * @param square the square
+     * @param directions the directions, as row and column offsets
+     * @param piece the piece code looked for
+     * @return the square of the piece, or NO_SQUARE if there is none
+     */
+    private static int slide(byte[] board, int square, int[][] directions, byte piece) {
+        for (int[] d : directions) {
+            int row = Position.row(square) + d[0];
+            int col = Position.col(square) + d[1];
+            while (inside(row, col)) {
+                byte found = board[Position.square(row, col)];
+                if (found != Position.EMPTY) {
+                    if (found == piece) return Position.square(row, col);
+                    break;
+                }
+                row += d[0];
+                col += d[1];
+            }
+        }
+        return Position.NO_SQUARE;
+    }
+
+    /**
+     * Returns the value of a piece for the exchanges.
+     *
+     * @param type the type of the piece
+     * @param evaluator gives the value of the pieces
+     * @return the value, in centipawns
+     */
+    private static int value(PieceType type, Evaluator evaluator) {
+        return type == PieceType.KING ? KING_VALUE : evaluator.value(type);
+    }
+
+    /**
+     * Checks if a row and a column are on the board.
+     */
+    private static boolean inside(int row, int col) {
+        return row >= 0 && row < Position.SIZE && col >= 0 && col < Position.SIZE;
+    }
+}
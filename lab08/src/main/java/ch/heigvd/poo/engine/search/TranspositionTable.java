@@ -0,0 +1,143 @@
+package ch.heigvd.poo.engine.search;
+
+import ch.heigvd.poo.engine.board.Position;
+import ch.heigvd.poo.engine.moves.Move;
+import ch.heigvd.poo.engine.moves.MoveGenerator;
+
+import java.util.Arrays;
+
+/**
+ * The TranspositionTable class remembers the results of the positions already searched, so a position reached
+ * again, by another order of moves, another iteration or another thread, is not searched twice.
+ * <p>
+ * A table can be shared by searchers running in parallel without any lock: an entry is stored as two longs,
+ * the key of the position xor its data, and the data. A thread reading an entry half written by another one
+ * sees a key that does not match and ignores it.
+ * A new result replaces the one in its slot, unless the slot holds a deeper result of the same position.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public class TranspositionTable {
+    /**
+     * The score is exact.
+     */
+    public static final int EXACT = 0;
+    /**
+     * The score is at least the stored one: the search was cut by beta.
+     */
+    public static final int LOWER = 1;
+    /**
+     * The score is at most the stored one: no move reached alpha.
+     */
+    public static final int UPPER = 2;
+
+    private final long[] entries;
+    private final int mask;
+
+    /**
+     * The Entry record holds a result read from the table.
+     *
+     * @param move the best move found, Move.NONE if unknown
+     * @param score the score, in centipawns from the point of view of the side to move
+     * @param depth the depth of the search
+     * @param bound EXACT, LOWER or UPPER
+     */
+    public record Entry(int move, int score, int depth, int bound) {
+    }
+
+    /**
+     * Constructs a TranspositionTable.
+     *
+     * @param megabytes the size of the table, rounded down to a power of two of entries
+     * @throws IllegalArgumentException if the size is not between 1 and 1024 MB
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1 || megabytes > 1024) throw new IllegalArgumentException("The size must be between 1 and 1024 MB");
+        int slots = Integer.highestOneBit(megabytes * (1 << 20) / 16);
+        this.entries = new long[slots * 2];
+        this.mask = slots - 1;
+    }
+
+    /**
+     * Reads the result of a position.
+     *
+     * @param position the position
+     * @return the entry, or null if the position is not in the table
+     */
+    public Entry probe(Position position) {
+        long key = position.key();
+        int index = index(key);
+        long data = entries[index + 1];
+        if ((entries[index] ^ data) != key) return null;
+
+        return new Entry((int) (data & 0x7FFF), (short) (data >>> 16), (int) (data >>> 32 & 0xFF), (int) (data >>> 40 & 3));
+    }
+
+    /**
+     * Stores the result of a position, unless its slot holds a deeper result of the same position.
+     *
+     * @param position the position
+     * @param move the best move found, or Move.NONE
+     * @param score the score, between -Searcher.MATE and Searcher.MATE
+     * @param depth the depth of the search
+     * @param bound EXACT, LOWER or UPPER
+     */
+    public void store(Position position, int move, int score, int depth, int bound) {
+        long key = position.key();
+        int index = index(key);
+        long old = entries[index + 1];
+        if ((entries[index] ^ old) == key && (old >>> 32 & 0xFF) > depth) return;
+        if (move == Move.NONE && (entries[index] ^ old) == key) move = (int) (old & 0x7FFF);
+
+        long data = move & 0x7FFF | (score & 0xFFFFL) << 16 | (long) depth << 32 | (long) bound << 40;
+        entries[index] = key ^ data;
+        entries[index + 1] = data;
+    }
+
+    /**
+     * Reads the principal variation of a move, stopping at the first move that is unknown or illegal.
+     *
+     * @param root the position, searched with this table
+     * @param move the first move
+     * @param length the maximal length of the variation
+     * @return the moves of the variation
+     */
+    public int[] principalVariation(Position root, int move, int length) {
+        int[] pv = new int[length];
+        int[] legal = new int[MoveGenerator.MAX_MOVES];
+        pv[0] = move;
+        int size = 1;
+        Position position = root.play(move);
+        while (size < length) {
+            Entry entry = probe(position);
+            if (entry == null || entry.move() == Move.NONE) break;
+
+            int count = MoveGenerator.legalMoves(position, legal);
+            int i = 0;
+            while (i < count && legal[i] != entry.move()) i++;
+            if (i == count) break;
+
+            pv[size++] = entry.move();
+            position = position.play(entry.move());
+        }
+        return Arrays.copyOf(pv, size);
+    }
+
+    /**
+     * Empties the table, e.g. before a new game.
+     */
+    public void clear() {
+        Arrays.fill(entries, 0);
+    }
+
+    /**
+     * Returns the index of the first long of the slot of a key.
+     *
+     * @param key the key
+     * @return the index
+     */
+    private int index(long key) {
+        return ((int) (key ^ key >>> 32) & mask) << 1;
+    }
+}
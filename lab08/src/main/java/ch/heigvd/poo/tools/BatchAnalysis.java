@@ -0,0 +1,229 @@
+package ch.heigvd.poo.tools;
+
+import ch.heigvd.poo.engine.board.Fen;
+import ch.heigvd.poo.engine.board.Position;
+import ch.heigvd.poo.engine.moves.Move;
+import ch.heigvd.poo.engine.search.MateSolver;
+import ch.heigvd.poo.engine.search.Searcher;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The BatchAnalysis class searches every position of a FEN or EPD file and writes, one line per position
+ * and in the order of the file: the id of the position (the EPD "id" operation, or the line number),
+ * the best move in coordinate notation, the score ("cp 35", or "mate 3" for a mate in 3 moves),
+ * the depth reached and the number of nodes. A search stops at {@code --depth} or {@code --nodes}, whichever
+ * comes first; with a node budget alone, the depth is not limited.
+ * <p>
+ * With {@code --mate <moves>}, the positions are given to a {@link MateSolver} instead, e.g. to validate puzzles:
+ * the lines then hold the first move of the shortest mate, "mate" followed by its number of moves
+ * (or "no mate", or "unknown" if the node budget is spent), the number of moves looked for and the number of nodes.
+ * <p>
+ * Positions are spread over a work-stealing pool, each worker thread reusing its own {@link Searcher}.
+ * Results are written as soon as all the previous ones are known, through a bounded reorder buffer
+ * that also keeps the reader from getting too far ahead of the workers.
+ * <p>
+ * Usage: {@code BatchAnalysis <positions file> [--depth <plies>] [--nodes <n>] [--mate <moves>] [--checks-only] [--threads <n>] [--window <n>] [--output <file>]}
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public class BatchAnalysis {
+    private static final int DEFAULT_DEPTH = 5;
+    private static final int WINDOW_PER_THREAD = 64;
+    private static final long DEFAULT_MATE_NODES = 1_000_000;
+    private static final int MATE_TABLE_ENTRIES = 1 << 20;
+    private static final Pattern ID = Pattern.compile("\\bid\\s+\"([^\"]*)\"");
+
+    private static final ThreadLocal<Searcher> SEARCHERS = ThreadLocal.withInitial(Searcher::new);
+    private static final ThreadLocal<MateSolver> SOLVERS = ThreadLocal.withInitial(() -> new MateSolver(MATE_TABLE_ENTRIES, false));
+    private static final ThreadLocal<MateSolver> CHECKS_ONLY_SOLVERS = ThreadLocal.withInitial(() -> new MateSolver(MATE_TABLE_ENTRIES, true));
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: BatchAnalysis <positions file> [--depth <plies>] [--nodes <n>] [--mate <moves>] [--checks-only] [--threads <n>] [--window <n>] [--output <file>]");
+            System.exit(1);
+        }
+
+        Path input = Path.of(args[0]);
+        int depth = 0;
+        long nodes = Long.MAX_VALUE;
+        int mate = 0;
+        boolean checksOnly = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int window = 0;
+        Path output = null;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--depth" -> depth = Integer.parseInt(args[++i]);
+                case "--nodes" -> nodes = Long.parseLong(args[++i]);
+                case "--mate" -> mate = Integer.parseInt(args[++i]);
+                case "--checks-only" -> checksOnly = true;
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--window" -> window = Integer.parseInt(args[++i]);
+                case "--output" -> output = Path.of(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        // Without a depth, a node budget alone bounds the search
+        if (depth <= 0) depth = nodes == Long.MAX_VALUE ? DEFAULT_DEPTH : Searcher.MAX_PLY;
+        if (window <= 0) window = threads * WINDOW_PER_THREAD;
+        if (mate > 0 && nodes == Long.MAX_VALUE) nodes = DEFAULT_MATE_NODES;
+
+        long start = System.nanoTime();
+        LongAdder totalNodes = new LongAdder();
+        Writer out = output == null
+                ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                : Files.newBufferedWriter(output);
+        long positions;
+        try (out) {
+            positions = analyse(input, out, depth, nodes, mate, checksOnly, threads, window, totalNodes);
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("%d positions, %d nodes in %.1f s (%.0f nodes/s)%n",
+                positions, totalNodes.sum(), seconds, totalNodes.sum() / seconds);
+    }
+
+    /**
+     * Analyses every position of a file.
+     *
+     * @param input the file of positions, one FEN or EPD per line
+     * @param out receives one line per position, in the order of the file
+     * @param depth the depth of the search
+     * @param nodes the node budget of each search
+     * @param mate the number of moves of the mates to look for, 0 to search the best move instead
+     * @param checksOnly true if the mates are made of checks only
+     * @param threads the number of workers
+     * @param window the number of results that can wait to be written
+     * @param totalNodes receives the number of nodes searched
+     * @return the number of positions
+     * @throws IOException if the file cannot be read or the results cannot be written
+     * @throws InterruptedException if interrupted while waiting for the workers
+     * @throws CompletionException if a position cannot be analysed
+     */
+    public static long analyse(Path input, Writer out, int depth, long nodes, int mate, boolean checksOnly,
+                               int threads, int window, LongAdder totalNodes) throws IOException, InterruptedException {
+        OrderedOutput<String> results = new OrderedOutput<>(window, line -> {
+            try {
+                out.write(line);
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(input)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+
+                String epd = line;
+                String name = String.valueOf(++count);
+                long sequence = results.reserve();
+                pool.execute(() -> results.compute(sequence, () -> mate > 0
+                        ? solve(epd, name, mate, checksOnly, nodes, totalNodes)
+                        : analyse(epd, name, depth, nodes, totalNodes)));
+            }
+            results.awaitDrained();
+        } catch (CompletionException e) {
+            // A result that could not be written is reported as the IOException of the writer
+            if (e.getCause() instanceof UncheckedIOException io) throw io.getCause();
+            throw e;
+        } finally {
+            pool.shutdownNow();
+        }
+        return count;
+    }
+
+    /**
+     * Analyses a position with the searcher of the calling thread.
+     *
+     * @param epd the position, in FEN or EPD
+     * @param name the id of the position if the EPD does not give one
+     * @param depth the depth of the search
+     * @param nodes the node budget of the search
+     * @param totalNodes receives the number of nodes searched
+     * @return the line of the result
+     */
+    private static String analyse(String epd, String name, int depth, long nodes, LongAdder totalNodes) {
+        Matcher id = ID.matcher(epd);
+        if (id.find()) name = id.group(1);
+
+        Position position;
+        try {
+            position = Fen.parse(epd);
+        } catch (IllegalArgumentException e) {
+            return name + "\terror\t" + e.getMessage();
+        }
+
+        Searcher.Result result = SEARCHERS.get().search(position, depth, nodes);
+        totalNodes.add(result.nodes());
+        return name + '\t' + (result.move() == Move.NONE ? "none" : Move.toString(result.move()))
+                + '\t' + score(result) + '\t' + result.depth() + '\t' + result.nodes();
+    }
+
+    /**
+     * Looks for a mate in a position with the solver of the calling thread.
+     *
+     * @param epd the position, in FEN or EPD
+     * @param name the id of the position if the EPD does not give one
+     * @param moves the number of moves of the longest mate looked for
+     * @param checksOnly true if the mates are made of checks only
+     * @param nodes the node budget of the solver
+     * @param totalNodes receives the number of nodes expanded
+     * @return the line of the result
+     */
+    private static String solve(String epd, String name, int moves, boolean checksOnly, long nodes, LongAdder totalNodes) {
+        Matcher id = ID.matcher(epd);
+        if (id.find()) name = id.group(1);
+
+        Position position;
+        try {
+            position = Fen.parse(epd);
+        } catch (IllegalArgumentException e) {
+            return name + "\terror\t" + e.getMessage();
+        }
+
+        MateSolver.Result result = (checksOnly ? CHECKS_ONLY_SOLVERS : SOLVERS).get().solve(position, moves, nodes);
+        totalNodes.add(result.nodes());
+        String outcome = switch (result.status()) {
+            case MATE -> "mate " + result.moves();
+            case NO_MATE -> "no mate";
+            case UNKNOWN -> "unknown";
+        };
+        return name + '\t' + (result.move() == Move.NONE ? "none" : Move.toString(result.move()))
+                + '\t' + outcome + '\t' + moves + '\t' + result.nodes();
+    }
+
+    /**
+     * Writes the score of a result.
+     *
+     * @param result the result
+     * @return "cp" followed by the score in centipawns, or "mate" followed by the number of moves to the mate,
+     * negative if the side to move is mated
+     */
+    private static String score(Searcher.Result result) {
+        if (!result.isMate()) return "cp " + result.score();
+
+        int plies = Searcher.MATE - Math.abs(result.score());
+        int moves = (plies + 1) / 2;
+        return "mate " + (result.score() > 0 ? moves : -moves);
+    }
+}
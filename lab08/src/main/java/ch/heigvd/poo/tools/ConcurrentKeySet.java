@@ -0,0 +1,58 @@
+package ch.heigvd.poo.tools;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The ConcurrentKeySet class is a set of 64-bit keys, such as Zobrist keys of positions, that any number of
+ * threads can fill without locks. It takes 8 bytes per key, where a set of boxed longs takes ten times more,
+ * so it can remember tens of millions of positions.
+ * <p>
+ * Its capacity is fixed. Once a key finds no free slot near its own, it is reported as new without being
+ * stored: a full set forgets instead of growing, which for deduplication only means doing some work twice.
+ * The key 0 is never stored and always reported as new.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+class ConcurrentKeySet {
+    private static final int MAX_PROBES = 16;
+
+    private final AtomicLongArray slots;
+    private final int mask;
+
+    /**
+     * Constructs a ConcurrentKeySet.
+     *
+     * @param capacity the number of keys, rounded up to a power of two
+     * @throws IllegalArgumentException if the capacity is not between 1 and 2^30
+     */
+    ConcurrentKeySet(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) throw new IllegalArgumentException("The capacity must be between 1 and 2^30");
+        int size = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+        this.slots = new AtomicLongArray(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Adds a key.
+     *
+     * @param key the key
+     * @return true if the key was not in the set, false if it was already added
+     */
+    boolean add(long key) {
+        if (key == 0) return true;
+
+        int index = (int) (key ^ key >>> 32) & mask;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            long found = slots.get(index);
+            if (found == key) return false;
+            if (found == 0) {
+                if (slots.compareAndSet(index, 0, key)) return true;
+                // Another thread took the slot, it may have stored the same key
+                if (slots.get(index) == key) return false;
+            }
+            index = index + 1 & mask;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,294 @@
+package ch.heigvd.poo.tools;
+
+import ch.heigvd.poo.chess.PlayerColor;
+import ch.heigvd.poo.engine.board.GBoard;
+import ch.heigvd.poo.engine.board.MoveResult;
+import ch.heigvd.poo.engine.board.Position;
+import ch.heigvd.poo.engine.moves.Move;
+import ch.heigvd.poo.engine.moves.MoveGenerator;
+import ch.heigvd.poo.engine.moves.San;
+import ch.heigvd.poo.engine.search.AnalysisCache;
+import ch.heigvd.poo.engine.search.Searcher;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The GameAnnotator class replays archived games on a {@link GBoard}, searches the position before and after
+ * each move, and writes the games back in PGN with the inaccuracies ("?!"), mistakes ("?") and blunders ("??")
+ * marked and commented with the evaluation and the best move.
+ * A move is judged by how much it lowers the score of its player compared to the best move.
+ * <p>
+ * Games are read from a PGN file, or from a file of one game per line in coordinate notation
+ * ("e2e4 e7e5 ...") if its name does not end with ".pgn". They are annotated in parallel and written
+ * in the order of the file. All the games share an {@link AnalysisCache}, so the positions they have in common,
+ * the openings above all, are searched once.
+ * <p>
+ * Usage: {@code GameAnnotator <games file> [--depth <plies>] [--nodes <n>] [--threads <n>] [--cache <positions>] [--output <file>]}
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public class GameAnnotator {
+    private static final int DEFAULT_DEPTH = 4;
+    private static final int DEFAULT_CACHE_SIZE = 200_000;
+    private static final int GAMES_PER_THREAD = 4;
+
+    // Losses of a move, in centipawns, from which it is marked
+    private static final int INACCURACY = 50;
+    private static final int MISTAKE = 100;
+    private static final int BLUNDER = 300;
+    // Scores are bounded before being compared, so choosing a slower mate is not seen as a blunder
+    private static final int SCORE_BOUND = 1000;
+
+    private static final ThreadLocal<Searcher> SEARCHERS = ThreadLocal.withInitial(Searcher::new);
+
+    /**
+     * The Statistics record counts what was annotated.
+     *
+     * @param games the number of games
+     * @param plies the number of moves replayed
+     * @param marked the number of moves marked as inaccuracy, mistake or blunder
+     */
+    public record Statistics(long games, long plies, long marked) {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: GameAnnotator <games file> [--depth <plies>] [--nodes <n>] [--threads <n>] [--cache <positions>] [--output <file>]");
+            System.exit(1);
+        }
+
+        Path input = Path.of(args[0]);
+        int depth = DEFAULT_DEPTH;
+        long nodes = Long.MAX_VALUE;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int cacheSize = DEFAULT_CACHE_SIZE;
+        Path output = null;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--depth" -> depth = Integer.parseInt(args[++i]);
+                case "--nodes" -> {
+                    nodes = Long.parseLong(args[++i]);
+                    if (depth == DEFAULT_DEPTH) depth = Searcher.MAX_PLY;
+                }
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--cache" -> cacheSize = Integer.parseInt(args[++i]);
+                case "--output" -> output = Path.of(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        long start = System.nanoTime();
+        AnalysisCache cache = new AnalysisCache(cacheSize, depth, nodes);
+        Writer out = output == null
+                ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                : Files.newBufferedWriter(output);
+        Statistics statistics;
+        try (out) {
+            statistics = annotate(input, out, cache, threads);
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("%d games, %d plies, %d moves marked in %.1f s, %d positions searched, %d found in the cache%n",
+                statistics.games(), statistics.plies(), statistics.marked(), seconds, cache.misses(), cache.hits());
+    }
+
+    /**
+     * Annotates every game of a file.
+     *
+     * @param input the file of games
+     * @param out receives the annotated games in PGN, in the order of the file
+     * @param cache the results of the searches, shared by every game
+     * @param threads the number of workers
+     * @return the statistics of the annotation
+     * @throws IOException if the file cannot be read or the games cannot be written
+     * @throws InterruptedException if interrupted while waiting for the workers
+     * @throws CompletionException if a game cannot be annotated
+     */
+    public static Statistics annotate(Path input, Writer out, AnalysisCache cache, int threads)
+            throws IOException, InterruptedException {
+        OrderedOutput<String> results = new OrderedOutput<>(threads * GAMES_PER_THREAD, pgn -> {
+            try {
+                out.write(pgn);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        LongAdder plies = new LongAdder();
+        LongAdder marked = new LongAdder();
+
+        boolean oneGamePerLine = !input.getFileName().toString().toLowerCase().endsWith(".pgn");
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long count = 0;
+        try (PgnReader reader = new PgnReader(Files.newBufferedReader(input), oneGamePerLine)) {
+            PgnReader.Game game;
+            while ((game = reader.next()) != null) {
+                PgnReader.Game next = game;
+                long number = ++count;
+                long sequence = results.reserve();
+                pool.execute(() -> results.compute(sequence, () -> annotate(next, number, cache, plies, marked)));
+            }
+            results.awaitDrained();
+        } catch (CompletionException e) {
+            // A result that could not be written is reported as the IOException of the writer
+            if (e.getCause() instanceof UncheckedIOException io) throw io.getCause();
+            throw e;
+        } finally {
+            pool.shutdownNow();
+        }
+        return new Statistics(count, plies.sum(), marked.sum());
+    }
+
+    /**
+     * Replays and annotates a game with the searcher of the calling thread.
+     * A move that cannot be read or that the board refuses ends the game, with a comment saying why.
+     *
+     * @param game the game
+     * @param number the number of the game in the file, for the error messages
+     * @param cache the results of the searches
+     * @param plies receives the number of moves replayed
+     * @param marked receives the number of moves marked
+     * @return the annotated game in PGN
+     */
+    private static String annotate(PgnReader.Game game, long number, AnalysisCache cache,
+                                   LongAdder plies, LongAdder marked) {
+        Searcher searcher = SEARCHERS.get();
+        List<String> movetext = new ArrayList<>();
+        String result = game.result();
+
+        String fen = game.tags().get("FEN");
+        if (fen != null && !fen.startsWith("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq -")) {
+            movetext.add("{ Games not starting from the initial position are not annotated. }");
+            return PgnWriter.write(game.tags(), movetext, result);
+        }
+
+        try (GBoard board = new GBoard()) {
+            board.initBoard();
+            PlayerColor color = PlayerColor.WHITE;
+            Position position = board.position(color);
+            Searcher.Result before = cache.analyse(position, searcher);
+            boolean numbered = false;
+
+            for (int ply = 0; ply < game.moves().size(); ply++) {
+                String text = game.moves().get(ply);
+                int move;
+                try {
+                    move = PgnReader.parseMove(position, text);
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Game " + number + ": " + e.getMessage() + ", the game is cut there");
+                    movetext.add("{ " + e.getMessage() + ". }");
+                    result = "*";
+                    break;
+                }
+
+                int from = Move.from(move);
+                int to = Move.to(move);
+                MoveResult moved = board.tryMove(Position.row(from), Position.col(from), Position.row(to), Position.col(to),
+                        color, Move.promotion(move));
+                if (!moved.isAccepted()) {
+                    System.err.println("Game " + number + ": " + text + " refused by the board (" + moved + "), the game is cut there");
+                    movetext.add("{ " + text + " refused by the board: " + moved + ". }");
+                    result = "*";
+                    break;
+                }
+
+                if (color == PlayerColor.WHITE) {
+                    movetext.add((ply / 2 + 1) + ".");
+                } else if (!numbered) {
+                    movetext.add((ply / 2 + 1) + "...");
+                }
+                numbered = true;
+
+                String san = San.format(position, move);
+                color = MoveGenerator.opponent(color);
+                Position next = board.position(color);
+                Searcher.Result after = cache.analyse(next, searcher);
+                plies.increment();
+
+                // Scores of the best move and of the played one, both from the point of view of the player
+                int best = bound(before.score());
+                int played = move == before.move() ? best : bound(-after.score());
+                int loss = best - played;
+                String mark = loss >= BLUNDER ? "??" : loss >= MISTAKE ? "?" : loss >= INACCURACY ? "?!" : "";
+                movetext.add(san + mark);
+                if (!mark.isEmpty()) {
+                    marked.increment();
+                    movetext.add("{ " + judgement(mark) + " (" + score(before, position) + " → " + score(after, next)
+                            + "). Best was " + San.format(position, before.move()) + ". }");
+                    numbered = false;
+                }
+
+                position = next;
+                before = after;
+            }
+
+            if (before.move() == Move.NONE) {
+                // The game ended on the board, whatever the file says
+                result = !MoveGenerator.inCheck(position) ? "1/2-1/2" : color == PlayerColor.WHITE ? "0-1" : "1-0";
+            }
+            game.tags().put("Annotator", "GameAnnotator, " + searcherName(cache));
+            return PgnWriter.write(game.tags(), movetext, result);
+        }
+    }
+
+    /**
+     * Bounds a score, so mates compare as a large advantage.
+     *
+     * @param score the score, in centipawns
+     * @return the score between -SCORE_BOUND and SCORE_BOUND
+     */
+    private static int bound(int score) {
+        return Math.max(-SCORE_BOUND, Math.min(SCORE_BOUND, score));
+    }
+
+    /**
+     * Returns the word describing a mark.
+     *
+     * @param mark "?!", "?" or "??"
+     * @return the judgement of the move
+     */
+    private static String judgement(String mark) {
+        return switch (mark) {
+            case "??" -> "Blunder";
+            case "?" -> "Mistake";
+            default -> "Inaccuracy";
+        };
+    }
+
+    /**
+     * Writes the score of a position from white's point of view, in pawns ("+0.35") or as a mate ("#3", "#-2").
+     *
+     * @param result the result of the search of the position
+     * @param position the position
+     * @return the score
+     */
+    private static String score(Searcher.Result result, Position position) {
+        int score = position.sideToMove() == PlayerColor.WHITE ? result.score() : -result.score();
+        if (!result.isMate()) return String.format("%+.2f", score / 100.0);
+
+        int moves = (Searcher.MATE - Math.abs(score) + 1) / 2;
+        return "#" + (score > 0 ? moves : -moves);
+    }
+
+    /**
+     * Describes the searches of a cache.
+     *
+     * @param cache the cache
+     * @return the description, e.g. "depth 4"
+     */
+    private static String searcherName(AnalysisCache cache) {
+        return cache.nodes() == Long.MAX_VALUE ? "depth " + cache.depth() : cache.nodes() + " nodes";
+    }
+}
@@ -0,0 +1,109 @@
+package ch.heigvd.poo.tools;
+
+import ch.heigvd.poo.engine.board.CompactGame;
+import ch.heigvd.poo.engine.board.GBoard;
+import ch.heigvd.poo.engine.board.Position;
+import ch.heigvd.poo.engine.moves.MoveGenerator;
+
+import java.lang.ref.Reference;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * The GameFootprint class measures the heap retained by each hosted game, kept as a {@link CompactGame}
+ * and, for comparison, as a full {@link GBoard}.
+ * <p>
+ * The games are random legal games of the given number of plies. The retained heap is the used heap after
+ * a garbage collection once the games are built, minus the used heap before, so the JVM should be given
+ * room enough for the games ({@code -Xmx2g} for a million), and other programs should not run meanwhile.
+ * The boards are fewer, their size being extrapolated to the number of games.
+ * <p>
+ * Usage: {@code GameFootprint [--games <n>] [--plies <n>] [--boards <n>]}
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public class GameFootprint {
+    private static final int DEFAULT_GAMES = 1_000_000;
+    private static final int DEFAULT_PLIES = 40;
+    private static final int DEFAULT_BOARDS = 10_000;
+    private static final int LINES = 256;
+
+    public static void main(String[] args) {
+        int games = DEFAULT_GAMES;
+        int plies = DEFAULT_PLIES;
+        int boards = DEFAULT_BOARDS;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--games" -> games = Integer.parseInt(args[i + 1]);
+                case "--plies" -> plies = Integer.parseInt(args[i + 1]);
+                case "--boards" -> boards = Integer.parseInt(args[i + 1]);
+                default -> {
+                    System.err.println("Usage: GameFootprint [--games <n>] [--plies <n>] [--boards <n>]");
+                    System.exit(1);
+                }
+            }
+        }
+
+        // The games share a few random lines, each game still owning its own copy of the state
+        SplittableRandom random = new SplittableRandom(0xF00D);
+        Position[] positions = new Position[LINES];
+        int[][] lines = new int[LINES][];
+        for (int line = 0; line < LINES; line++) {
+            Position position = Position.START;
+            int[] moves = new int[plies];
+            int[] legal = new int[MoveGenerator.MAX_MOVES];
+            int played = 0;
+            for (; played < plies; played++) {
+                int count = MoveGenerator.legalMoves(position, legal);
+                if (count == 0) break;
+                moves[played] = legal[random.nextInt(count)];
+                position = position.play(moves[played]);
+            }
+            positions[line] = position;
+            lines[line] = Arrays.copyOf(moves, played);
+        }
+
+        long before = usedHeap();
+        CompactGame[] compact = new CompactGame[games];
+        for (int i = 0; i < games; i++) compact[i] = new CompactGame(positions[i % LINES], lines[i % LINES]);
+        long compactBytes = usedHeap() - before;
+        Reference.reachabilityFence(compact);
+        compact = null;
+
+        before = usedHeap();
+        GBoard[] full = new GBoard[boards];
+        for (int i = 0; i < boards; i++) {
+            full[i] = new GBoard();
+            full[i].load(positions[i % LINES]);
+        }
+        long boardBytes = usedHeap() - before;
+        Reference.reachabilityFence(full);
+        for (GBoard board : full) board.close();
+
+        double perCompact = (double) compactBytes / games;
+        double perBoard = (double) boardBytes / boards;
+        System.out.printf("%d games of %d plies%n", games, plies);
+        System.out.printf("CompactGame: %.1f bytes per game, %.1f MB in all%n", perCompact, compactBytes / 1e6);
+        System.out.printf("GBoard:      %.1f bytes per game, %.1f MB for %d games (measured on %d)%n",
+                perBoard, perBoard * games / 1e6, games, boards);
+    }
+
+    /**
+     * Returns the used heap after collecting the garbage.
+     *
+     * @return the used heap, in bytes
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // A few collections, until the used heap stops shrinking
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            long now = runtime.totalMemory() - runtime.freeMemory();
+            if (now >= used) break;
+            used = now;
+        }
+        return used;
+    }
+}
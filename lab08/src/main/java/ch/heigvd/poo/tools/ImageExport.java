@@ -0,0 +1,151 @@
+package ch.heigvd.poo.tools;
+
+import ch.heigvd.poo.chess.views.image.BoardImageRenderer;
+import ch.heigvd.poo.chess.views.image.ImageView;
+import ch.heigvd.poo.engine.CEngine;
+import ch.heigvd.poo.engine.board.Position;
+import ch.heigvd.poo.engine.moves.Move;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The ImageExport class turns games into PNG images without any window, one image per ply or one contact sheet
+ * per game. Games are read one per line, as moves in coordinate notation separated by spaces ("e2e4 e7e5 ..."),
+ * lines starting with '#' are ignored. Each game is replayed through a {@link CEngine} and drawn by its own worker.
+ * <p>
+ * Usage: {@code ImageExport <games file> <output directory> [--sheet] [--size <pixels>] [--threads <n>]}
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public class ImageExport {
+    private static final int DEFAULT_SQUARE_SIZE = 41;
+    private static final int SHEET_COLUMNS = 8;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: ImageExport <games file> <output directory> [--sheet] [--size <pixels>] [--threads <n>]");
+            System.exit(1);
+        }
+
+        Path games = Path.of(args[0]);
+        Path output = Path.of(args[1]);
+        boolean sheet = false;
+        int size = DEFAULT_SQUARE_SIZE;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "--sheet" -> sheet = true;
+                case "--size" -> size = Integer.parseInt(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        Files.createDirectories(output);
+        int written = export(games, output, sheet, size, threads);
+        System.out.println(written + " images written to " + output);
+    }
+
+    /**
+     * Exports every game of a file.
+     *
+     * @param games the file of games
+     * @param output the directory receiving the images
+     * @param sheet true for one contact sheet per game, false for one image per ply
+     * @param size the size of a square, in pixels
+     * @param threads the number of workers
+     * @return the number of images written
+     * @throws IOException if the file of games cannot be read, or a game cannot be exported once the others are
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public static int export(Path games, Path output, boolean sheet, int size, int threads) throws IOException, InterruptedException {
+        BoardImageRenderer renderer = new BoardImageRenderer(size);
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        // Bounds the games read ahead of the workers, so a large archive is not loaded at once
+        Semaphore inFlight = new Semaphore(threads * 4);
+        AtomicInteger written = new AtomicInteger();
+        // Failures of the workers, thrown once every game has been tried
+        Queue<IOException> failures = new ConcurrentLinkedQueue<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(games)) {
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+
+                String moves = line;
+                String name = String.format("game%05d", ++number);
+                inFlight.acquire();
+                workers.execute(() -> {
+                    try {
+                        written.addAndGet(exportGame(moves, name, output, sheet, size, renderer));
+                    } catch (IOException | RuntimeException e) {
+                        failures.add(new IOException(name + " could not be exported", e));
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        } finally {
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+
+        if (!failures.isEmpty()) {
+            IOException e = new IOException(failures.size() + " games could not be exported, "
+                    + written.get() + " images written", failures.poll());
+            failures.forEach(e::addSuppressed);
+            throw e;
+        }
+        return written.get();
+    }
+
+    /**
+     * Replays a game and writes its images.
+     *
+     * @return the number of images written
+     */
+    private static int exportGame(String moves, String name, Path output, boolean sheet, int size,
+                                  BoardImageRenderer renderer) throws IOException {
+        ImageView view;
+        try (CEngine engine = new CEngine()) {
+            view = new ImageView(engine, size);
+            engine.start(view);
+            engine.newGame();
+
+            for (String text : moves.split("\\s+")) {
+                int move = Move.parse(text);
+                if (!engine.move(Position.row(Move.from(move)), Position.col(Move.from(move)),
+                        Position.row(Move.to(move)), Position.col(Move.to(move)), Move.promotion(move))) {
+                    System.err.println(name + ": illegal move " + text + ", the game is cut there");
+                    break;
+                }
+            }
+        }
+
+        List<BufferedImage[]> frames = view.frames();
+        if (sheet) {
+            renderer.writeContactSheet(frames, SHEET_COLUMNS, output.resolve(name + ".png"));
+            return 1;
+        }
+
+        Path dir = Files.createDirectories(output.resolve(name));
+        for (int ply = 0; ply < frames.size(); ply++)
+            renderer.writePng(frames.get(ply), dir.resolve(String.format("ply%03d.png", ply)));
+        return frames.size();
+    }
+}
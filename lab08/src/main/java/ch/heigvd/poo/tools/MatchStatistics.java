@@ -0,0 +1,202 @@
+package ch.heigvd.poo.tools;
+
+/**
+ * The MatchStatistics class counts the results of a match between two players, from the point of view
+ * of the first one, and estimates the Elo difference between them with a 95% confidence interval.
+ * It can also run a sequential probability ratio test (SPRT) between two hypotheses, elo0 and elo1,
+ * to stop the match as soon as the results are conclusive.
+ * The log-likelihood ratio uses the normal approximation of the score of a game, as most testing frameworks do.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public class MatchStatistics {
+    private static final double Z_95 = 1.959964;
+
+    private long wins;
+    private long draws;
+    private long losses;
+
+    /**
+     * The Decision enum lists the possible states of an SPRT.
+     */
+    public enum Decision {
+        /**
+         * The results are not conclusive yet.
+         */
+        CONTINUE,
+        /**
+         * The difference is elo1 or more.
+         */
+        ACCEPT_H1,
+        /**
+         * The difference is elo0 or less.
+         */
+        ACCEPT_H0
+    }
+
+    /**
+     * Adds the result of a game.
+     *
+     * @param score the score of the first player: 1 for a win, 0.5 for a draw, 0 for a loss
+     * @throws IllegalArgumentException if the score is not 0, 0.5 or 1
+     */
+    public void add(double score) {
+        if (score == 1) {
+            wins++;
+        } else if (score == 0.5) {
+            draws++;
+        } else if (score == 0) {
+            losses++;
+        } else {
+            throw new IllegalArgumentException("A score is 0, 0.5 or 1");
+        }
+    }
+
+    /**
+     * Returns the number of games won by the first player.
+     *
+     * @return the wins
+     */
+    public long wins() {
+        return wins;
+    }
+
+    /**
+     * Returns the number of draws.
+     *
+     * @return the draws
+     */
+    public long draws() {
+        return draws;
+    }
+
+    /**
+     * Returns the number of games lost by the first player.
+     *
+     * @return the losses
+     */
+    public long losses() {
+        return losses;
+    }
+
+    /**
+     * Returns the number of games.
+     *
+     * @return the games
+     */
+    public long games() {
+        return wins + draws + losses;
+    }
+
+    /**
+     * Returns the mean score of the first player.
+     *
+     * @return the score between 0 and 1, 0.5 if there is no game
+     */
+    public double score() {
+        return games() == 0 ? 0.5 : (wins + draws / 2.0) / games();
+    }
+
+    /**
+     * Returns the Elo difference matching the score of the first player.
+     *
+     * @return the difference, infinite if a player scored every point
+     */
+    public double elo() {
+        return elo(score());
+    }
+
+    /**
+     * Returns the half-width of the 95% confidence interval of the Elo difference.
+     *
+     * @return the error margin, infinite if it cannot be estimated
+     */
+    public double eloError() {
+        if (games() < 2) return Double.POSITIVE_INFINITY;
+
+        double deviation = Math.sqrt(variance() / games());
+        double low = elo(score() - Z_95 * deviation);
+        double high = elo(score() + Z_95 * deviation);
+        return (high - low) / 2;
+    }
+
+    /**
+     * Returns the log-likelihood ratio of the hypothesis "the difference is elo1" against "the difference is elo0".
+     *
+     * @param elo0 the Elo difference of the null hypothesis
+     * @param elo1 the Elo difference of the alternative hypothesis
+     * @return the log-likelihood ratio, 0 while it cannot be estimated
+     */
+    public double llr(double elo0, double elo1) {
+        double variance = variance();
+        if (variance == 0) return 0;
+
+        double s0 = expectedScore(elo0);
+        double s1 = expectedScore(elo1);
+        return games() * (s1 - s0) * (2 * score() - s0 - s1) / (2 * variance);
+    }
+
+    /**
+     * Runs the sequential probability ratio test.
+     *
+     * @param elo0 the Elo difference of the null hypothesis
+     * @param elo1 the Elo difference of the alternative hypothesis, greater than elo0
+     * @param alpha the probability of accepting H1 when H0 is true
+     * @param beta the probability of accepting H0 when H1 is true
+     * @return the decision
+     */
+    public Decision sprt(double elo0, double elo1, double alpha, double beta) {
+        double llr = llr(elo0, elo1);
+        if (llr >= Math.log((1 - beta) / alpha)) return Decision.ACCEPT_H1;
+        if (llr <= Math.log(beta / (1 - alpha))) return Decision.ACCEPT_H0;
+        return Decision.CONTINUE;
+    }
+
+    /**
+     * Returns the variance of the score of a game.
+     *
+     * @return the variance
+     */
+    private double variance() {
+        if (games() == 0) return 0;
+
+        double s = score();
+        return (wins * (1 - s) * (1 - s) + draws * (0.5 - s) * (0.5 - s) + losses * s * s) / games();
+    }
+
+    /**
+     * Converts a score to an Elo difference.
+     *
+     * @param score the score between 0 and 1
+     * @return the Elo difference
+     */
+    private static double elo(double score) {
+        if (score <= 0) return Double.NEGATIVE_INFINITY;
+        if (score >= 1) return Double.POSITIVE_INFINITY;
+        return -400 * Math.log10(1 / score - 1);
+    }
+
+    /**
+     * Converts an Elo difference to the expected score.
+     *
+     * @param elo the Elo difference
+     * @return the expected score between 0 and 1
+     */
+    private static double expectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    /**
+     * Returns a summary of the match, e.g. "+12 =30 -8 (54.0%), Elo +13.9 +/- 41.2".
+     *
+     * @return the summary
+     */
+    @Override
+    public String toString() {
+        return String.format("+%d =%d -%d (%.1f%%), Elo %+.1f +/- %.1f",
+                wins, draws, losses, 100 * score(), elo(), eloError());
+    }
+}
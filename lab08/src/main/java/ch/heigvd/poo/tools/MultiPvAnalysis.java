@@ -0,0 +1,101 @@
+package ch.heigvd.poo.tools;
+
+import ch.heigvd.poo.engine.board.Fen;
+import ch.heigvd.poo.engine.board.Position;
+import ch.heigvd.poo.engine.moves.San;
+import ch.heigvd.poo.engine.search.Evaluator;
+import ch.heigvd.poo.engine.search.MultiPvSearch;
+import ch.heigvd.poo.engine.search.Searcher;
+import ch.heigvd.poo.engine.search.TranspositionTable;
+
+import java.util.List;
+
+/**
+ * The MultiPvAnalysis class prints the best few moves of a position with their principal variations,
+ * refreshed after each depth, so candidate moves can be compared.
+ * Each line shows the depth, the rank of the move, its score from the point of view of the side to move
+ * (in pawns, or "#3" for a mate in 3 moves) and the variation in SAN.
+ * <p>
+ * Usage: {@code MultiPvAnalysis [<fen>] [--lines <n>] [--depth <plies>] [--threads <n>] [--hash <MB>]}
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public class MultiPvAnalysis {
+    private static final int DEFAULT_LINES = 3;
+    private static final int DEFAULT_DEPTH = 5;
+    private static final int DEFAULT_HASH = 64;
+
+    public static void main(String[] args) throws InterruptedException {
+        Position position = Position.START;
+        int lines = DEFAULT_LINES;
+        int depth = DEFAULT_DEPTH;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int hash = DEFAULT_HASH;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--lines" -> lines = Integer.parseInt(args[++i]);
+                case "--depth" -> depth = Integer.parseInt(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--hash" -> hash = Integer.parseInt(args[++i]);
+                default -> {
+                    if (args[i].startsWith("--")) throw new IllegalArgumentException("Unknown option " + args[i]);
+                    position = Fen.parse(args[i]);
+                }
+            }
+        }
+
+        long start = System.nanoTime();
+        Position root = position;
+        MultiPvSearch search = new MultiPvSearch(Evaluator.DEFAULT, new TranspositionTable(hash), threads);
+        search.analyse(root, lines, depth, found -> print(root, found));
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("%d nodes in %.1f s (%.0f nodes/s)%n", search.nodes(), seconds, search.nodes() / seconds);
+    }
+
+    /**
+     * Prints the lines of a depth.
+     *
+     * @param root the position
+     * @param lines the lines, best first
+     */
+    private static void print(Position root, List<MultiPvSearch.Line> lines) {
+        for (int i = 0; i < lines.size(); i++) {
+            MultiPvSearch.Line line = lines.get(i);
+            System.out.printf("depth %2d  %d. %6s  %s%n", line.depth(), i + 1, score(line), variation(root, line.pv()));
+        }
+        System.out.println();
+    }
+
+    /**
+     * Writes the score of a line, in pawns ("+0.35") or as a mate ("#3", "#-2").
+     *
+     * @param line the line
+     * @return the score
+     */
+    private static String score(MultiPvSearch.Line line) {
+        if (!line.isMate()) return String.format("%+.2f", line.score() / 100.0);
+
+        int moves = (Searcher.MATE - Math.abs(line.score()) + 1) / 2;
+        return "#" + (line.score() > 0 ? moves : -moves);
+    }
+
+    /**
+     * Writes a variation in SAN.
+     *
+     * @param root the position
+     * @param pv the moves of the variation
+     * @return the moves, separated by spaces
+     */
+    private static String variation(Position root, int[] pv) {
+        StringBuilder text = new StringBuilder();
+        Position position = root;
+        for (int move : pv) {
+            if (!text.isEmpty()) text.append(' ');
+            text.append(San.format(position, move));
+            position = position.play(move);
+        }
+        return text.toString();
+    }
+}
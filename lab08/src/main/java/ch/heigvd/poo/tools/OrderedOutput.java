@@ -0,0 +1,157 @@
+package ch.heigvd.poo.tools;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * The OrderedOutput class is a bounded reorder buffer: results are completed by any thread in any order
+ * and handed to the sink in the order of their sequence numbers, as soon as all the previous ones are known.
+ * At most {@code capacity} results can be reserved and not yet written, {@link #reserve()} waits beyond that,
+ * so a fast reader cannot get arbitrarily far ahead of a slow result.
+ * <p>
+ * A result that cannot be computed is {@linkplain #fail failed} instead: nothing after it is written and the threads
+ * waiting in {@link #reserve()} or {@link #awaitDrained()} throw its exception, so a failing worker never leaves
+ * them waiting for a result that will not come.
+ *
+ * @param <T> the type of the results
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public class OrderedOutput<T> {
+    private final Object[] slots;
+    private final Consumer<T> sink;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition drained = lock.newCondition();
+    private long nextReserved;
+    private long nextWritten;
+    private Throwable failure;
+
+    /**
+     * Constructs an OrderedOutput.
+     *
+     * @param capacity the number of results that can wait to be written
+     * @param sink receives the results in order, called by the thread completing the next result to write
+     * @throws IllegalArgumentException if the capacity is not positive
+     * @throws NullPointerException if the sink is null
+     */
+    public OrderedOutput(int capacity, Consumer<T> sink) {
+        if (capacity <= 0) throw new IllegalArgumentException("The capacity must be positive");
+        if (sink == null) throw new NullPointerException("The sink is null");
+        this.slots = new Object[capacity];
+        this.sink = sink;
+    }
+
+    /**
+     * Reserves the next sequence number, waiting while the buffer is full.
+     *
+     * @return the sequence number of the result to complete
+     * @throws InterruptedException if interrupted while waiting
+     * @throws CompletionException if a result has failed
+     */
+    public long reserve() throws InterruptedException {
+        lock.lock();
+        try {
+            while (failure == null && nextReserved - nextWritten >= slots.length)
+                notFull.await();
+            checkFailure();
+            return nextReserved++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Completes a result, writing it and the results following it if all the previous ones are written.
+     *
+     * @param sequence the sequence number given by {@link #reserve()}
+     * @param result the result
+     * @throws NullPointerException if the result is null
+     */
+    @SuppressWarnings("unchecked")
+    public void complete(long sequence, T result) {
+        if (result == null) throw new NullPointerException("The result is null");
+
+        lock.lock();
+        try {
+            if (failure != null) return;
+            slots[(int) (sequence % slots.length)] = result;
+            // Only the thread completing the next expected result writes, the others leave theirs in the buffer
+            while (nextWritten < nextReserved && slots[(int) (nextWritten % slots.length)] != null) {
+                int slot = (int) (nextWritten % slots.length);
+                T next = (T) slots[slot];
+                slots[slot] = null;
+                sink.accept(next);
+                nextWritten++;
+            }
+            notFull.signalAll();
+            if (nextWritten == nextReserved) drained.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Completes a result with the value computed by the calling thread, or fails it if the computation throws.
+     *
+     * @param sequence the sequence number given by {@link #reserve()}
+     * @param result computes the result
+     */
+    public void compute(long sequence, Supplier<T> result) {
+        try {
+            complete(sequence, result.get());
+        } catch (RuntimeException | Error e) {
+            fail(sequence, e);
+        }
+    }
+
+    /**
+     * Fails a result. Nothing is written from it on, and the threads waiting for room or for the results to be
+     * written are woken up to throw the exception.
+     *
+     * @param sequence the sequence number given by {@link #reserve()}
+     * @param cause the exception that kept the result from being computed or written
+     * @throws NullPointerException if the cause is null
+     */
+    public void fail(long sequence, Throwable cause) {
+        if (cause == null) throw new NullPointerException("The cause is null");
+
+        lock.lock();
+        try {
+            if (failure == null) failure = new CompletionException("Result " + sequence + " has failed", cause);
+            notFull.signalAll();
+            drained.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until every reserved result is written.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     * @throws CompletionException if a result has failed
+     */
+    public void awaitDrained() throws InterruptedException {
+        lock.lock();
+        try {
+            while (failure == null && nextWritten < nextReserved)
+                drained.await();
+            checkFailure();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Throws the failure of a result, if any. Called with the lock held.
+     *
+     * @throws CompletionException if a result has failed
+     */
+    private void checkFailure() {
+        if (failure != null) throw new CompletionException(failure.getMessage(), failure.getCause());
+    }
+}
@@ -0,0 +1,202 @@
+package ch.heigvd.poo.tools;
+
+import ch.heigvd.poo.engine.board.Position;
+import ch.heigvd.poo.engine.moves.Move;
+import ch.heigvd.poo.engine.moves.MoveGenerator;
+import ch.heigvd.poo.engine.moves.San;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The PgnReader class reads the games of a PGN file one at a time, so an archive of any size can be read.
+ * Only the main line is kept: comments, variations and numeric annotations are skipped.
+ * It can also read files of one game per line, as moves separated by spaces without any tag,
+ * optionally followed by the result, lines starting with '#' being ignored.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public class PgnReader implements Closeable {
+    private static final Pattern TAG = Pattern.compile("\\[\\s*(\\w+)\\s+\"((?:[^\"\\\\]|\\\\.)*)\"\\s*]");
+    private static final Pattern MOVE_NUMBER = Pattern.compile("^\\d+\\.+");
+    private static final Pattern COORDINATES = Pattern.compile("[a-h][1-8][a-h][1-8][qrbnQRBN]?");
+
+    private final BufferedReader reader;
+    private final boolean oneGamePerLine;
+    private String pending;
+
+    /**
+     * The Game record holds a game read from a file.
+     *
+     * @param tags the tag pairs, in the order of the file
+     * @param moves the moves of the main line, as written in the file
+     * @param result the result written after the moves, "*" if there is none
+     */
+    public record Game(Map<String, String> tags, List<String> moves, String result) {
+    }
+
+    /**
+     * Constructs a PgnReader.
+     *
+     * @param reader the text to read
+     * @param oneGamePerLine true if each line holds the moves of a game, false for PGN
+     */
+    public PgnReader(BufferedReader reader, boolean oneGamePerLine) {
+        if (reader == null) throw new NullPointerException("The reader is null");
+        this.reader = reader;
+        this.oneGamePerLine = oneGamePerLine;
+    }
+
+    /**
+     * Reads the next game.
+     *
+     * @return the game, or null at the end of the file
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a comment or a variation is not closed
+     */
+    public Game next() throws IOException {
+        return oneGamePerLine ? nextLine() : nextPgn();
+    }
+
+    /**
+     * Reads the next game of a file of one game per line.
+     *
+     * @return the game, or null at the end of the file
+     * @throws IOException if the file cannot be read
+     */
+    private Game nextLine() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            List<String> moves = List.of(line.split("\\s+"));
+            String last = moves.get(moves.size() - 1);
+            if (isResult(last)) return new Game(new LinkedHashMap<>(), moves.subList(0, moves.size() - 1), last);
+            return new Game(new LinkedHashMap<>(), moves, "*");
+        }
+        return null;
+    }
+
+    /**
+     * Reads the next game of a PGN file. A game ends with its result, or at the tags of the next game.
+     *
+     * @return the game, or null at the end of the file
+     * @throws IOException if the file cannot be read
+     */
+    private Game nextPgn() throws IOException {
+        Map<String, String> tags = new LinkedHashMap<>();
+        List<String> moves = new ArrayList<>();
+        boolean comment = false;
+        int variation = 0;
+
+        String line;
+        while ((line = readLine()) != null) {
+            String text = line.strip();
+            if (!comment && variation == 0 && text.startsWith("[")) {
+                if (!moves.isEmpty()) {
+                    // The result is missing, these tags belong to the next game
+                    pending = line;
+                    return new Game(tags, moves, "*");
+                }
+                Matcher tag = TAG.matcher(text);
+                if (tag.matches()) tags.put(tag.group(1), tag.group(2).replaceAll("\\\\(.)", "$1"));
+                continue;
+            }
+            if (!comment && text.startsWith("%")) continue;
+
+            int i = 0;
+            while (i < text.length()) {
+                char c = text.charAt(i);
+                if (comment) {
+                    if (c == '}') comment = false;
+                    i++;
+                } else if (c == '{') {
+                    comment = true;
+                    i++;
+                } else if (c == ';') {
+                    break;
+                } else if (c == '(') {
+                    variation++;
+                    i++;
+                } else if (c == ')') {
+                    variation--;
+                    i++;
+                } else if (Character.isWhitespace(c)) {
+                    i++;
+                } else {
+                    int end = i;
+                    while (end < text.length() && "{}();".indexOf(text.charAt(end)) < 0
+                            && !Character.isWhitespace(text.charAt(end)))
+                        end++;
+                    String token = text.substring(i, end);
+                    i = end;
+                    if (variation > 0) continue;
+
+                    if (isResult(token)) return new Game(tags, moves, token);
+                    token = MOVE_NUMBER.matcher(token).replaceFirst("");
+                    if (!token.isEmpty() && !token.startsWith("$")) moves.add(token);
+                }
+            }
+        }
+
+        if (comment || variation > 0) throw new IllegalArgumentException("Unexpected end of file in a comment or a variation");
+        return tags.isEmpty() && moves.isEmpty() ? null : new Game(tags, moves, "*");
+    }
+
+    /**
+     * Reads a move of a game, in Standard Algebraic Notation or in coordinate notation.
+     *
+     * @param position the position before the move
+     * @param text the move
+     * @return the move, legal in the position
+     * @throws IllegalArgumentException if the text is not a legal move of the position
+     */
+    public static int parseMove(Position position, String text) {
+        if (!COORDINATES.matcher(text).matches()) return San.parse(position, text);
+
+        int move = Move.parse(text);
+        if (!MoveGenerator.isLegal(position, move)) throw new IllegalArgumentException("Not a legal move: " + text);
+        return move;
+    }
+
+    /**
+     * Reads a line, starting with the line put aside by the previous game.
+     *
+     * @return the line, or null at the end of the file
+     * @throws IOException if the file cannot be read
+     */
+    private String readLine() throws IOException {
+        if (pending == null) return reader.readLine();
+        String line = pending;
+        pending = null;
+        return line;
+    }
+
+    /**
+     * Checks if a token is a game termination marker.
+     *
+     * @param token the token
+     * @return true for "1-0", "0-1", "1/2-1/2" and "*"
+     */
+    private static boolean isResult(String token) {
+        return token.equals("1-0") || token.equals("0-1") || token.equals("1/2-1/2") || token.equals("*");
+    }
+
+    /**
+     * Closes the underlying reader.
+     *
+     * @throws IOException if the reader cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,72 @@
+package ch.heigvd.poo.tools;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The PgnWriter class writes games in the export format of PGN: the seven mandatory tags first,
+ * then the other tags, an empty line and the moves, wrapped at 79 characters.
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public final class PgnWriter {
+    private static final List<String> SEVEN_TAG_ROSTER = List.of("Event", "Site", "Date", "Round", "White", "Black", "Result");
+    private static final int LINE_LENGTH = 79;
+
+    private PgnWriter() {
+    }
+
+    /**
+     * Writes a game.
+     *
+     * @param tags the tags of the game, the missing mandatory tags are written as "?"
+     * @param movetext the tokens of the moves: move numbers, moves, annotations and comments
+     * @param result the result of the game, written as the Result tag and after the moves
+     * @return the game in PGN, followed by an empty line
+     */
+    public static String write(Map<String, String> tags, List<String> movetext, String result) {
+        Map<String, String> ordered = new LinkedHashMap<>();
+        for (String name : SEVEN_TAG_ROSTER)
+            ordered.put(name, tags.getOrDefault(name, name.equals("Date") ? "????.??.??" : "?"));
+        ordered.putAll(tags);
+        ordered.put("Result", result);
+
+        StringBuilder sb = new StringBuilder();
+        ordered.forEach((name, value) -> sb.append('[').append(name).append(" \"")
+                .append(value.replace("\\", "\\\\").replace("\"", "\\\"")).append("\"]\n"));
+        sb.append('\n');
+
+        int lineStart = sb.length();
+        for (String token : movetext) {
+            lineStart = append(sb, lineStart, token);
+        }
+        append(sb, lineStart, result);
+        return sb.append("\n\n").toString();
+    }
+
+    /**
+     * Appends a token, on a new line if it does not fit on the current one.
+     * A comment is split on its spaces when it is too long for a line.
+     *
+     * @param sb the builder to append to
+     * @param lineStart the index of the start of the current line
+     * @param token the token
+     * @return the index of the start of the current line after the token
+     */
+    private static int append(StringBuilder sb, int lineStart, String token) {
+        for (String word : token.split(" ")) {
+            if (sb.length() > lineStart) {
+                if (sb.length() - lineStart + 1 + word.length() > LINE_LENGTH) {
+                    sb.append('\n');
+                    lineStart = sb.length();
+                } else {
+                    sb.append(' ');
+                }
+            }
+            sb.append(word);
+        }
+        return lineStart;
+    }
+}
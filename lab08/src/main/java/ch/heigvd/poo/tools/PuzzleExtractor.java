@@ -0,0 +1,368 @@
+package ch.heigvd.poo.tools;
+
+import ch.heigvd.poo.chess.PieceType;
+import ch.heigvd.poo.chess.PlayerColor;
+import ch.heigvd.poo.engine.board.Fen;
+import ch.heigvd.poo.engine.board.GBoard;
+import ch.heigvd.poo.engine.board.MoveResult;
+import ch.heigvd.poo.engine.board.Position;
+import ch.heigvd.poo.engine.moves.Move;
+import ch.heigvd.poo.engine.moves.MoveGenerator;
+import ch.heigvd.poo.engine.moves.San;
+import ch.heigvd.poo.engine.search.Evaluator;
+import ch.heigvd.poo.engine.search.MateSolver;
+import ch.heigvd.poo.engine.search.Searcher;
+import ch.heigvd.poo.engine.search.See;
+import ch.heigvd.poo.engine.search.TranspositionTable;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The PuzzleExtractor class replays archived games on a {@link GBoard} and keeps, as puzzles, the positions
+ * where a single move wins clearly: the best move must win, or mate, by at least a given margin while every other
+ * move leaves the game about even, and a mate must be the only one the mate solver finds in as many moves.
+ * Puzzles are written in EPD, one per line, with the best move ("bm"), the solution line ("pv"), its score
+ * ("ce", in centipawns, with "dm" for a direct mate) and where the position comes from ("id").
+ * <p>
+ * Most positions are quiet, so they are first filtered with cheap tests: the side to move must have a check,
+ * a promotion or a capture that the static exchange evaluation ({@link See}) shows to win material.
+ * Only the remaining positions are searched: a shallow search, helped by a {@link MateSolver} for the mates made
+ * of checks, drops those where no move wins, then the others
+ * are searched to the full depth, once for the best move and once for the best of the other moves.
+ * A position already seen, in the same game or in another one, is not searched again: the Zobrist keys of the
+ * candidate positions are kept in a lock-free set shared by the workers.
+ * <p>
+ * Games are read from a PGN file, or from a file of one game per line in coordinate notation if its name
+ * does not end with ".pgn", and spread over a work-stealing pool. The puzzles are written in the order of the games.
+ * <p>
+ * Usage: {@code PuzzleExtractor <games file> [--depth <plies>] [--nodes <n>] [--margin <centipawns>] [--seen <positions>] [--threads <n>] [--output <file>]}
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public class PuzzleExtractor {
+    private static final int DEFAULT_DEPTH = 4;
+    private static final long DEFAULT_NODES = 200_000;
+    private static final int DEFAULT_MARGIN = 250;
+    private static final int GAMES_PER_THREAD = 4;
+    private static final int TABLE_MEGABYTES = 16;
+    private static final int DEFAULT_SEEN = 1 << 24;
+    // Score above which the side to move is winning, below which it is about even
+    private static final int WINNING = 200;
+    private static final int EVEN = 100;
+    private static final int SHALLOW_DEPTH = 2;
+    // Mates made of checks, too deep for the shallow search, are looked for by the mate solver
+    private static final int MATE_MOVES = 3;
+    private static final long MATE_NODES = 20_000;
+
+    private static final ThreadLocal<Searcher> SEARCHERS = new ThreadLocal<>();
+    private static final ThreadLocal<TranspositionTable> TABLES = new ThreadLocal<>();
+    private static final ThreadLocal<MateSolver> SOLVERS = ThreadLocal.withInitial(() -> new MateSolver(1 << 16, true));
+    // The other moves of a mate are checked for every mate, not only the ones made of checks
+    private static final ThreadLocal<MateSolver> OTHER_SOLVERS = ThreadLocal.withInitial(() -> new MateSolver(1 << 16, false));
+
+    /**
+     * The Statistics record counts what was scanned.
+     *
+     * @param games the number of games
+     * @param positions the number of positions replayed
+     * @param candidates the number of positions that passed the filters and were searched
+     * @param duplicates the number of candidate positions already seen
+     * @param puzzles the number of puzzles found
+     */
+    public record Statistics(long games, long positions, long candidates, long duplicates, long puzzles) {
+    }
+
+    /**
+     * The Settings record holds the parameters of the verification.
+     *
+     * @param depth the depth of the searches
+     * @param nodes the node budget of the searches
+     * @param margin the score the best move must win over the other moves, in centipawns
+     * @param seen the number of candidate positions remembered to skip the duplicates
+     */
+    public record Settings(int depth, long nodes, int margin, int seen) {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: PuzzleExtractor <games file> [--depth <plies>] [--nodes <n>] [--margin <centipawns>] [--seen <positions>] [--threads <n>] [--output <file>]");
+            System.exit(1);
+        }
+
+        Path input = Path.of(args[0]);
+        int depth = DEFAULT_DEPTH;
+        long nodes = DEFAULT_NODES;
+        int margin = DEFAULT_MARGIN;
+        int seen = DEFAULT_SEEN;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path output = null;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--depth" -> depth = Integer.parseInt(args[++i]);
+                case "--nodes" -> nodes = Long.parseLong(args[++i]);
+                case "--margin" -> margin = Integer.parseInt(args[++i]);
+                case "--seen" -> seen = Integer.parseInt(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--output" -> output = Path.of(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        long start = System.nanoTime();
+        Writer out = output == null
+                ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                : Files.newBufferedWriter(output);
+        Statistics statistics;
+        try (out) {
+            statistics = extract(input, out, new Settings(depth, nodes, margin, seen), threads);
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("%d games, %d positions (%.0f/s), %d searched, %d duplicates, %d puzzles in %.1f s%n",
+                statistics.games(), statistics.positions(), statistics.positions() / seconds, statistics.candidates(),
+                statistics.duplicates(), statistics.puzzles(), seconds);
+    }
+
+    /**
+     * Extracts the puzzles of every game of a file.
+     *
+     * @param input the file of games
+     * @param out receives the puzzles in EPD, in the order of the games
+     * @param settings the parameters of the verification
+     * @param threads the number of workers
+     * @return the statistics of the extraction
+     * @throws IOException if the file cannot be read or the puzzles cannot be written
+     * @throws InterruptedException if interrupted while waiting for the workers
+     * @throws CompletionException if a game cannot be searched for puzzles
+     */
+    public static Statistics extract(Path input, Writer out, Settings settings, int threads)
+            throws IOException, InterruptedException {
+        OrderedOutput<List<String>> results = new OrderedOutput<>(threads * GAMES_PER_THREAD, puzzles -> {
+            try {
+                for (String puzzle : puzzles) {
+                    out.write(puzzle);
+                    out.write('\n');
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        Counters counters = new Counters();
+        ConcurrentKeySet seen = new ConcurrentKeySet(settings.seen());
+
+        boolean oneGamePerLine = !input.getFileName().toString().toLowerCase().endsWith(".pgn");
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long count = 0;
+        try (PgnReader reader = new PgnReader(Files.newBufferedReader(input), oneGamePerLine)) {
+            PgnReader.Game game;
+            while ((game = reader.next()) != null) {
+                PgnReader.Game next = game;
+                long number = ++count;
+                long sequence = results.reserve();
+                pool.execute(() -> results.compute(sequence, () -> extract(next, number, settings, seen, counters)));
+            }
+            results.awaitDrained();
+        } catch (CompletionException e) {
+            // A result that could not be written is reported as the IOException of the writer
+            if (e.getCause() instanceof UncheckedIOException io) throw io.getCause();
+            throw e;
+        } finally {
+            pool.shutdownNow();
+        }
+        return new Statistics(count, counters.positions.sum(), counters.candidates.sum(), counters.duplicates.sum(),
+                counters.puzzles.sum());
+    }
+
+    /**
+     * The Counters class gathers the counts of the workers.
+     */
+    private static class Counters {
+        final LongAdder positions = new LongAdder();
+        final LongAdder candidates = new LongAdder();
+        final LongAdder duplicates = new LongAdder();
+        final LongAdder puzzles = new LongAdder();
+    }
+
+    /**
+     * Replays a game and returns its puzzles. A move that cannot be read or that the board refuses ends the game.
+     *
+     * @param game the game
+     * @param number the number of the game in the file
+     * @param settings the parameters of the verification
+     * @param seen the keys of the candidate positions already searched
+     * @param counters receives the counts
+     * @return the puzzles, in EPD
+     */
+    private static List<String> extract(PgnReader.Game game, long number, Settings settings, ConcurrentKeySet seen,
+                                        Counters counters) {
+        List<String> puzzles = new ArrayList<>();
+        String fen = game.tags().get("FEN");
+        if (fen != null && !fen.startsWith("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq -")) return puzzles;
+
+        try (GBoard board = new GBoard()) {
+            board.initBoard();
+            PlayerColor color = PlayerColor.WHITE;
+            Position position = board.position(color);
+            int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+            for (int ply = 0; ply <= game.moves().size(); ply++) {
+                counters.positions.increment();
+                int count = MoveGenerator.legalMoves(position, moves);
+                if (isCandidate(position, moves, count)) {
+                    if (!seen.add(position.key())) {
+                        counters.duplicates.increment();
+                    } else {
+                        counters.candidates.increment();
+                        String puzzle = verify(position, moves, count, settings, game, number, ply);
+                        if (puzzle != null) {
+                            counters.puzzles.increment();
+                            puzzles.add(puzzle);
+                        }
+                    }
+                }
+                if (ply == game.moves().size()) break;
+
+                int move;
+                try {
+                    move = PgnReader.parseMove(position, game.moves().get(ply));
+                } catch (IllegalArgumentException e) {
+                    break;
+                }
+                int from = Move.from(move);
+                int to = Move.to(move);
+                MoveResult moved = board.tryMove(Position.row(from), Position.col(from), Position.row(to), Position.col(to),
+                        color, Move.promotion(move));
+                if (!moved.isAccepted()) break;
+
+                color = MoveGenerator.opponent(color);
+                position = board.position(color);
+            }
+            return puzzles;
+        }
+    }
+
+    /**
+     * Checks if a position is worth searching: the side to move must have a check, a promotion,
+     * or a capture winning material according to the static exchange evaluation.
+     *
+     * @param position the position
+     * @param moves the legal moves of the position
+     * @param count the number of moves
+     * @return true if the position may hold a puzzle
+     */
+    static boolean isCandidate(Position position, int[] moves, int count) {
+        // A forced move is not a puzzle
+        if (count < 2) return false;
+
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            boolean capture = position.pieceAt(Move.to(move)) != Position.EMPTY;
+            if (Move.promotion(move) == PieceType.QUEEN || capture) {
+                if (See.evaluate(position, move, Evaluator.DEFAULT) > 0) return true;
+            } else if (MoveGenerator.inCheck(position.play(move)) && See.evaluate(position, move, Evaluator.DEFAULT) >= 0) {
+                // A check that does not simply lose the checking piece
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Searches a candidate position with the searcher of the calling thread.
+     *
+     * @param position the position
+     * @param moves the legal moves of the position, reordered
+     * @param count the number of moves
+     * @param settings the parameters of the verification
+     * @param game the game of the position
+     * @param number the number of the game in the file
+     * @param ply the number of moves played before the position
+     * @return the puzzle in EPD, or null if the position has no single winning move
+     */
+    private static String verify(Position position, int[] moves, int count, Settings settings,
+                                 PgnReader.Game game, long number, int ply) {
+        Searcher searcher = SEARCHERS.get();
+        TranspositionTable table = TABLES.get();
+        if (searcher == null) {
+            table = new TranspositionTable(TABLE_MEGABYTES);
+            searcher = new Searcher(Evaluator.DEFAULT, table);
+            TABLES.set(table);
+            SEARCHERS.set(searcher);
+        }
+
+        // A shallow search already sees most tactics, the deep one only confirms the positions it keeps.
+        // A mate the solver proves is the solution as it is, however deep the search would have to look for it
+        Searcher.Result best = searcher.search(position, moves, count, Math.min(SHALLOW_DEPTH, settings.depth()), settings.nodes());
+        MateSolver.Result solved = best.score() < WINNING ? SOLVERS.get().solve(position, MATE_MOVES, MATE_NODES) : null;
+        int solution;
+        int score;
+        int[] line;
+        if (solved != null && solved.status() == MateSolver.Status.MATE) {
+            solution = solved.move();
+            score = Searcher.MATE - (2 * solved.moves() - 1);
+            line = solved.line();
+        } else {
+            if (best.score() < WINNING) return null;
+            if (settings.depth() > SHALLOW_DEPTH) {
+                best = searcher.search(position, moves, count, settings.depth(), settings.nodes());
+                if (best.score() < WINNING) return null;
+            }
+            solution = best.move();
+            score = best.score();
+            line = table.principalVariation(position, best.move(), best.depth());
+        }
+        boolean mate = score > Searcher.MATE - Searcher.MAX_PLY;
+
+        // The best of the other moves, which must leave the game about even whether the solution mates or not
+        int[] others = new int[count - 1];
+        int size = 0;
+        for (int i = 0; i < count; i++)
+            if (moves[i] != solution) others[size++] = moves[i];
+        Searcher.Result second = searcher.search(position, others, size, settings.depth(), settings.nodes());
+        if (second.score() > EVEN || score - second.score() < settings.margin()) return null;
+
+        // The solver must also prove that no other move mates in the moves the solution was looked for in
+        if (mate) {
+            int mateMoves = Math.min(Math.max(MATE_MOVES, (Searcher.MATE - score + 1) / 2), MateSolver.MAX_MOVES);
+            MateSolver.Result other = OTHER_SOLVERS.get().solve(position, others, size, mateMoves, MATE_NODES);
+            if (other.status() != MateSolver.Status.NO_MATE) return null;
+        }
+
+        String site = game.tags().getOrDefault("Site", "game " + number);
+        String dm = mate ? "; dm " + (Searcher.MATE - score + 1) / 2 : "";
+        return Fen.format(position).replaceFirst(" \\d+ \\d+$", "") + " bm " + San.format(position, solution)
+                + "; pv " + variation(position, line) + "; ce " + score + dm
+                + "; id \"" + site.replace("\"", "'") + " ply " + (ply + 1) + "\";";
+    }
+
+    /**
+     * Writes a variation in SAN.
+     *
+     * @param root the position
+     * @param line the moves of the variation
+     * @return the moves, separated by spaces
+     */
+    private static String variation(Position root, int[] line) {
+        StringBuilder text = new StringBuilder();
+        Position position = root;
+        for (int move : line) {
+            if (!text.isEmpty()) text.append(' ');
+            text.append(San.format(position, move));
+            position = position.play(move);
+        }
+        return text.toString();
+    }
+}
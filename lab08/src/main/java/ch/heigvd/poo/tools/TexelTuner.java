@@ -0,0 +1,481 @@
+package ch.heigvd.poo.tools;
+
+import ch.heigvd.poo.chess.PieceType;
+import ch.heigvd.poo.chess.PlayerColor;
+import ch.heigvd.poo.engine.board.Fen;
+import ch.heigvd.poo.engine.board.GBoard;
+import ch.heigvd.poo.engine.board.MoveResult;
+import ch.heigvd.poo.engine.board.Position;
+import ch.heigvd.poo.engine.moves.Move;
+import ch.heigvd.poo.engine.moves.MoveGenerator;
+import ch.heigvd.poo.engine.search.Evaluator;
+import ch.heigvd.poo.engine.search.See;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * The TexelTuner class fits the weights of the {@link Evaluator} to the results of games: the score of a position,
+ * through a sigmoid, should predict the result of the game it was played in. The mean squared error of these
+ * predictions over all the positions is minimised, first by choosing the scale of the sigmoid for the current
+ * weights, then by gradient descent on the weights (Adam), the score being linear in them.
+ * <p>
+ * Positions are read from a PGN file, or from a file of one game per line in coordinate notation, the games being
+ * replayed on a {@link GBoard} and every position labelled with the result of its game; the first plies of each
+ * game, from the opening book, are left out. A file whose name ends with ".epd" or ".fen" gives labelled positions
+ * instead, one per line, followed by the result ("1-0", "0-1", "1/2-1/2", or "[1.0]", "[0.5]", "[0.0]").
+ * Only quiet positions are kept: no check, no legal move and no capture or promotion winning material,
+ * since a static score cannot see the outcome of an exchange.
+ * <p>
+ * Each position is encoded as the weights its pieces count, in a single array of shorts shared by all the positions,
+ * so millions of positions fit in memory. Each pass over them is spread over a work-stealing pool, each worker
+ * summing the error and the gradient of a fixed range of positions in its own arrays, without allocating,
+ * and the ranges are added in order, so a run gives the same weights whatever the number of threads.
+ * <p>
+ * The tuned weights are written as the tables of the Evaluator, to be pasted in its source.
+ * <p>
+ * Usage: {@code TexelTuner <positions file> [--epochs <n>] [--rate <centipawns>] [--skip <plies>] [--threads <n>] [--output <file>]}
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public class TexelTuner {
+    private static final int DEFAULT_EPOCHS = 300;
+    private static final double DEFAULT_RATE = 1.0;
+    private static final int DEFAULT_SKIP = 8;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int REPORT_EPOCHS = 10;
+    private static final int SQUARES = Position.SIZE * Position.SIZE;
+    private static final double MAX_SCALE = 0.05;
+    private static final double SCALE_TOLERANCE = 1e-6;
+    private static final double BETA1 = 0.9;
+    private static final double BETA2 = 0.999;
+    private static final double EPSILON = 1e-8;
+    private static final Pattern RESULT = Pattern.compile("(1-0|0-1|1/2-1/2)|\\[\\s*(1\\.0|0\\.5|0\\.0|1|0)\\s*]");
+
+    private final Samples samples;
+    private final ForkJoinPool pool;
+    private final int chunks;
+    // Error and gradient of each range of positions, reused by every pass
+    private final double[] errors;
+    private final double[][] gradients;
+    private final double[] gradient = new double[Evaluator.WEIGHTS];
+
+    /**
+     * The Samples class holds the labelled positions, each one encoded as the pieces it holds: for each piece,
+     * the index of its table weight (see {@link Evaluator#tableWeight}) shifted left by one, plus one for black.
+     * Positions are added by a single thread, then only read.
+     */
+    public static final class Samples {
+        private short[] pieces = new short[1 << 12];
+        private int[] starts = new int[1 << 8];
+        private byte[] results = new byte[1 << 8];
+        private int size;
+
+        /**
+         * Adds a position.
+         *
+         * @param position the position
+         * @param halfPoints the result of its game for white: 2 for a win, 1 for a draw, 0 for a loss
+         * @throws IllegalArgumentException if the result is not 0, 1 or 2
+         */
+        public void add(Position position, int halfPoints) {
+            if (halfPoints < 0 || halfPoints > 2) throw new IllegalArgumentException("The result must be 0, 1 or 2 half points");
+
+            if (size + 1 >= starts.length) {
+                starts = Arrays.copyOf(starts, starts.length * 2);
+                results = Arrays.copyOf(results, results.length * 2);
+            }
+            int end = starts[size];
+            if (end + SQUARES > pieces.length) pieces = Arrays.copyOf(pieces, pieces.length * 2);
+            for (int square = 0; square < SQUARES; square++) {
+                byte code = position.pieceAt(square);
+                if (code == Position.EMPTY) continue;
+                int black = Position.color(code) == PlayerColor.BLACK ? 1 : 0;
+                pieces[end++] = (short) (Evaluator.tableWeight(code, square) << 1 | black);
+            }
+            results[size++] = (byte) halfPoints;
+            starts[size] = end;
+        }
+
+        /**
+         * Returns the number of positions.
+         *
+         * @return the number of positions
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Returns the score of a position, as the Evaluator would give it from the point of view of white.
+         *
+         * @param index the index of the position
+         * @param weights the weights, laid out as in {@link Evaluator#defaultWeights()}
+         * @return the score, in centipawns
+         */
+        public double evaluate(int index, double[] weights) {
+            double score = 0;
+            for (int i = starts[index]; i < starts[index + 1]; i++) {
+                int table = pieces[i] >>> 1;
+                double value = weights[(table - Evaluator.MATERIAL_WEIGHTS) / SQUARES] + weights[table];
+                score += (pieces[i] & 1) == 0 ? value : -value;
+            }
+            return score;
+        }
+    }
+
+    /**
+     * Constructs a TexelTuner.
+     *
+     * @param samples the labelled positions, not modified anymore
+     * @param pool the pool the passes over the positions are spread over
+     * @throws NullPointerException if the samples or the pool are null
+     */
+    public TexelTuner(Samples samples, ForkJoinPool pool) {
+        if (samples == null) throw new NullPointerException("The samples are null");
+        if (pool == null) throw new NullPointerException("The pool is null");
+
+        this.samples = samples;
+        this.pool = pool;
+        this.chunks = Math.max(1, Math.min(samples.size(), pool.getParallelism() * CHUNKS_PER_THREAD));
+        this.errors = new double[chunks];
+        this.gradients = new double[chunks][Evaluator.WEIGHTS];
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: TexelTuner <positions file> [--epochs <n>] [--rate <centipawns>] [--skip <plies>] [--threads <n>] [--output <file>]");
+            System.exit(1);
+        }
+
+        Path input = Path.of(args[0]);
+        int epochs = DEFAULT_EPOCHS;
+        double rate = DEFAULT_RATE;
+        int skip = DEFAULT_SKIP;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path output = null;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--epochs" -> epochs = Integer.parseInt(args[++i]);
+                case "--rate" -> rate = Double.parseDouble(args[++i]);
+                case "--skip" -> skip = Integer.parseInt(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--output" -> output = Path.of(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        long start = System.nanoTime();
+        String name = input.getFileName().toString().toLowerCase();
+        Samples samples = name.endsWith(".epd") || name.endsWith(".fen")
+                ? readPositions(input)
+                : readGames(input, name.endsWith(".pgn"), skip);
+        System.err.printf("%d positions read in %.1f s%n", samples.size(), (System.nanoTime() - start) / 1e9);
+        if (samples.size() == 0) System.exit(1);
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        double[] weights;
+        try {
+            TexelTuner tuner = new TexelTuner(samples, pool);
+            weights = Arrays.stream(Evaluator.defaultWeights()).asDoubleStream().toArray();
+            double scale = tuner.fitScale(weights);
+            System.err.printf("scale %.6f, error %.7f%n", scale, tuner.error(weights, scale));
+
+            double[] first = new double[Evaluator.WEIGHTS];
+            double[] second = new double[Evaluator.WEIGHTS];
+            for (int epoch = 1; epoch <= epochs; epoch++) {
+                double error = tuner.step(weights, scale, rate, epoch, first, second);
+                if (epoch % REPORT_EPOCHS == 0 || epoch == epochs)
+                    System.err.printf("epoch %d: error %.7f%n", epoch, error);
+            }
+
+            for (int i = 0; i < weights.length; i++) weights[i] = Math.round(weights[i]);
+            System.err.printf("error of the rounded weights %.7f, in %.1f s%n", tuner.error(weights, scale),
+                    (System.nanoTime() - start) / 1e9);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        int[] tuned = Arrays.stream(weights).mapToInt(weight -> (int) weight).toArray();
+        try (PrintWriter out = output == null ? new PrintWriter(System.out, true) : new PrintWriter(Files.newBufferedWriter(output))) {
+            write(tuned, out);
+        }
+    }
+
+    /**
+     * Reads labelled positions, one per line, in FEN or EPD followed by the result.
+     * Lines without a result, and positions that are not quiet, are left out.
+     *
+     * @param input the file
+     * @return the positions
+     * @throws IOException if the file cannot be read
+     */
+    public static Samples readPositions(Path input) throws IOException {
+        Samples samples = new Samples();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        try (BufferedReader reader = Files.newBufferedReader(input)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+
+                Matcher result = RESULT.matcher(line);
+                if (!result.find()) continue;
+                Position position;
+                try {
+                    position = Fen.parse(line.substring(0, result.start()));
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                String text = result.group(1) != null ? result.group(1) : result.group(2);
+                int halfPoints = switch (text) {
+                    case "1-0", "1.0", "1" -> 2;
+                    case "0-1", "0.0", "0" -> 0;
+                    default -> 1;
+                };
+                if (isQuiet(position, moves)) samples.add(position, halfPoints);
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * Reads games, replays them on a board and keeps their quiet positions, labelled with the result of the game.
+     * Games without a result, or starting from another position than the initial one, are left out.
+     *
+     * @param input the file
+     * @param pgn true for a PGN file, false for a file of one game per line
+     * @param skip the number of plies left out at the start of each game
+     * @return the positions
+     * @throws IOException if the file cannot be read
+     */
+    public static Samples readGames(Path input, boolean pgn, int skip) throws IOException {
+        Samples samples = new Samples();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        try (GBoard board = new GBoard(); PgnReader reader = new PgnReader(Files.newBufferedReader(input), !pgn)) {
+            PgnReader.Game game;
+            while ((game = reader.next()) != null) {
+                int halfPoints = switch (game.result()) {
+                    case "1-0" -> 2;
+                    case "0-1" -> 0;
+                    case "1/2-1/2" -> 1;
+                    default -> -1;
+                };
+                String fen = game.tags().get("FEN");
+                if (halfPoints < 0 || fen != null && !fen.startsWith("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq -"))
+                    continue;
+
+                board.initBoard();
+                PlayerColor color = PlayerColor.WHITE;
+                Position position = board.position(color);
+                for (int ply = 0; ; ply++) {
+                    if (ply >= skip && isQuiet(position, moves)) samples.add(position, halfPoints);
+                    if (ply == game.moves().size()) break;
+
+                    int move;
+                    try {
+                        move = PgnReader.parseMove(position, game.moves().get(ply));
+                    } catch (IllegalArgumentException e) {
+                        break;
+                    }
+                    int from = Move.from(move);
+                    int to = Move.to(move);
+                    MoveResult moved = board.tryMove(Position.row(from), Position.col(from), Position.row(to), Position.col(to),
+                            color, Move.promotion(move));
+                    if (!moved.isAccepted()) break;
+
+                    color = MoveGenerator.opponent(color);
+                    position = board.position(color);
+                }
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * Checks if the static score of a position can be trusted: the side to move is not in check, has a legal move,
+     * and no capture or promotion winning material according to the static exchange evaluation.
+     *
+     * @param position the position
+     * @param moves an array receiving the legal moves
+     * @return true if the position is quiet
+     */
+    static boolean isQuiet(Position position, int[] moves) {
+        if (MoveGenerator.inCheck(position)) return false;
+
+        int count = MoveGenerator.legalMoves(position, moves);
+        if (count == 0) return false;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            boolean capture = position.pieceAt(Move.to(move)) != Position.EMPTY;
+            if ((capture || Move.promotion(move) == PieceType.QUEEN) && See.evaluate(position, move, Evaluator.DEFAULT) > 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Finds the scale of the sigmoid that gives the smallest error with some weights, by golden section search.
+     *
+     * @param weights the weights
+     * @return the scale, per centipawn
+     */
+    public double fitScale(double[] weights) {
+        double ratio = (Math.sqrt(5) - 1) / 2;
+        double low = 0;
+        double high = MAX_SCALE;
+        double left = high - ratio * (high - low);
+        double right = low + ratio * (high - low);
+        double leftError = error(weights, left);
+        double rightError = error(weights, right);
+        while (high - low > SCALE_TOLERANCE) {
+            if (leftError < rightError) {
+                high = right;
+                right = left;
+                rightError = leftError;
+                left = high - ratio * (high - low);
+                leftError = error(weights, left);
+            } else {
+                low = left;
+                left = right;
+                leftError = rightError;
+                right = low + ratio * (high - low);
+                rightError = error(weights, right);
+            }
+        }
+        return (low + high) / 2;
+    }
+
+    /**
+     * Returns the mean squared error of the predicted results.
+     *
+     * @param weights the weights
+     * @param scale the scale of the sigmoid, per centipawn
+     * @return the error
+     */
+    public double error(double[] weights, double scale) {
+        return pass(weights, scale, false);
+    }
+
+    /**
+     * Moves the weights one step of Adam against the gradient of the error.
+     *
+     * @param weights the weights, updated
+     * @param scale the scale of the sigmoid, per centipawn
+     * @param rate the length of the steps, in centipawns
+     * @param epoch the number of the step, from 1
+     * @param first the moving average of the gradient, kept between the steps, zeros at first
+     * @param second the moving average of the squared gradient, kept between the steps, zeros at first
+     * @return the error before the step
+     */
+    public double step(double[] weights, double scale, double rate, int epoch, double[] first, double[] second) {
+        double error = pass(weights, scale, true);
+        double firstCorrection = 1 - Math.pow(BETA1, epoch);
+        double secondCorrection = 1 - Math.pow(BETA2, epoch);
+        for (int i = 0; i < weights.length; i++) {
+            first[i] = BETA1 * first[i] + (1 - BETA1) * gradient[i];
+            second[i] = BETA2 * second[i] + (1 - BETA2) * gradient[i] * gradient[i];
+            double adjusted = first[i] / firstCorrection;
+            weights[i] -= rate * adjusted / (Math.sqrt(second[i] / secondCorrection) + EPSILON);
+        }
+        return error;
+    }
+
+    /**
+     * Goes over every position, in parallel, summing the error and, if asked, its gradient in {@link #gradient}.
+     *
+     * @param weights the weights
+     * @param scale the scale of the sigmoid, per centipawn
+     * @param withGradient true to compute the gradient too
+     * @return the mean squared error
+     */
+    private double pass(double[] weights, double scale, boolean withGradient) {
+        pool.submit(() -> IntStream.range(0, chunks).parallel()
+                .forEach(chunk -> passChunk(chunk, weights, scale, withGradient))).join();
+
+        // Added in order, so the result does not depend on which thread ran which range
+        double error = 0;
+        for (int chunk = 0; chunk < chunks; chunk++) error += errors[chunk];
+        if (withGradient) {
+            Arrays.fill(gradient, 0);
+            for (double[] partial : gradients)
+                for (int i = 0; i < gradient.length; i++) gradient[i] += partial[i];
+            // d(error)/d(score) = -2 * scale * (result - p) * p * (1 - p), the sums holding (result - p) * p * (1 - p)
+            double factor = -2 * scale / samples.size();
+            for (int i = 0; i < gradient.length; i++) gradient[i] *= factor;
+        }
+        return error / samples.size();
+    }
+
+    /**
+     * Sums the error and the gradient of a range of positions, run by a worker of the pool.
+     *
+     * @param chunk the index of the range
+     * @param weights the weights
+     * @param scale the scale of the sigmoid, per centipawn
+     * @param withGradient true to compute the gradient too
+     */
+    private void passChunk(int chunk, double[] weights, double scale, boolean withGradient) {
+        int from = (int) ((long) samples.size * chunk / chunks);
+        int to = (int) ((long) samples.size * (chunk + 1) / chunks);
+        short[] pieces = samples.pieces;
+        int[] starts = samples.starts;
+        double[] partial = gradients[chunk];
+        if (withGradient) Arrays.fill(partial, 0);
+
+        double error = 0;
+        for (int index = from; index < to; index++) {
+            double predicted = 1 / (1 + Math.exp(-scale * samples.evaluate(index, weights)));
+            double residual = samples.results[index] * 0.5 - predicted;
+            error += residual * residual;
+            if (!withGradient) continue;
+
+            double slope = residual * predicted * (1 - predicted);
+            for (int i = starts[index]; i < starts[index + 1]; i++) {
+                int table = pieces[i] >>> 1;
+                double signed = (pieces[i] & 1) == 0 ? slope : -slope;
+                partial[(table - Evaluator.MATERIAL_WEIGHTS) / SQUARES] += signed;
+                partial[table] += signed;
+            }
+        }
+        errors[chunk] = error;
+    }
+
+    /**
+     * Writes weights as the tables of the Evaluator.
+     *
+     * @param weights the weights, laid out as in {@link Evaluator#defaultWeights()}
+     * @param out receives the tables
+     */
+    static void write(int[] weights, PrintWriter out) {
+        StringBuilder material = new StringBuilder();
+        for (int i = 0; i < Evaluator.MATERIAL_WEIGHTS; i++)
+            material.append(i == 0 ? "" : ", ").append(weights[i]);
+        out.println("    private static final int[] MATERIAL = {" + material + "};");
+        out.println();
+        out.println("    private static final int[][] TABLES = {");
+        PieceType[] types = PieceType.values();
+        for (int type = 0; type < types.length; type++) {
+            out.println("            // " + types[type]);
+            for (int line = 0; line < Position.SIZE; line++) {
+                StringBuilder row = new StringBuilder(line == 0 ? "            {" : "                    ");
+                for (int file = 0; file < Position.SIZE; file++) {
+                    row.append(weights[Evaluator.MATERIAL_WEIGHTS + type * SQUARES + line * Position.SIZE + file]);
+                    if (file < Position.SIZE - 1 || line < Position.SIZE - 1) row.append(", ");
+                }
+                if (line == Position.SIZE - 1) row.append(type < types.length - 1 ? "}," : "}");
+                out.println(row.toString().stripTrailing());
+            }
+        }
+        out.println("    };");
+    }
+}
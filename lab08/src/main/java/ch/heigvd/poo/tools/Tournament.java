@@ -0,0 +1,457 @@
+package ch.heigvd.poo.tools;
+
+import ch.heigvd.poo.chess.PieceType;
+import ch.heigvd.poo.chess.PlayerColor;
+import ch.heigvd.poo.engine.CEngine;
+import ch.heigvd.poo.engine.board.Position;
+import ch.heigvd.poo.engine.moves.Move;
+import ch.heigvd.poo.engine.moves.MoveGenerator;
+import ch.heigvd.poo.engine.moves.San;
+import ch.heigvd.poo.engine.search.AiPlayer;
+import ch.heigvd.poo.engine.search.Evaluator;
+import ch.heigvd.poo.engine.search.Searcher;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The Tournament class plays a match between two configurations of {@link AiPlayer}, A and B, to measure
+ * the playing strength gained or lost by a change. Each game is a {@link CEngine} without any view,
+ * driven by the two players, so the moves go through the rules of the board.
+ * <p>
+ * Every opening is played twice, each player having white once. Openings are read from a file
+ * (PGN, or one game per line in coordinate notation) or made of random moves. A game ends by mate, stalemate,
+ * threefold repetition, the 50-move rule, insufficient material, or as a draw after a maximum number of plies.
+ * Games are played in parallel, one per worker, and the match stops after a number of games or,
+ * with {@code --sprt}, as soon as the sequential probability ratio test is conclusive.
+ * A worker that fails, e.g. on a game that cannot be written, stops the match, which fails instead of
+ * returning the statistics of the games played so far.
+ * <p>
+ * A player is described by {@code depth=<plies>} and/or {@code nodes=<n>}, separated by commas.
+ * <p>
+ * Usage: {@code Tournament --a <player> --b <player> [--games <n>] [--threads <n>] [--openings <file>]
+ * [--random-plies <n>] [--seed <n>] [--max-plies <n>] [--sprt <elo0>,<elo1>] [--alpha <p>] [--beta <p>] [--pgn <file>]}
+ *
+ * @author : Surbeck Léon
+ * @author : Nicolet Victor
+ */
+public class Tournament {
+    private static final int FIFTY_MOVES = 100;
+    private static final int PROGRESS_INTERVAL = 100;
+
+    private final String specA;
+    private final String specB;
+    private final List<PgnReader.Game> openings;
+    private final int randomPlies;
+    private final long seed;
+    private final int maxPlies;
+    private final Writer pgn;
+
+    private final MatchStatistics statistics = new MatchStatistics();
+    private final AtomicInteger nextGame = new AtomicInteger();
+    private final AtomicBoolean stopped = new AtomicBoolean();
+    private int errors;
+
+    /**
+     * The Outcome record holds the end of a game.
+     *
+     * @param result the result, "1-0", "0-1" or "1/2-1/2"
+     * @param termination why the game ended
+     * @param movetext the moves in Standard Algebraic Notation, with their numbers
+     */
+    public record Outcome(String result, String termination, List<String> movetext) {
+    }
+
+    /**
+     * Constructs a Tournament.
+     *
+     * @param specA the description of player A
+     * @param specB the description of player B
+     * @param openings the openings, or an empty list for random openings
+     * @param randomPlies the number of random moves of an opening, when there is no opening file
+     * @param seed the seed of the random openings
+     * @param maxPlies the number of plies after which a game is a draw
+     * @param pgn receives the games in PGN, or null
+     * @throws IllegalArgumentException if a description is not valid
+     */
+    public Tournament(String specA, String specB, List<PgnReader.Game> openings, int randomPlies, long seed,
+                      int maxPlies, Writer pgn) {
+        player("A", specA);
+        player("B", specB);
+        this.specA = specA;
+        this.specB = specB;
+        this.openings = openings;
+        this.randomPlies = randomPlies;
+        this.seed = seed;
+        this.maxPlies = maxPlies;
+        this.pgn = pgn;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String a = null;
+        String b = null;
+        int games = 1000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path openingFile = null;
+        int randomPlies = 8;
+        long seed = 1;
+        int maxPlies = 400;
+        double[] sprt = null;
+        double alpha = 0.05;
+        double beta = 0.05;
+        Path pgnFile = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--a" -> a = args[++i];
+                case "--b" -> b = args[++i];
+                case "--games" -> games = Integer.parseInt(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--openings" -> openingFile = Path.of(args[++i]);
+                case "--random-plies" -> randomPlies = Integer.parseInt(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--max-plies" -> maxPlies = Integer.parseInt(args[++i]);
+                case "--sprt" -> {
+                    String[] bounds = args[++i].split(",");
+                    sprt = new double[]{Double.parseDouble(bounds[0]), Double.parseDouble(bounds[1])};
+                }
+                case "--alpha" -> alpha = Double.parseDouble(args[++i]);
+                case "--beta" -> beta = Double.parseDouble(args[++i]);
+                case "--pgn" -> pgnFile = Path.of(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (a == null || b == null) {
+            System.err.println("Usage: Tournament --a <player> --b <player> [--games <n>] [--threads <n>] [--openings <file>]"
+                    + " [--random-plies <n>] [--seed <n>] [--max-plies <n>] [--sprt <elo0>,<elo1>] [--alpha <p>] [--beta <p>] [--pgn <file>]");
+            System.exit(1);
+        }
+
+        List<PgnReader.Game> openings = new ArrayList<>();
+        if (openingFile != null) {
+            boolean oneGamePerLine = !openingFile.getFileName().toString().toLowerCase().endsWith(".pgn");
+            try (PgnReader reader = new PgnReader(Files.newBufferedReader(openingFile), oneGamePerLine)) {
+                PgnReader.Game game;
+                while ((game = reader.next()) != null)
+                    openings.add(game);
+            }
+        }
+
+        long start = System.nanoTime();
+        MatchStatistics statistics;
+        try (Writer pgn = pgnFile == null ? null : Files.newBufferedWriter(pgnFile)) {
+            Tournament tournament = new Tournament(a, b, openings, randomPlies, seed, maxPlies, pgn);
+            statistics = tournament.run(games, threads, sprt, alpha, beta);
+            if (tournament.errors() > 0)
+                System.err.println(tournament.errors() + " games could not be played and are not counted");
+        }
+
+        double hours = (System.nanoTime() - start) / 3.6e12;
+        System.out.printf("A (%s) vs B (%s): %s, %.0f games per hour%n", a, b, statistics, statistics.games() / hours);
+        if (sprt != null)
+            System.out.printf("SPRT [%.1f, %.1f]: %s, LLR %.2f [%.2f, %.2f]%n", sprt[0], sprt[1],
+                    statistics.sprt(sprt[0], sprt[1], alpha, beta), statistics.llr(sprt[0], sprt[1]),
+                    Math.log(beta / (1 - alpha)), Math.log((1 - beta) / alpha));
+    }
+
+    /**
+     * Plays the match.
+     *
+     * @param games the maximum number of games
+     * @param threads the number of games played at once
+     * @param sprt the hypotheses elo0 and elo1 of the SPRT, or null to play every game
+     * @param alpha the probability of accepting H1 when H0 is true
+     * @param beta the probability of accepting H0 when H1 is true
+     * @return the results, from the point of view of player A
+     * @throws IOException if a game cannot be written
+     * @throws CompletionException if a worker fails for another reason
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public MatchStatistics run(int games, int threads, double[] sprt, double alpha, double beta)
+            throws IOException, InterruptedException {
+        AtomicInteger count = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(threads,
+                r -> new Thread(r, "tournament-" + count.getAndIncrement()));
+        List<Future<?>> futures = new ArrayList<>();
+        Throwable failure = null;
+        try {
+            for (int i = 0; i < threads; i++) {
+                futures.add(workers.submit(() -> {
+                    try {
+                        work(games, sprt, alpha, beta);
+                    } catch (RuntimeException | Error e) {
+                        // The other workers stop after their current game
+                        stopped.set(true);
+                        throw e;
+                    }
+                }));
+            }
+            // Every worker is waited for, so none is still writing once the run has failed
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) failure = e.getCause();
+                    else failure.addSuppressed(e.getCause());
+                }
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        if (failure instanceof UncheckedIOException io) throw io.getCause();
+        if (failure != null) throw new CompletionException(failure);
+
+        synchronized (this) {
+            return statistics;
+        }
+    }
+
+    /**
+     * Returns the number of games that could not be played, because their opening or a move was refused.
+     *
+     * @return the number of errors
+     */
+    public synchronized int errors() {
+        return errors;
+    }
+
+    /**
+     * Plays games until the match is over, with players of its own.
+     */
+    private void work(int games, double[] sprt, double alpha, double beta) {
+        AiPlayer a = player("A", specA);
+        AiPlayer b = player("B", specB);
+
+        int game;
+        while (!stopped.get() && (game = nextGame.getAndIncrement()) < games) {
+            // A has white in even games, each opening is played with both colors
+            boolean aIsWhite = game % 2 == 0;
+            AiPlayer white = aIsWhite ? a : b;
+            AiPlayer black = aIsWhite ? b : a;
+            Outcome outcome = play(game / 2, white, black);
+            record(game, outcome, white, black, aIsWhite, sprt, alpha, beta);
+        }
+    }
+
+    /**
+     * Records the outcome of a game and stops the match if the SPRT is conclusive.
+     */
+    private synchronized void record(int game, Outcome outcome, AiPlayer white, AiPlayer black, boolean aIsWhite,
+                                     double[] sprt, double alpha, double beta) {
+        if (outcome == null) {
+            errors++;
+            return;
+        }
+
+        double whiteScore = switch (outcome.result()) {
+            case "1-0" -> 1;
+            case "0-1" -> 0;
+            default -> 0.5;
+        };
+        statistics.add(aIsWhite ? whiteScore : 1 - whiteScore);
+        if (statistics.games() % PROGRESS_INTERVAL == 0)
+            System.err.println(statistics.games() + " games: " + statistics);
+        if (sprt != null && statistics.sprt(sprt[0], sprt[1], alpha, beta) != MatchStatistics.Decision.CONTINUE)
+            stopped.set(true);
+
+        if (pgn != null) {
+            Map<String, String> tags = new LinkedHashMap<>();
+            tags.put("Event", "Tournament");
+            tags.put("Round", String.valueOf(game + 1));
+            tags.put("White", white.getName());
+            tags.put("Black", black.getName());
+            tags.put("Termination", outcome.termination());
+            try {
+                pgn.write(PgnWriter.write(tags, outcome.movetext(), outcome.result()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Plays a game.
+     *
+     * @param opening the number of the opening
+     * @param white the player with white
+     * @param black the player with black
+     * @return the outcome, or null if the opening or every move of a player was refused by the board
+     */
+    public Outcome play(int opening, AiPlayer white, AiPlayer black) {
+        try (CEngine engine = new CEngine()) {
+            return playGame(engine, opening, white, black);
+        }
+    }
+
+    /**
+     * Plays a game on an engine.
+     *
+     * @param engine the engine to play on
+     * @param opening the number of the opening
+     * @param white the player with white
+     * @param black the player with black
+     * @return the outcome, or null if the opening or every move of a player was refused by the board
+     */
+    private Outcome playGame(CEngine engine, int opening, AiPlayer white, AiPlayer black) {
+        engine.newGame();
+        List<String> movetext = new ArrayList<>();
+        Map<Position, Integer> seen = new HashMap<>();
+        int quiet = 0;
+
+        List<Integer> moves;
+        try {
+            moves = openingMoves(opening);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        int ply = 0;
+        for (int move : moves) {
+            Position position = engine.position();
+            if (!play(engine, move)) return null;
+            appendMove(movetext, ply++, position, move);
+        }
+
+        while (true) {
+            Position position = engine.position();
+            int repetitions = seen.merge(position, 1, Integer::sum);
+            PlayerColor toMove = position.sideToMove();
+
+            if (MoveGenerator.legalMoves(position, new int[MoveGenerator.MAX_MOVES]) == 0) {
+                if (!MoveGenerator.inCheck(position)) return new Outcome("1/2-1/2", "stalemate", movetext);
+                return new Outcome(toMove == PlayerColor.WHITE ? "0-1" : "1-0", "checkmate", movetext);
+            }
+            if (repetitions >= 3) return new Outcome("1/2-1/2", "threefold repetition", movetext);
+            if (quiet >= FIFTY_MOVES) return new Outcome("1/2-1/2", "50-move rule", movetext);
+            if (insufficientMaterial(position)) return new Outcome("1/2-1/2", "insufficient material", movetext);
+            if (ply >= maxPlies) return new Outcome("1/2-1/2", "adjudication", movetext);
+
+            AiPlayer player = toMove == PlayerColor.WHITE ? white : black;
+            int move = player.play(engine, position);
+            if (move == Move.NONE) return null;
+
+            boolean pawn = Position.type(position.pieceAt(Move.from(move))) == PieceType.PAWN;
+            boolean capture = engine.position().pieceCount() < position.pieceCount();
+            quiet = pawn || capture ? 0 : quiet + 1;
+            appendMove(movetext, ply++, position, move);
+        }
+    }
+
+    /**
+     * Returns the moves of an opening, read from the opening file or drawn at random.
+     *
+     * @param opening the number of the opening
+     * @return the moves
+     */
+    private List<Integer> openingMoves(int opening) {
+        List<Integer> moves = new ArrayList<>();
+        Position position = Position.START;
+
+        if (!openings.isEmpty()) {
+            for (String text : openings.get(opening % openings.size()).moves()) {
+                int move = PgnReader.parseMove(position, text);
+                moves.add(move);
+                position = position.play(move);
+            }
+            return moves;
+        }
+
+        // The same number gives the same opening, so both games of a pair start alike
+        Random random = new Random(seed * 31 + opening);
+        int[] legal = new int[MoveGenerator.MAX_MOVES];
+        for (int i = 0; i < randomPlies; i++) {
+            int count = MoveGenerator.legalMoves(position, legal);
+            if (count == 0) break;
+            int move = legal[random.nextInt(count)];
+            moves.add(move);
+            position = position.play(move);
+        }
+        return moves;
+    }
+
+    /**
+     * Plays a move on the board.
+     *
+     * @param engine the game
+     * @param move the move
+     * @return true if the board accepted the move
+     */
+    private static boolean play(CEngine engine, int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        return engine.move(Position.row(from), Position.col(from), Position.row(to), Position.col(to), Move.promotion(move));
+    }
+
+    /**
+     * Appends a move and its number to the moves of a game.
+     *
+     * @param movetext the moves of the game
+     * @param ply the number of the move, from 0
+     * @param position the position before the move
+     * @param move the move
+     */
+    private static void appendMove(List<String> movetext, int ply, Position position, int move) {
+        if (ply % 2 == 0) movetext.add((ply / 2 + 1) + ".");
+        movetext.add(San.format(position, move));
+    }
+
+    /**
+     * Checks if neither player can mate: kings alone, or with a single knight or bishop.
+     *
+     * @param position the position
+     * @return true if no mate is possible
+     */
+    private static boolean insufficientMaterial(Position position) {
+        int minors = 0;
+        for (int square = 0; square < Position.SIZE * Position.SIZE; square++) {
+            byte piece = position.pieceAt(square);
+            if (piece == Position.EMPTY) continue;
+
+            PieceType type = Position.type(piece);
+            if (type == PieceType.KNIGHT || type == PieceType.BISHOP) {
+                minors++;
+            } else if (type != PieceType.KING) {
+                return false;
+            }
+        }
+        return minors <= 1;
+    }
+
+    /**
+     * Creates a player from its description.
+     *
+     * @param name the name of the player
+     * @param spec the description, e.g. "depth=4" or "depth=64,nodes=20000"
+     * @return the player
+     * @throws IllegalArgumentException if the description is not valid
+     */
+    private static AiPlayer player(String name, String spec) {
+        int depth = Searcher.MAX_PLY;
+        long nodes = Long.MAX_VALUE;
+        for (String option : spec.split(",")) {
+            String[] pair = option.strip().split("=", 2);
+            if (pair.length != 2) throw new IllegalArgumentException("Invalid player: " + spec);
+            switch (pair[0]) {
+                case "depth" -> depth = Integer.parseInt(pair[1]);
+                case "nodes" -> nodes = Long.parseLong(pair[1]);
+                default -> throw new IllegalArgumentException("Unknown player option " + pair[0] + " in " + spec);
+            }
+        }
+        return new AiPlayer(name + " (" + spec + ")", Evaluator.DEFAULT, depth, nodes);
+    }
+}
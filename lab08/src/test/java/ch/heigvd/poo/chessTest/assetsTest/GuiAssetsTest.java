@@ -0,0 +1,52 @@
+package ch.heigvd.poo.chessTest.assetsTest;
+
+import ch.heigvd.poo.chess.PieceType;
+import ch.heigvd.poo.chess.PlayerColor;
+import ch.heigvd.poo.chess.assets.GuiAssets;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GuiAssetsTest {
+
+    @Test
+    @DisplayName("test the atlas gives a sprite per piece, and the icons are scaled once per size")
+    public void testLoad() throws IOException {
+        BufferedImage[] sprites = GuiAssets.loadAtlas("images/pieces.png");
+        assertEquals(PieceType.values().length * PlayerColor.values().length, sprites.length);
+        for (BufferedImage sprite : sprites) {
+            assertEquals(GuiAssets.SPRITE_SIZE, sprite.getWidth());
+            assertEquals(GuiAssets.SPRITE_SIZE, sprite.getHeight());
+        }
+
+        BufferedImage scaled = GuiAssets.sprite(PieceType.KING, PlayerColor.WHITE, 30);
+        assertEquals(30, scaled.getWidth());
+        assertEquals(30, scaled.getHeight());
+        ImageIcon icon = GuiAssets.icon(PieceType.KING, PlayerColor.WHITE, 30);
+        assertSame(scaled, icon.getImage(), "the icons of a size should be shared");
+        assertNotSame(icon, GuiAssets.icon(PieceType.KING, PlayerColor.BLACK, 30), "each piece should have its icon");
+    }
+
+    @Test
+    @DisplayName("test the icons of the sizes no longer asked are dropped")
+    public void testCacheIsBounded() {
+        ImageIcon first = GuiAssets.icon(PieceType.QUEEN, PlayerColor.BLACK, 20);
+        assertSame(first, GuiAssets.icon(PieceType.QUEEN, PlayerColor.BLACK, 20));
+
+        // As a window being resized, one size per step
+        for (int size = 100; size < 200; size++) GuiAssets.icon(PieceType.QUEEN, PlayerColor.BLACK, size);
+        assertNotSame(first, GuiAssets.icon(PieceType.QUEEN, PlayerColor.BLACK, 20), "the first size should have been dropped");
+    }
+
+    @Test
+    @DisplayName("test a missing atlas is reported instead of giving no pieces")
+    public void testMissingAtlas() {
+        IOException e = assertThrows(IOException.class, () -> GuiAssets.loadAtlas("images/missing.png"));
+        assertTrue(e.getMessage().contains("images/missing.png"), "the message should name the atlas");
+    }
+}
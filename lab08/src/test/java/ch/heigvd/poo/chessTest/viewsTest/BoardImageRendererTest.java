@@ -0,0 +1,128 @@
+package ch.heigvd.poo.chessTest.viewsTest;
+
+import ch.heigvd.poo.chess.views.image.BoardImageRenderer;
+import ch.heigvd.poo.chess.views.image.ImageView;
+import ch.heigvd.poo.engine.CEngine;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoardImageRendererTest {
+    private static final int SQUARE = 16;
+
+    /**
+     * Checks if a square of two images has the same pixels.
+     *
+     * @param a the first image
+     * @param b the second image
+     * @param x the column of the square
+     * @param y the line of the square, the first one being at the bottom of the image
+     * @return true if every pixel of the square is the same
+     */
+    private static boolean sameSquare(BufferedImage a, BufferedImage b, int x, int y) {
+        for (int px = x * SQUARE; px < (x + 1) * SQUARE; px++)
+            for (int py = (7 - y) * SQUARE; py < (8 - y) * SQUARE; py++)
+                if (a.getRGB(px, py) != b.getRGB(px, py)) return false;
+        return true;
+    }
+
+    /**
+     * Replays e2e4 and returns the frames of the view.
+     *
+     * @return the frames of the new game and of the move
+     */
+    private static List<BufferedImage[]> playE4() {
+        try (CEngine engine = new CEngine()) {
+            ImageView view = new ImageView(engine, SQUARE);
+            engine.start(view);
+            engine.newGame();
+            assertTrue(engine.move(4, 1, 4, 3), "e2e4 should be accepted");
+            return view.frames();
+        }
+    }
+
+    @Test
+    @DisplayName("test the squares of a known position are drawn with their colour and piece")
+    public void testRender() {
+        List<BufferedImage[]> frames = playE4();
+        BoardImageRenderer renderer = new BoardImageRenderer(SQUARE);
+        assertEquals(8 * SQUARE, renderer.boardSize());
+
+        BufferedImage start = copy(renderer.render(frames.get(0)));
+        BufferedImage e4 = renderer.render(frames.get(frames.size() - 1));
+        assertEquals(8 * SQUARE, e4.getWidth());
+        assertEquals(8 * SQUARE, e4.getHeight());
+
+        // a3 is an empty dark square, b3 an empty light one, both with the 8th line at the top of the image
+        assertEquals(Color.GRAY.getRGB(), e4.getRGB(SQUARE / 2, 5 * SQUARE + SQUARE / 2));
+        assertEquals(Color.WHITE.getRGB(), e4.getRGB(SQUARE + SQUARE / 2, 5 * SQUARE + SQUARE / 2));
+
+        for (int x = 0; x < 8; x++) {
+            for (int y = 0; y < 8; y++) {
+                boolean moved = x == 4 && (y == 1 || y == 3);
+                assertEquals(!moved, sameSquare(start, e4, x, y), "only e2 and e4 should change, not " + x + "," + y);
+            }
+        }
+        // The pawn has left e2 for e4, both light squares
+        assertEquals(Color.WHITE.getRGB(), e4.getRGB(4 * SQUARE + SQUARE / 2, 6 * SQUARE + SQUARE / 2));
+        assertTrue(sameSquare(start, shift(e4), 4, 1), "the pawn on e4 should be drawn as it was on e2");
+    }
+
+    @Test
+    @DisplayName("test the frames are written as PNG files, alone or on a contact sheet")
+    public void testWrite() throws IOException {
+        List<BufferedImage[]> frames = playE4();
+        BoardImageRenderer renderer = new BoardImageRenderer(SQUARE);
+
+        Path png = Files.createTempFile("frame", ".png");
+        png.toFile().deleteOnExit();
+        renderer.writePng(frames.get(frames.size() - 1), png);
+        BufferedImage read = ImageIO.read(png.toFile());
+        BufferedImage drawn = renderer.render(frames.get(frames.size() - 1));
+        for (int x = 0; x < 8; x++)
+            for (int y = 0; y < 8; y++)
+                assertTrue(sameSquare(drawn, read, x, y), "the PNG should hold the drawn frame");
+
+        Path sheet = Files.createTempFile("sheet", ".png");
+        sheet.toFile().deleteOnExit();
+        renderer.writeContactSheet(List.of(frames.get(0), frames.get(0), frames.get(0)), 2, sheet);
+        read = ImageIO.read(sheet.toFile());
+        assertEquals(2 * renderer.boardSize(), read.getWidth(), "two thumbnails per line");
+        assertEquals(2 * renderer.boardSize(), read.getHeight(), "three thumbnails on two lines");
+    }
+
+    /**
+     * Copies an image, since the renderer reuses its own.
+     *
+     * @param image the image
+     * @return the copy
+     */
+    private static BufferedImage copy(BufferedImage image) {
+        BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), image.getType());
+        copy.setData(image.getData());
+        return copy;
+    }
+
+    /**
+     * Moves an image two squares down, so e4 is drawn where e2 is.
+     *
+     * @param image the image
+     * @return the moved image
+     */
+    private static BufferedImage shift(BufferedImage image) {
+        BufferedImage shifted = new BufferedImage(image.getWidth(), image.getHeight(), image.getType());
+        Graphics2D g = shifted.createGraphics();
+        g.drawImage(image, 0, 2 * SQUARE, null);
+        g.dispose();
+        return shifted;
+    }
+}
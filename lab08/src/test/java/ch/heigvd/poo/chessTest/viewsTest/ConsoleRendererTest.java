@@ -0,0 +1,91 @@
+package ch.heigvd.poo.chessTest.viewsTest;
+
+import ch.heigvd.poo.chess.views.console.ConsoleRenderer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsoleRendererTest {
+
+    /**
+     * Builds the cells of the starting position, indexed by column then line as in the console view.
+     *
+     * @return the cells, white in capital letters
+     */
+    private static String[][] start() {
+        String[][] cells = new String[8][8];
+        String pieces = "RNBQKBNR";
+        for (int x = 0; x < 8; x++) {
+            cells[x][0] = String.valueOf(pieces.charAt(x));
+            cells[x][1] = "P";
+            for (int y = 2; y < 6; y++) cells[x][y] = " ";
+            cells[x][6] = "p";
+            cells[x][7] = String.valueOf(pieces.charAt(x)).toLowerCase();
+        }
+        return cells;
+    }
+
+    @Test
+    @DisplayName("test the whole board is printed once, and only again when it changes")
+    public void testFull() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ConsoleRenderer renderer = new ConsoleRenderer(ConsoleRenderer.Mode.FULL, new PrintStream(bytes, true, StandardCharsets.UTF_8));
+        String[][] cells = start();
+
+        renderer.render(cells);
+        assertEquals("""
+                8 |r n b q k b n r\s
+                7 |p p p p p p p p\s
+                6 |               \s
+                5 |               \s
+                4 |               \s
+                3 |               \s
+                2 |P P P P P P P P\s
+                1 |R N B Q K B N R\s
+                -------------------
+                   A B C D E F G H\s
+                """, bytes.toString(StandardCharsets.UTF_8));
+
+        bytes.reset();
+        renderer.render(start());
+        assertEquals(0, bytes.size(), "an unchanged board should not be printed again");
+
+        // e2e4
+        cells[4][1] = " ";
+        cells[4][3] = "P";
+        renderer.render(cells);
+        assertTrue(bytes.toString(StandardCharsets.UTF_8).contains("4 |        P       \n"), "the pawn should be on e4");
+    }
+
+    @Test
+    @DisplayName("test only the changed cells are redrawn on an ANSI terminal")
+    public void testAnsiDiff() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ConsoleRenderer renderer = new ConsoleRenderer(ConsoleRenderer.Mode.ANSI_DIFF, new PrintStream(bytes, true, StandardCharsets.UTF_8));
+        String[][] cells = start();
+        renderer.render(cells);
+        assertTrue(bytes.toString(StandardCharsets.UTF_8).startsWith("\u001B[2J\u001B[H8 |r n b q k b n r \n"),
+                "the first frame should clear the screen and draw the board at the top");
+
+        bytes.reset();
+        // e2e4: e2 is on the 7th line of the screen and e4 on the 5th, the cells of the column E start at column 12
+        cells[4][1] = " ";
+        cells[4][3] = "P";
+        renderer.render(cells);
+        assertEquals("\u001B7\u001B[7;12H \u001B[5;12HP\u001B8", bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("test the quiet mode prints nothing")
+    public void testQuiet() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ConsoleRenderer renderer = new ConsoleRenderer(ConsoleRenderer.Mode.QUIET, new PrintStream(bytes, true, StandardCharsets.UTF_8));
+        renderer.render(start());
+        assertEquals(0, bytes.size());
+    }
+}
@@ -1,291 +1,292 @@
 package ch.heigvd.poo.engineTest.boardTest;
 
+import ch.heigvd.poo.chess.PieceType;
 import ch.heigvd.poo.chess.PlayerColor;
 import ch.heigvd.poo.engine.board.GBoard;
 import ch.heigvd.poo.engine.board.GCell;
-import ch.heigvd.poo.engine.listeners.EObserver;
+import ch.heigvd.poo.engine.moves.MoveGenerator;
 import ch.heigvd.poo.engine.pieces.*;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-class BoardTest implements EObserver {
+class BoardTest {
     PlayerColor white = PlayerColor.WHITE;
     PlayerColor black = PlayerColor.BLACK;
 
+    /**
+     * A piece and the cell to put it on
+     *
+     * @param piece the piece
+     * @param cell  the cell
+     */
+    record Placed(Piece piece, GCell cell) {
+    }
+
+    /**
+     * Function that gives a piece to put on a custom board
+     *
+     * @param type  the type of the piece
+     * @param color the color of the piece
+     * @param row   the row of its cell
+     * @param col   the column of its cell
+     * @return the piece with its cell
+     */
+    public Placed at(PieceType type, PlayerColor color, int row, int col) {
+        return new Placed(Piece.of(type, color), new GCell(row, col));
+    }
+
     /**
      * Function that create a custom board depending on the test
      *
      * @param board  the board to fill
      * @param pieces the pieces to add
      */
-    public void createCustomBoard(GBoard board, Piece... pieces) {
+    public void createCustomBoard(GBoard board, Placed... pieces) {
         board.initBoard();
         board.clearBoard();
 
-        for (Piece piece : pieces)
-            board.addPiece(piece);
+        for (Placed placed : pieces)
+            board.addPiece(placed.piece(), placed.cell());
     }
 
     @Test
     @DisplayName("test if the board correctly moves a piece")
     public void testMove() {
-        GBoard board = new GBoard(this);
+        GBoard board = new GBoard();
         GCell from = new GCell(1, 1);
         GCell to = new GCell(2, 2);
-        Queen queen = new Queen(white, from);
-        createCustomBoard(board, queen);
+        Piece queen = Piece.of(PieceType.QUEEN, white);
+        createCustomBoard(board, new Placed(queen, from));
 
-        board.move(queen.getCell().getRow(), queen.getCell().getCol(), to.getRow(), to.getCol(), white);
-        assertNotEquals(queen.getCell(), from, "the piece should have moved");
-        assertEquals(queen.getCell(), to, "the piece should have moved to the new cell");
+        board.move(from.getRow(), from.getCol(), to.getRow(), to.getCol(), white);
+        assertNull(board.getPiece(from), "the piece should have moved");
+        assertSame(queen, board.getPiece(to), "the piece should have moved to the new cell");
     }
 
     @Test
     @DisplayName("test if addPiece() adds a piece to the board")
     public void testAddPiece() {
-        GBoard board = new GBoard(this);
-        Pawn pawn = new Pawn(white, new GCell(0, 0), board);
-        createCustomBoard(board, pawn);
-        assertEquals(board.getBoard().get(new GCell(0, 0)), pawn, "the piece should have been added to the board");
+        GBoard board = new GBoard();
+        Piece pawn = Piece.of(PieceType.PAWN, white);
+        createCustomBoard(board, new Placed(pawn, new GCell(0, 0)));
+        assertSame(pawn, board.getPiece(new GCell(0, 0)), "the piece should have been added to the board");
     }
 
     @Test
     @DisplayName("test if removePiece() removes a piece from the board")
     public void testRemovePiece() {
-        GBoard board = new GBoard(this);
-        Pawn pawn = new Pawn(white, new GCell(0, 0), board);
-        createCustomBoard(board, pawn);
-        board.removePiece(pawn.getCell());
-        assertNull(board.getBoard().get(new GCell(0, 0)), "the piece should have been removed from the board");
+        GBoard board = new GBoard();
+        createCustomBoard(board, at(PieceType.PAWN, white, 0, 0));
+        board.removePiece(new GCell(0, 0));
+        assertNull(board.getPiece(new GCell(0, 0)), "the piece should have been removed from the board");
+    }
+
+    @Test
+    @DisplayName("test if the pieces are shared between the cells and the boards")
+    public void testSharedPieces() {
+        GBoard board = new GBoard();
+        board.initBoard();
+
+        // Every piece of a type and a color is the same object, whatever its cell or its board
+        assertSame(board.getPiece(new GCell(0, 1)), board.getPiece(new GCell(7, 1)), "the white pawns should be the same piece");
+        assertSame(Piece.of(PieceType.ROOK, black), board.getPiece(new GCell(0, 7)), "the black rooks should be the same piece");
+        assertNotSame(board.getPiece(new GCell(0, 1)), board.getPiece(new GCell(0, 6)), "a white and a black pawn should be different pieces");
     }
 
 
     @Test
     @DisplayName("test if clear() removes all pieces from the board")
     public void testClear() {
-        GBoard board = new GBoard(this);
-        Piece piece1 = new Rook(white, new GCell(0, 0));
-        Piece piece2 = new Rook(white, new GCell(1, 1));
-        createCustomBoard(board, piece1, piece2);
+        GBoard board = new GBoard();
+        Piece rook = Piece.of(PieceType.ROOK, white);
+        createCustomBoard(board, new Placed(rook, new GCell(0, 0)), new Placed(rook, new GCell(1, 1)));
 
         //check if the pieces are on the board
-        assertEquals(board.getBoard().get(new GCell(0, 0)), piece1, "the piece should have been added to the board");
-        assertEquals(board.getBoard().get(new GCell(1, 1)), piece2, "the piece should have been added to the board");
+        assertSame(rook, board.getPiece(new GCell(0, 0)), "the piece should have been added to the board");
+        assertSame(rook, board.getPiece(new GCell(1, 1)), "the piece should have been added to the board");
 
         board.clearBoard();
         //check if the pieces are removed from the board
-        assertNull(board.getBoard().get(new GCell(0, 0)), "the piece should have been removed from the board");
-        assertNull(board.getBoard().get(new GCell(1, 1)), "the piece should have been removed from the board");
+        assertNull(board.getPiece(new GCell(0, 0)), "the piece should have been removed from the board");
+        assertNull(board.getPiece(new GCell(1, 1)), "the piece should have been removed from the board");
     }
 
     @Test
-    @DisplayName("test isCheck() returns true if the king is in check")
+    @DisplayName("test the king is in check when attacked")
     public void testIsCheck() {
-        GBoard board = new GBoard(this);
-        King king = new King(white, new GCell(0, 0), board.getBoard(), board);
-        Queen queen = new Queen(PlayerColor.BLACK, new GCell(1, 1));
-        createCustomBoard(board, king, queen);
+        GBoard board = new GBoard();
+        createCustomBoard(board, at(PieceType.KING, white, 0, 0), at(PieceType.QUEEN, black, 1, 1));
 
-        assertTrue(king.isCheck(), "the king should be in check");
+        assertTrue(MoveGenerator.inCheck(board.position(white)), "the king should be in check");
     }
 
     @Test
-    @DisplayName("test isCheck() returns false if the king is not in check")
+    @DisplayName("test the king is not in check when not attacked")
     public void testIsCheckFalse() {
-        GBoard board = new GBoard(this);
-        King king = new King(white, new GCell(0, 0), board.getBoard(), board);
-        Queen queen = new Queen(PlayerColor.BLACK, new GCell(1, 2));
-        createCustomBoard(board, king, queen);
+        GBoard board = new GBoard();
+        createCustomBoard(board, at(PieceType.KING, white, 0, 0), at(PieceType.QUEEN, black, 1, 2));
 
-        assertFalse(king.isCheck(), "the king should not be in check");
+        assertFalse(MoveGenerator.inCheck(board.position(white)), "the king should not be in check");
     }
 
     @Test
     @DisplayName("test if a piece checks only a piece of the opposite color")
     public void testIsCheckOnlyOppositeColor() {
-        GBoard board = new GBoard(this);
+        GBoard board = new GBoard();
         GCell from = new GCell(1, 1);
         GCell checkable = new GCell(2, 2);
-        Bishop whiteBishop = new Bishop(black, from);
-        Bishop blackBishop = new Bishop(white, checkable);
-        createCustomBoard(board, whiteBishop, blackBishop);
+        createCustomBoard(board, at(PieceType.BISHOP, black, 1, 1), at(PieceType.BISHOP, white, 2, 2));
 
         //checks if the bishop can move to the cell
-        assertTrue(board.move(whiteBishop.getCell().getRow(), whiteBishop.getCell().getCol(), checkable.getRow(), checkable.getCol(), whiteBishop.getColor()), "the bishop should be able to move to the cell because the cell is occupied by a piece of the opposite color");
+        assertTrue(board.move(from.getRow(), from.getCol(), checkable.getRow(), checkable.getCol(), black), "the bishop should be able to move to the cell because the cell is occupied by a piece of the opposite color");
 
         GCell notCheckable = new GCell(3, 3);
-        Bishop whiteBishop2 = new Bishop(white, from);
-        Bishop notCheckableBishop = new Bishop(white, notCheckable);
-        createCustomBoard(board, whiteBishop2, notCheckableBishop);
+        createCustomBoard(board, at(PieceType.BISHOP, white, 1, 1), at(PieceType.BISHOP, white, 3, 3));
 
         //checks if the bishop cannot move to the cell
-        assertFalse(board.move(whiteBishop2.getCell().getRow(), whiteBishop2.getCell().getCol(), notCheckable.getRow(), notCheckable.getCol(), whiteBishop2.getColor()), "the bishop should not be able to move to the cell because the cell is occupied by a piece of the same color");
+        assertFalse(board.move(from.getRow(), from.getCol(), notCheckable.getRow(), notCheckable.getCol(), white), "the bishop should not be able to move to the cell because the cell is occupied by a piece of the same color");
 
     }
 
     @Test
     @DisplayName("test if the bishop correctly moves")
     public void testBishopLegalMove() {
-        GBoard board = new GBoard(this);
-        GCell from = new GCell(1, 1);
+        GBoard board = new GBoard();
         GCell to = new GCell(2, 2);
-        Bishop whiteBishop = new Bishop(white, new GCell(1, 1));
 
-        createCustomBoard(board, whiteBishop);
-        assertTrue(board.move(whiteBishop.getCell().getRow(), whiteBishop.getCell().getCol(), to.getRow(), to.getCol(), whiteBishop.getColor()), "the bishop should be able to move diagonally");
+        createCustomBoard(board, at(PieceType.BISHOP, white, 1, 1));
+        assertTrue(board.move(1, 1, to.getRow(), to.getCol(), white), "the bishop should be able to move diagonally");
 
-        GCell from2 = new GCell(3, 3);
         GCell to2 = new GCell(0, 6);
-        Bishop whiteBishop2 = new Bishop(white, from2);
 
-        createCustomBoard(board, whiteBishop2);
-        assertTrue(board.move(whiteBishop2.getCell().getRow(), whiteBishop2.getCell().getCol(), to2.getRow(), to2.getCol(), whiteBishop2.getColor()), "the bishop should be able to move diagonally");
+        createCustomBoard(board, at(PieceType.BISHOP, white, 3, 3));
+        assertTrue(board.move(3, 3, to2.getRow(), to2.getCol(), white), "the bishop should be able to move diagonally");
 
     }
 
     @Test
     @DisplayName("test if the bishop cannot move horizontally or vertically")
     public void testBishopIllegalMove() {
-        GBoard board = new GBoard(this);
-        Bishop whiteBishop = new Bishop(white, new GCell(1, 1));
-        createCustomBoard(board, whiteBishop);
+        GBoard board = new GBoard();
+        createCustomBoard(board, at(PieceType.BISHOP, white, 1, 1));
 
         //white bishop
         //horizontal move
-        assertFalse(board.move(whiteBishop.getCell().getRow(), whiteBishop.getCell().getCol(), 2, 1, whiteBishop.getColor()), "the bishop should not be able to move horizontally");
+        assertFalse(board.move(1, 1, 2, 1, white), "the bishop should not be able to move horizontally");
         //vertical move
-        assertFalse(board.move(whiteBishop.getCell().getRow(), whiteBishop.getCell().getCol(), 1, 2, whiteBishop.getColor()), "the bishop should not be able to move vertically");
+        assertFalse(board.move(1, 1, 1, 2, white), "the bishop should not be able to move vertically");
 
     }
 
     @Test
     @DisplayName("test pieces between moves")
     public void testBishopPiecesBetweenMoves() {
-        GBoard board = new GBoard(this);
-        GCell from = new GCell(1, 1);
-        GCell between = new GCell(2, 2);
+        GBoard board = new GBoard();
         GCell to = new GCell(3, 3);
-        Bishop whiteBishop = new Bishop(white, from);
-        Bishop blackBishop = new Bishop(black, between);
 
-        createCustomBoard(board, whiteBishop, blackBishop);
+        createCustomBoard(board, at(PieceType.BISHOP, white, 1, 1), at(PieceType.BISHOP, black, 2, 2));
 
         // Test that white bishop cannot move over black bishop
-        assertFalse(board.move(whiteBishop.getCell().getRow(), whiteBishop.getCell().getCol(), to.getRow(), to.getCol(), whiteBishop.getColor()), "white bishop cannot move because there is a piece between the two cells")
-        ;
+        assertFalse(board.move(1, 1, to.getRow(), to.getCol(), white), "white bishop cannot move because there is a piece between the two cells");
     }
 
     @Test
     @DisplayName("test if the knight correctly moves")
     public void testKnightLegalMove() {
-        GBoard board = new GBoard(this);
-        Knight whiteKnight = new Knight(white, new GCell(2, 7));
-        Knight blackKnight = new Knight(black, new GCell(1, 1));
-        createCustomBoard(board, whiteKnight, blackKnight);
+        GBoard board = new GBoard();
+        createCustomBoard(board, at(PieceType.KNIGHT, white, 2, 7), at(PieceType.KNIGHT, black, 1, 1));
 
         // Test valid L-shaped move for knight
         //white knight
-        assertTrue(board.move(whiteKnight.getCell().getRow(), whiteKnight.getCell().getCol(), 4, 6, whiteKnight.getColor()), "The white Knight did a legal move");
+        assertTrue(board.move(2, 7, 4, 6, white), "The white Knight did a legal move");
         //black knight
-        assertTrue(board.move(blackKnight.getCell().getRow(), blackKnight.getCell().getCol(), 0, 3, blackKnight.getColor()), "The black Knight did a legal move");
+        assertTrue(board.move(1, 1, 0, 3, black), "The black Knight did a legal move");
     }
 
     @Test
     @DisplayName("test if the knight did an illegal move")
     public void testKnightIllegalMove() {
-        GBoard board = new GBoard(this);
-        Knight blackKnight = new Knight(black, new GCell(1, 1));
+        GBoard board = new GBoard();
+        createCustomBoard(board, at(PieceType.KNIGHT, black, 1, 1));
 
         //horizontal move
-        assertFalse(board.move(blackKnight.getCell().getRow(), blackKnight.getCell().getCol(), 2, 1, blackKnight.getColor()), "The black Knight did an illegal move");
+        assertFalse(board.move(1, 1, 2, 1, black), "The black Knight did an illegal move");
         //vertical move
-        assertFalse(board.move(blackKnight.getCell().getRow(), blackKnight.getCell().getCol(), 1, 2, blackKnight.getColor()), "The black Knight did an illegal move");
+        assertFalse(board.move(1, 1, 1, 2, black), "The black Knight did an illegal move");
         //diagonal move
-        assertFalse(board.move(blackKnight.getCell().getRow(), blackKnight.getCell().getCol(), 2, 2, blackKnight.getColor()), "The black Knight did an illegal move");
+        assertFalse(board.move(1, 1, 2, 2, black), "The black Knight did an illegal move");
         //move of three cases
-        assertFalse(board.move(blackKnight.getCell().getRow(), blackKnight.getCell().getCol(), 4, 1, blackKnight.getColor()), "The black Knight did an illegal move");
+        assertFalse(board.move(1, 1, 4, 1, black), "The black Knight did an illegal move");
     }
 
     //Castling tests
     @Test
     @DisplayName("test if the king can castle")
     public void testValidCastling() {
-        GBoard board = new GBoard(this);
-        King king = new King(white, new GCell(4, 0), board.getBoard(), board);
-        Rook rook = new Rook(white, new GCell(7, 0));
-        GCell to = new GCell(6, 0);
-        createCustomBoard(board, king, rook);
-
-        //use castling method instead of move because the king is moved by updateCastling
+        GBoard board = new GBoard();
+        Piece king = Piece.of(PieceType.KING, white);
+        Piece rook = Piece.of(PieceType.ROOK, white);
+        createCustomBoard(board, new Placed(king, new GCell(4, 0)), new Placed(rook, new GCell(7, 0)));
 
         // Test that white king can castle (castling on the right side)
-        assertTrue(king.castling(to) && king.getCell().equals(to) && rook.getCell().equals(new GCell(5, 0)), "king should be able to move during castling");
+        assertTrue(board.move(4, 0, 6, 0, white), "king should be able to move during castling");
+        assertSame(king, board.getPiece(new GCell(6, 0)), "the king should have moved two cells");
+        assertSame(rook, board.getPiece(new GCell(5, 0)), "the rook should have moved next to the king");
 
-        Rook rook2 = new Rook(white, new GCell(0, 0));
-        King king2 = new King(white, new GCell(4, 0), board.getBoard(), board);
-        GCell to2 = new GCell(2, 0);
-        createCustomBoard(board, king2, rook2);
+        createCustomBoard(board, new Placed(king, new GCell(4, 0)), new Placed(rook, new GCell(0, 0)));
 
         // Test that white king can castle (castling on the left side)
-        assertTrue(king2.castling(to2) && king2.getCell().equals(to2) && rook2.getCell().equals(new GCell(3, 0)), "king should be able to move during castling");
+        assertTrue(board.move(4, 0, 2, 0, white), "king should be able to move during castling");
+        assertSame(king, board.getPiece(new GCell(2, 0)), "the king should have moved two cells");
+        assertSame(rook, board.getPiece(new GCell(3, 0)), "the rook should have moved next to the king");
     }
 
 
     @Test
     @DisplayName("Check if the king is in check during castling")
     public void testCastlingCheck() {
-        GBoard board = new GBoard(this);
-        Queen queen = new Queen(white, new GCell(1, 4));
-        King king = new King(black, new GCell(4, 7), board.getBoard(), board);
-        Rook rook = new Rook(black, new GCell(0, 7));
-        GCell to = new GCell(2, 7);
-
-        createCustomBoard(board, queen, king, rook);
-
-        assertFalse(king.castling(to) || king.getCell().equals(to) || rook.getCell().equals(new GCell(5, 7)), "king should not be able to castle because he is in check");
+        GBoard board = new GBoard();
+        createCustomBoard(board, at(PieceType.QUEEN, white, 1, 4), at(PieceType.KING, black, 4, 7), at(PieceType.ROOK, black, 0, 7));
 
+        assertFalse(board.move(4, 7, 2, 7, black), "king should not be able to castle because he is in check");
+        assertNotNull(board.getPiece(new GCell(4, 7)), "the king should not have moved");
+        assertNotNull(board.getPiece(new GCell(0, 7)), "the rook should not have moved");
     }
 
     @Test
     @DisplayName("Check illegal castling when the king or the rook have already moved")
     public void testMovedPiecesCastling() {
-        GBoard board = new GBoard(this);
-        GCell from = new GCell(4, 0);
-        GCell to = new GCell(6, 0);
-        King king = new King(white, from, board.getBoard(), board);
-        Rook rook = new Rook(white, new GCell(7, 0));
-        createCustomBoard(board, king, rook);
+        GBoard board = new GBoard();
+        createCustomBoard(board, at(PieceType.KING, white, 4, 0), at(PieceType.ROOK, white, 7, 0));
 
         // Test that white king cannot castle because the king has already moved
 
         // move the king
-        board.move(king.getCell().getRow(), king.getCell().getCol(), 5, 0, king.getColor());
+        board.move(4, 0, 5, 0, white);
 
         //move the king back
-        board.move(5, 0, 4, 0, king.getColor());
+        board.move(5, 0, 4, 0, white);
 
         //try to castle
-        assertFalse(king.castling(to) || king.getCell().equals(to) || rook.getCell().equals(new GCell(5, 0)), "king should not be able to castle because he has already moved");
+        assertFalse(board.move(4, 0, 6, 0, white), "king should not be able to castle because he has already moved");
+        assertNull(board.getPiece(new GCell(5, 0)), "the rook should not have moved");
 
         // Test that white king cannot castle because the rook has already moved
-        GCell to2 = new GCell(2, 0);
-        King king2 = new King(white, from, board.getBoard(), board);
-        Rook rook2 = new Rook(white, new GCell(0, 0));
-        createCustomBoard(board, king, rook);
+        createCustomBoard(board, at(PieceType.KING, white, 4, 0), at(PieceType.ROOK, white, 0, 0));
 
         // move the rook
-        board.move(rook2.getCell().getRow(), rook2.getCell().getCol(), 1, 0, rook2.getColor());
+        board.move(0, 0, 1, 0, white);
 
         //move the rook back
-        board.move(1, 0, 0, 0, rook2.getColor());
-        assertFalse(king.castling(to2) || king2.getCell().equals(to2) || rook2.getCell().equals(new GCell(3, 0)), "king should not be able to castle because the rook has already moved");
+        board.move(1, 0, 0, 0, white);
+        assertFalse(board.move(4, 0, 2, 0, white), "king should not be able to castle because the rook has already moved");
+        assertNull(board.getPiece(new GCell(3, 0)), "the rook should not have moved");
 
         // Test that white king cannot castle because there is a piece between the king and the rook
-        Queen queen = new Queen(white, new GCell(5, 0));
-        createCustomBoard(board, king, rook, queen);
-        assertFalse(king.castling(to), "king should not be able to castle because there is a piece between the king and the rook");
+        createCustomBoard(board, at(PieceType.KING, white, 4, 0), at(PieceType.ROOK, white, 7, 0), at(PieceType.QUEEN, white, 5, 0));
+        assertFalse(board.move(4, 0, 6, 0, white), "king should not be able to castle because there is a piece between the king and the rook");
 
 
     }
@@ -293,58 +294,51 @@ class BoardTest implements EObserver {
     @Test
     @DisplayName("Check pieces between the king and the rook during castling")
     public void testPiecesBetweenCastling() {
-        GBoard board = new GBoard(this);
-        GCell to = new GCell(6, 0);
-        GCell to2 = new GCell(2, 0);
-        King king = new King(white, new GCell(4, 0), board.getBoard(), board);
-        Rook rookRight = new Rook(white, new GCell(7, 0));
-        Rook rookLeft = new Rook(white, new GCell(0, 0));
-        Knight knight = new Knight(white, new GCell(5, 0));
-        Knight knight2 = new Knight(white, new GCell(1, 0));
-        createCustomBoard(board, king, rookRight, rookLeft, knight, knight2);
+        GBoard board = new GBoard();
+        createCustomBoard(board, at(PieceType.KING, white, 4, 0), at(PieceType.ROOK, white, 7, 0), at(PieceType.ROOK, white, 0, 0),
+                at(PieceType.KNIGHT, white, 5, 0), at(PieceType.KNIGHT, white, 1, 0));
 
         // Test that white king cannot castle because there is a piece between the king and the rook
-        assertFalse(king.castling(to) || king.getCell().equals(to) || rookRight.getCell().equals(new GCell(5, 0)), "king should not be able to castle because there is a piece between the king and the rook");
+        assertFalse(board.move(4, 0, 6, 0, white), "king should not be able to castle because there is a piece between the king and the rook");
 
         // Test that white king cannot castle because there is a piece between the king and the rook
-        assertFalse(king.castling(to2) || king.getCell().equals(to2) || rookLeft.getCell().equals(new GCell(3, 0)), "king should not be able to castle because there is a piece between the king and the rook");
+        assertFalse(board.move(4, 0, 2, 0, white), "king should not be able to castle because there is a piece between the king and the rook");
+        assertSame(Piece.of(PieceType.KING, white), board.getPiece(new GCell(4, 0)), "the king should not have moved");
     }
 
 
     @Test
     @DisplayName("test if the queen correctly moves")
     public void testQueenLegalMove() {
-        GBoard board = new GBoard(this);
+        GBoard board = new GBoard();
 
-        Queen whiteQueen = new Queen(white, new GCell(4, 4));
-
-        createCustomBoard(board, whiteQueen);
+        createCustomBoard(board, at(PieceType.QUEEN, white, 4, 4));
 
         // Test valid diagonal move for queen
-        assertTrue(board.move(whiteQueen.getCell().getRow(), whiteQueen.getCell().getCol(), 5, 5, whiteQueen.getColor()), "Queen : Legal move");
-        assertTrue(board.move(5, 5, 7, 3, whiteQueen.getColor()), "Queen : Legal move");
+        assertTrue(board.move(4, 4, 5, 5, white), "Queen : Legal move");
+        assertTrue(board.move(5, 5, 7, 3, white), "Queen : Legal move");
 
         // Test valid horizontal move for queen
-        assertTrue(board.move(whiteQueen.getCell().getRow(), whiteQueen.getCell().getCol(), 1, 3, whiteQueen.getColor()), "Queen : Legal move");
+        assertTrue(board.move(7, 3, 1, 3, white), "Queen : Legal move");
 
         // Test valid vertical move for queen
         //white queen
-        assertTrue(board.move(whiteQueen.getCell().getRow(), whiteQueen.getCell().getCol(), 1, 1, whiteQueen.getColor()), "Queen : Legal move");
+        assertTrue(board.move(1, 3, 1, 1, white), "Queen : Legal move");
     }
 
     @Test
     @DisplayName("test if the queen did illegal moves")
     public void testQueenIllegalMove() {
-        GBoard board = new GBoard(this);
+        GBoard board = new GBoard();
 
-        Queen whiteQueen = new Queen(white, new GCell(2, 2));
+        createCustomBoard(board, at(PieceType.QUEEN, white, 2, 2));
 
         // Test invalid move for queen
         //move right and up
-        assertFalse(board.move(whiteQueen.getCell().getRow(), whiteQueen.getCell().getCol(), 3, 4, whiteQueen.getColor()), "Queen : Illegal move");
+        assertFalse(board.move(2, 2, 3, 4, white), "Queen : Illegal move");
 
         //move left and down
-        assertFalse(board.move(whiteQueen.getCell().getRow(), whiteQueen.getCell().getCol(), 0, 1, whiteQueen.getColor()), "Queen : Illegal move");
+        assertFalse(board.move(2, 2, 0, 1, white), "Queen : Illegal move");
 
 
     }
@@ -353,17 +347,24 @@ class BoardTest implements EObserver {
     @Test
     @DisplayName("test pieces between moves for Queen")
     public void testPiecesBetweenMovesForQueen() {
-        GBoard board = new GBoard(this);
-        GCell from = new GCell(1, 1);
-        GCell between = new GCell(2, 2);
+        GBoard board = new GBoard();
         GCell to = new GCell(3, 3);
 
-        Queen whiteQueen = new Queen(white, from);
-        Knight whiteKnight = new Knight(white, between);
-        createCustomBoard(board, whiteQueen, whiteKnight);
+        createCustomBoard(board, at(PieceType.QUEEN, white, 1, 1), at(PieceType.KNIGHT, white, 2, 2));
 
         // Test that white queen cannot move to cell(3,3) because there is a piece between the two cells
-        assertFalse(board.move(whiteQueen.getCell().getRow(), whiteQueen.getCell().getCol(), to.getRow(), to.getCol(), whiteQueen.getColor()), "Queen : Illegal move");
+        assertFalse(board.move(1, 1, to.getRow(), to.getCol(), white), "Queen : Illegal move");
+    }
+
+    @Test
+    @DisplayName("test pieces between straight moves for Queen")
+    public void testPiecesBetweenStraightMovesForQueen() {
+        GBoard board = new GBoard();
+        createCustomBoard(board, at(PieceType.QUEEN, white, 1, 1), at(PieceType.KNIGHT, white, 1, 2), at(PieceType.KNIGHT, white, 2, 1));
+
+        // Test that the white queen cannot jump over a piece on its line or its column
+        assertFalse(board.move(1, 1, 1, 3, white), "Queen : Illegal move");
+        assertFalse(board.move(1, 1, 3, 1, white), "Queen : Illegal move");
     }
 
 
@@ -372,159 +373,142 @@ class BoardTest implements EObserver {
     @Test
     @DisplayName("test if the rook correctly moves")
     public void testRookLegalMove() {
-        GBoard board = new GBoard(this);
-        Rook whiteRook = new Rook(white, new GCell(0, 7));
-
-        createCustomBoard(board, whiteRook);
+        GBoard board = new GBoard();
+        createCustomBoard(board, at(PieceType.ROOK, white, 0, 7));
 
         // Test valid horizontal move for rook
         //white rook
-        assertTrue(board.move(whiteRook.getCell().getRow(), whiteRook.getCell().getCol(), 1, 7, whiteRook.getColor()), "The white rook should be able to move horizontally");
+        assertTrue(board.move(0, 7, 1, 7, white), "The white rook should be able to move horizontally");
 
         // Test valid vertical move for rook
         //white rook
-        assertTrue(board.move(whiteRook.getCell().getRow(), whiteRook.getCell().getCol(), 1, 2, whiteRook.getColor()), "The white rook should be able to move vertically");
+        assertTrue(board.move(1, 7, 1, 2, white), "The white rook should be able to move vertically");
     }
 
     @Test
     public void testRookIllegalMove() {
-        GBoard board = new GBoard(this);
-        Rook whiteRook = new Rook(white, new GCell(0, 0));
-        createCustomBoard(board, whiteRook);
+        GBoard board = new GBoard();
+        createCustomBoard(board, at(PieceType.ROOK, white, 0, 0));
 
         // Test invalid diagonal move for rook
         //white rook
-        assertFalse(board.move(whiteRook.getCell().getRow(), whiteRook.getCell().getCol(), 1, 1, whiteRook.getColor()), "white rook cannot move diagonally");
+        assertFalse(board.move(0, 0, 1, 1, white), "white rook cannot move diagonally");
 
         // Test invalid L shape move for rook
         //black rook
-        assertFalse(board.move(whiteRook.getCell().getRow(), whiteRook.getCell().getCol(), 1, 2, whiteRook.getColor()), "black rook cannot move in L shape");
+        assertFalse(board.move(0, 0, 1, 2, white), "black rook cannot move in L shape");
     }
 
     @Test
     @DisplayName("test pieces between moves for Rook")
     public void testPiecesBetweenMovesForRook() {
-        GBoard board = new GBoard(this);
+        GBoard board = new GBoard();
 
-        GCell from = new GCell(1, 1);
-        GCell between = new GCell(1, 2);
         GCell to = new GCell(1, 3);
 
-        Rook whiteRook = new Rook(white, from);
-        Pawn blackPawn = new Pawn(black, between, board);
-        createCustomBoard(board, whiteRook, blackPawn);
+        createCustomBoard(board, at(PieceType.ROOK, white, 1, 1), at(PieceType.PAWN, black, 1, 2));
 
         // Test that white rook cannot move to cell(3,1) because there is a piece between the two cells
-        assertFalse(board.move(whiteRook.getCell().getRow(), whiteRook.getCell().getCol(), to.getRow(), to.getCol(), whiteRook.getColor()), "white rook cannot move because there is a piece between the two cells");
+        assertFalse(board.move(1, 1, to.getRow(), to.getCol(), white), "white rook cannot move because there is a piece between the two cells");
     }
 
     @Test
     @DisplayName("test if the pawn correctly moves forward")
     public void testPawnLegalMove() {
-        GBoard board = new GBoard(this);
-        Pawn whitePawn = new Pawn(white, new GCell(0, 1), board);
-        createCustomBoard(board, whitePawn);
+        GBoard board = new GBoard();
+        createCustomBoard(board, at(PieceType.PAWN, white, 0, 1));
 
         // Test valid vertical move for pawn
         //white pawn
-        assertTrue(board.move(whitePawn.getCell().getRow(), whitePawn.getCell().getCol(), 0, 2, whitePawn.getColor()), "white pawn should be able to move forward");
+        assertTrue(board.move(0, 1, 0, 2, white), "white pawn should be able to move forward");
     }
 
     @Test
     @DisplayName("test if the pawn cannot move horizontally")
     public void testIllegalHorizontalMove() {
-        GBoard board = new GBoard(this);
-        Pawn whitePawn = new Pawn(white, new GCell(0, 1), board);
-        createCustomBoard(board, whitePawn);
+        GBoard board = new GBoard();
+        createCustomBoard(board, at(PieceType.PAWN, white, 0, 1));
 
         // Test invalid horizontal move for pawn
-        assertFalse(board.move(whitePawn.getCell().getRow(), whitePawn.getCell().getCol(), 0, 4, whitePawn.getColor()), "white pawn cannot move horizontally with a distance > 2");
+        assertFalse(board.move(0, 1, 0, 4, white), "white pawn cannot move horizontally with a distance > 2");
 
         //Test other invalid move
-        assertFalse(board.move(whitePawn.getCell().getRow(), whitePawn.getCell().getCol(), 1, 2, whitePawn.getColor()), "white pawn should not be able to reach this cell");
+        assertFalse(board.move(0, 1, 1, 2, white), "white pawn should not be able to reach this cell");
     }
 
     @Test
     @DisplayName("test if the pawn cannot move backwards")
     public void testPawnIllegalBackwardMove() {
-        GBoard board = new GBoard(this);
-        Pawn whitePawn = new Pawn(white, new GCell(0, 1), board);
-        createCustomBoard(board, whitePawn);
+        GBoard board = new GBoard();
+        createCustomBoard(board, at(PieceType.PAWN, white, 0, 1));
 
         // Test invalid backward move for pawn
-        assertFalse(board.move(whitePawn.getCell().getRow(), whitePawn.getCell().getCol(), 0, 0, whitePawn.getColor()), "white pawn cannot move backwards");
+        assertFalse(board.move(0, 1, 0, 0, white), "white pawn cannot move backwards");
+    }
+
+    @Test
+    @DisplayName("test if the pawn only captures on the next diagonal cells")
+    public void testPawnCapture() {
+        GBoard board = new GBoard();
+        createCustomBoard(board, at(PieceType.PAWN, white, 0, 1), at(PieceType.KNIGHT, black, 6, 2), at(PieceType.KNIGHT, black, 1, 2));
+
+        // Test that a piece on the next line but on another diagonal cannot be taken
+        assertFalse(board.move(0, 1, 6, 2, white), "white pawn cannot take a piece six cells away");
+        assertTrue(board.move(0, 1, 1, 2, white), "white pawn should take a piece on its diagonal");
     }
 
     @Test
     @DisplayName("test that pawn second move cannot move two spaces forward")
     public void testIllegalSecondMove() {
-        GBoard board = new GBoard(this);
+        GBoard board = new GBoard();
         GCell cell = new GCell(0, 1);
         GCell cell1 = new GCell(0, 3);
         GCell cell2 = new GCell(0, 5);
-        Pawn whitePawn = new Pawn(white, cell, board);
 
-        createCustomBoard(board, whitePawn);
-        board.move(whitePawn.getCell().getRow(), whitePawn.getCell().getCol(), cell1.getRow(), cell1.getCol(), whitePawn.getColor());
+        createCustomBoard(board, at(PieceType.PAWN, white, cell.getRow(), cell.getCol()));
+        board.move(cell.getRow(), cell.getCol(), cell1.getRow(), cell1.getCol(), white);
 
         // Test invalid second move for pawn
-        assertFalse(board.move(whitePawn.getCell().getRow(), whitePawn.getCell().getCol(), cell2.getRow(), cell2.getCol(), whitePawn.getColor()), "white pawn cannot move two spaces in second move");
+        assertFalse(board.move(cell1.getRow(), cell1.getCol(), cell2.getRow(), cell2.getCol(), white), "white pawn cannot move two spaces in second move");
     }
 
     @Test
     @DisplayName("test pieces between moves")
     public void testPiecesBetweenMoves() {
-        GBoard board = new GBoard(this);
-        GCell from = new GCell(0, 1);
-        GCell between = new GCell(0, 2);
+        GBoard board = new GBoard();
         GCell to = new GCell(0, 3);
 
-        Pawn whitePawn = new Pawn(white, from, board);
-        Pawn blackPawn = new Pawn(black, between, board);
-        createCustomBoard(board, whitePawn, blackPawn);
+        createCustomBoard(board, at(PieceType.PAWN, white, 0, 1), at(PieceType.PAWN, black, 0, 2));
 
         // Test invalid second move for pawn
-        assertFalse(board.move(whitePawn.getCell().getRow(), whitePawn.getCell().getCol(), to.getRow(), to.getCol(), whitePawn.getColor()), "white pawn cannot move because there is a piece between the two cells");
+        assertFalse(board.move(0, 1, to.getRow(), to.getCol(), white), "white pawn cannot move because there is a piece between the two cells");
     }
 
     @Test
     @DisplayName("Test enpassant")
     public void testEnPassant() {
-        GBoard board = new GBoard(this);
-        Pawn whitePawn = new Pawn(white, new GCell(0, 1), board);
-        Pawn blackPawn = new Pawn(black, new GCell(1, 3), board);
-
-        createCustomBoard(board, whitePawn, blackPawn);
+        GBoard board = new GBoard();
+        createCustomBoard(board, at(PieceType.PAWN, white, 0, 1), at(PieceType.PAWN, black, 1, 3));
         GCell to = new GCell(0, 2);
 
         //simulate white move forward
-        board.move(whitePawn.getCell().getRow(), whitePawn.getCell().getCol(), 0, 3, whitePawn.getColor());
+        board.move(0, 1, 0, 3, white);
 
         //test enpassant
-        assertTrue(board.move(blackPawn.getCell().getRow(), blackPawn.getCell().getCol(), to.getRow(), to.getCol(), blackPawn.getColor()), "white pawn should be able to do enpassant");
-    }
-
-    //leave empty
-    @Override
-    public void updateRemovePiece(GCell cell) {
+        assertTrue(board.move(1, 3, to.getRow(), to.getCol(), black), "white pawn should be able to do enpassant");
+        assertNull(board.getPiece(new GCell(0, 3)), "the white pawn should have been taken");
     }
 
-    @Override
-    public void updateAddPiece(Piece piece) {
-    }
-
-    @Override
-    public void updateNextTurn() {
-    }
+    @Test
+    @DisplayName("test if a pawn is promoted to the piece given with the move")
+    public void testPromotion() {
+        GBoard board = new GBoard();
+        createCustomBoard(board, at(PieceType.PAWN, white, 0, 6), at(PieceType.PAWN, white, 7, 6));
 
-    @Override
-    public Piece updatePopUp(Piece p) {
-        return null;
-    }
+        assertTrue(board.tryMove(0, 6, 0, 7, white, PieceType.KNIGHT).isAccepted(), "the pawn should reach the last line");
+        assertEquals(PieceType.KNIGHT, board.getPiece(new GCell(0, 7)).getType(), "the pawn should be a knight");
 
-    @Override
-    public void updateInCheck(PlayerColor color) {
-        String colorMsg = color == PlayerColor.WHITE ? "white" : "black";
-        System.out.println(colorMsg + " king is in check");
+        assertTrue(board.move(7, 6, 7, 7, white), "the pawn should reach the last line");
+        assertEquals(PieceType.QUEEN, board.getPiece(new GCell(7, 7)).getType(), "the pawn should be a queen by default");
     }
 }
@@ -0,0 +1,44 @@
+package ch.heigvd.poo.engineTest.boardTest;
+
+import ch.heigvd.poo.engine.board.CompactGame;
+import ch.heigvd.poo.engine.board.GBoard;
+import ch.heigvd.poo.engine.board.GCell;
+import ch.heigvd.poo.engine.board.MoveResult;
+import ch.heigvd.poo.engine.board.Position;
+import ch.heigvd.poo.engine.moves.Move;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactGameTest {
+
+    @Test
+    @DisplayName("test a compact game keeps the position and the moves played on a full board")
+    public void testCompactGame() {
+        CompactGame game = new CompactGame();
+        Position expected = Position.START;
+        assertEquals(expected, game.position(), "a new game should start from the starting position");
+
+        // e2e4, d7d5, e4d5, then e1e3 which is refused
+        for (String text : new String[]{"e2e4", "d7d5", "e4d5"}) {
+            int move = Move.parse(text);
+            assertEquals(MoveResult.ACCEPTED, game.play(move), text + " should be accepted");
+            expected = expected.play(move);
+        }
+        assertNotEquals(MoveResult.ACCEPTED, game.play(Move.parse("e1e3")), "the king cannot move two cells forward");
+
+        assertEquals(expected, game.position(), "the position should be the one after the accepted moves");
+        assertEquals(expected.enPassant(), game.position().enPassant(), "the en passant square should be kept");
+        assertArrayEquals(new int[]{Move.parse("e2e4"), Move.parse("d7d5"), Move.parse("e4d5")}, game.moves());
+
+        // The game can be rebuilt from its position and its moves, and turned back into a board
+        game.trim();
+        CompactGame copy = new CompactGame(game.position(), game.moves());
+        assertEquals(game.position(), copy.position(), "the copy should have the same position");
+        assertEquals(3, copy.moveCount(), "the copy should have the same moves");
+        GBoard board = copy.toBoard();
+        assertEquals(expected, board.snapshot(), "the board should be in the position of the game");
+        assertNull(board.getPiece(new GCell(4, 1)), "the white pawn should have left e2");
+    }
+}
@@ -0,0 +1,123 @@
+package ch.heigvd.poo.engineTest.clockTest;
+
+import ch.heigvd.poo.chess.PlayerColor;
+import ch.heigvd.poo.engine.CEngine;
+import ch.heigvd.poo.engine.board.Position;
+import ch.heigvd.poo.engine.clock.GameClock;
+import ch.heigvd.poo.engine.clock.TimingWheel;
+import ch.heigvd.poo.engine.moves.Move;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameClockTest {
+
+    @Test
+    @DisplayName("test the clock adds the increment and the wheel finds the flag fallen")
+    public void testFlagFall() throws InterruptedException {
+        try (TimingWheel wheel = new TimingWheel(1)) {
+            GameClock clock = new GameClock(wheel, 200, 1_000, 0);
+            AtomicReference<PlayerColor> fallen = new AtomicReference<>();
+            CountDownLatch flag = new CountDownLatch(1);
+            clock.onFlag(color -> {
+                fallen.set(color);
+                flag.countDown();
+            });
+
+            clock.start(PlayerColor.WHITE);
+            assertTrue(clock.press(PlayerColor.WHITE), "white should have time left");
+            assertTrue(clock.remainingNanos(PlayerColor.WHITE) > TimeUnit.MILLISECONDS.toNanos(1_000),
+                    "the increment should be added to the time of white");
+            assertThrows(IllegalStateException.class, () -> clock.press(PlayerColor.WHITE), "the time of white is stopped");
+
+            // Nobody presses: the flag of black falls after 200 ms, found by the wheel
+            assertTrue(flag.await(5, TimeUnit.SECONDS), "the flag of black should fall");
+            assertEquals(PlayerColor.BLACK, fallen.get());
+            assertEquals(PlayerColor.BLACK, clock.flagged());
+            assertEquals(0, clock.remainingNanos(PlayerColor.BLACK));
+            assertThrows(IllegalStateException.class, () -> clock.press(PlayerColor.BLACK), "the clock stops once a flag has fallen");
+            assertEquals(0, wheel.size(), "no timer should be left once the flag has fallen");
+        }
+    }
+
+    @Test
+    @DisplayName("test if a move is taken back when the time of its player is no longer running")
+    public void testMoveAfterFlag() {
+        try (TimingWheel wheel = new TimingWheel(1)) {
+            GameClock clock = new GameClock(wheel, 60_000, 0, 0);
+            try (CEngine engine = new CEngine(null, 0, clock)) {
+                engine.newGame();
+                // As if the wheel had stopped the clock between the check of the flag and the press
+                clock.stop();
+
+                int move = Move.parse("e2e4");
+                assertFalse(engine.move(Position.row(Move.from(move)), Position.col(Move.from(move)),
+                        Position.row(Move.to(move)), Position.col(Move.to(move))), "the move should be refused");
+                assertEquals(Position.START, engine.position(), "the move should be taken back");
+                assertEquals(Position.START.sideToMove(), engine.position().sideToMove(), "white should still have the move");
+                assertFalse(engine.undo(), "no move should be in the history");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("test if taking a move back and playing it again gives no time back")
+    public void testUndoCharges() throws InterruptedException {
+        try (TimingWheel wheel = new TimingWheel(1)) {
+            long initial = TimeUnit.SECONDS.toNanos(60);
+            long thinking = TimeUnit.MILLISECONDS.toNanos(100);
+            GameClock clock = new GameClock(wheel, TimeUnit.NANOSECONDS.toMillis(initial), 0, 0);
+            try (CEngine engine = new CEngine(null, 0, clock)) {
+                engine.newGame();
+                int move = Move.parse("e2e4");
+                assertTrue(engine.move(Position.row(Move.from(move)), Position.col(Move.from(move)),
+                        Position.row(Move.to(move)), Position.col(Move.to(move))));
+
+                // Black thinks, then takes the move of white back
+                Thread.sleep(TimeUnit.NANOSECONDS.toMillis(thinking));
+                assertTrue(engine.undo());
+                long black = clock.remainingNanos(PlayerColor.BLACK);
+                assertTrue(black <= initial - thinking, "the time of black should be charged");
+
+                // White thinks, then plays the move again
+                long white = clock.remainingNanos(PlayerColor.WHITE);
+                Thread.sleep(TimeUnit.NANOSECONDS.toMillis(thinking));
+                assertTrue(engine.redo());
+                assertTrue(clock.remainingNanos(PlayerColor.WHITE) <= white - thinking, "the time of white should be charged");
+                assertTrue(clock.remainingNanos(PlayerColor.BLACK) <= black, "black should get no time back");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("test the timers all expire, never before their deadline")
+    public void testTimers() throws InterruptedException {
+        try (TimingWheel wheel = new TimingWheel(1)) {
+            int timers = 1_000;
+            CountDownLatch expired = new CountDownLatch(timers);
+            AtomicLong early = new AtomicLong();
+            long start = System.nanoTime();
+            for (int i = 0; i < timers; i++) {
+                // Deadlines up to 300 ms, over several turns of the first wheel
+                long deadline = start + TimeUnit.MICROSECONDS.toNanos(i * 300L);
+                wheel.schedule(new TimingWheel.Timer() {
+                    @Override
+                    protected void expire() {
+                        if (System.nanoTime() < deadline) early.incrementAndGet();
+                        expired.countDown();
+                    }
+                }, deadline);
+            }
+
+            assertTrue(expired.await(10, TimeUnit.SECONDS), "every timer should expire");
+            assertEquals(0, early.get(), "no timer should expire before its deadline");
+            assertEquals(0, wheel.size());
+        }
+    }
+}
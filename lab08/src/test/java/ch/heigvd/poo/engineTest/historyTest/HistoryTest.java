@@ -0,0 +1,71 @@
+package ch.heigvd.poo.engineTest.historyTest;
+
+import ch.heigvd.poo.engine.CEngine;
+import ch.heigvd.poo.engine.board.Position;
+import ch.heigvd.poo.engine.listeners.EventBus;
+import ch.heigvd.poo.engine.moves.Move;
+import ch.heigvd.poo.engine.moves.MoveGenerator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoryTest {
+
+    /**
+     * Plays a legal move, picked from the position of the game.
+     *
+     * @param engine the game
+     * @param seed picks the move among the legal ones
+     */
+    private static void play(CEngine engine, int seed) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.legalMoves(engine.position(), moves);
+        int move = moves[seed % count];
+        int from = Move.from(move);
+        int to = Move.to(move);
+        assertTrue(engine.move(Position.row(from), Position.col(from), Position.row(to), Position.col(to), Move.promotion(move)));
+    }
+
+    @Test
+    @DisplayName("test the history is browsed from the keyframes, one batch of events per step")
+    public void testSeek() {
+        CEngine engine = new CEngine();
+        engine.newGame();
+        Position[] positions = new Position[41];
+        positions[0] = engine.position();
+        for (int ply = 1; ply <= 40; ply++) {
+            play(engine, ply * 7);
+            positions[ply] = engine.position();
+        }
+
+        AtomicInteger batches = new AtomicInteger();
+        engine.subscribe(events -> batches.incrementAndGet(), EventBus.Delivery.SYNC);
+
+        for (int ply : new int[]{3, 37, 16, 0, 33, 40}) {
+            int before = batches.get();
+            assertTrue(engine.seek(ply));
+            assertEquals(positions[ply], engine.position(), "the position of ply " + ply + " should be rebuilt");
+            assertEquals(ply, engine.ply());
+            assertEquals(before + 1, batches.get(), "the view should receive a single delta");
+        }
+        assertFalse(engine.redo(), "there is no move to play again at the end of the history");
+
+        assertTrue(engine.undo());
+        assertTrue(engine.undo());
+        assertEquals(positions[38], engine.position());
+        assertTrue(engine.redo());
+        assertEquals(positions[39], engine.position());
+
+        // A move played back in the history drops the moves after it
+        engine.seek(10);
+        play(engine, 1);
+        assertEquals(11, engine.plies());
+        assertFalse(engine.redo());
+        assertTrue(engine.seek(0));
+        assertEquals(positions[0], engine.position());
+        assertFalse(engine.undo(), "there is no move to take back at the start");
+    }
+}
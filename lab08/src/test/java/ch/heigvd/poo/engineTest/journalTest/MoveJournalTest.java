@@ -0,0 +1,145 @@
+package ch.heigvd.poo.engineTest.journalTest;
+
+import ch.heigvd.poo.engine.CEngine;
+import ch.heigvd.poo.engine.board.Position;
+import ch.heigvd.poo.engine.journal.MoveJournal;
+import ch.heigvd.poo.engine.metrics.MetricsRegistry;
+import ch.heigvd.poo.engine.moves.Move;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class MoveJournalTest {
+
+    /**
+     * Plays moves given in coordinate notation.
+     *
+     * @param engine the game
+     * @param moves the moves
+     */
+    private static void play(CEngine engine, String... moves) {
+        for (String text : moves) {
+            int move = Move.parse(text);
+            assertTrue(engine.move(Position.row(Move.from(move)), Position.col(Move.from(move)),
+                    Position.row(Move.to(move)), Position.col(Move.to(move))), text);
+        }
+    }
+
+    @Test
+    @DisplayName("test if the games recorded in a journal are rebuilt when it is opened again")
+    public void testRecovery() throws IOException, InterruptedException {
+        Path file = Files.createTempFile("journal", ".bin");
+        file.toFile().deleteOnExit();
+
+        Position first;
+        Position second;
+        long syncs = MetricsRegistry.global().counters().getOrDefault("journal.syncs", 0L);
+        try (MoveJournal journal = MoveJournal.open(file, 1000)) {
+            CEngine a = new CEngine(journal, journal.reserve());
+            CEngine b = new CEngine(journal, journal.reserve());
+            CEngine ended = new CEngine(journal, journal.reserve());
+            a.newGame();
+            b.newGame();
+            ended.newGame();
+            play(a, "e2e4", "e7e5", "g1f3", "b8c6");
+            play(b, "d2d4", "d7d5");
+            play(ended, "c2c4");
+            journal.end(2);
+            first = a.position();
+            second = b.position();
+            journal.sync();
+        }
+        assertEquals(syncs + 1, (long) MetricsRegistry.global().counters().get("journal.syncs"),
+                "the moves of every game should be synced together");
+
+        // A block torn by a crash is cut off
+        Files.write(file, new byte[]{0, 0, 0, 42, 1, 2, 3}, StandardOpenOption.APPEND);
+        try (MoveJournal journal = MoveJournal.open(file, 1000)) {
+            assertEquals(2, journal.recovered().size(), "the ended game should not be recovered");
+            assertEquals(3, journal.reserve(), "the numbers of the games should not be reused");
+
+            CEngine a = new CEngine(journal, 0);
+            a.replay(journal.recovered().get(0));
+            assertEquals(first, a.position());
+            CEngine b = new CEngine(journal, 1);
+            b.replay(journal.recovered().get(1));
+            assertEquals(second, b.position());
+            play(b, "c1f4");
+        }
+
+        try (MoveJournal journal = MoveJournal.open(file, 1000)) {
+            assertEquals(3, journal.recovered().get(1).length, "the replayed game should go on in the journal");
+        }
+    }
+
+    @Test
+    @DisplayName("test if a game browsed in its history is recovered at the ply it was left at")
+    public void testHistory() throws IOException, InterruptedException {
+        Path file = Files.createTempFile("journal", ".bin");
+        file.toFile().deleteOnExit();
+
+        Position taken;
+        try (MoveJournal journal = MoveJournal.open(file, 1000)) {
+            CEngine engine = new CEngine(journal, journal.reserve());
+            engine.newGame();
+            play(engine, "e2e4", "e7e5", "g1f3", "b8c6");
+            assertTrue(engine.undo());
+            assertTrue(engine.undo());
+            taken = engine.position();
+            journal.sync();
+        }
+        try (MoveJournal journal = MoveJournal.open(file, 1000)) {
+            assertEquals(2, journal.recovered().get(0).length, "the moves taken back should not be recovered");
+            CEngine engine = new CEngine(journal, 0);
+            engine.replay(journal.recovered().get(0));
+            assertEquals(taken, engine.position());
+        }
+
+        // Played again, then a move played back in the history replaces the last one
+        try (MoveJournal journal = MoveJournal.open(file, 1000)) {
+            CEngine engine = new CEngine(journal, 0);
+            engine.replay(new int[]{Move.parse("e2e4"), Move.parse("e7e5"), Move.parse("g1f3")});
+            assertTrue(engine.undo());
+            assertTrue(engine.redo());
+            assertTrue(engine.seek(2));
+            play(engine, "f1c4");
+            taken = engine.position();
+        }
+        try (MoveJournal journal = MoveJournal.open(file, 1000)) {
+            int[] moves = journal.recovered().get(0);
+            assertEquals(3, moves.length);
+            assertEquals(Move.parse("f1c4"), moves[2]);
+            CEngine engine = new CEngine(journal, 0);
+            engine.replay(moves);
+            assertEquals(taken, engine.position());
+        }
+    }
+
+    @Test
+    @DisplayName("test if a journal that cannot write a block refuses the next records")
+    public void testWriteFailure() throws IOException, InterruptedException {
+        // Every write to /dev/full fails as if the disk were full
+        Path full = Path.of("/dev/full");
+        assumeTrue(Files.isWritable(full), "/dev/full is needed to fail the writes");
+
+        MoveJournal journal = MoveJournal.open(full, 1000);
+        CompletableFuture<Void> first = journal.newGame(journal.reserve());
+        assertThrows(IOException.class, journal::sync);
+        ExecutionException failed = assertThrows(ExecutionException.class, first::get);
+        assertTrue(failed.getCause() instanceof UncheckedIOException, "the record should fail with the write");
+
+        CompletableFuture<Void> refused = journal.move(0, Move.parse("e2e4"));
+        assertTrue(refused.isCompletedExceptionally(), "a record after a lost block should be refused");
+        assertThrows(IOException.class, journal::close, "closing should report the failure");
+    }
+}
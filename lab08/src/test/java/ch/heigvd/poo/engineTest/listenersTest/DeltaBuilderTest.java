@@ -0,0 +1,82 @@
+package ch.heigvd.poo.engineTest.listenersTest;
+
+import ch.heigvd.poo.chess.BoardDelta;
+import ch.heigvd.poo.chess.PieceType;
+import ch.heigvd.poo.chess.PlayerColor;
+import ch.heigvd.poo.engine.board.GBoard;
+import ch.heigvd.poo.engine.board.GCell;
+import ch.heigvd.poo.engine.board.MoveResult;
+import ch.heigvd.poo.engine.listeners.BoardEvent;
+import ch.heigvd.poo.engine.listeners.DeltaBuilder;
+import ch.heigvd.poo.engine.listeners.EventBus;
+import ch.heigvd.poo.engine.pieces.Piece;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeltaBuilderTest {
+    PlayerColor white = PlayerColor.WHITE;
+    PlayerColor black = PlayerColor.BLACK;
+
+    /**
+     * Plays a move on a board and returns the delta of its events.
+     *
+     * @param board the board, whose setup is not part of the delta
+     * @param from the cell of the piece to move
+     * @param to the destination cell
+     * @param result the result the move should have
+     * @return the delta of the move
+     */
+    private static BoardDelta play(GBoard board, GCell from, GCell to, MoveResult result) {
+        List<BoardEvent> events = new ArrayList<>();
+        board.getEventBus().subscribe(events::addAll, EventBus.Delivery.SYNC);
+        assertEquals(result, board.tryMove(from.getRow(), from.getCol(), to.getRow(), to.getCol(),
+                PlayerColor.WHITE, PieceType.QUEEN));
+        return DeltaBuilder.build(events);
+    }
+
+    @Test
+    @DisplayName("test if a promoted pawn is not counted as captured")
+    public void testPromotion() {
+        GBoard board = new GBoard();
+        board.addPiece(Piece.of(PieceType.PAWN, white), new GCell(0, 6));
+
+        BoardDelta delta = play(board, new GCell(0, 6), new GCell(0, 7), MoveResult.ACCEPTED);
+        assertEquals(List.of(), delta.captured(), "no piece should be captured");
+        assertEquals(List.of(new BoardDelta.Square(0, 6, null, null), new BoardDelta.Square(0, 7, PieceType.QUEEN, white)),
+                delta.squares());
+    }
+
+    @Test
+    @DisplayName("test if the piece taken by a promoting pawn is counted as captured")
+    public void testPromotionCapture() {
+        GBoard board = new GBoard();
+        board.addPiece(Piece.of(PieceType.PAWN, white), new GCell(0, 6));
+        board.addPiece(Piece.of(PieceType.ROOK, black), new GCell(1, 7));
+
+        BoardDelta delta = play(board, new GCell(0, 6), new GCell(1, 7), MoveResult.ACCEPTED);
+        assertEquals(List.of(new BoardDelta.Captured(PieceType.ROOK, black)), delta.captured(),
+                "only the rook should be captured");
+        assertEquals(List.of(new BoardDelta.Square(1, 7, PieceType.QUEEN, white), new BoardDelta.Square(0, 6, null, null)),
+                delta.squares());
+    }
+
+    @Test
+    @DisplayName("test if a move rolled back by the board gives an empty delta")
+    public void testRejectedMove() {
+        GBoard board = new GBoard();
+        board.addPiece(Piece.of(PieceType.KING, white), new GCell(4, 0));
+        board.addPiece(Piece.of(PieceType.ROOK, white), new GCell(4, 1));
+        board.addPiece(Piece.of(PieceType.ROOK, black), new GCell(4, 7));
+        board.addPiece(Piece.of(PieceType.KNIGHT, black), new GCell(5, 1));
+
+        // The pinned rook takes the knight, leaving its king in check
+        BoardDelta delta = play(board, new GCell(4, 1), new GCell(5, 1), MoveResult.KING_IN_CHECK);
+        assertTrue(delta.isEmpty(), "the rolled back move should change nothing");
+        assertEquals(List.of(), delta.captured());
+    }
+}
@@ -0,0 +1,197 @@
+package ch.heigvd.poo.engineTest.listenersTest;
+
+import ch.heigvd.poo.chess.PieceType;
+import ch.heigvd.poo.chess.PlayerColor;
+import ch.heigvd.poo.engine.board.GBoard;
+import ch.heigvd.poo.engine.board.GCell;
+import ch.heigvd.poo.engine.listeners.BoardEvent;
+import ch.heigvd.poo.engine.listeners.EventBus;
+import ch.heigvd.poo.engine.listeners.SpectatorHub;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventBusTest {
+
+    @Test
+    @DisplayName("test if the events of a batch are delivered together to every subscriber")
+    public void testBatch() {
+        EventBus bus = new EventBus();
+        List<List<BoardEvent>> first = new ArrayList<>();
+        List<List<BoardEvent>> second = new ArrayList<>();
+        bus.subscribe(first::add, EventBus.Delivery.SYNC);
+        bus.subscribe(second::add, EventBus.Delivery.SYNC);
+
+        bus.beginBatch();
+        bus.publish(new BoardEvent.Check(PlayerColor.WHITE));
+        bus.beginBatch();
+        bus.publish(new BoardEvent.TurnChanged(1, PlayerColor.BLACK));
+        bus.commitBatch();
+        assertTrue(first.isEmpty(), "the events should not be delivered before the outermost batch is committed");
+
+        bus.commitBatch();
+        assertEquals(1, first.size(), "the batch should be delivered once");
+        assertEquals(2, first.get(0).size(), "the batch should contain both events");
+        assertEquals(first, second, "every subscriber should receive the same batch");
+    }
+
+    @Test
+    @DisplayName("test if a slow asynchronous subscriber does not block the publisher")
+    public void testAsyncDoesNotBlock() throws InterruptedException {
+        EventBus bus = new EventBus();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch delivered = new CountDownLatch(2);
+        bus.subscribe(events -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            delivered.countDown();
+        }, EventBus.Delivery.ASYNC);
+
+        bus.publish(new BoardEvent.Check(PlayerColor.WHITE));
+        bus.publish(new BoardEvent.Check(PlayerColor.BLACK));
+
+        release.countDown();
+        assertTrue(delivered.await(5, TimeUnit.SECONDS), "the queued batches should be delivered");
+        bus.close();
+    }
+
+    @Test
+    @DisplayName("test if the batches a slow asynchronous subscriber falls behind on are merged")
+    public void testAsyncQueueIsBounded() throws InterruptedException {
+        EventBus bus = new EventBus(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<List<BoardEvent>> received = new CopyOnWriteArrayList<>();
+        bus.subscribe(events -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.add(events);
+        }, EventBus.Delivery.ASYNC);
+
+        // The knight of b1 goes to c3 and back to c3 through b1, the one of g1 goes to f3, the subscriber reading nothing
+        GCell b1 = new GCell(7, 1), c3 = new GCell(5, 2), g1 = new GCell(7, 6), f3 = new GCell(5, 5);
+        GCell[][] moves = {{b1, c3}, {c3, b1}, {g1, f3}, {b1, c3}};
+        for (int i = 0; i < moves.length; i++) {
+            bus.beginBatch();
+            bus.publish(new BoardEvent.PieceRemoved(PieceType.KNIGHT, PlayerColor.WHITE, moves[i][0]));
+            bus.publish(new BoardEvent.PieceAdded(PieceType.KNIGHT, PlayerColor.WHITE, moves[i][1]));
+            bus.publish(new BoardEvent.TurnChanged(i + 1, i % 2 == 0 ? PlayerColor.BLACK : PlayerColor.WHITE));
+            bus.commitBatch();
+            if (i == 0) assertTrue(started.await(5, TimeUnit.SECONDS), "the first batch should be delivered");
+        }
+        release.countDown();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (received.size() < 2 && System.nanoTime() < deadline) Thread.sleep(1);
+        Thread.sleep(10);
+        assertEquals(2, received.size(), "the batches queued behind the first one should be merged");
+        assertEquals(List.of(new BoardEvent.PieceRemoved(PieceType.KNIGHT, PlayerColor.WHITE, g1),
+                        new BoardEvent.PieceAdded(PieceType.KNIGHT, PlayerColor.WHITE, f3),
+                        new BoardEvent.TurnChanged(4, PlayerColor.WHITE)), received.get(1),
+                "the merged batch should only keep the knight that has moved and the latest turn");
+        bus.close();
+    }
+
+    @Test
+    @DisplayName("test if a failing asynchronous subscriber is reported and keeps receiving the next batches")
+    public void testAsyncFailure() throws InterruptedException {
+        EventBus bus = new EventBus();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        CountDownLatch delivered = new CountDownLatch(1);
+        bus.onFailure((subscriber, e) -> failure.set(e));
+        bus.subscribe(events -> {
+            if (events.contains(new BoardEvent.Check(PlayerColor.WHITE))) throw new IllegalStateException("failure");
+            delivered.countDown();
+        }, EventBus.Delivery.ASYNC);
+
+        bus.publish(new BoardEvent.Check(PlayerColor.WHITE));
+        bus.publish(new BoardEvent.Check(PlayerColor.BLACK));
+
+        assertTrue(delivered.await(5, TimeUnit.SECONDS), "the batch after the failure should be delivered");
+        assertNotNull(failure.get(), "the failure should be given to the handler");
+        assertEquals("failure", failure.get().getMessage());
+        bus.close();
+    }
+
+    @Test
+    @DisplayName("test if a failing synchronous subscriber is reported and the next subscribers still get the batch")
+    public void testSyncFailure() {
+        EventBus bus = new EventBus();
+        List<RuntimeException> failures = new ArrayList<>();
+        List<List<BoardEvent>> received = new ArrayList<>();
+        bus.onFailure((subscriber, e) -> failures.add(e));
+        bus.subscribe(events -> {
+            throw new IllegalStateException("failure");
+        }, EventBus.Delivery.SYNC);
+        bus.subscribe(received::add, EventBus.Delivery.SYNC);
+
+        bus.beginBatch();
+        bus.publish(new BoardEvent.Check(PlayerColor.WHITE));
+        bus.publish(new BoardEvent.TurnChanged(1, PlayerColor.BLACK));
+        assertDoesNotThrow(bus::commitBatch, "the failure should not reach the committing thread");
+
+        assertEquals(1, failures.size(), "the failure should be given to the handler");
+        assertEquals("failure", failures.get(0).getMessage());
+        assertEquals(List.of(List.of(new BoardEvent.Check(PlayerColor.WHITE), new BoardEvent.TurnChanged(1, PlayerColor.BLACK))),
+                received, "the subscriber after the failing one should receive the batch");
+
+        bus.publish(new BoardEvent.Check(PlayerColor.BLACK));
+        assertEquals(2, failures.size());
+        assertEquals(2, received.size(), "the next batches should still be delivered");
+        bus.close();
+    }
+
+    @Test
+    @DisplayName("test if a slow spectator receives the latest position instead of every move")
+    public void testSpectatorCoalescing() throws InterruptedException {
+        GBoard board = new GBoard();
+        board.initBoard();
+        try (SpectatorHub hub = new SpectatorHub(board::snapshot, 64)) {
+            board.getEventBus().subscribe(hub, EventBus.Delivery.SYNC);
+            SpectatorHub.Spectator spectator = hub.join(2);
+
+            SpectatorHub.Frame first = spectator.poll(5, TimeUnit.SECONDS);
+            assertNotNull(first);
+            assertTrue(first.isKeyframe(), "the first frame should be the position of the game");
+            assertEquals(board.snapshot(), first.position());
+
+            assertTrue(board.move(6, 0, 5, 2, PlayerColor.WHITE));
+            SpectatorHub.Frame frame = spectator.poll(5, TimeUnit.SECONDS);
+            assertNotNull(frame);
+            assertFalse(frame.isKeyframe(), "a spectator keeping up should receive the delta of each move");
+            assertEquals(2, frame.delta().squares().size(), "the knight should leave a cell for another");
+
+            // Knights back and forth while the spectator reads nothing
+            int[][] moves = {{6, 7, 5, 5}, {5, 2, 6, 0}, {5, 5, 6, 7}, {6, 0, 5, 2}};
+            for (int i = 0; i < 10; i++) {
+                int[] m = moves[i % moves.length];
+                assertTrue(board.move(m[0], m[1], m[2], m[3], i % 2 == 0 ? PlayerColor.BLACK : PlayerColor.WHITE), "move " + i);
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (spectator.lastSequence() != 11 && System.nanoTime() < deadline) Thread.sleep(1);
+
+            List<SpectatorHub.Frame> frames = new ArrayList<>();
+            while ((frame = spectator.poll(0, TimeUnit.SECONDS)) != null) frames.add(frame);
+            assertTrue(frames.size() <= 2, "the queue of the spectator should be bounded");
+            assertTrue(spectator.coalesced() > 0, "the frames the spectator had no time for should be dropped");
+            assertTrue(frames.stream().anyMatch(SpectatorHub.Frame::isKeyframe), "the dropped frames should be replaced by a keyframe");
+            assertEquals(11, frames.get(frames.size() - 1).sequence());
+            assertEquals(board.snapshot(), frames.get(frames.size() - 1).position(), "the spectator should end on the latest position");
+        }
+    }
+}
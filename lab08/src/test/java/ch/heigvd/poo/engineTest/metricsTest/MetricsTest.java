@@ -0,0 +1,86 @@
+package ch.heigvd.poo.engineTest.metricsTest;
+
+import ch.heigvd.poo.chess.ChessView;
+import ch.heigvd.poo.chess.PieceType;
+import ch.heigvd.poo.chess.PlayerColor;
+import ch.heigvd.poo.engine.CEngine;
+import ch.heigvd.poo.engine.metrics.LatencyHistogram;
+import ch.heigvd.poo.engine.metrics.MetricsRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsTest implements ChessView {
+
+    @Test
+    @DisplayName("test if the percentiles of a histogram are close to the recorded values")
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++)
+            histogram.record(value);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100_000, snapshot.count());
+        assertEquals(100_000, snapshot.max());
+        assertEquals(50_000, snapshot.mean());
+        assertEquals(50_000, snapshot.p50(), 50_000 / 64.0);
+        assertEquals(99_000, snapshot.p99(), 99_000 / 64.0);
+        assertEquals(100, histogram.percentile(0.1), "small values have their own bucket");
+
+        histogram.reset();
+        assertEquals(0, histogram.snapshot().p99(), "a reset histogram should be empty");
+    }
+
+    @Test
+    @DisplayName("test if the moves of a game are counted by reason of rejection")
+    public void testMoveCounters() throws Exception {
+        MetricsRegistry metrics = MetricsRegistry.global();
+        Map<String, Long> before = metrics.counters();
+
+        CEngine engine = new CEngine();
+        engine.start(this);
+        engine.newGame();
+        assertTrue(engine.move(4, 1, 4, 3));
+        assertFalse(engine.move(4, 3, 4, 4), "a white pawn cannot move on the turn of black");
+        assertFalse(engine.move(3, 3, 3, 4), "there is no piece on d4");
+
+        Map<String, Long> after = metrics.counters();
+        assertEquals(3, after.get("moves.submitted") - before.getOrDefault("moves.submitted", 0L));
+        assertEquals(1, after.get("moves.accepted") - before.getOrDefault("moves.accepted", 0L));
+        assertEquals(1, after.get("moves.rejected.not_player_piece") - before.getOrDefault("moves.rejected.not_player_piece", 0L));
+        assertEquals(1, after.get("moves.rejected.empty_square") - before.getOrDefault("moves.rejected.empty_square", 0L));
+
+        assertTrue(metrics.gauges().get("games.live") >= 1);
+        assertTrue(metrics.histograms().get("engine.move").count() >= 3);
+        assertTrue(metrics.dump().contains("board.check count="));
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName(MetricsRegistry.OBJECT_NAME)));
+    }
+
+    //leave empty
+    @Override
+    public void startView() {
+    }
+
+    @Override
+    public void removePiece(int x, int y) {
+    }
+
+    @Override
+    public void putPiece(PieceType type, PlayerColor color, int x, int y) {
+    }
+
+    @Override
+    public void displayMessage(String msg) {
+    }
+
+    @SafeVarargs
+    @Override
+    public final <T extends UserChoice> T askUser(String title, String question, T... possibilities) {
+        return possibilities[0];
+    }
+}
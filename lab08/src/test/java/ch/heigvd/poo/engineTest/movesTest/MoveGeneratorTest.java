@@ -0,0 +1,137 @@
+package ch.heigvd.poo.engineTest.movesTest;
+
+import ch.heigvd.poo.chess.PieceType;
+import ch.heigvd.poo.chess.PlayerColor;
+import ch.heigvd.poo.engine.board.GBoard;
+import ch.heigvd.poo.engine.board.Position;
+import ch.heigvd.poo.engine.moves.LegalMoveCache;
+import ch.heigvd.poo.engine.moves.Move;
+import ch.heigvd.poo.engine.moves.MoveGenerator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveGeneratorTest {
+
+    /**
+     * Counts the leaf positions reachable in a number of moves.
+     *
+     * @param position the position to start from
+     * @param depth the number of moves
+     * @return the number of leaf positions
+     */
+    private static long perft(Position position, int depth) {
+        if (depth == 0) return 1;
+
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.legalMoves(position, moves);
+        if (depth == 1) return count;
+
+        long nodes = 0;
+        for (int i = 0; i < count; i++)
+            nodes += perft(position.play(moves[i]), depth - 1);
+        return nodes;
+    }
+
+    @Test
+    @DisplayName("test the number of positions reachable from the starting position")
+    public void testPerftStart() {
+        assertEquals(20, perft(Position.START, 1));
+        assertEquals(400, perft(Position.START, 2));
+        assertEquals(8902, perft(Position.START, 3));
+        assertEquals(197281, perft(Position.START, 4));
+    }
+
+    @Test
+    @DisplayName("test if the position of a new board has the pieces of the starting position")
+    public void testBoardPosition() {
+        GBoard board = new GBoard();
+        board.initBoard();
+        Position position = board.position(PlayerColor.WHITE);
+
+        for (int square = 0; square < 64; square++)
+            assertEquals(Position.START.pieceAt(square), position.pieceAt(square), "square " + square);
+    }
+
+    @Test
+    @DisplayName("test if the snapshot of the board follows the moves and is not changed by the next ones")
+    public void testBoardSnapshot() {
+        GBoard board = new GBoard();
+        board.initBoard();
+        Position start = board.snapshot();
+        assertEquals(PlayerColor.WHITE, start.sideToMove());
+        for (int square = 0; square < 64; square++)
+            assertEquals(Position.START.pieceAt(square), start.pieceAt(square), "square " + square);
+
+        assertTrue(board.move(4, 1, 4, 3, PlayerColor.WHITE));
+        Position afterE4 = board.snapshot();
+        assertEquals(start.play(Move.parse("e2e4")), afterE4);
+        assertEquals(Position.square(4, 2), afterE4.enPassant(), "the pawn can be taken en passant");
+
+        assertTrue(board.move(6, 7, 5, 5, PlayerColor.BLACK));
+        assertEquals(afterE4.play(Move.parse("g8f6")), board.snapshot());
+        assertEquals(start.play(Move.parse("e2e4")), afterE4, "a snapshot should not change");
+
+        assertFalse(board.move(4, 3, 4, 5, PlayerColor.WHITE));
+        assertEquals(afterE4.play(Move.parse("g8f6")), board.snapshot(), "a refused move should not change the snapshot");
+    }
+
+    @Test
+    @DisplayName("test if the destinations of a knight are listed")
+    public void testDestinations() {
+        long destinations = MoveGenerator.destinations(Position.START, Position.square(6, 0));
+        assertEquals(1L << Position.square(5, 2) | 1L << Position.square(7, 2), destinations);
+    }
+
+    @Test
+    @DisplayName("test if a move that leaves the king in check is illegal")
+    public void testPinnedPiece() {
+        byte[] squares = new byte[64];
+        squares[Position.square(4, 0)] = Position.code(PieceType.KING, PlayerColor.WHITE);
+        squares[Position.square(4, 1)] = Position.code(PieceType.ROOK, PlayerColor.WHITE);
+        squares[Position.square(4, 7)] = Position.code(PieceType.QUEEN, PlayerColor.BLACK);
+        Position position = Position.of(squares, PlayerColor.WHITE, 0, Position.NO_SQUARE);
+
+        assertFalse(MoveGenerator.isLegal(position, Move.parse("e2d2")), "the pinned rook cannot leave the column");
+        assertTrue(MoveGenerator.isLegal(position, Move.parse("e2e8")), "the pinned rook can take the queen");
+    }
+
+    @Test
+    @DisplayName("test the cache gives the legal moves and keeps the positions asked often through a scan")
+    public void testLegalMoveCache() {
+        LegalMoveCache cache = new LegalMoveCache(256);
+        int[] cached = new int[MoveGenerator.MAX_MOVES];
+        int[] generated = new int[MoveGenerator.MAX_MOVES];
+
+        // The starting position is asked often, like a popular opening
+        for (int i = 0; i < 5; i++) cache.legalMoves(Position.START, cached);
+        assertEquals(1, cache.misses(), "the moves of the starting position should be generated once");
+
+        // Then thousands of positions are asked once each, more than the cache can hold
+        int scanned = 0;
+        int[] first = new int[MoveGenerator.MAX_MOVES];
+        int[] second = new int[MoveGenerator.MAX_MOVES];
+        int firstCount = MoveGenerator.legalMoves(Position.START, first);
+        for (int i = 0; i < firstCount; i++) {
+            Position next = Position.START.play(first[i]);
+            int secondCount = MoveGenerator.legalMoves(next, second);
+            for (int j = 0; j < secondCount; j++) {
+                Position position = next.play(second[j]);
+                int count = cache.legalMoves(position, cached);
+                assertEquals(MoveGenerator.legalMoves(position, generated), count);
+                assertArrayEquals(Arrays.copyOf(generated, count), Arrays.copyOf(cached, count));
+                scanned++;
+            }
+        }
+        assertEquals(400, scanned);
+
+        long misses = cache.misses();
+        assertEquals(20, cache.legalMoves(Position.START, cached));
+        assertEquals(MoveGenerator.destinations(Position.START, Position.square(6, 0)),
+                cache.destinations(Position.START, Position.square(6, 0)));
+        assertEquals(misses, cache.misses(), "the starting position should have survived the scan");
+    }
+}
@@ -0,0 +1,70 @@
+package ch.heigvd.poo.engineTest.movesTest;
+
+import ch.heigvd.poo.engine.board.Fen;
+import ch.heigvd.poo.engine.board.Position;
+import ch.heigvd.poo.engine.moves.Move;
+import ch.heigvd.poo.engine.moves.San;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SanTest {
+
+    @Test
+    @DisplayName("test if moves are written in standard algebraic notation")
+    public void testFormat() {
+        assertEquals("e4", San.format(Position.START, Move.parse("e2e4")));
+        assertEquals("Nf3", San.format(Position.START, Move.parse("g1f3")));
+
+        Position position = Fen.parse("r3k2r/1P6/8/3pP3/8/8/8/R3K1NR w KQkq d6 0 1");
+        assertEquals("exd6", San.format(position, Move.parse("e5d6")));
+        assertEquals("bxa8=Q+", San.format(position, Move.parse("b7a8q")));
+        assertEquals("b8=N", San.format(position, Move.parse("b7b8n")));
+        assertEquals("O-O-O", San.format(position, Move.parse("e1c1")));
+        assertEquals("Rxa8+", San.format(position, Move.parse("a1a8")));
+
+        Position mate = Fen.parse("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1");
+        assertEquals("Ra8#", San.format(mate, Move.parse("a1a8")));
+    }
+
+    @Test
+    @DisplayName("test if the starting square is given when two pieces can reach the same square")
+    public void testDisambiguation() {
+        Position position = Fen.parse("4k3/7K/8/8/8/8/1N3N2/R6R w - - 0 1");
+        assertEquals("Nbd3", San.format(position, Move.parse("b2d3")));
+        assertEquals("Rad1", San.format(position, Move.parse("a1d1")));
+        assertEquals("Rhd1", San.format(position, Move.parse("h1d1")));
+        assertEquals("Kg7", San.format(position, Move.parse("h7g7")));
+
+        Position lines = Fen.parse("4k3/8/8/R7/8/8/8/R3K3 w - - 0 1");
+        assertEquals("R5a3", San.format(lines, Move.parse("a5a3")));
+    }
+
+    @Test
+    @DisplayName("test if moves are read back from standard algebraic notation")
+    public void testParse() {
+        assertEquals(Move.parse("e2e4"), San.parse(Position.START, "e4"));
+        assertEquals(Move.parse("g1f3"), San.parse(Position.START, "Nf3!"));
+
+        Position position = Fen.parse("r3k2r/1P6/8/3pP3/8/8/8/R3K1NR w KQkq d6 0 1");
+        assertEquals(Move.parse("b7a8q"), San.parse(position, "bxa8=Q+"));
+        assertEquals(Move.parse("e1c1"), San.parse(position, "0-0-0"));
+
+        assertThrows(IllegalArgumentException.class, () -> San.parse(Position.START, "e5"));
+        assertThrows(IllegalArgumentException.class, () -> San.parse(Position.START, "Ke2"));
+    }
+
+    @Test
+    @DisplayName("test if the coordinate notation only promotes to a rook, a knight, a bishop or a queen")
+    public void testParseCoordinates() {
+        assertEquals(Move.of(Position.square(4, 1), Position.square(4, 3)), Move.parse("e2e4"));
+        for (String piece : new String[]{"r", "n", "b", "q"})
+            assertEquals("b7a8" + piece, Move.toString(Move.parse("b7a8" + piece.toUpperCase())));
+
+        assertThrows(IllegalArgumentException.class, () -> Move.parse("b7a8p"), "a pawn stays a pawn");
+        assertThrows(IllegalArgumentException.class, () -> Move.parse("b7a8k"), "a pawn cannot become a king");
+        assertThrows(IllegalArgumentException.class, () -> Move.parse("b7a8x"));
+        assertThrows(IllegalArgumentException.class, () -> Move.parse("b7a9"));
+    }
+}
@@ -0,0 +1,521 @@
+package ch.heigvd.poo.engineTest.searchTest;
+
+import ch.heigvd.poo.chess.ChessController;
+import ch.heigvd.poo.chess.ChessView;
+import ch.heigvd.poo.chess.PieceType;
+import ch.heigvd.poo.chess.PlayerColor;
+import ch.heigvd.poo.engine.CEngine;
+import ch.heigvd.poo.engine.board.Fen;
+import ch.heigvd.poo.engine.board.Position;
+import ch.heigvd.poo.engine.metrics.MetricsRegistry;
+import ch.heigvd.poo.engine.moves.Move;
+import ch.heigvd.poo.engine.moves.MoveGenerator;
+import ch.heigvd.poo.engine.search.AiOpponent;
+import ch.heigvd.poo.engine.search.AiPlayer;
+import ch.heigvd.poo.engine.search.AnalysisCache;
+import ch.heigvd.poo.engine.search.Evaluator;
+import ch.heigvd.poo.engine.search.MateSolver;
+import ch.heigvd.poo.engine.search.MultiPvSearch;
+import ch.heigvd.poo.engine.search.Searcher;
+import ch.heigvd.poo.engine.search.See;
+import ch.heigvd.poo.engine.search.TranspositionTable;
+import ch.heigvd.poo.tools.BatchAnalysis;
+import ch.heigvd.poo.tools.PuzzleExtractor;
+import ch.heigvd.poo.tools.TexelTuner;
+import ch.heigvd.poo.tools.Tournament;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearcherTest {
+
+    @Test
+    @DisplayName("test if a position is written and read back in FEN")
+    public void testFen() {
+        String start = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+        assertEquals(start, Fen.format(Position.START));
+        assertEquals(start, Fen.format(Fen.parse(start)));
+
+        String epd = "r3k2r/8/8/3pP3/8/8/8/R3K2R w Kq d6 bm e5d6; id \"en passant\";";
+        assertEquals("r3k2r/8/8/3pP3/8/8/8/R3K2R w Kq d6 0 1", Fen.format(Fen.parse(epd)));
+
+        assertThrows(IllegalArgumentException.class, () -> Fen.parse("8/8/8 w - -"));
+        assertThrows(IllegalArgumentException.class, () -> Fen.parse("rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"));
+    }
+
+    @Test
+    @DisplayName("test if a mate in one is found")
+    public void testMateInOne() {
+        Searcher.Result result = new Searcher().search(Fen.parse("6k1/5ppp/8/8/8/8/5PPP/R5K1 w - - 0 1"), 4, Long.MAX_VALUE);
+        assertEquals("a1a8", Move.toString(result.move()));
+        assertTrue(result.isMate());
+        assertEquals(Searcher.MATE - 1, result.score());
+    }
+
+    @Test
+    @DisplayName("test if a piece left unprotected is taken")
+    public void testCapture() {
+        Searcher.Result result = new Searcher().search(Fen.parse("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1"), 3, Long.MAX_VALUE);
+        assertEquals("d2d5", Move.toString(result.move()));
+    }
+
+    @Test
+    @DisplayName("test if a position without legal move gives no move")
+    public void testNoMove() {
+        Searcher.Result mated = new Searcher().search(Fen.parse("R5k1/5ppp/8/8/8/8/5PPP/6K1 b - - 0 1"), 2, Long.MAX_VALUE);
+        assertEquals(Move.NONE, mated.move());
+        assertEquals(-Searcher.MATE, mated.score());
+
+        Searcher.Result stalemate = new Searcher().search(Fen.parse("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1"), 2, Long.MAX_VALUE);
+        assertEquals(Move.NONE, stalemate.move());
+        assertEquals(0, stalemate.score());
+    }
+
+    @Test
+    @DisplayName("test if the first iteration is completed whatever the node budget")
+    public void testNodeBudget() {
+        Searcher.Result result = new Searcher().search(Position.START, Searcher.MAX_PLY, 1);
+        assertNotEquals(Move.NONE, result.move());
+        assertEquals(1, result.depth());
+    }
+
+    @Test
+    @DisplayName("test if two AI players can play a game without any view")
+    public void testAiPlayersWithoutView() {
+        CEngine engine = new CEngine();
+        engine.newGame();
+        AiPlayer player = new AiPlayer("AI", Evaluator.DEFAULT, 2, Long.MAX_VALUE);
+
+        for (int ply = 0; ply < 6; ply++) {
+            Position before = engine.position();
+            assertNotEquals(Move.NONE, player.play(engine, before));
+            assertNotEquals(before.sideToMove(), engine.position().sideToMove(), "the move should be played on the board");
+        }
+    }
+
+    @Test
+    @DisplayName("test if a move refused by the controller is left out")
+    public void testRefusedMove() {
+        List<String> tried = new ArrayList<>();
+        ChessController refusesFirstMove = new ChessController() {
+            @Override
+            public void start(ChessView view) {
+            }
+
+            @Override
+            public boolean move(int fromX, int fromY, int toX, int toY) {
+                tried.add(Move.toString(Move.of(Position.square(fromX, fromY), Position.square(toX, toY))));
+                return tried.size() > 1;
+            }
+
+            @Override
+            public void newGame() {
+            }
+        };
+
+        Position position = Fen.parse("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1");
+        int move = new AiPlayer("AI", Evaluator.DEFAULT, 3, Long.MAX_VALUE).play(refusesFirstMove, position);
+        assertEquals("d2d5", tried.get(0));
+        assertEquals(2, tried.size());
+        assertNotEquals("d2d5", Move.toString(move));
+    }
+
+    @Test
+    @DisplayName("test if an AI player interrupted before finding a move gives up instead of trying the same move again")
+    public void testInterruptedPlayer() {
+        List<String> tried = new ArrayList<>();
+        ChessController refusesAll = new ChessController() {
+            @Override
+            public void start(ChessView view) {
+            }
+
+            @Override
+            public boolean move(int fromX, int fromY, int toX, int toY) {
+                tried.add(Move.toString(Move.of(Position.square(fromX, fromY), Position.square(toX, toY))));
+                return false;
+            }
+
+            @Override
+            public void newGame() {
+            }
+        };
+
+        // The first iteration visits more nodes than the interval between two checks of the interruption
+        Position position = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        AiPlayer player = new AiPlayer("AI", Evaluator.DEFAULT, 5, Long.MAX_VALUE);
+        int move = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            Thread.currentThread().interrupt();
+            return player.play(refusesAll, position);
+        });
+        assertEquals(Move.NONE, move);
+        assertEquals(List.of(), tried, "no move should be given to the controller");
+    }
+
+    @Test
+    @DisplayName("test if a tournament whose games cannot be written fails instead of returning part of its results")
+    public void testTournamentFailure() {
+        Writer failing = new Writer() {
+            @Override
+            public void write(char[] buffer, int offset, int length) throws IOException {
+                throw new IOException("disk full");
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Tournament tournament = new Tournament("depth=1", "depth=1", List.of(), 4, 1, 20, failing);
+        IOException e = assertThrows(IOException.class, () -> tournament.run(8, 2, null, 0.05, 0.05));
+        assertEquals("disk full", e.getMessage());
+    }
+
+    @Test
+    @DisplayName("test if an interrupted search stops")
+    public void testInterruptedSearch() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Searcher.Result> search = executor.submit(() -> new Searcher().search(Position.START, Searcher.MAX_PLY, Long.MAX_VALUE));
+            Thread.sleep(100);
+            search.cancel(true);
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS), "the search should stop once interrupted");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("test if the cache does not keep a search cut short by an interruption")
+    public void testAnalysisCacheInterrupted() {
+        AnalysisCache cache = new AnalysisCache(16, 4, Long.MAX_VALUE);
+        Searcher searcher = new Searcher();
+
+        // The search checks the interruption every 1024 nodes, within its third iteration
+        Thread.currentThread().interrupt();
+        Searcher.Result partial = cache.analyse(Position.START, searcher);
+        assertTrue(Thread.interrupted(), "the interrupted status should be kept");
+        assertTrue(partial.depth() < 4, "the search should have been cut short");
+
+        Searcher.Result result = cache.analyse(Position.START, searcher);
+        assertEquals(4, result.depth(), "the position should be searched again");
+        assertEquals(2, cache.misses());
+        assertSame(result, cache.analyse(Position.START, searcher), "the complete search should be kept");
+        assertEquals(1, cache.hits());
+    }
+
+    @Test
+    @DisplayName("test if the AI opponent answers the moves of the user and ponders on its time")
+    public void testAiOpponent() throws InterruptedException {
+        CEngine engine = new CEngine();
+        AiOpponent opponent = new AiOpponent(engine, PlayerColor.BLACK, Evaluator.DEFAULT, 2, Long.MAX_VALUE, 1_000_000);
+        opponent.newGame();
+        assertEquals(PlayerColor.WHITE, engine.position().sideToMove());
+        assertFalse(opponent.move(4, 6, 4, 4), "the user does not play black");
+
+        assertTrue(opponent.move(4, 1, 4, 3));
+        assertEquals(PlayerColor.WHITE, engine.position().sideToMove(), "the engine should have answered");
+
+        // Once the engine has guessed the next move of the user, that move is answered from the pondering
+        long deadline = System.currentTimeMillis() + 5000;
+        int expected;
+        while ((expected = opponent.expectedMove()) == Move.NONE && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertNotEquals(Move.NONE, expected);
+        assertTrue(opponent.ponderNodesLeft() < 1_000_000);
+
+        long hits = MetricsRegistry.global().counters().get("ponder.hits");
+        int from = Move.from(expected);
+        int to = Move.to(expected);
+        assertTrue(opponent.move(Position.row(from), Position.col(from), Position.row(to), Position.col(to)));
+        assertEquals(PlayerColor.WHITE, engine.position().sideToMove(), "the engine should have answered");
+        assertEquals(hits + 1, (long) MetricsRegistry.global().counters().get("ponder.hits"));
+    }
+
+    @Test
+    @DisplayName("test if the opponent takes back its answer with the move of the user and stops pondering once closed")
+    public void testAiOpponentUndo() {
+        try (CEngine engine = new CEngine()) {
+            AiOpponent opponent = new AiOpponent(engine, PlayerColor.BLACK, Evaluator.DEFAULT, 1, Long.MAX_VALUE, 1_000_000);
+            opponent.newGame();
+            assertFalse(opponent.undo(), "the user has not played yet");
+            assertTrue(opponent.move(4, 1, 4, 3));
+            assertEquals(2, engine.ply(), "the engine should have answered");
+
+            assertTrue(opponent.undo());
+            assertEquals(0, engine.ply(), "the answer should be taken back with the move of the user");
+            assertTrue(opponent.redo());
+            assertEquals(2, engine.ply(), "the answer should be played again with the move of the user");
+            assertFalse(opponent.redo());
+            assertTrue(opponent.seek(1));
+            assertEquals(0, engine.ply(), "the engine is to move after one ply");
+
+            opponent.close();
+            assertEquals(Move.NONE, opponent.expectedMove(), "a closed opponent does not ponder");
+            assertTrue(opponent.move(4, 1, 4, 3), "a closed opponent still answers");
+            assertEquals(2, engine.ply());
+            assertEquals(Move.NONE, opponent.expectedMove());
+        }
+    }
+
+    @Test
+    @DisplayName("test if transposed positions share their entry of the transposition table")
+    public void testTranspositionTable() {
+        Position viaKnights = Position.START.play(Move.parse("g1f3")).play(Move.parse("g8f6")).play(Move.parse("b1c3"));
+        Position viaQueenSide = Position.START.play(Move.parse("b1c3")).play(Move.parse("g8f6")).play(Move.parse("g1f3"));
+        assertEquals(viaKnights.key(), viaQueenSide.key());
+        assertNotEquals(Position.START.key(), viaKnights.key());
+
+        TranspositionTable table = new TranspositionTable(1);
+        assertNull(table.probe(viaKnights));
+        table.store(viaKnights, Move.parse("e7e5"), -35, 4, TranspositionTable.EXACT);
+        assertEquals(new TranspositionTable.Entry(Move.parse("e7e5"), -35, 4, TranspositionTable.EXACT), table.probe(viaQueenSide));
+
+        // A shallower result of the same position does not replace a deeper one
+        table.store(viaKnights, Move.parse("d7d5"), 10, 2, TranspositionTable.LOWER);
+        assertEquals(4, table.probe(viaKnights).depth());
+        table.clear();
+        assertNull(table.probe(viaKnights));
+    }
+
+    @Test
+    @DisplayName("test if the multi-PV search gives the best moves in order, with their variations")
+    public void testMultiPv() throws InterruptedException {
+        Position position = Fen.parse("r1bqkbnr/pppp1ppp/2n5/4p3/2B1P3/5Q2/PPPP1PPP/RNB1K1NR w KQkq - 4 4");
+        List<Integer> depths = new ArrayList<>();
+        MultiPvSearch search = new MultiPvSearch(Evaluator.DEFAULT, new TranspositionTable(4), 2);
+        List<MultiPvSearch.Line> lines = search.analyse(position, 3, 4, found -> depths.add(found.get(0).depth()));
+
+        assertEquals(List.of(1, 2, 3, 4), depths);
+        assertEquals(3, lines.size());
+        assertEquals("f3f7", Move.toString(lines.get(0).move()));
+        assertTrue(lines.get(0).isMate());
+        for (int i = 1; i < lines.size(); i++) {
+            assertTrue(lines.get(i - 1).score() >= lines.get(i).score(), "the lines should be sorted");
+            assertEquals(lines.get(i).move(), lines.get(i).pv()[0]);
+        }
+        assertEquals(new Searcher().search(position, 4, Long.MAX_VALUE).score(), lines.get(0).score());
+
+        List<MultiPvSearch.Line> single = new MultiPvSearch(Evaluator.DEFAULT, new TranspositionTable(1), 1)
+                .analyse(Fen.parse("7k/8/6K1/8/8/8/8/7R b - - 0 1"), 3, 2, null);
+        assertEquals(1, single.size(), "there is only one legal move");
+    }
+
+    @Test
+    @DisplayName("test if the mate solver proves the shortest mate and gives its line")
+    public void testMateSolver() {
+        Position position = Fen.parse("r5rk/5p1p/5R2/4B3/8/8/7P/7K w - - 0 1");
+        for (boolean checksOnly : new boolean[]{false, true}) {
+            MateSolver.Result result = new MateSolver(1 << 16, checksOnly).solve(position, 4, 1_000_000);
+            assertEquals(MateSolver.Status.MATE, result.status());
+            assertEquals(3, result.moves());
+            assertEquals("f6a6", Move.toString(result.move()));
+
+            Position end = position;
+            for (int move : result.line()) end = end.play(move);
+            assertEquals(5, result.line().length);
+            assertTrue(MoveGenerator.inCheck(end));
+            assertEquals(0, MoveGenerator.legalMoves(end, new int[MoveGenerator.MAX_MOVES]), "the line should end with a mate");
+        }
+
+        assertEquals(MateSolver.Status.UNKNOWN, new MateSolver(1 << 16, false).solve(position, 4, 10).status());
+    }
+
+    @Test
+    @DisplayName("test if the mate solver disproves a mate that the defender escapes")
+    public void testNoMate() {
+        // The back rank mate fails, the rook of c8 guards the first rank
+        MateSolver solver = new MateSolver(1 << 16, false);
+        MateSolver.Result result = solver.solve(Fen.parse("2r3k1/5ppp/8/8/8/8/5PPP/3R2K1 w - - 0 1"), 2, 1_000_000);
+        assertEquals(MateSolver.Status.NO_MATE, result.status());
+        assertEquals(Move.NONE, result.move());
+
+        // The queen alone gives checks, but no mate
+        assertEquals(MateSolver.Status.NO_MATE, solver.solve(Fen.parse("k7/8/1Q6/8/8/8/8/K7 w - - 0 1"), 1, 1_000_000).status());
+    }
+
+    @Test
+    @DisplayName("test if the mate solver only looks for the mates starting with the moves given")
+    public void testMateSolverMoves() {
+        MateSolver solver = new MateSolver(1 << 16, false);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+        // Only Ra6 mates in three, the other moves do not
+        Position position = Fen.parse("r5rk/5p1p/5R2/4B3/8/8/7P/7K w - - 0 1");
+        int count = MoveGenerator.legalMoves(position, moves);
+        MateSolver.Result result = solver.solve(position, moves, count, 4, 1_000_000);
+        assertEquals(MateSolver.Status.MATE, result.status());
+        assertEquals(3, result.moves());
+        assertEquals("f6a6", Move.toString(result.move()));
+        assertEquals(5, result.line().length);
+        int[] others = removed(moves, count, Move.parse("f6a6"));
+        assertEquals(MateSolver.Status.NO_MATE, solver.solve(position, others, count - 1, 4, 1_000_000).status());
+
+        // Both rooks mate on the back rank
+        position = Fen.parse("6k1/5ppp/8/8/8/8/8/R3R1K1 w - - 0 1");
+        count = MoveGenerator.legalMoves(position, moves);
+        others = removed(moves, count, Move.parse("a1a8"));
+        result = solver.solve(position, others, count - 1, 2, 1_000_000);
+        assertEquals(MateSolver.Status.MATE, result.status());
+        assertEquals(1, result.moves());
+        assertEquals("e1e8", Move.toString(result.move()));
+    }
+
+    /**
+     * Copies a list of moves without one of them.
+     *
+     * @param moves the moves
+     * @param count the number of moves
+     * @param move the move to leave out, which must be in the list
+     * @return the other moves
+     */
+    private static int[] removed(int[] moves, int count, int move) {
+        int[] others = new int[count - 1];
+        int size = 0;
+        for (int i = 0; i < count; i++)
+            if (moves[i] != move) others[size++] = moves[i];
+        assertEquals(count - 1, size, "the move should be in the list");
+        return others;
+    }
+
+    @Test
+    @DisplayName("test if the static exchange evaluation counts the whole exchange")
+    public void testSee() {
+        assertEquals(900, See.evaluate(Fen.parse("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1"), Move.parse("d2d5"), Evaluator.DEFAULT));
+        assertEquals(-800, See.evaluate(Fen.parse("4k3/8/4p3/3p4/8/8/8/3QK3 w - - 0 1"), Move.parse("d1d5"), Evaluator.DEFAULT));
+        // The rook of d8 defends through the rook of d7
+        assertEquals(-400, See.evaluate(Fen.parse("3rk3/3r4/8/3p4/8/8/3R4/3RK3 w - - 0 1"), Move.parse("d2d5"), Evaluator.DEFAULT));
+        assertEquals(-320, See.evaluate(Fen.parse("4k3/8/4p3/8/8/2N5/8/4K3 w - - 0 1"), Move.parse("c3d5"), Evaluator.DEFAULT));
+        assertEquals(0, See.evaluate(Position.START, Move.parse("e2e4"), Evaluator.DEFAULT));
+    }
+
+    @Test
+    @DisplayName("test if a batch analysis whose results cannot be written fails instead of waiting forever")
+    public void testBatchAnalysisFailure() throws IOException {
+        Path positions = Files.createTempFile("positions", ".epd");
+        positions.toFile().deleteOnExit();
+        Files.writeString(positions, (Fen.format(Position.START) + "\n").repeat(20));
+        Writer full = new Writer() {
+            @Override
+            public void write(char[] buffer, int offset, int length) throws IOException {
+                throw new IOException("disk full");
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        IOException e = assertTimeoutPreemptively(Duration.ofSeconds(30), () -> assertThrows(IOException.class,
+                () -> BatchAnalysis.analyse(positions, full, 1, Long.MAX_VALUE, 0, false, 2, 2, new LongAdder())));
+        assertEquals("disk full", e.getMessage());
+    }
+
+    @Test
+    @DisplayName("test if a puzzle is extracted from a game, once")
+    public void testPuzzleExtraction() throws IOException, InterruptedException {
+        Path games = Files.createTempFile("games", ".txt");
+        games.toFile().deleteOnExit();
+        // The same game twice: the puzzle of the second one is a duplicate
+        Files.writeString(games, "e2e4 e7e5 f1c4 b8c6 d1h5 g8f6 h5f7\ne2e4 e7e5 f1c4 b8c6 d1h5 g8f6\n");
+
+        StringWriter out = new StringWriter();
+        PuzzleExtractor.Statistics statistics = PuzzleExtractor.extract(games, out,
+                new PuzzleExtractor.Settings(3, 100_000, 250, 1024), 2);
+        assertEquals(2, statistics.games());
+        assertEquals(15, statistics.positions());
+        assertEquals(1, statistics.puzzles());
+        assertTrue(statistics.duplicates() > 0);
+        assertTrue(out.toString().startsWith("r1bqkb1r/pppp1ppp/2n2n2/4p2Q/2B1P3/8/PPPP1PPP/RNB1K1NR w"), out.toString());
+        assertTrue(out.toString().contains("bm Qxf7#; pv Qxf7#;"), out.toString());
+    }
+
+    @Test
+    @DisplayName("test if a mate proved by the solver is kept as the solution of a shallow extraction")
+    public void testPuzzleExtractionMate() throws IOException, InterruptedException {
+        Path games = Files.createTempFile("games", ".txt");
+        games.toFile().deleteOnExit();
+        // Legal's mate: white is a queen down, but mates in two with Bxf7+ Ke7 Nd5#
+        Files.writeString(games, "e2e4 e7e5 g1f3 d7d6 f1c4 c8g4 b1c3 g7g6 f3e5 g4d1 c4f7 e8e7 c3d5\n");
+
+        StringWriter out = new StringWriter();
+        PuzzleExtractor.extract(games, out, new PuzzleExtractor.Settings(2, 100_000, 250, 1024), 1);
+        assertTrue(out.toString().contains("bm Bxf7+; pv Bxf7+ Ke7 Nd5#; ce " + (Searcher.MATE - 3) + "; dm 2;"),
+                out.toString());
+    }
+
+    @Test
+    @DisplayName("test if the tuner scores the quiet positions as the evaluator does and lowers the error")
+    public void testTexelTuner() throws IOException {
+        String[] quiet = {
+                "4k3/8/8/8/8/8/PPPP4/4K3 w - - 0 1 \"1-0\"",
+                "4k3/pppp4/8/8/8/8/8/4K3 b - - 0 1 [0.0]",
+                "4k3/8/8/8/8/8/8/3QK3 w - - 0 1 c9 \"1-0\";",
+                "3qk3/8/8/8/8/8/8/4K3 w - - 0 1 0-1",
+                // A lone minor piece cannot win: the tuner should lower the knight
+                "4k3/8/8/8/8/8/8/2N1K3 w - - 0 1 1/2-1/2",
+                "2n1k3/8/8/8/8/8/8/4K3 b - - 0 1 [0.5]"};
+        Path positions = Files.createTempFile("positions", ".epd");
+        positions.toFile().deleteOnExit();
+        Files.writeString(positions, String.join("\n", quiet) + "\n"
+                // The queen is taken for free, the king is in check, and a line without result
+                + "4k3/8/8/3q4/8/8/8/3RK3 w - - 0 1 1-0\n"
+                + "4k3/8/8/8/8/8/8/4K2r w - - 0 1 0-1\n"
+                + "4k3/8/8/8/8/8/8/3QK3 w - - 0 1\n");
+
+        TexelTuner.Samples samples = TexelTuner.readPositions(positions);
+        assertEquals(quiet.length, samples.size());
+
+        int[] weights = new int[Evaluator.WEIGHTS];
+        Random random = new Random(7);
+        for (int i = 0; i < weights.length; i++) weights[i] = random.nextInt(1000) - 500;
+        Evaluator evaluator = new Evaluator(weights);
+        double[] tuned = new double[weights.length];
+        for (int i = 0; i < weights.length; i++) tuned[i] = weights[i];
+        for (int i = 0; i < quiet.length; i++) {
+            Position position = Fen.parse(quiet[i]);
+            int score = evaluator.evaluate(position);
+            assertEquals(position.sideToMove() == PlayerColor.WHITE ? score : -score, samples.evaluate(i, tuned));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            TexelTuner tuner = new TexelTuner(samples, pool);
+            int[] defaults = Evaluator.defaultWeights();
+            for (int i = 0; i < defaults.length; i++) tuned[i] = defaults[i];
+            double scale = tuner.fitScale(tuned);
+            double before = tuner.error(tuned, scale);
+            double[] first = new double[tuned.length];
+            double[] second = new double[tuned.length];
+            for (int epoch = 1; epoch <= 100; epoch++) tuner.step(tuned, scale, 5, epoch, first, second);
+            assertTrue(tuner.error(tuned, scale) < before / 2, "the error should be lowered");
+            assertTrue(tuned[PieceType.KNIGHT.ordinal()] < Evaluator.DEFAULT.value(PieceType.KNIGHT), "the knight should be worth less");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}